@@ -4,28 +4,56 @@
 -- Enable pgvector extension (available in pgvector/pgvector image)
 CREATE EXTENSION IF NOT EXISTS vector;
 
+-- Dictionary tables for low-cardinality bid attributes (see DimensionValue.java)
+CREATE TABLE IF NOT EXISTS dim_domain (
+    id SERIAL PRIMARY KEY,
+    value VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS dim_app_bundle (
+    id SERIAL PRIMARY KEY,
+    value VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS dim_os (
+    id SERIAL PRIMARY KEY,
+    value VARCHAR(50) NOT NULL UNIQUE
+);
+
 -- Create the bid_records table matching BidRecord.java entity
 CREATE TABLE IF NOT EXISTS bid_records (
     id BIGSERIAL PRIMARY KEY,
     bid_request_id VARCHAR(255) NOT NULL,
-    domain VARCHAR(255),
-    app_bundle VARCHAR(255),
+    domain_id INTEGER REFERENCES dim_domain(id),
+    app_bundle_id INTEGER REFERENCES dim_app_bundle(id),
     ip VARCHAR(45),  -- IPv6 max length
-    os VARCHAR(50),
+    os_id INTEGER REFERENCES dim_os(id),
     limit_ad_tracking BOOLEAN DEFAULT FALSE,
+    event_time TIMESTAMP WITH TIME ZONE,  -- receive time from the receiver's received-at header
     processed_at TIMESTAMP WITH TIME ZONE DEFAULT NOW(),
     request_embedding vector(384) -- Common dimension for lightweight models
 );
 
 -- Create indexes for common query patterns
 CREATE INDEX IF NOT EXISTS idx_bid_records_request_id ON bid_records(bid_request_id);
-CREATE INDEX IF NOT EXISTS idx_bid_records_domain ON bid_records(domain);
+CREATE INDEX IF NOT EXISTS idx_bid_records_domain_id ON bid_records(domain_id);
 CREATE INDEX IF NOT EXISTS idx_bid_records_processed_at ON bid_records(processed_at);
+CREATE INDEX IF NOT EXISTS idx_bid_records_event_time ON bid_records(event_time);
 CREATE INDEX IF NOT EXISTS idx_bid_records_embedding ON bid_records USING hnsw (request_embedding vector_cosine_ops);
 
+-- Readable view for ad-hoc queries; group-bys should prefer the key columns.
+CREATE OR REPLACE VIEW bid_records_expanded AS
+SELECT b.id, b.bid_request_id, d.value AS domain, a.value AS app_bundle, b.ip, o.value AS os,
+       b.limit_ad_tracking, b.processed_at, b.event_time
+FROM bid_records b
+LEFT JOIN dim_domain d ON d.id = b.domain_id
+LEFT JOIN dim_app_bundle a ON a.id = b.app_bundle_id
+LEFT JOIN dim_os o ON o.id = b.os_id;
+
 -- Grant permissions to the application user
-GRANT ALL PRIVILEGES ON TABLE bid_records TO "user";
-GRANT USAGE, SELECT ON SEQUENCE bid_records_id_seq TO "user";
+GRANT ALL PRIVILEGES ON TABLE bid_records, dim_domain, dim_app_bundle, dim_os TO "user";
+GRANT SELECT ON bid_records_expanded TO "user";
+GRANT USAGE, SELECT ON SEQUENCE bid_records_id_seq, dim_domain_id_seq, dim_app_bundle_id_seq, dim_os_id_seq TO "user";
 
 -- Log completion
 DO $$
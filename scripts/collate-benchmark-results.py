@@ -19,6 +19,7 @@ MODE_COMPARISON_META_KEYS = (
     "git_sha",
     "uname",
     "services",
+    "sweep",
     "vus",
     "rate",
     "duration",
@@ -608,6 +609,10 @@ def write_summary_markdown(
         f"- kafka topic: {meta.get('kafka_topic', 'unknown')} ({meta.get('kafka_topic_partitions', 'unknown')} partitions, rf {meta.get('kafka_topic_replication_factor', 'unknown')}, min ISR {meta.get('kafka_topic_min_isr', 'unknown')})",
         f"- kafka producer tuning: linger {meta.get('kafka_linger_ms', 'unknown')} ms, batch {meta.get('kafka_batch_bytes', 'unknown')} bytes, request timeout {meta.get('kafka_request_timeout_ms', 'unknown')} ms, retry backoff {meta.get('kafka_retry_backoff_ms', 'unknown')} ms, retries {meta.get('kafka_retries', 'unknown')} when supported",
         f"- services: {meta.get('services', 'unknown')}",
+    ]
+    if meta.get("sweep"):
+        lines.append(f"- sweep: {meta['sweep']}")
+    lines += [
         f"- workload: {meta.get('vus', 'unknown')} VUs for {meta.get('duration', 'unknown')} (warmup {meta.get('warmup_duration', 'unknown')})",
         f"- receiver budget: {meta.get('receiver_cpus', 'unknown')} CPU / {meta.get('receiver_memory', 'unknown')}",
         f"- kafka budget: {meta.get('kafka_cpus', 'unknown')} CPU / {meta.get('kafka_memory', 'unknown')}",
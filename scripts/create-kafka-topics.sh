@@ -4,6 +4,9 @@ set -euo pipefail
 BOOTSTRAP_SERVER="${KAFKA_INTERNAL_BOOTSTRAP_SERVERS:-kafka:29092}"
 BENCHMARK_TOPIC="${BENCHMARK_KAFKA_TOPIC:-bids}"
 DLQ_TOPIC="${KAFKA_DLQ_TOPIC:-bids-dlq}"
+FANOUT="${BENCHMARK_KAFKA_FANOUT:-none}"
+IMPRESSION_TOPIC="${BENCHMARK_KAFKA_IMPRESSION_TOPIC:-bid-impressions}"
+SHADOW_TOPIC="${BENCHMARK_KAFKA_SHADOW_TOPIC:-}"
 TOPIC_PARTITIONS="${BENCHMARK_KAFKA_TOPIC_PARTITIONS:-3}"
 TOPIC_REPLICATION_FACTOR="${BENCHMARK_KAFKA_TOPIC_REPLICATION_FACTOR:-1}"
 TOPIC_MIN_ISR="${BENCHMARK_KAFKA_TOPIC_MIN_ISR:-1}"
@@ -64,6 +67,12 @@ wait_for_kafka
 echo "Ensuring Kafka topics are present and configured..."
 ensure_topic "${BENCHMARK_TOPIC}" "${TOPIC_RETENTION_MS}"
 ensure_topic "${DLQ_TOPIC}" "${DLQ_RETENTION_MS}"
+if [[ "${FANOUT}" == "impressions" ]]; then
+  ensure_topic "${IMPRESSION_TOPIC}" "${TOPIC_RETENTION_MS}"
+fi
+if [[ -n "${SHADOW_TOPIC}" ]]; then
+  ensure_topic "${SHADOW_TOPIC}" "${TOPIC_RETENTION_MS}"
+fi
 
 echo "Kafka topics ready:"
 kafka-topics --bootstrap-server "${BOOTSTRAP_SERVER}" --list
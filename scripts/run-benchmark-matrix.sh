@@ -137,7 +137,9 @@ service_url() {
     rust-receiver) echo "http://localhost:8073" ;;
     python-receiver) echo "http://localhost:8075" ;;
     spring-receiver) echo "http://localhost:8076" ;;
+    spring-receiver-native) echo "http://localhost:8079" ;;
     spring-virtual-receiver) echo "http://localhost:8078" ;;
+    spring-virtual-receiver-native) echo "http://localhost:8081" ;;
     node-receiver) echo "http://localhost:8077" ;;
     *)
       echo "Unknown service: $1" >&2
@@ -156,9 +158,46 @@ apply_cpuset_if_requested() {
   docker update --cpuset-cpus "$cpuset" "$(container_id_for "$service")" >/dev/null
 }
 
+# Expands BENCHMARK_SWEEP, e.g. "BENCHMARK_NETTY_TRANSPORT=nio,epoll BENCHMARK_NETTY_ACCEPTORS=1,2",
+# into one line per combination of values, each a list of NAME=value assignments. Without
+# a sweep there is a single, empty combination.
+sweep_combinations() {
+  local combinations=("")
+  local entry
+  for entry in ${BENCHMARK_SWEEP:-}; do
+    local name="${entry%%=*}"
+    local values=()
+    local next=()
+    IFS=',' read -r -a values <<<"${entry#*=}"
+    local combination value
+    for combination in "${combinations[@]}"; do
+      for value in "${values[@]}"; do
+        next+=("${combination:+$combination }$name=$value")
+      done
+    done
+    combinations=("${next[@]}")
+  done
+  printf '%s\n' "${combinations[@]}"
+}
+
+# Result name for a service under one sweep combination, e.g.
+# spring-receiver+netty-transport-epoll. Results of each combination are collated separately.
+sweep_label() {
+  local label="$1"
+  local assignment
+  for assignment in $2; do
+    local name="${assignment%%=*}"
+    name="${name#BENCHMARK_}"
+    name="$(echo "$name" | tr '[:upper:]_' '[:lower:]-')"
+    label="$label+$name-${assignment#*=}"
+  done
+  echo "$label"
+}
+
 capture_container_inspect() {
   local service="$1"
-  docker inspect "$(container_id_for "$service")" >"$OUT_DIR/$service-container-inspect.json"
+  local label="${2:-$1}"
+  docker inspect "$(container_id_for "$service")" >"$OUT_DIR/$label-container-inspect.json"
 }
 
 start_stats_capture() {
@@ -176,6 +215,8 @@ stop_stats_capture() {
 
 trap cleanup EXIT
 
+mapfile -t SWEEP_COMBINATIONS < <(sweep_combinations)
+
 cat >"$OUT_DIR/run-meta.txt" <<EOF
 timestamp=$(date -Iseconds)
 git_sha=$(git rev-parse HEAD)
@@ -183,6 +224,7 @@ uname=$(uname -a)
 docker_version=$(docker version --format '{{.Server.Version}}')
 compose_version=$(docker compose version --short)
 services=${SERVICES[*]}
+sweep=${BENCHMARK_SWEEP:-}
 delivery_mode=$DELIVERY_MODE
 kafka_acks=${BENCHMARK_KAFKA_ACKS}
 kafka_enabled=$(if benchmark_uses_kafka; then echo true; else echo false; fi)
@@ -236,58 +278,67 @@ fi
 for service in "${SERVICES[@]}"; do
   base_url="$(service_url "$service")"
 
-  echo "==> benchmarking $service at $base_url"
-  if benchmark_uses_kafka; then
-    docker compose up -d "$service"
-  else
-    docker compose up -d --no-deps "$service"
-  fi
-  wait_for_compose_health "$service"
-  apply_cpuset_if_requested "$service" "$BENCHMARK_RECEIVER_CPUSET"
-  capture_container_inspect "$service"
-
-  if [[ "$WARMUP_DURATION" != "0s" ]]; then
-    BASE_URL="$base_url" DURATION="$WARMUP_DURATION" VUS="$VUS" RATE="$RATE" \
-      LMT_PERCENT="$LMT_PERCENT" BLOCKED_IP_PERCENT="$BLOCKED_IP_PERCENT" \
-      k6 run --quiet k6/load-test.js >/dev/null
-  fi
+  for combination in "${SWEEP_COMBINATIONS[@]}"; do
+    label="$(sweep_label "$service" "$combination")"
 
-  receiver_container_id="$(container_id_for "$service")"
-  kafka_container_id=""
-  if benchmark_uses_kafka; then
-    kafka_container_id="$(container_id_for kafka)"
-  fi
-
-  for run in $(seq 1 "$REPEATS"); do
-    run_id="$(printf '%02d' "$run")"
-    receiver_stats_file="$OUT_DIR/$service-run-$run_id-receiver-stats.ndjson"
-    kafka_stats_file="$OUT_DIR/$service-run-$run_id-kafka-stats.ndjson"
-    summary_file="$OUT_DIR/$service-run-$run_id-summary.json"
-    text_file="$OUT_DIR/$service-run-$run_id.txt"
-
-    receiver_stats_pid="$(start_stats_capture "$receiver_stats_file" "$receiver_container_id")"
-    kafka_stats_pid=""
-    if benchmark_uses_kafka; then
-      kafka_stats_pid="$(start_stats_capture "$kafka_stats_file" "$kafka_container_id")"
+    up_args=(-d)
+    if [[ -n "$combination" ]]; then
+      # Recreate the container so the swept values reach its environment.
+      up_args+=(--force-recreate)
+    fi
+    if ! benchmark_uses_kafka; then
+      up_args+=(--no-deps)
     fi
 
-    status=0
-    BASE_URL="$base_url" DURATION="$DURATION" VUS="$VUS" RATE="$RATE" \
-      LMT_PERCENT="$LMT_PERCENT" BLOCKED_IP_PERCENT="$BLOCKED_IP_PERCENT" \
-      k6 run --summary-export "$summary_file" k6/load-test.js \
-      | tee "$text_file" || status=$?
+    echo "==> benchmarking $label at $base_url"
+    env $combination docker compose up "${up_args[@]}" "$service"
+    wait_for_compose_health "$service"
+    apply_cpuset_if_requested "$service" "$BENCHMARK_RECEIVER_CPUSET"
+    capture_container_inspect "$service" "$label"
 
-    stop_stats_capture "$receiver_stats_pid"
-    if [[ -n "$kafka_stats_pid" ]]; then
-      stop_stats_capture "$kafka_stats_pid"
+    if [[ "$WARMUP_DURATION" != "0s" ]]; then
+      BASE_URL="$base_url" DURATION="$WARMUP_DURATION" VUS="$VUS" RATE="$RATE" \
+        LMT_PERCENT="$LMT_PERCENT" BLOCKED_IP_PERCENT="$BLOCKED_IP_PERCENT" \
+        k6 run --quiet k6/load-test.js >/dev/null
     fi
 
-    if (( status != 0 )); then
-      exit "$status"
+    receiver_container_id="$(container_id_for "$service")"
+    kafka_container_id=""
+    if benchmark_uses_kafka; then
+      kafka_container_id="$(container_id_for kafka)"
     fi
-  done
 
-  docker compose stop "$service" >/dev/null
+    for run in $(seq 1 "$REPEATS"); do
+      run_id="$(printf '%02d' "$run")"
+      receiver_stats_file="$OUT_DIR/$label-run-$run_id-receiver-stats.ndjson"
+      kafka_stats_file="$OUT_DIR/$label-run-$run_id-kafka-stats.ndjson"
+      summary_file="$OUT_DIR/$label-run-$run_id-summary.json"
+      text_file="$OUT_DIR/$label-run-$run_id.txt"
+
+      receiver_stats_pid="$(start_stats_capture "$receiver_stats_file" "$receiver_container_id")"
+      kafka_stats_pid=""
+      if benchmark_uses_kafka; then
+        kafka_stats_pid="$(start_stats_capture "$kafka_stats_file" "$kafka_container_id")"
+      fi
+
+      status=0
+      BASE_URL="$base_url" DURATION="$DURATION" VUS="$VUS" RATE="$RATE" \
+        LMT_PERCENT="$LMT_PERCENT" BLOCKED_IP_PERCENT="$BLOCKED_IP_PERCENT" \
+        k6 run --summary-export "$summary_file" k6/load-test.js \
+        | tee "$text_file" || status=$?
+
+      stop_stats_capture "$receiver_stats_pid"
+      if [[ -n "$kafka_stats_pid" ]]; then
+        stop_stats_capture "$kafka_stats_pid"
+      fi
+
+      if (( status != 0 )); then
+        exit "$status"
+      fi
+    done
+
+    docker compose stop "$service" >/dev/null
+  done
 done
 
 python3 scripts/collate-benchmark-results.py "$OUT_DIR"
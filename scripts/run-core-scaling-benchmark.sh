@@ -0,0 +1,200 @@
+#!/usr/bin/env bash
+# Throughput of the Quarkus receiver as it is given more cores, shared versus per-core.
+#
+# Every run starts a fresh container on an exclusive set of CPUs (SCALING_FIRST_CPU and
+# up) with as many HTTP event loops as CPUs, then drives it with k6 at VUS_PER_CORE
+# virtual users per core. In per-core mode each event loop is also pinned to one of those
+# CPUs. The medians table reports speedup over one core and scaling efficiency,
+# rps(n) / (n * rps(1)); near-linear scaling keeps efficiency close to 1.
+#
+# The load generator and Kafka should run on CPUs outside the receiver's set, or they
+# take cycles from it as the set grows. LOADGEN_CPUSET pins k6 with taskset and
+# BENCHMARK_KAFKA_CPUSET pins the Kafka container.
+set -euo pipefail
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+cd "$ROOT_DIR"
+
+SERVICE="${BENCHMARK_SERVICE:-quarkus-receiver}"
+CORES=(${SCALING_CORES:-1 2 4})
+MODES=(${SCALING_MODES:-shared per-core})
+FIRST_CPU="${SCALING_FIRST_CPU:-0}"
+OUT_DIR="${OUT_DIR:-$ROOT_DIR/results/core-scaling-$(date +%Y%m%d-%H%M%S)}"
+REPEATS="${REPEATS:-3}"
+BUILD_IMAGES="${BUILD_IMAGES:-1}"
+DURATION="${DURATION:-60s}"
+VUS_PER_CORE="${VUS_PER_CORE:-50}"
+RATE="${RATE:-0}"
+LOADGEN_CPUSET="${LOADGEN_CPUSET:-}"
+BENCHMARK_KAFKA_CPUSET="${BENCHMARK_KAFKA_CPUSET:-}"
+STARTUP_TIMEOUT_SECONDS="${STARTUP_TIMEOUT_SECONDS:-120}"
+DELIVERY_MODE="${BENCHMARK_DELIVERY_MODE:-confirm}"
+BENCHMARK_KAFKA_TOPIC="${BENCHMARK_KAFKA_TOPIC:-bids}"
+
+export BENCHMARK_DELIVERY_MODE="$DELIVERY_MODE"
+export BENCHMARK_KAFKA_TOPIC
+
+service_url() {
+  case "$1" in
+    quarkus-receiver) echo "http://localhost:8070" ;;
+    quarkus-receiver-native) echo "http://localhost:8071" ;;
+    *)
+      echo "Unknown service: $1" >&2
+      return 1
+      ;;
+  esac
+}
+
+# Median of the numbers on stdin, one per line.
+median() {
+  sort -g | awk '{ values[NR] = $1 } END { print NR ? values[int((NR + 1) / 2)] : 0 }'
+}
+
+benchmark_uses_kafka() {
+  [[ "$DELIVERY_MODE" != "http-only" ]]
+}
+
+wait_for_ready() {
+  local url="$1"
+  local deadline=$((SECONDS + STARTUP_TIMEOUT_SECONDS))
+
+  while (( SECONDS < deadline )); do
+    if curl -fs -o /dev/null --max-time 1 "$url/q/health/ready"; then
+      return 0
+    fi
+    sleep 0.5
+  done
+  return 1
+}
+
+wait_for_kafka() {
+  local deadline=$((SECONDS + 180))
+  while (( SECONDS < deadline )); do
+    if docker compose exec -T kafka kafka-topics --bootstrap-server localhost:9092 --list 2>/dev/null \
+        | grep -qx "$BENCHMARK_KAFKA_TOPIC"; then
+      return 0
+    fi
+    sleep 2
+  done
+  echo "Timed out waiting for Kafka topic $BENCHMARK_KAFKA_TOPIC" >&2
+  return 1
+}
+
+# Reads a metric out of a k6 summary export, e.g. "http_reqs rate".
+summary_metric() {
+  python3 - "$1" "$2" "$3" <<'EOF'
+import json, sys
+path, metric, stat = sys.argv[1:4]
+with open(path) as f:
+    print(json.load(f)["metrics"][metric][stat])
+EOF
+}
+
+cleanup() {
+  docker compose stop "$SERVICE" kafka >/dev/null 2>&1 || true
+}
+
+trap cleanup EXIT
+
+mkdir -p "$OUT_DIR"
+RESULTS="$OUT_DIR/core-scaling.csv"
+echo "mode,cores,run,rps,p95_ms" >"$RESULTS"
+
+cat >"$OUT_DIR/run-meta.txt" <<EOF
+timestamp=$(date -Iseconds)
+git_sha=$(git rev-parse HEAD)
+uname=$(uname -a)
+docker_version=$(docker version --format '{{.Server.Version}}')
+service=$SERVICE
+modes=${MODES[*]}
+cores=${CORES[*]}
+first_cpu=$FIRST_CPU
+delivery_mode=$DELIVERY_MODE
+repeats=$REPEATS
+vus_per_core=$VUS_PER_CORE
+duration=$DURATION
+rate=$RATE
+loadgen_cpuset=$LOADGEN_CPUSET
+kafka_cpuset=$BENCHMARK_KAFKA_CPUSET
+receiver_memory=${BENCHMARK_RECEIVER_MEMORY:-768m}
+EOF
+
+if [[ "$BUILD_IMAGES" != "0" ]]; then
+  docker compose build "$SERVICE"
+fi
+
+if benchmark_uses_kafka; then
+  docker compose up -d kafka
+  if [[ -n "$BENCHMARK_KAFKA_CPUSET" ]]; then
+    docker update --cpuset-cpus "$BENCHMARK_KAFKA_CPUSET" "$(docker compose ps -q kafka)" >/dev/null
+  fi
+  wait_for_kafka
+fi
+
+base_url="$(service_url "$SERVICE")"
+loadgen=()
+if [[ -n "$LOADGEN_CPUSET" ]]; then
+  loadgen=(taskset -c "$LOADGEN_CPUSET")
+fi
+
+for mode in "${MODES[@]}"; do
+  for cores in "${CORES[@]}"; do
+    cpuset="$FIRST_CPU-$((FIRST_CPU + cores - 1))"
+    echo "==> $SERVICE, $mode, $cores core(s) on CPUs $cpuset"
+
+    export BENCHMARK_QUARKUS_EXECUTION="$mode"
+    export BENCHMARK_RECEIVER_CPUS="$cores"
+    export QUARKUS_HTTP_IO_THREADS="$cores"
+    export BENCHMARK_QUARKUS_CPUS=""
+    if [[ "$mode" == "per-core" ]]; then
+      BENCHMARK_QUARKUS_CPUS="$cpuset"
+    fi
+
+    for run in $(seq 1 "$REPEATS"); do
+      run_id="$mode-$cores-run-$(printf '%02d' "$run")"
+
+      # Restrict the container before it starts, so the runtime sizes itself for its CPUs.
+      docker compose rm -sf "$SERVICE" >/dev/null 2>&1 || true
+      docker compose up --no-start --no-deps "$SERVICE" >/dev/null 2>&1
+      docker update --cpuset-cpus "$cpuset" "$(docker compose ps -aq "$SERVICE")" >/dev/null
+      docker compose start "$SERVICE" >/dev/null
+      if ! wait_for_ready "$base_url"; then
+        echo "$SERVICE did not become ready within ${STARTUP_TIMEOUT_SECONDS}s" >&2
+        docker compose logs "$SERVICE" >&2 || true
+        exit 1
+      fi
+
+      summary="$OUT_DIR/$run_id-summary.json"
+      BASE_URL="$base_url" DURATION="$DURATION" VUS="$((cores * VUS_PER_CORE))" RATE="$RATE" \
+        ${loadgen[@]+"${loadgen[@]}"} k6 run --quiet --summary-export "$summary" k6/load-test.js \
+        >"$OUT_DIR/$run_id.txt"
+
+      rps="$(summary_metric "$summary" http_reqs rate)"
+      p95="$(summary_metric "$summary" http_req_duration 'p(95)')"
+      echo "$mode,$cores,$run,$rps,$p95" | tee -a "$RESULTS"
+    done
+  done
+done
+
+docker compose stop "$SERVICE" >/dev/null
+
+echo
+echo "Medians over $REPEATS runs:"
+printf '%-10s %6s %12s %10s %9s %11s\n' mode cores rps p95_ms speedup efficiency
+column_median() {
+  awk -F, -v mode="$1" -v cores="$2" -v column="$3" '$1 == mode && $2 == cores { print $column }' "$RESULTS" | median
+}
+for mode in "${MODES[@]}"; do
+  base_cores="${CORES[0]}"
+  base_rps="$(column_median "$mode" "$base_cores" 4)"
+  for cores in "${CORES[@]}"; do
+    rps="$(column_median "$mode" "$cores" 4)"
+    awk -v mode="$mode" -v cores="$cores" -v rps="$rps" -v p95="$(column_median "$mode" "$cores" 5)" \
+      -v base_rps="$base_rps" -v base_cores="$base_cores" 'BEGIN {
+        speedup = base_rps > 0 ? rps / base_rps : 0
+        printf "%-10s %6d %12.0f %10.1f %9.2f %11.2f\n", mode, cores, rps, p95, speedup, speedup * base_cores / cores
+      }'
+  done
+done
+
+echo "Core scaling results written to $RESULTS"
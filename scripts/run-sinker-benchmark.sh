@@ -0,0 +1,129 @@
+#!/usr/bin/env bash
+set -euo pipefail
+
+# Compares sinker writers (blocking Panache vs reactive Vert.x) across stream-thread counts.
+# The bid topic is preloaded once; every run uses a fresh Kafka Streams application id so it
+# replays the whole topic from the beginning into an emptied bid_records table.
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+cd "$ROOT_DIR"
+
+WRITERS=(${SINKER_BENCHMARK_WRITERS:-panache reactive})
+STREAM_THREADS=(${SINKER_BENCHMARK_STREAM_THREADS:-1 2 3})
+RECORDS="${SINKER_BENCHMARK_RECORDS:-200000}"
+PRELOAD="${SINKER_BENCHMARK_PRELOAD:-1}"
+BUILD_IMAGES="${BUILD_IMAGES:-1}"
+RUN_TIMEOUT_SECONDS="${SINKER_BENCHMARK_TIMEOUT_SECONDS:-600}"
+OUT_DIR="${OUT_DIR:-$ROOT_DIR/results/sinker-$(date +%Y%m%d-%H%M%S)}"
+BENCHMARK_KAFKA_TOPIC="${BENCHMARK_KAFKA_TOPIC:-bids}"
+
+export SINKER_BATCH_SIZE="${SINKER_BATCH_SIZE:-500}"
+export SINKER_BATCH_MAX_WAIT_MS="${SINKER_BATCH_MAX_WAIT_MS:-200}"
+export SINKER_BATCH_MAX_IN_FLIGHT="${SINKER_BATCH_MAX_IN_FLIGHT:-4}"
+export SINKER_DLQ_ENABLED="${SINKER_DLQ_ENABLED:-false}"
+
+mkdir -p "$OUT_DIR"
+
+cleanup() {
+  docker compose stop quarkus-sinker >/dev/null 2>&1 || true
+}
+trap cleanup EXIT
+
+psql_exec() {
+  docker compose exec -T postgres psql -U user -d postgres -tAc "$1"
+}
+
+topic_record_count() {
+  docker compose exec -T kafka kafka-get-offsets --bootstrap-server localhost:9092 --topic "$BENCHMARK_KAFKA_TOPIC" \
+    | awk -F: '{ total += $3 } END { print total + 0 }'
+}
+
+generate_bids() {
+  awk -v n="$1" -v prefix="$2" 'BEGIN {
+    for (i = 0; i < n; i++) {
+      printf "{\"id\":\"%s-%d\",\"site\":{\"id\":\"site-%d\",\"domain\":\"site%d.example.com\"},", prefix, i, i % 50, i % 50
+      printf "\"device\":{\"ip\":\"192.168.%d.%d\",\"ua\":\"bench\",\"os\":\"%s\",\"lmt\":0},", int(i / 256) % 256, i % 256, (i % 2 ? "iOS" : "Android")
+      printf "\"user\":{\"id\":\"user-%d\"}}\n", i
+    }
+  }'
+}
+
+wait_for_rows() {
+  local expected="$1"
+  local deadline=$((SECONDS + RUN_TIMEOUT_SECONDS))
+
+  while (( SECONDS < deadline )); do
+    local rows
+    rows="$(psql_exec "SELECT count(*) FROM bid_records" | tr -d '[:space:]')"
+    if [[ -n "$rows" && "$rows" -ge "$expected" ]]; then
+      return 0
+    fi
+    sleep 1
+  done
+
+  echo "Timed out waiting for $expected rows" >&2
+  docker compose logs --tail 200 quarkus-sinker >&2 || true
+  return 1
+}
+
+if [[ "$BUILD_IMAGES" != "0" ]]; then
+  docker compose build quarkus-sinker
+fi
+
+docker compose up -d kafka postgres
+
+if [[ "$PRELOAD" != "0" ]]; then
+  echo "==> preloading $RECORDS bids into $BENCHMARK_KAFKA_TOPIC"
+  generate_bids "$RECORDS" "sinker-bench-$(date +%s)" \
+    | docker compose exec -T kafka kafka-console-producer \
+        --bootstrap-server localhost:9092 \
+        --topic "$BENCHMARK_KAFKA_TOPIC" \
+        --producer-property linger.ms=20 \
+        --producer-property batch.size=262144 >/dev/null
+fi
+
+expected_rows="$(topic_record_count)"
+echo "writer,stream_threads,batch_size,batch_max_in_flight,records,seconds,records_per_sec" >"$OUT_DIR/sinker-benchmark.csv"
+
+for writer in "${WRITERS[@]}"; do
+  for threads in "${STREAM_THREADS[@]}"; do
+    run_id="$writer-threads-$threads"
+    echo "==> $run_id ($expected_rows records)"
+
+    docker compose stop quarkus-sinker >/dev/null 2>&1 || true
+    psql_exec "TRUNCATE bid_records" >/dev/null
+
+    stats_file="$OUT_DIR/$run_id-stats.ndjson"
+    SINKER_WRITER="$writer" \
+    SINKER_STREAM_THREADS="$threads" \
+    SINKER_APPLICATION_ID="adtech-sinker-bench-$run_id-$(date +%s)" \
+      docker compose up -d --no-deps quarkus-sinker
+    docker stats --format '{{json .}}' "$(docker compose ps -q quarkus-sinker)" >"$stats_file" &
+    stats_pid=$!
+
+    # Start the clock at the first persisted row so JVM startup and rebalancing are excluded.
+    status=0
+    wait_for_rows 1 || status=$?
+    started=$(date +%s.%N)
+    if (( status == 0 )); then
+      wait_for_rows "$expected_rows" || status=$?
+    fi
+    finished=$(date +%s.%N)
+
+    kill "$stats_pid" >/dev/null 2>&1 || true
+    wait "$stats_pid" 2>/dev/null || true
+    docker compose logs quarkus-sinker >"$OUT_DIR/$run_id.log" 2>&1 || true
+
+    if (( status != 0 )); then
+      exit "$status"
+    fi
+
+    awk -v w="$writer" -v t="$threads" -v b="$SINKER_BATCH_SIZE" -v f="$SINKER_BATCH_MAX_IN_FLIGHT" \
+        -v n="$expected_rows" -v s="$started" -v e="$finished" \
+        'BEGIN { d = e - s; printf "%s,%s,%s,%s,%d,%.2f,%.0f\n", w, t, b, f, n, d, n / d }' \
+      >>"$OUT_DIR/sinker-benchmark.csv"
+  done
+done
+
+column -s, -t "$OUT_DIR/sinker-benchmark.csv"
+echo "Sinker benchmark results written to $OUT_DIR"
@@ -0,0 +1,194 @@
+#!/usr/bin/env bash
+# Cold start and memory of the JVM and native builds of the Spring receivers.
+#
+# Every run starts a fresh container and measures the time from `docker compose start`
+# to the first 200 on POST /bid-request, then the resident set size at idle and under a
+# k6 load. Both builds of a receiver read the same environment block from the compose
+# file, so they run with the same BenchmarkSettings knobs and container limits.
+set -euo pipefail
+
+ROOT_DIR="$(cd "$(dirname "${BASH_SOURCE[0]}")/.." && pwd)"
+cd "$ROOT_DIR"
+
+SERVICES=(${BENCHMARK_SERVICES:-spring-receiver spring-receiver-native spring-virtual-receiver spring-virtual-receiver-native})
+OUT_DIR="${OUT_DIR:-$ROOT_DIR/results/startup-$(date +%Y%m%d-%H%M%S)}"
+REPEATS="${REPEATS:-5}"
+BUILD_IMAGES="${BUILD_IMAGES:-1}"
+DURATION="${DURATION:-30s}"
+VUS="${VUS:-100}"
+RATE="${RATE:-0}"
+STARTUP_TIMEOUT_SECONDS="${STARTUP_TIMEOUT_SECONDS:-120}"
+RSS_SAMPLE_INTERVAL="${RSS_SAMPLE_INTERVAL:-1}"
+DELIVERY_MODE="${BENCHMARK_DELIVERY_MODE:-confirm}"
+BENCHMARK_KAFKA_TOPIC="${BENCHMARK_KAFKA_TOPIC:-bids}"
+
+PROBE_BID='{"id":"startup-probe","site":{"id":"site-1","domain":"example.com"},"device":{"ip":"203.0.113.10","os":"linux","lmt":0}}'
+
+export HTTP_SERVER_WORKERS="${HTTP_SERVER_WORKERS:-2}"
+export BENCHMARK_KAFKA_TOPIC
+
+service_url() {
+  case "$1" in
+    spring-receiver) echo "http://localhost:8076" ;;
+    spring-receiver-native) echo "http://localhost:8079" ;;
+    spring-virtual-receiver) echo "http://localhost:8078" ;;
+    spring-virtual-receiver-native) echo "http://localhost:8081" ;;
+    *)
+      echo "Unknown service: $1" >&2
+      return 1
+      ;;
+  esac
+}
+
+# Median of the numbers on stdin, one per line.
+median() {
+  sort -n | awk '{ values[NR] = $1 } END { print NR ? values[int((NR + 1) / 2)] : 0 }'
+}
+
+benchmark_uses_kafka() {
+  [[ "$DELIVERY_MODE" != "http-only" ]]
+}
+
+now_ms() {
+  echo $(( $(date +%s%N) / 1000000 ))
+}
+
+# Sum of VmRSS over every process in the container, in KiB. The JVM images start the
+# JVM from a shell, so the shell is counted too; it is a few hundred KiB.
+container_rss_kb() {
+  docker exec "$1" sh -c 'cat /proc/[0-9]*/status 2>/dev/null' \
+    | awk '/^VmRSS:/ { sum += $2 } END { print sum + 0 }'
+}
+
+wait_for_first_accept() {
+  local url="$1"
+  local deadline=$((SECONDS + STARTUP_TIMEOUT_SECONDS))
+
+  while (( SECONDS < deadline )); do
+    local code
+    code="$(curl -s -o /dev/null -w '%{http_code}' --max-time 1 \
+      -H 'Content-Type: application/json' --data "$PROBE_BID" "$url/bid-request" || true)"
+    if [[ "$code" == "200" ]]; then
+      return 0
+    fi
+    sleep 0.01
+  done
+  return 1
+}
+
+wait_for_kafka() {
+  local deadline=$((SECONDS + 180))
+  while (( SECONDS < deadline )); do
+    if docker compose exec -T kafka kafka-topics --bootstrap-server localhost:9092 --list 2>/dev/null \
+        | grep -qx "$BENCHMARK_KAFKA_TOPIC"; then
+      return 0
+    fi
+    sleep 2
+  done
+  echo "Timed out waiting for Kafka topic $BENCHMARK_KAFKA_TOPIC" >&2
+  return 1
+}
+
+cleanup() {
+  docker compose stop "${SERVICES[@]}" kafka >/dev/null 2>&1 || true
+}
+
+trap cleanup EXIT
+
+mkdir -p "$OUT_DIR"
+RESULTS="$OUT_DIR/startup.csv"
+echo "service,run,first_accept_ms,idle_rss_kb,load_rss_median_kb,load_rss_peak_kb" >"$RESULTS"
+
+cat >"$OUT_DIR/run-meta.txt" <<EOF
+timestamp=$(date -Iseconds)
+git_sha=$(git rev-parse HEAD)
+uname=$(uname -a)
+docker_version=$(docker version --format '{{.Server.Version}}')
+services=${SERVICES[*]}
+delivery_mode=$DELIVERY_MODE
+repeats=$REPEATS
+vus=$VUS
+duration=$DURATION
+rate=$RATE
+http_server_workers=$HTTP_SERVER_WORKERS
+receiver_cpus=${BENCHMARK_RECEIVER_CPUS:-2.0}
+receiver_memory=${BENCHMARK_RECEIVER_MEMORY:-768m}
+EOF
+
+if [[ "$BUILD_IMAGES" != "0" ]]; then
+  docker compose build "${SERVICES[@]}"
+fi
+
+if benchmark_uses_kafka; then
+  docker compose up -d kafka
+  wait_for_kafka
+fi
+
+for service in "${SERVICES[@]}"; do
+  base_url="$(service_url "$service")"
+  echo "==> measuring $service at $base_url"
+
+  for run in $(seq 1 "$REPEATS"); do
+    run_id="$(printf '%02d' "$run")"
+    rss_file="$OUT_DIR/$service-run-$run_id-rss.txt"
+
+    # Create the container up front so the clock only covers process start.
+    docker compose rm -sf "$service" >/dev/null 2>&1 || true
+    docker compose up --no-start --no-deps "$service" >/dev/null 2>&1
+    container_id="$(docker compose ps -aq "$service")"
+
+    started_at="$(now_ms)"
+    docker compose start "$service" >/dev/null
+    if ! wait_for_first_accept "$base_url"; then
+      echo "$service did not accept a bid within ${STARTUP_TIMEOUT_SECONDS}s" >&2
+      docker compose logs "$service" >&2 || true
+      exit 1
+    fi
+    first_accept_ms=$(( $(now_ms) - started_at ))
+    idle_rss_kb="$(container_rss_kb "$container_id")"
+
+    : >"$rss_file"
+    (
+      while true; do
+        container_rss_kb "$container_id" >>"$rss_file"
+        sleep "$RSS_SAMPLE_INTERVAL"
+      done
+    ) &
+    sampler_pid=$!
+
+    status=0
+    BASE_URL="$base_url" DURATION="$DURATION" VUS="$VUS" RATE="$RATE" \
+      k6 run --quiet --summary-export "$OUT_DIR/$service-run-$run_id-summary.json" k6/load-test.js \
+      >"$OUT_DIR/$service-run-$run_id.txt" || status=$?
+
+    kill "$sampler_pid" >/dev/null 2>&1 || true
+    wait "$sampler_pid" 2>/dev/null || true
+    if (( status != 0 )); then
+      exit "$status"
+    fi
+
+    # The first half of the load is warm-up: heaps grow and the JIT compiles. Steady
+    # state is the median of the second half.
+    samples="$(wc -l <"$rss_file")"
+    load_rss_median_kb="$(tail -n "$(( samples - samples / 2 ))" "$rss_file" | median)"
+    load_rss_peak_kb="$(sort -n "$rss_file" | tail -n 1)"
+
+    echo "$service,$run,$first_accept_ms,$idle_rss_kb,$load_rss_median_kb,$load_rss_peak_kb" | tee -a "$RESULTS"
+  done
+
+  docker compose stop "$service" >/dev/null
+done
+
+echo
+echo "Medians over $REPEATS runs:"
+printf '%-32s %16s %12s %12s\n' service first_accept_ms idle_rss_mb load_rss_mb
+column_median() {
+  awk -F, -v service="$1" -v column="$2" '$1 == service { print $column }' "$RESULTS" | median
+}
+for service in "${SERVICES[@]}"; do
+  printf '%-32s %16d %12.1f %12.1f\n' "$service" "$(column_median "$service" 3)" \
+    "$(awk -v kb="$(column_median "$service" 4)" 'BEGIN { print kb / 1024 }')" \
+    "$(awk -v kb="$(column_median "$service" 5)" 'BEGIN { print kb / 1024 }')"
+done
+
+echo "Startup results written to $RESULTS"
@@ -0,0 +1,27 @@
+package demo.adtech;
+
+import io.vertx.ext.web.RoutingContext;
+import org.jboss.resteasy.reactive.server.ServerRequestFilter;
+
+/**
+ * Stamps every request with its arrival time before resource matching, so it is taken
+ * before the body is read, decompressed and bound and the received-at header on the
+ * Kafka record covers the whole ingress. Resources read it back with
+ * {@link #receivedAt(RoutingContext)}.
+ */
+public class ArrivalTimeFilter {
+
+    static final String RECEIVED_AT = ArrivalTimeFilter.class.getName() + ".receivedAt";
+
+    @ServerRequestFilter(preMatching = true)
+    public void stamp(RoutingContext context) {
+        context.put(RECEIVED_AT, System.currentTimeMillis());
+    }
+
+    /**
+     * @return epoch millis at which the request arrived, or now if it bypassed this filter
+     */
+    static long receivedAt(RoutingContext context) {
+        return context.get(RECEIVED_AT) instanceof Long receivedAt ? receivedAt : System.currentTimeMillis();
+    }
+}
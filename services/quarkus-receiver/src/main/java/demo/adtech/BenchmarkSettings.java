@@ -10,9 +10,15 @@ public class BenchmarkSettings {
     public static final String DELIVERY_MODE_ENQUEUE = "enqueue";
     public static final String DELIVERY_MODE_HTTP_ONLY = "http-only";
 
+    public static final String EXECUTION_SHARED = "shared";
+    public static final String EXECUTION_PER_CORE = "per-core";
+
     @ConfigProperty(name = "benchmark.delivery.mode", defaultValue = "confirm")
     String deliveryMode;
 
+    @ConfigProperty(name = "benchmark.execution.mode", defaultValue = "shared")
+    String executionMode;
+
     public String deliveryMode() {
         if (deliveryMode == null) {
             return DELIVERY_MODE_CONFIRM;
@@ -32,4 +38,21 @@ public class BenchmarkSettings {
     public boolean isConfirmDeliveryMode() {
         return DELIVERY_MODE_CONFIRM.equals(deliveryMode());
     }
+
+    public String executionMode() {
+        if (executionMode == null) {
+            return EXECUTION_SHARED;
+        }
+        return switch (executionMode.trim().toLowerCase()) {
+            case EXECUTION_PER_CORE -> EXECUTION_PER_CORE;
+            default -> EXECUTION_SHARED;
+        };
+    }
+
+    /**
+     * @return true if every HTTP event loop keeps its own producer and filter state, see {@link CoreShards}
+     */
+    public boolean isPerCoreMode() {
+        return EXECUTION_PER_CORE.equals(executionMode());
+    }
 }
@@ -0,0 +1,155 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Uni;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bulk variant of {@code POST /bid-request} for upstreams that aggregate bids.
+ *
+ * The body is either newline-delimited JSON or a JSON array of bid requests. It is
+ * parsed from the request stream as it arrives, one bid at a time, and every bid goes through
+ * {@link BidReceiverResource#screen(BidRequest)} and the {@link BidPrefilter}. Accepted
+ * bids are handed to the producer back to back, so they land in the same producer batch,
+ * and the response carries one HTTP status per item in request order.
+ */
+@Path("/bid-requests")
+@Consumes({MediaType.APPLICATION_JSON, BidBatchResource.NDJSON})
+@Produces(MediaType.APPLICATION_JSON)
+public class BidBatchResource {
+
+    static final String NDJSON = "application/x-ndjson";
+    static final int MAX_BATCH_ITEMS = 1000;
+
+    private static final Logger LOG = Logger.getLogger(BidBatchResource.class);
+
+    @Inject
+    BidPublisher bidPublisher;
+
+    @Inject
+    BenchmarkSettings benchmarkSettings;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    BidPrefilter prefilter;
+
+    @POST
+    // Reading the request stream blocks until the upload arrives, so this runs on a worker thread.
+    @Blocking
+    public Uni<Response> receiveBids(InputStream body, RoutingContext routingContext) {
+        long receivedAt = ArrivalTimeFilter.receivedAt(routingContext);
+
+        List<BidRequest> batch;
+        try {
+            batch = readBatch(body);
+        } catch (IOException e) {
+            if (RequestDecompressor.isLimitExceeded(e)) {
+                return Uni.createFrom().item(Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+                        .entity(Map.of("status", "payload too large"))
+                        .build());
+            }
+            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("status", "bad request"))
+                    .build());
+        }
+        if (batch.size() > MAX_BATCH_ITEMS) {
+            return Uni.createFrom().item(Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+                    .entity(Map.of("status", "batch too large"))
+                    .build());
+        }
+
+        int[] statuses = new int[batch.size()];
+        boolean confirm = benchmarkSettings.isConfirmDeliveryMode();
+        List<CompletableFuture<Void>> deliveries = new ArrayList<>();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+        for (int i = 0; i < statuses.length; i++) {
+            BidRequest request = batch.get(i);
+            Response.Status rejected = BidReceiverResource.screen(request);
+            if (rejected != null) {
+                statuses[i] = rejected.getStatusCode();
+                continue;
+            }
+            if (prefilter.rejects(request)) {
+                statuses[i] = Response.Status.NO_CONTENT.getStatusCode();
+                continue;
+            }
+
+            statuses[i] = Response.Status.OK.getStatusCode();
+            if (benchmarkSettings.isHttpOnlyMode()) {
+                continue;
+            }
+
+            var delivery = bidPublisher.publish(request, receivedAt);
+            if (confirm) {
+                int index = i;
+                deliveries.add(delivery.handle((ignored, failure) -> {
+                    if (failure != null) {
+                        failed.incrementAndGet();
+                        firstFailure.compareAndSet(null, failure);
+                        statuses[index] = Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+                    }
+                    return (Void) null;
+                }).toCompletableFuture());
+            }
+        }
+
+        if (deliveries.isEmpty()) {
+            return Uni.createFrom().item(Response.ok(Map.of("items", statuses)).build());
+        }
+        return Uni.createFrom()
+                .completionStage(() -> CompletableFuture.allOf(deliveries.toArray(CompletableFuture[]::new)))
+                .invoke(() -> {
+                    if (failed.get() > 0) {
+                        LOG.errorf(firstFailure.get(), "Kafka delivery failed for %d of %d bids in a batch",
+                                failed.get(), deliveries.size());
+                    }
+                })
+                .replaceWith(() -> Response.ok(Map.of("items", statuses)).build());
+    }
+
+    /**
+     * Reads up to one bid more than {@link #MAX_BATCH_ITEMS}, so oversized batches can be
+     * rejected without parsing the rest. JSON nulls are kept as null items and fail validation.
+     */
+    private List<BidRequest> readBatch(InputStream body) throws IOException {
+        List<BidRequest> batch = new ArrayList<>();
+        if (body == null) {
+            return batch;
+        }
+        // Closing the parser closes the stream, which returns pooled decompression state.
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY && batch.size() <= MAX_BATCH_ITEMS) {
+                batch.add(objectMapper.readValue(parser, BidRequest.class));
+                token = parser.nextToken();
+            }
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,191 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Drops bids whose impressions could not win before they are published.
+ *
+ * An impression passes when its floor is under the ceiling for its currency, its banner
+ * size is accepted and, for video, one of its MIME types is accepted. A bid where no
+ * impression passes is answered with 204 and never reaches Kafka. The checks run against
+ * a {@link PrefilterRules} snapshot; when a rates file is configured it is re-read on a
+ * timer and a new snapshot is swapped in, so the request path never waits on a refresh.
+ *
+ * The snapshot is immutable and shared by every event loop. In per-core mode the only
+ * state the filter writes, its rejection count, is kept per {@link CoreShards} shard in
+ * slots allocated up front and a cache line apart, and summed when the metric is read.
+ */
+@ApplicationScoped
+public class BidPrefilter {
+
+    private static final Logger LOG = Logger.getLogger(BidPrefilter.class);
+
+    /** Distance in longs between two shards' counts: 128 bytes, so no two share a cache line. */
+    private static final int SHARD_STRIDE = 16;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    CoreShards shards;
+
+    @ConfigProperty(name = "benchmark.prefilter.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "benchmark.prefilter.banner-sizes")
+    Optional<List<String>> bannerSizes;
+
+    @ConfigProperty(name = "benchmark.prefilter.video-mimes")
+    Optional<List<String>> videoMimes;
+
+    @ConfigProperty(name = "benchmark.prefilter.max-floor", defaultValue = "0")
+    double maxFloor;
+
+    @ConfigProperty(name = "benchmark.prefilter.max-floor-overrides")
+    Optional<String> maxFloorOverrides;
+
+    @ConfigProperty(name = "benchmark.prefilter.fx-rates")
+    Optional<String> fxRates;
+
+    @ConfigProperty(name = "benchmark.prefilter.fx-rates-file")
+    Optional<String> fxRatesFile;
+
+    @ConfigProperty(name = "benchmark.prefilter.fx-refresh", defaultValue = "5m")
+    Duration fxRefresh;
+
+    private volatile PrefilterRules rules;
+    private Counter rejected;
+    private AtomicLongArray rejectedByShard;
+    private ScheduledExecutorService refresher;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+
+        if (shards.count() > 1) {
+            rejectedByShard = new AtomicLongArray((shards.count() + 1) * SHARD_STRIDE);
+            FunctionCounter.builder("receiver.prefilter.rejected", this, BidPrefilter::rejectedTotal)
+                    .description("Bids answered with 204 because no impression passed the prefilter")
+                    .register(registry);
+        } else {
+            rejected = Counter.builder("receiver.prefilter.rejected")
+                    .description("Bids answered with 204 because no impression passed the prefilter")
+                    .register(registry);
+        }
+        rules = buildRules(loadRates());
+        LOG.infof(
+                "Prefilter enabled (banner_sizes=%s, video_mimes=%s, max_floor=%s %s, fx_rates_file=%s)",
+                bannerSizes.orElse(List.of()),
+                videoMimes.orElse(List.of()),
+                maxFloor,
+                PrefilterRules.BASE_CURRENCY,
+                fxRatesFile.orElse("none")
+        );
+
+        if (fxRatesFile.isPresent() && !fxRefresh.isZero() && !fxRefresh.isNegative()) {
+            refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "prefilter-fx-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long periodMs = fxRefresh.toMillis();
+            refresher.scheduleWithFixedDelay(this::refresh, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * @return true if the bid should be answered with 204 instead of being published
+     */
+    public boolean rejects(BidRequest request) {
+        if (!enabled || rules.acceptsAny(request.imp)) {
+            return false;
+        }
+        if (rejectedByShard != null) {
+            // Slot 0 is left empty so the first shard's count does not share a line with the array header.
+            rejectedByShard.incrementAndGet((shards.current() + 1) * SHARD_STRIDE);
+        } else {
+            rejected.increment();
+        }
+        return true;
+    }
+
+    @PreDestroy
+    void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    private double rejectedTotal() {
+        long total = 0;
+        for (int shard = 1; shard <= shards.count(); shard++) {
+            total += rejectedByShard.get(shard * SHARD_STRIDE);
+        }
+        return total;
+    }
+
+    private void refresh() {
+        try {
+            rules = buildRules(loadRates());
+        } catch (RuntimeException e) {
+            LOG.warn("Keeping previous prefilter currency table; refresh failed", e);
+        }
+    }
+
+    private PrefilterRules buildRules(Map<String, Double> usdRates) {
+        return PrefilterRules.build(
+                bannerSizes.orElse(List.of()),
+                videoMimes.orElse(List.of()),
+                maxFloor,
+                PrefilterRules.parseCurrencyValues(maxFloorOverrides.orElse(null)),
+                usdRates
+        );
+    }
+
+    /**
+     * Rates from {@code benchmark.prefilter.fx-rates}, overlaid with the rates file if one is set.
+     */
+    private Map<String, Double> loadRates() {
+        Map<String, Double> rates = new HashMap<>(PrefilterRules.parseCurrencyValues(fxRates.orElse(null)));
+        if (fxRatesFile.isEmpty()) {
+            return rates;
+        }
+
+        Properties file = new Properties();
+        try (Reader reader = Files.newBufferedReader(Path.of(fxRatesFile.get()))) {
+            file.load(reader);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + fxRatesFile.get(), e);
+        }
+        for (String currency : file.stringPropertyNames()) {
+            rates.put(currency.trim().toUpperCase(Locale.ROOT), Double.parseDouble(file.getProperty(currency).trim()));
+        }
+        return rates;
+    }
+}
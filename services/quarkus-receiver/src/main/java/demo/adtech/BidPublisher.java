@@ -12,6 +12,9 @@ import org.apache.kafka.common.serialization.StringSerializer;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
@@ -21,9 +24,21 @@ public class BidPublisher {
 
     private static final Logger LOG = Logger.getLogger(BidPublisher.class);
 
+    /**
+     * Record header carrying the epoch millis at which the HTTP request arrived, as an
+     * 8-byte big-endian long. The sinker uses it as event time and for end-to-end latency.
+     */
+    static final String RECEIVED_AT_HEADER = "received-at";
+
+    /** The producer's default {@code buffer.memory}, split between the shards in per-core mode. */
+    private static final long PRODUCER_BUFFER_MEMORY = 32L * 1024 * 1024;
+
     @Inject
     BenchmarkSettings benchmarkSettings;
 
+    @Inject
+    CoreShards shards;
+
     @ConfigProperty(name = "kafka.bootstrap.servers", defaultValue = "localhost:9092")
     String bootstrapServers;
 
@@ -54,7 +69,36 @@ public class BidPublisher {
     @ConfigProperty(name = "benchmark.kafka.receive.buffer.bytes", defaultValue = "131072")
     int receiveBufferBytes;
 
-    private KafkaProducer<String, BidRequest> producer;
+    @ConfigProperty(name = "benchmark.kafka.route.by", defaultValue = "none")
+    String routeBy;
+
+    @ConfigProperty(name = "benchmark.kafka.topic.site")
+    Optional<String> siteTopic;
+
+    @ConfigProperty(name = "benchmark.kafka.topic.app")
+    Optional<String> appTopic;
+
+    @ConfigProperty(name = "benchmark.kafka.topic.geo")
+    Optional<String> geoTopics;
+
+    @ConfigProperty(name = "benchmark.kafka.key", defaultValue = "request-id")
+    String keyStrategy;
+
+    @ConfigProperty(name = "benchmark.kafka.partitioner", defaultValue = "default")
+    String partitioner;
+
+    @ConfigProperty(name = "benchmark.kafka.hot-key.threshold", defaultValue = "1000")
+    int hotKeyThreshold;
+
+    @ConfigProperty(name = "benchmark.kafka.fanout", defaultValue = "none")
+    String fanout;
+
+    @ConfigProperty(name = "benchmark.kafka.impression.topic", defaultValue = "bid-impressions")
+    String impressionTopic;
+
+    private KafkaProducer<String, Object>[] producers;
+    private BidRouter router;
+    private boolean fanOutImpressions;
 
     @PostConstruct
     void init() {
@@ -70,6 +114,17 @@ public class BidPublisher {
                 100
         );
 
+        router = new BidRouter(
+                routeMode(),
+                keyStrategy(),
+                topic,
+                siteTopic.orElse(null),
+                appTopic.orElse(null),
+                BidRouter.parseGeoTopics(geoTopics.orElse(null))
+        );
+        boolean hotKeyPartitioner = usesHotKeyPartitioner();
+        fanOutImpressions = fanOutImpressions();
+
         Properties props = new Properties();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
@@ -86,11 +141,30 @@ public class BidPublisher {
         );
         props.put(ProducerConfig.SEND_BUFFER_CONFIG, sendBufferBytes);
         props.put(ProducerConfig.RECEIVE_BUFFER_CONFIG, receiveBufferBytes);
+        if (hotKeyPartitioner) {
+            props.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, HotKeyPartitioner.class.getName());
+            props.put(HotKeyPartitioner.THRESHOLD_CONFIG, Integer.toString(hotKeyThreshold));
+        }
 
-        producer = new KafkaProducer<>(props);
+        // In per-core mode each event loop sends through its own producer, with its own
+        // buffer pool, batches and sender thread, so loops never contend on a producer lock.
+        int shardCount = shards.count();
+        @SuppressWarnings("unchecked")
+        KafkaProducer<String, Object>[] created = new KafkaProducer[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            if (shardCount > 1) {
+                props.put(ProducerConfig.CLIENT_ID_CONFIG, "quarkus-receiver-" + i);
+                props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, Math.max(batchBytes, PRODUCER_BUFFER_MEMORY / shardCount));
+            }
+            created[i] = new KafkaProducer<>(props);
+        }
+        producers = created;
         LOG.infof(
-                "Initialized Kafka producer for topic %s (delivery_mode=%s, acks=%s, retries=%d, retry_backoff_ms=%d)",
-                topic,
+                "Initialized Kafka producer (shards=%d, routing=[%s], partitioner=%s, fanout=%s, delivery_mode=%s, acks=%s, retries=%d, retry_backoff_ms=%d)",
+                shardCount,
+                router,
+                hotKeyPartitioner ? "hot-key" : "default",
+                fanOutImpressions ? "impressions -> " + impressionTopic : "none",
                 benchmarkSettings.deliveryMode(),
                 acks,
                 effectiveRetries,
@@ -98,16 +172,48 @@ public class BidPublisher {
         );
     }
 
-    public CompletionStage<Void> publish(BidRequest request) {
+    public CompletionStage<Void> publish(BidRequest request, long receivedAtMs) {
         if (benchmarkSettings.isHttpOnlyMode()) {
             return CompletableFuture.completedFuture(null);
         }
 
-        if (producer == null) {
+        if (producers == null) {
             return CompletableFuture.failedStage(new IllegalStateException("Kafka producer unavailable"));
         }
+        KafkaProducer<String, Object> producer = producers[shards.current()];
 
-        ProducerRecord<String, BidRequest> record = new ProducerRecord<>(topic, request.id, request);
+        List<BidRequest.Impression> impressions = request.imp;
+        boolean fanOut = fanOutImpressions && impressions != null && !impressions.isEmpty();
+        BidRequest context = fanOut ? request.withoutImpressions() : request;
+        RoutingHeaders routing = RoutingHeaders.of(request);
+        byte[] receivedAt = ByteBuffer.allocate(Long.BYTES).putLong(receivedAtMs).array();
+
+        ProducerRecord<String, Object> record = new ProducerRecord<>(router.topic(request), router.key(request), context);
+        record.headers().add(RECEIVED_AT_HEADER, receivedAt);
+        routing.addTo(record.headers());
+        if (!fanOut) {
+            return send(producer, record);
+        }
+
+        // The context goes out first, then one compact record per impression referencing it by id.
+        CompletableFuture<?>[] deliveries = new CompletableFuture<?>[impressions.size() + 1];
+        deliveries[0] = send(producer, record);
+        for (int i = 0; i < impressions.size(); i++) {
+            BidRequest.Impression slot = impressions.get(i);
+            if (slot == null) {
+                deliveries[i + 1] = CompletableFuture.completedFuture(null);
+                continue;
+            }
+            ImpressionRecord impression = ImpressionRecord.of(request.id, i, slot);
+            ProducerRecord<String, Object> impressionRecord = new ProducerRecord<>(impressionTopic, impression.key(), impression);
+            impressionRecord.headers().add(RECEIVED_AT_HEADER, receivedAt);
+            routing.addTo(impressionRecord.headers());
+            deliveries[i + 1] = send(producer, impressionRecord);
+        }
+        return CompletableFuture.allOf(deliveries);
+    }
+
+    private CompletableFuture<Void> send(KafkaProducer<String, Object> producer, ProducerRecord<String, Object> record) {
         CompletableFuture<Void> delivery = new CompletableFuture<>();
 
         try {
@@ -124,7 +230,7 @@ public class BidPublisher {
                 delivery.complete(null);
             });
         } catch (Exception e) {
-            return CompletableFuture.failedStage(e);
+            return CompletableFuture.failedFuture(e);
         }
 
         if (!benchmarkSettings.isConfirmDeliveryMode()) {
@@ -136,8 +242,10 @@ public class BidPublisher {
 
     @PreDestroy
     void close() {
-        if (producer != null) {
-            producer.close();
+        if (producers != null) {
+            for (KafkaProducer<String, Object> producer : producers) {
+                producer.close();
+            }
         }
     }
 
@@ -148,6 +256,48 @@ public class BidPublisher {
         return (int) Math.min(Integer.MAX_VALUE, timeout);
     }
 
+    private BidRouter.Mode routeMode() {
+        BidRouter.Mode mode = BidRouter.Mode.fromConfig(routeBy.trim().toLowerCase());
+        if (mode != null) {
+            return mode;
+        }
+
+        LOG.warnf("Ignoring invalid BENCHMARK_KAFKA_ROUTE_BY=%s; routing every bid to %s", routeBy, topic);
+        return BidRouter.Mode.NONE;
+    }
+
+    private BidRouter.KeyStrategy keyStrategy() {
+        BidRouter.KeyStrategy strategy = BidRouter.KeyStrategy.fromConfig(keyStrategy.trim().toLowerCase());
+        if (strategy != null) {
+            return strategy;
+        }
+
+        LOG.warnf("Ignoring invalid BENCHMARK_KAFKA_KEY=%s; keying by request id", keyStrategy);
+        return BidRouter.KeyStrategy.REQUEST_ID;
+    }
+
+    private boolean usesHotKeyPartitioner() {
+        String candidate = partitioner.trim().toLowerCase();
+        if ("hot-key".equals(candidate)) {
+            return true;
+        }
+        if (!"default".equals(candidate)) {
+            LOG.warnf("Ignoring invalid BENCHMARK_KAFKA_PARTITIONER=%s; using the default partitioner", partitioner);
+        }
+        return false;
+    }
+
+    private boolean fanOutImpressions() {
+        String candidate = fanout.trim().toLowerCase();
+        if ("impressions".equals(candidate)) {
+            return true;
+        }
+        if (!"none".equals(candidate)) {
+            LOG.warnf("Ignoring invalid BENCHMARK_KAFKA_FANOUT=%s; publishing whole bids only", fanout);
+        }
+        return false;
+    }
+
     private int sanitizeNonNegativeInt(String envName, int rawValue, int fallback) {
         if (rawValue >= 0) {
             return rawValue;
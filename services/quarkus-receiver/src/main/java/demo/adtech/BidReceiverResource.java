@@ -1,6 +1,7 @@
 package demo.adtech;
 
 import io.smallrye.mutiny.Uni;
+import io.vertx.ext.web.RoutingContext;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.POST;
@@ -25,27 +26,23 @@ public class BidReceiverResource {
     @Inject
     BenchmarkSettings benchmarkSettings;
 
+    @Inject
+    BidPrefilter prefilter;
+
     @POST
     // Returning 'Uni<Response>' means this method is non-blocking (reactive).
     // It returns a "promise" of a response, freeing up the I/O thread immediately.
-    public Uni<Response> receiveBid(BidRequest request) {
+    public Uni<Response> receiveBid(BidRequest request, RoutingContext routingContext) {
+        long receivedAt = ArrivalTimeFilter.receivedAt(routingContext);
 
-        // --- STAGE 1: FAST VALIDATION (The "Bouncer") ---
-        // Fail instantly if basic required data is missing.
-        if (request.id == null || (request.site == null && request.app == null) || request.device == null) {
-            // 400 Bad Request - Don't waste any more CPU cycles on this.
-            return Uni.createFrom().item(Response.status(Response.Status.BAD_REQUEST).build());
+        // --- STAGES 1 & 2: VALIDATION AND BUSINESS FILTERING ---
+        Response.Status rejected = screen(request);
+        if (rejected != null) {
+            return Uni.createFrom().item(Response.status(rejected).build());
         }
 
-        // --- STAGE 2: SIMPLE BUSINESS FILTERING ---
-        // Example: We don't bid on users who have requested "Limit Ad Tracking" (lmt=1)
-        if (request.device.lmt == 1) {
-            // 204 No Content tells the exchange "We pass, not interested."
-            return Uni.createFrom().item(Response.noContent().build());
-        }
-
-        // Example: Throttle specific IP ranges (simplified for demo)
-        if (request.device.ip != null && request.device.ip.startsWith("10.10.")) {
+        // Nothing in this bid could win downstream; pass without touching Kafka.
+        if (prefilter.rejects(request)) {
             return Uni.createFrom().item(Response.noContent().build());
         }
 
@@ -55,7 +52,7 @@ public class BidReceiverResource {
 
         // --- STAGE 3: PUSH TO KAFKA & ACKNOWLEDGE ---
         // If it passed the filters, it's a "good" request. Push it to the Decision Engine.
-        var delivery = bidPublisher.publish(request);
+        var delivery = bidPublisher.publish(request, receivedAt);
 
         if (!benchmarkSettings.isConfirmDeliveryMode()) {
             return Uni.createFrom().item(Response.ok(Map.of("status", "accepted")).build());
@@ -71,4 +68,30 @@ public class BidReceiverResource {
                 );
     }
 
+    /**
+     * Runs the validation and business filters shared by the single and batch endpoints.
+     *
+     * @return the status to answer with if the bid is rejected, or null if it should be published
+     */
+    static Response.Status screen(BidRequest request) {
+        // --- STAGE 1: FAST VALIDATION (The "Bouncer") ---
+        // Fail instantly if basic required data is missing.
+        if (request == null || request.id == null || (request.site == null && request.app == null) || request.device == null) {
+            // 400 Bad Request - Don't waste any more CPU cycles on this.
+            return Response.Status.BAD_REQUEST;
+        }
+
+        // --- STAGE 2: SIMPLE BUSINESS FILTERING ---
+        // Example: We don't bid on users who have requested "Limit Ad Tracking" (lmt=1)
+        if (request.device.lmt == 1) {
+            // 204 No Content tells the exchange "We pass, not interested."
+            return Response.Status.NO_CONTENT;
+        }
+
+        // Example: Throttle specific IP ranges (simplified for demo)
+        if (request.device.ip != null && request.device.ip.startsWith("10.10.")) {
+            return Response.Status.NO_CONTENT;
+        }
+        return null;
+    }
 }
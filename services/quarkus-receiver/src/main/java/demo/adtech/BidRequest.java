@@ -10,6 +10,20 @@ public class BidRequest {
     public Device device;
     public User user;
 
+    /**
+     * Shallow copy without {@code imp}, used as the shared context record when impressions
+     * are fanned out to their own topic.
+     */
+    BidRequest withoutImpressions() {
+        BidRequest context = new BidRequest();
+        context.id = id;
+        context.site = site;
+        context.app = app;
+        context.device = device;
+        context.user = user;
+        return context;
+    }
+
     public static class Impression {
         public String id;
         public Banner banner;
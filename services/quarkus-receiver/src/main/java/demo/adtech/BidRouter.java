@@ -0,0 +1,148 @@
+package demo.adtech;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Picks the Kafka topic and record key for an accepted bid.
+ *
+ * All lookups are resolved when the router is built: inventory routing reads one of two
+ * fields, and geo routing is a single hash lookup on the request's geo string, with
+ * upper- and lower-case spellings of every configured code pre-registered. Nothing is
+ * parsed or allocated per request.
+ */
+final class BidRouter {
+
+    enum Mode {
+        NONE, INVENTORY, GEO;
+
+        /**
+         * @return the mode for {@code none}, {@code inventory} or {@code geo}, or null if unknown
+         */
+        static Mode fromConfig(String raw) {
+            return switch (raw) {
+                case "none" -> NONE;
+                case "inventory" -> INVENTORY;
+                case "geo" -> GEO;
+                default -> null;
+            };
+        }
+    }
+
+    enum KeyStrategy {
+        REQUEST_ID, IFA, SITE_ID;
+
+        /**
+         * @return the strategy for {@code request-id}, {@code ifa} or {@code site-id}, or null if unknown
+         */
+        static KeyStrategy fromConfig(String raw) {
+            return switch (raw) {
+                case "request-id" -> REQUEST_ID;
+                case "ifa" -> IFA;
+                case "site-id" -> SITE_ID;
+                default -> null;
+            };
+        }
+    }
+
+    private final Mode mode;
+    private final KeyStrategy keyStrategy;
+    private final String defaultTopic;
+    private final String siteTopic;
+    private final String appTopic;
+    private final Map<String, String> geoTopics;
+
+    /**
+     * @param siteTopic topic for site inventory in {@link Mode#INVENTORY}; null for the default topic
+     * @param appTopic  topic for app inventory in {@link Mode#INVENTORY}; null for the default topic
+     * @param geoTopics topic per geo code in {@link Mode#GEO}; other geos go to the default topic
+     */
+    BidRouter(
+            Mode mode,
+            KeyStrategy keyStrategy,
+            String defaultTopic,
+            String siteTopic,
+            String appTopic,
+            Map<String, String> geoTopics
+    ) {
+        this.mode = mode;
+        this.keyStrategy = keyStrategy;
+        this.defaultTopic = defaultTopic;
+        this.siteTopic = siteTopic != null ? siteTopic : defaultTopic;
+        this.appTopic = appTopic != null ? appTopic : defaultTopic;
+        this.geoTopics = new HashMap<>();
+        geoTopics.forEach((geo, topic) -> {
+            this.geoTopics.put(geo, topic);
+            this.geoTopics.put(geo.toUpperCase(Locale.ROOT), topic);
+            this.geoTopics.put(geo.toLowerCase(Locale.ROOT), topic);
+        });
+    }
+
+    static BidRouter single(String topic) {
+        return new BidRouter(Mode.NONE, KeyStrategy.REQUEST_ID, topic, null, null, Map.of());
+    }
+
+    /**
+     * Parses {@code code=topic[,code=topic...]}; malformed entries are skipped.
+     */
+    static Map<String, String> parseGeoTopics(String spec) {
+        Map<String, String> topics = new HashMap<>();
+        if (spec == null) {
+            return topics;
+        }
+        for (String entry : spec.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0 || separator == entry.length() - 1) {
+                continue;
+            }
+            topics.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+        }
+        return topics;
+    }
+
+    String topic(BidRequest request) {
+        return switch (mode) {
+            case NONE -> defaultTopic;
+            case INVENTORY -> request.site != null ? siteTopic : request.app != null ? appTopic : defaultTopic;
+            case GEO -> {
+                String geo = request.device != null ? request.device.geo : null;
+                String topic = geo != null ? geoTopics.get(geo) : null;
+                yield topic != null ? topic : defaultTopic;
+            }
+        };
+    }
+
+    /**
+     * Partition key for the bid; falls back to the request id when the chosen attribute is missing.
+     */
+    String key(BidRequest request) {
+        String key = switch (keyStrategy) {
+            case REQUEST_ID -> request.id;
+            case IFA -> request.device != null ? request.device.ifa : null;
+            case SITE_ID -> request.site != null ? request.site.id : null;
+        };
+        return key != null && !key.isEmpty() ? key : request.id;
+    }
+
+    Set<String> topics() {
+        Set<String> topics = new LinkedHashSet<>();
+        topics.add(defaultTopic);
+        if (mode == Mode.INVENTORY) {
+            topics.add(siteTopic);
+            topics.add(appTopic);
+        } else if (mode == Mode.GEO) {
+            topics.addAll(geoTopics.values());
+        }
+        return topics;
+    }
+
+    @Override
+    public String toString() {
+        return "mode=" + mode.name().toLowerCase(Locale.ROOT)
+                + ", key=" + keyStrategy.name().toLowerCase(Locale.ROOT).replace('_', '-')
+                + ", topics=" + topics();
+    }
+}
@@ -0,0 +1,138 @@
+package demo.adtech;
+
+import io.netty.util.concurrent.FastThreadLocal;
+import io.vertx.core.Context;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands each HTTP event loop its own shard index in the per-core execution mode.
+ *
+ * Vert.x accepts on one socket and gives every connection to one event loop for its
+ * lifetime, so a bid is read, filtered and published on the loop that owns its
+ * connection. In per-core mode each loop claims an index the first time it handles a
+ * bid and keeps it; {@link BidPublisher} and {@link BidPrefilter} size their mutable
+ * state by {@link #count()} up front and index it by {@link #current()}, so no two loops
+ * write to the same producer or counter. With {@code benchmark.execution.cpus} set, a
+ * loop also pins itself to the CPU at its index in that list when it claims.
+ *
+ * In the shared mode there is a single shard and {@link #current()} is always 0.
+ */
+@ApplicationScoped
+public class CoreShards {
+
+    private static final Logger LOG = Logger.getLogger(CoreShards.class);
+
+    @Inject
+    BenchmarkSettings benchmarkSettings;
+
+    @ConfigProperty(name = "quarkus.http.io-threads")
+    Optional<Integer> ioThreads;
+
+    @ConfigProperty(name = "benchmark.execution.cpus")
+    Optional<String> cpus;
+
+    private final AtomicInteger claimed = new AtomicInteger();
+    private final FastThreadLocal<Integer> shard = new FastThreadLocal<>() {
+        @Override
+        protected Integer initialValue() {
+            return claim();
+        }
+    };
+
+    private int count = 1;
+    private int[] cpuList = new int[0];
+
+    @PostConstruct
+    void init() {
+        if (!benchmarkSettings.isPerCoreMode()) {
+            return;
+        }
+
+        // Quarkus runs HTTP on twice as many loops as there are CPUs unless told otherwise.
+        count = ioThreads.filter(threads -> threads > 0).orElse(2 * Runtime.getRuntime().availableProcessors());
+        cpuList = parseCpuList(cpus.orElse(null));
+        if (cpuList.length > 0 && !CpuAffinity.available()) {
+            LOG.warnf("Ignoring BENCHMARK_QUARKUS_CPUS=%s; thread affinity is not available on this runtime", cpus.get());
+            cpuList = new int[0];
+        }
+        LOG.infof("Per-core execution enabled (shards=%d, cpus=%s)", count, cpuList.length > 0 ? cpus.get() : "unpinned");
+    }
+
+    /**
+     * @return the number of shards, one per HTTP event loop
+     */
+    public int count() {
+        return count;
+    }
+
+    /**
+     * @return the calling thread's shard, between 0 and {@link #count()} exclusive
+     */
+    public int current() {
+        return count == 1 ? 0 : shard.get();
+    }
+
+    private int claim() {
+        if (!Context.isOnEventLoopThread()) {
+            // Worker threads, which run /bid-requests, and Kafka threads share the shards by thread id.
+            return (int) (Thread.currentThread().threadId() % count);
+        }
+
+        int claim = claimed.getAndIncrement();
+        int index = claim % count;
+        if (claim == count) {
+            LOG.warnf("More event loops than QUARKUS_HTTP_IO_THREADS=%d handle bids; loops now share shards", count);
+        }
+        if (cpuList.length > 0) {
+            int cpu = cpuList[index % cpuList.length];
+            if (CpuAffinity.pin(cpu)) {
+                LOG.infof("Pinned %s (shard %d) to CPU %d", Thread.currentThread().getName(), index, cpu);
+            } else {
+                LOG.warnf("Could not pin %s (shard %d) to CPU %d", Thread.currentThread().getName(), index, cpu);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Parses a Linux CPU list such as {@code 0-3,6}. A blank list means no pinning.
+     *
+     * @throws IllegalArgumentException if the list is malformed
+     */
+    static int[] parseCpuList(String raw) {
+        if (raw == null || raw.isBlank()) {
+            return new int[0];
+        }
+
+        List<Integer> cpus = new ArrayList<>();
+        for (String part : raw.split(",")) {
+            String range = part.trim();
+            if (range.isEmpty()) {
+                continue;
+            }
+            int dash = range.indexOf('-');
+            try {
+                int first = Integer.parseInt(dash < 0 ? range : range.substring(0, dash).trim());
+                int last = dash < 0 ? first : Integer.parseInt(range.substring(dash + 1).trim());
+                if (first < 0 || last < first) {
+                    throw new IllegalArgumentException("Invalid CPU range: " + range);
+                }
+                for (int cpu = first; cpu <= last; cpu++) {
+                    cpus.add(cpu);
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid CPU range: " + range, e);
+            }
+        }
+        return cpus.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
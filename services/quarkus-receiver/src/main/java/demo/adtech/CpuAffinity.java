@@ -0,0 +1,63 @@
+package demo.adtech;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Pins the calling thread to one CPU through Linux {@code sched_setaffinity}, called with
+ * the foreign function API.
+ *
+ * The call is looked up once. Where it is not available (another OS, a native image
+ * built without foreign function support, or a JVM started without
+ * {@code --enable-native-access}) {@link #pin(int)} does nothing and returns false.
+ */
+final class CpuAffinity {
+
+    /** Size of glibc's and musl's {@code cpu_set_t}: a bit mask of 1024 CPUs. */
+    private static final int CPU_SET_LONGS = 16;
+
+    private static final MethodHandle SCHED_SETAFFINITY = lookup();
+
+    private CpuAffinity() {
+    }
+
+    static boolean available() {
+        return SCHED_SETAFFINITY != null;
+    }
+
+    /**
+     * @return true if the calling thread now runs on {@code cpu} only
+     */
+    static boolean pin(int cpu) {
+        if (SCHED_SETAFFINITY == null || cpu < 0 || cpu >= CPU_SET_LONGS * Long.SIZE) {
+            return false;
+        }
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment mask = arena.allocate(ValueLayout.JAVA_LONG, CPU_SET_LONGS);
+            mask.setAtIndex(ValueLayout.JAVA_LONG, cpu / Long.SIZE, 1L << (cpu % Long.SIZE));
+            // pid 0 is the calling thread.
+            return (int) SCHED_SETAFFINITY.invokeExact(0, mask.byteSize(), mask) == 0;
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    private static MethodHandle lookup() {
+        try {
+            Linker linker = Linker.nativeLinker();
+            return linker.defaultLookup()
+                    .find("sched_setaffinity")
+                    .map(symbol -> linker.downcallHandle(
+                            symbol,
+                            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG, ValueLayout.ADDRESS)
+                    ))
+                    .orElse(null);
+        } catch (RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+}
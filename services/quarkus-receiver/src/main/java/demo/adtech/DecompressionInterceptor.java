@@ -0,0 +1,86 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.ReaderInterceptor;
+import jakarta.ws.rs.ext.ReaderInterceptorContext;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+/**
+ * Decodes gzip and zstd request bodies before the entity reader sees them.
+ *
+ * For the single-bid endpoint Vert.x buffers the compressed body before the resource
+ * method runs, so the wrapped stream never blocks and the codec runs on the I/O thread.
+ * The JSON reader pulls decompressed bytes straight from the {@link RequestDecompressor}
+ * stream, and the pooled codec state is returned as soon as the entity is read. A
+ * resource that takes the body as an {@link InputStream}, like {@link BidBatchResource},
+ * gets the decompressing stream itself and closes it once it has read it.
+ */
+@Provider
+public class DecompressionInterceptor implements ReaderInterceptor {
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "benchmark.decompression.max-bytes", defaultValue = "1048576")
+    long maxBytes;
+
+    private RequestDecompressor decompressor;
+
+    @PostConstruct
+    void init() {
+        decompressor = new RequestDecompressor(maxBytes, Runtime.getRuntime().availableProcessors() * 2, registry);
+    }
+
+    @Override
+    public Object aroundReadFrom(ReaderInterceptorContext context) throws IOException {
+        String encoding = context.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (RequestDecompressor.isIdentity(encoding)) {
+            return context.proceed();
+        }
+        if (!decompressor.supports(encoding)) {
+            throw new WebApplicationException(Response.status(Response.Status.UNSUPPORTED_MEDIA_TYPE)
+                    .entity(Map.of("status", "unsupported content encoding"))
+                    .build());
+        }
+
+        InputStream body = null;
+        try {
+            body = decompressor.open(encoding, context.getInputStream());
+            context.setInputStream(body);
+            context.getHeaders().remove(HttpHeaders.CONTENT_ENCODING);
+            Object entity = context.proceed();
+            if (context.getType() == InputStream.class) {
+                // Handed to the resource, which reads and closes it.
+                body = null;
+            }
+            return entity;
+        } catch (Exception e) {
+            if (RequestDecompressor.isLimitExceeded(e)) {
+                throw new WebApplicationException(Response.status(Response.Status.REQUEST_ENTITY_TOO_LARGE)
+                        .entity(Map.of("status", "payload too large"))
+                        .build());
+            }
+            if (e instanceof RequestDecompressor.MalformedBodyException
+                    || e.getCause() instanceof RequestDecompressor.MalformedBodyException) {
+                throw new WebApplicationException(Response.status(Response.Status.BAD_REQUEST)
+                        .entity(Map.of("status", "bad request"))
+                        .build());
+            }
+            throw e;
+        } finally {
+            if (body != null) {
+                body.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+import java.util.List;
+
+/**
+ * One impression of a bid request, as published to the impression fan-out topic.
+ *
+ * The shared request context (site, app, device, user) is not repeated. {@code ctx}
+ * is the request id and points at the context record on the bid topic. The slot spec
+ * and floor are flattened into short fields, and absent ones are left out of the JSON.
+ *
+ * @param ctx    request id of the context record
+ * @param imp    impression id, or its position in {@code imp} when the id is missing
+ * @param w      banner width
+ * @param h      banner height
+ * @param pos    banner position
+ * @param mimes  video MIME types
+ * @param mindur video minimum duration
+ * @param maxdur video maximum duration
+ * @param floor  bid floor
+ * @param cur    bid floor currency
+ */
+@RegisterForReflection
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ImpressionRecord(
+        String ctx,
+        String imp,
+        Integer w,
+        Integer h,
+        Integer pos,
+        List<String> mimes,
+        Integer mindur,
+        Integer maxdur,
+        double floor,
+        String cur
+) {
+
+    static ImpressionRecord of(String ctx, int index, BidRequest.Impression impression) {
+        BidRequest.Banner banner = impression.banner;
+        BidRequest.Video video = impression.video;
+        return new ImpressionRecord(
+                ctx,
+                impression.id != null ? impression.id : Integer.toString(index),
+                banner != null ? banner.w : null,
+                banner != null ? banner.h : null,
+                banner != null ? banner.pos : null,
+                video != null ? video.mimes : null,
+                video != null ? video.minduration : null,
+                video != null ? video.maxduration : null,
+                impression.bidfloor,
+                impression.bidfloorcur
+        );
+    }
+
+    /**
+     * Record key: spreads the impressions of one request over partitions, so each can be
+     * priced by a different consumer.
+     */
+    String key() {
+        return ctx + ':' + imp;
+    }
+}
@@ -0,0 +1,154 @@
+package demo.adtech;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable lookup tables deciding whether an impression could match any campaign.
+ *
+ * Banner sizes are packed into a sorted {@code long[]} of {@code w << 32 | h}, so a check
+ * is one binary search without boxing. Floor ceilings are kept per currency in that
+ * currency's units: the base ceiling is converted once per rate table, not per bid.
+ * Empty size or MIME lists and currencies without a ceiling are not checked.
+ */
+final class PrefilterRules {
+
+    static final String BASE_CURRENCY = "USD";
+
+    private final long[] bannerSizes;
+    private final Set<String> videoMimes;
+    private final Map<String, Double> floorCeilings;
+
+    private PrefilterRules(long[] bannerSizes, Set<String> videoMimes, Map<String, Double> floorCeilings) {
+        this.bannerSizes = bannerSizes;
+        this.videoMimes = videoMimes;
+        this.floorCeilings = floorCeilings;
+    }
+
+    /**
+     * @param bannerSizes    accepted banner sizes as {@code WxH}
+     * @param videoMimes     accepted video MIME types
+     * @param baseCeiling    highest floor worth bidding on, in {@link #BASE_CURRENCY}; 0 disables the floor check
+     * @param ceilingOverrides ceilings set directly in a currency's own units, bypassing conversion
+     * @param usdRates       value of one unit of each currency in {@link #BASE_CURRENCY}
+     */
+    static PrefilterRules build(
+            List<String> bannerSizes,
+            List<String> videoMimes,
+            double baseCeiling,
+            Map<String, Double> ceilingOverrides,
+            Map<String, Double> usdRates
+    ) {
+        long[] sizes = bannerSizes.stream()
+                .mapToLong(PrefilterRules::parseSize)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        Set<String> mimes = new HashSet<>();
+        for (String mime : videoMimes) {
+            mimes.add(mime.trim().toLowerCase(Locale.ROOT));
+        }
+
+        Map<String, Double> ceilings = new HashMap<>();
+        if (baseCeiling > 0) {
+            ceilings.put(BASE_CURRENCY, baseCeiling);
+            usdRates.forEach((currency, rate) -> {
+                if (rate > 0) {
+                    ceilings.put(currency, baseCeiling / rate);
+                }
+            });
+        }
+        ceilings.putAll(ceilingOverrides);
+        return new PrefilterRules(sizes, Set.copyOf(mimes), Map.copyOf(ceilings));
+    }
+
+    /**
+     * @return true if at least one impression passes, or the request has none to judge
+     */
+    boolean acceptsAny(List<BidRequest.Impression> impressions) {
+        if (impressions == null || impressions.isEmpty()) {
+            return true;
+        }
+        for (BidRequest.Impression impression : impressions) {
+            if (impression != null && accepts(impression)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean accepts(BidRequest.Impression impression) {
+        return acceptsFloor(impression) && acceptsBanner(impression.banner) && acceptsVideo(impression.video);
+    }
+
+    private boolean acceptsFloor(BidRequest.Impression impression) {
+        if (impression.bidfloor <= 0) {
+            return true;
+        }
+        // Ceilings are keyed upper case; toUpperCase returns the same string when it already is.
+        String currency = impression.bidfloorcur == null ? BASE_CURRENCY : impression.bidfloorcur.toUpperCase(Locale.ROOT);
+        Double ceiling = floorCeilings.get(currency);
+        return ceiling == null || impression.bidfloor <= ceiling;
+    }
+
+    private boolean acceptsBanner(BidRequest.Banner banner) {
+        if (banner == null || bannerSizes.length == 0 || banner.w <= 0 || banner.h <= 0) {
+            return true;
+        }
+        return Arrays.binarySearch(bannerSizes, pack(banner.w, banner.h)) >= 0;
+    }
+
+    private boolean acceptsVideo(BidRequest.Video video) {
+        if (video == null || videoMimes.isEmpty()) {
+            return true;
+        }
+        if (video.mimes == null) {
+            return false;
+        }
+        for (String mime : video.mimes) {
+            if (mime != null && videoMimes.contains(mime.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long parseSize(String size) {
+        String[] parts = size.trim().toLowerCase(Locale.ROOT).split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Banner size must be WxH: " + size);
+        }
+        return pack(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+    }
+
+    private static long pack(int w, int h) {
+        return (long) w << 32 | (h & 0xFFFF_FFFFL);
+    }
+
+    /**
+     * Parses {@code CUR=value[,CUR=value...]}; currency codes are upper-cased.
+     */
+    static Map<String, Double> parseCurrencyValues(String spec) {
+        Map<String, Double> values = new HashMap<>();
+        if (spec == null || spec.isBlank()) {
+            return values;
+        }
+        for (String entry : spec.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Expected CUR=value but got: " + entry.trim());
+            }
+            values.put(
+                    entry.substring(0, separator).trim().toUpperCase(Locale.ROOT),
+                    Double.parseDouble(entry.substring(separator + 1).trim())
+            );
+        }
+        return values;
+    }
+}
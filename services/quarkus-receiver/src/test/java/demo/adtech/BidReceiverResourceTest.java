@@ -11,8 +11,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
 import static io.restassured.RestAssured.given;
 import static org.hamcrest.CoreMatchers.is;
@@ -76,6 +80,10 @@ class BidReceiverResourceTest {
 
         assertEquals(1, records.size());
         assertTrue(records.get(0).value().contains("test-bid-123"));
+        assertEquals(Long.BYTES, records.get(0).headers().lastHeader(BidPublisher.RECEIVED_AT_HEADER).value().length);
+        assertEquals("site", new String(records.get(0).headers().lastHeader(RoutingHeaders.INVENTORY).value()));
+        assertEquals("ios", new String(records.get(0).headers().lastHeader(RoutingHeaders.OS).value()));
+        assertEquals("0", new String(records.get(0).headers().lastHeader(RoutingHeaders.LMT).value()));
     }
 
     @Test
@@ -233,6 +241,106 @@ class BidReceiverResourceTest {
                 .then()
                 .statusCode(400);
     }
-}
 
+    @Test
+    @DisplayName("Batch endpoint should answer with one status per NDJSON item")
+    void testBatchStatusVector() {
+        String ndjson = """
+            {"id":"batch-lmt","site":{"domain":"example.com"},"device":{"ip":"192.168.1.1","lmt":1}}
+            {"id":"batch-no-device","site":{"domain":"example.com"}}
+            {"id":"batch-blocked","app":{"bundle":"com.example.app"},"device":{"ip":"10.10.0.1"}}
+            """;
+
+        given()
+                .contentType(BidBatchResource.NDJSON)
+                .body(ndjson)
+                .when()
+                .post("/bid-requests")
+                .then()
+                .statusCode(200)
+                .body("items", is(List.of(204, 400, 204)));
+    }
+
+    @Test
+    @DisplayName("Batch endpoint should accept a JSON array and reject malformed bodies")
+    void testBatchArrayAndMalformed() {
+        given()
+                .contentType("application/json")
+                .body("[{\"id\":\"batch-array\",\"device\":{\"lmt\":0}}, null]")
+                .when()
+                .post("/bid-requests")
+                .then()
+                .statusCode(200)
+                .body("items", is(List.of(400, 400)));
+
+        given()
+                .contentType("application/json")
+                .body("[{\"id\":")
+                .when()
+                .post("/bid-requests")
+                .then()
+                .statusCode(400);
+    }
 
+    @Test
+    @DisplayName("Gzip bodies should be decoded, and oversized or unknown encodings rejected")
+    void testCompressedBodies() throws IOException {
+        String lmtBidJson = """
+            {"id":"test-bid-gzip","site":{"domain":"example.com"},"device":{"ip":"192.168.1.1","lmt":1}}
+            """;
+
+        given()
+                .contentType("application/json")
+                .header("Content-Encoding", "gzip")
+                .body(gzip(lmtBidJson.getBytes(StandardCharsets.UTF_8)))
+                .when()
+                .post("/bid-request")
+                .then()
+                .statusCode(204);
+
+        given()
+                .contentType("application/json")
+                .header("Content-Encoding", "gzip")
+                .body(gzip(new byte[2 * 1024 * 1024]))
+                .when()
+                .post("/bid-request")
+                .then()
+                .statusCode(413);
+
+        given()
+                .contentType("application/json")
+                .header("Content-Encoding", "br")
+                .body(lmtBidJson)
+                .when()
+                .post("/bid-request")
+                .then()
+                .statusCode(415);
+
+        given()
+                .contentType(BidBatchResource.NDJSON)
+                .header("Content-Encoding", "gzip")
+                .body(gzip((lmtBidJson + lmtBidJson).getBytes(StandardCharsets.UTF_8)))
+                .when()
+                .post("/bid-requests")
+                .then()
+                .statusCode(200)
+                .body("items", is(List.of(204, 204)));
+
+        given()
+                .contentType(BidBatchResource.NDJSON)
+                .header("Content-Encoding", "gzip")
+                .body(gzip(" ".repeat(2 * 1024 * 1024).getBytes(StandardCharsets.UTF_8)))
+                .when()
+                .post("/bid-requests")
+                .then()
+                .statusCode(413);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,67 @@
+package demo.adtech;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-core CPU list and thread pinning.
+ */
+class CoreShardsTest {
+
+    @Test
+    @DisplayName("CPU lists should expand ranges and single CPUs in order")
+    void testParseCpuList() {
+        assertArrayEquals(new int[]{0, 1, 2, 3, 6}, CoreShards.parseCpuList("0-3,6"));
+        assertArrayEquals(new int[]{2, 4, 5}, CoreShards.parseCpuList(" 2 , 4 - 5 ,"));
+        assertArrayEquals(new int[0], CoreShards.parseCpuList(""));
+        assertArrayEquals(new int[0], CoreShards.parseCpuList(null));
+    }
+
+    @Test
+    @DisplayName("Malformed CPU lists should be rejected")
+    void testRejectsMalformedCpuList() {
+        assertThrows(IllegalArgumentException.class, () -> CoreShards.parseCpuList("3-1"));
+        assertThrows(IllegalArgumentException.class, () -> CoreShards.parseCpuList("a"));
+        assertThrows(IllegalArgumentException.class, () -> CoreShards.parseCpuList("-1"));
+    }
+
+    @Test
+    @EnabledOnOs(OS.LINUX)
+    @DisplayName("A pinned thread should be allowed to run on its CPU only")
+    void testPin() throws Exception {
+        int cpu = CoreShards.parseCpuList(cpusAllowed(Path.of("/proc/self/status")))[0];
+        AtomicReference<String> allowed = new AtomicReference<>();
+        AtomicReference<Boolean> pinned = new AtomicReference<>();
+
+        Thread thread = Thread.ofPlatform().start(() -> {
+            pinned.set(CpuAffinity.pin(cpu));
+            try {
+                allowed.set(cpusAllowed(Path.of("/proc/thread-self/status")));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.join();
+
+        assertTrue(pinned.get());
+        assertEquals(Integer.toString(cpu), allowed.get());
+        assertFalse(CpuAffinity.pin(-1));
+    }
+
+    private static String cpusAllowed(Path status) throws IOException {
+        return Files.readAllLines(status).stream()
+                .filter(line -> line.startsWith("Cpus_allowed_list:"))
+                .map(line -> line.substring("Cpus_allowed_list:".length()).trim())
+                .findFirst()
+                .orElseThrow();
+    }
+}
@@ -0,0 +1,77 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-impression fan-out record.
+ */
+class ImpressionRecordTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    @DisplayName("Banner impressions should reference the request and omit video fields")
+    void testBannerImpression() throws Exception {
+        // Arrange
+        BidRequest.Impression impression = new BidRequest.Impression();
+        impression.id = "1";
+        impression.banner = new BidRequest.Banner();
+        impression.banner.w = 300;
+        impression.banner.h = 250;
+        impression.bidfloor = 0.5;
+
+        // Act
+        ImpressionRecord record = ImpressionRecord.of("req-1", 0, impression);
+        String json = objectMapper.writeValueAsString(record);
+
+        // Assert
+        assertEquals("req-1:1", record.key());
+        assertEquals("{\"ctx\":\"req-1\",\"imp\":\"1\",\"w\":300,\"h\":250,\"pos\":0,\"floor\":0.5,\"cur\":\"USD\"}", json);
+    }
+
+    @Test
+    @DisplayName("Video impressions without an id should be keyed by their position")
+    void testVideoImpressionWithoutId() throws Exception {
+        // Arrange
+        BidRequest.Impression impression = new BidRequest.Impression();
+        impression.video = new BidRequest.Video();
+        impression.video.mimes = List.of("video/mp4");
+        impression.video.maxduration = 30;
+
+        // Act
+        ImpressionRecord record = ImpressionRecord.of("req-2", 3, impression);
+        String json = objectMapper.writeValueAsString(record);
+
+        // Assert
+        assertEquals("req-2:3", record.key());
+        assertFalse(json.contains("\"w\""));
+        assertTrue(json.contains("\"mimes\":[\"video/mp4\"]"));
+        assertTrue(json.contains("\"maxdur\":30"));
+    }
+
+    @Test
+    @DisplayName("The context copy should share everything but the impressions")
+    void testContextWithoutImpressions() {
+        // Arrange
+        BidRequest request = new BidRequest();
+        request.id = "req-3";
+        request.site = new BidRequest.Site();
+        request.device = new BidRequest.Device();
+        request.imp = List.of(new BidRequest.Impression());
+
+        // Act
+        BidRequest context = request.withoutImpressions();
+
+        // Assert
+        assertNull(context.imp);
+        assertSame(request.site, context.site);
+        assertSame(request.device, context.device);
+        assertEquals("req-3", context.id);
+    }
+}
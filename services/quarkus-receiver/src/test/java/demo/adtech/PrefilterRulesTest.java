@@ -0,0 +1,84 @@
+package demo.adtech;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the impression prefilter tables.
+ */
+class PrefilterRulesTest {
+
+    private final PrefilterRules rules = PrefilterRules.build(
+            List.of("300x250", "728x90"),
+            List.of("video/mp4"),
+            5.0,
+            Map.of("JPY", 1000.0),
+            PrefilterRules.parseCurrencyValues("EUR=1.25, JPY=0.0067")
+    );
+
+    @Test
+    @DisplayName("Banner sizes and video MIME types should be matched against the allow lists")
+    void testFormats() {
+        assertTrue(rules.accepts(banner(300, 250)));
+        assertFalse(rules.accepts(banner(320, 50)));
+        assertTrue(rules.accepts(banner(0, 0)));
+        assertTrue(rules.accepts(video("VIDEO/MP4")));
+        assertFalse(rules.accepts(video("video/webm")));
+        assertFalse(rules.accepts(video()));
+    }
+
+    @Test
+    @DisplayName("Floors should be compared with the converted or overridden ceiling of their currency")
+    void testFloorCeilings() {
+        assertTrue(rules.accepts(floor(5.0, "USD")));
+        assertFalse(rules.accepts(floor(5.01, "USD")));
+        assertTrue(rules.accepts(floor(4.0, "EUR")));
+        assertFalse(rules.accepts(floor(4.01, "EUR")));
+        assertFalse(rules.accepts(floor(4.01, "eur")));
+        assertFalse(rules.accepts(floor(1001, "JPY")));
+        assertTrue(rules.accepts(floor(1000, "CHF")));
+    }
+
+    @Test
+    @DisplayName("A bid should pass when any impression passes or it has none")
+    void testAcceptsAny() {
+        assertTrue(rules.acceptsAny(null));
+        assertTrue(rules.acceptsAny(List.of(banner(320, 50), banner(728, 90))));
+        assertFalse(rules.acceptsAny(List.of(banner(320, 50), floor(9, "USD"))));
+    }
+
+    @Test
+    @DisplayName("Malformed sizes and currency entries should fail fast")
+    void testMalformedConfig() {
+        assertThrows(IllegalArgumentException.class,
+                () -> PrefilterRules.build(List.of("300"), List.of(), 0, Map.of(), Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> PrefilterRules.parseCurrencyValues("EUR"));
+    }
+
+    private static BidRequest.Impression banner(int w, int h) {
+        BidRequest.Impression impression = new BidRequest.Impression();
+        impression.banner = new BidRequest.Banner();
+        impression.banner.w = w;
+        impression.banner.h = h;
+        return impression;
+    }
+
+    private static BidRequest.Impression video(String... mimes) {
+        BidRequest.Impression impression = new BidRequest.Impression();
+        impression.video = new BidRequest.Video();
+        impression.video.mimes = mimes.length == 0 ? null : List.of(mimes);
+        return impression;
+    }
+
+    private static BidRequest.Impression floor(double bidfloor, String currency) {
+        BidRequest.Impression impression = new BidRequest.Impression();
+        impression.bidfloor = bidfloor;
+        impression.bidfloorcur = currency;
+        return impression;
+    }
+}
@@ -0,0 +1,12 @@
+package demo.adtech;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * Dictionary of {@link Dimension#APP_BUNDLE} values.
+ */
+@Entity
+@Table(name = "dim_app_bundle")
+public class AppBundleDimension extends DimensionValue {
+}
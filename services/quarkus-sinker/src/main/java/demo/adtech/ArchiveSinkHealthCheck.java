@@ -0,0 +1,35 @@
+package demo.adtech;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.health.HealthCheck;
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.eclipse.microprofile.health.HealthCheckResponseBuilder;
+import org.eclipse.microprofile.health.Readiness;
+
+/**
+ * Reports the columnar archive sink as not ready while its consumer is failing or has
+ * stopped, so an archive that no longer advances shows up in {@code /q/health/ready}.
+ */
+@Readiness
+@ApplicationScoped
+public class ArchiveSinkHealthCheck implements HealthCheck {
+
+    @Inject
+    ColumnarArchiveSink archiveSink;
+
+    @Override
+    public HealthCheckResponse call() {
+        HealthCheckResponseBuilder response = HealthCheckResponse.named("Columnar archive sink")
+                .withData("enabled", archiveSink.isEnabled());
+        if (!archiveSink.isEnabled()) {
+            return response.up().build();
+        }
+
+        response.withData("restarts", archiveSink.restarts());
+        if (archiveSink.lastFailure() != null) {
+            response.withData("last_failure", archiveSink.lastFailure());
+        }
+        return response.status(archiveSink.isRunning() && !archiveSink.isFailing()).build();
+    }
+}
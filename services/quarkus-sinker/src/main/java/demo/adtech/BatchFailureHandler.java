@@ -0,0 +1,137 @@
+package demo.adtech;
+
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Handles batches whose write failed, on the stream thread that owns them.
+ *
+ * Transient failures are retried as a whole batch with exponential backoff. The
+ * stream thread blocks meanwhile, which pauses its partitions without committing
+ * anything. When the retry budget runs out a {@link SinkUnavailableException} is thrown
+ * so the bids are replayed later rather than dead-lettered.
+ *
+ * Permanent failures are narrowed down by writing the batch one bid at a time;
+ * only the bids that still fail permanently are handed to the DLQ, in one call.
+ */
+final class BatchFailureHandler implements InFlightWindow.FailureHandler {
+
+    static final String OPERATION = "DATABASE_PERSIST";
+
+    private static final Logger LOG = Logger.getLogger(BatchFailureHandler.class);
+
+    private final BidSink sink;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final String operation;
+    private final Consumer<List<DeadLetterQueueService.FailedBidRecord>> deadLetters;
+
+    BatchFailureHandler(
+            BidSink sink,
+            int maxAttempts,
+            Duration initialBackoff,
+            Duration maxBackoff,
+            String operation,
+            Consumer<List<DeadLetterQueueService.FailedBidRecord>> deadLetters
+    ) {
+        this.sink = sink;
+        this.maxAttempts = Math.max(0, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.operation = operation;
+        this.deadLetters = deadLetters;
+    }
+
+    @Override
+    public void onFailure(List<BidRequest> batch, Throwable failure) {
+        if (FailureClassifier.isTransient(failure)) {
+            LOG.warnf("Transient failure writing batch of %d bids; retrying: %s", batch.size(), failure.toString());
+            failure = retry(batch, failure);
+            if (failure == null) {
+                return;
+            }
+        }
+
+        LOG.warnf(failure, "Failed to save batch of %d bids; retrying individually", batch.size());
+        List<DeadLetterQueueService.FailedBidRecord> failed = new ArrayList<>();
+        for (BidRequest request : batch) {
+            List<BidRequest> single = List.of(request);
+            Throwable error = write(single);
+            if (error != null && FailureClassifier.isTransient(error)) {
+                error = retry(single, error);
+            }
+            if (error != null) {
+                failed.add(DeadLetterQueueService.FailedBidRecord.of(request, error, operation));
+            }
+        }
+
+        if (!failed.isEmpty()) {
+            deadLetters.accept(failed);
+        }
+    }
+
+    /**
+     * Retries a transiently failed write. Returns {@code null} once it succeeds, or the
+     * failure as soon as it turns out to be permanent.
+     *
+     * @throws SinkUnavailableException when every attempt failed transiently
+     */
+    private Throwable retry(List<BidRequest> batch, Throwable failure) {
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            sleep(backoff(attempt), failure);
+            failure = write(batch);
+            if (failure == null) {
+                LOG.infof("Batch of %d bids saved after %d retries", batch.size(), attempt);
+                return null;
+            }
+            if (!FailureClassifier.isTransient(failure)) {
+                return failure;
+            }
+        }
+        throw new SinkUnavailableException(
+                "Database still unavailable after " + maxAttempts + " retries; pausing until the stream thread is replaced",
+                failure
+        );
+    }
+
+    private Throwable write(List<BidRequest> batch) {
+        try {
+            sink.write(batch).toCompletableFuture().join();
+            return null;
+        } catch (CompletionException e) {
+            return e.getCause() != null ? e.getCause() : e;
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    /**
+     * Exponential backoff capped at {@code maxBackoff}, with the upper half jittered so that
+     * stream threads recovering from the same outage do not retry in lockstep.
+     */
+    Duration backoff(int attempt) {
+        long base = initialBackoff.toMillis() << Math.min(attempt - 1, 20);
+        long capped = Math.min(base, maxBackoff.toMillis());
+        long half = capped / 2;
+        return Duration.ofMillis(half + (half > 0 ? ThreadLocalRandom.current().nextLong(half + 1) : 0));
+    }
+
+    private static void sleep(Duration delay, Throwable failure) {
+        if (delay.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SinkUnavailableException("Interrupted while waiting to retry a failed batch", failure);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.Counter;
+import org.apache.kafka.streams.processor.PunctuationType;
+import org.apache.kafka.streams.processor.api.Processor;
+import org.apache.kafka.streams.processor.api.ProcessorContext;
+import org.apache.kafka.streams.processor.api.Record;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Terminal processor that groups bids into batches per stream task and hands
+ * them to a {@link BidSink}.
+ *
+ * A batch is flushed when it reaches {@code batchSize}, on a wall-clock
+ * punctuation every {@code maxWait}, and before every offset commit via the
+ * {@link FlushBarrierStore}. Submitted batches are tracked in an
+ * {@link InFlightWindow}, which blocks the stream thread while it is full.
+ *
+ * Once a {@link SinkUnavailableException} escapes, the processor drops its buffered and
+ * in-flight bids: their offsets were never committed, so the replacement thread reads them again.
+ *
+ * Every bid is counted per input partition, and one in {@code logSampleEvery} is logged
+ * as key=value fields instead of logging each record.
+ */
+final class BatchingProcessor implements Processor<String, BidRequest, Void, Void> {
+
+    static final String BARRIER_STORE = "bid-batch-barrier";
+
+    private static final Logger LOG = Logger.getLogger(BatchingProcessor.class);
+
+    private final BidSink sink;
+    private final int batchSize;
+    private final Duration maxWait;
+    private final int maxInFlight;
+    private final InFlightWindow.FailureHandler failureHandler;
+    private final SinkerMetrics metrics;
+    private final int logSampleEvery;
+
+    private ProcessorContext<Void, Void> context;
+    private List<BidRequest> buffer;
+    private InFlightWindow window;
+    private boolean abandoned;
+    private long firstBufferedNanos;
+    private long seen;
+    private String counterTopic;
+    private int counterPartition = -1;
+    private Counter records;
+
+    BatchingProcessor(
+            BidSink sink,
+            int batchSize,
+            Duration maxWait,
+            int maxInFlight,
+            InFlightWindow.FailureHandler failureHandler,
+            SinkerMetrics metrics,
+            int logSampleEvery
+    ) {
+        this.sink = sink;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxWait = maxWait;
+        this.maxInFlight = maxInFlight;
+        this.failureHandler = failureHandler;
+        this.metrics = metrics;
+        this.logSampleEvery = logSampleEvery;
+    }
+
+    @Override
+    public void init(ProcessorContext<Void, Void> context) {
+        this.context = context;
+        buffer = new ArrayList<>(batchSize);
+        window = new InFlightWindow(maxInFlight, failureHandler);
+
+        FlushBarrierStore barrier = context.getStateStore(BARRIER_STORE);
+        barrier.onFlush(this::flushAndAwait);
+        context.schedule(maxWait, PunctuationType.WALL_CLOCK_TIME, timestamp -> flush());
+    }
+
+    @Override
+    public void process(Record<String, BidRequest> record) {
+        if (record.value() == null) {
+            return;
+        }
+
+        RecordMetadata metadata = context.recordMetadata().orElse(null);
+        if (metadata != null) {
+            countRecord(metadata);
+        }
+        if (logSampleEvery > 0 && ++seen % logSampleEvery == 0) {
+            logSample(record.value(), metadata);
+        }
+
+        if (buffer.isEmpty()) {
+            firstBufferedNanos = System.nanoTime();
+        }
+        buffer.add(record.value());
+        if (buffer.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (!abandoned) {
+            flushAndAwait();
+        }
+    }
+
+    private void flush() {
+        if (abandoned || buffer.isEmpty()) {
+            return;
+        }
+
+        List<BidRequest> batch = buffer;
+        buffer = new ArrayList<>(batchSize);
+        metrics.recordBatchSize(batch.size());
+
+        long firstBuffered = firstBufferedNanos;
+        long writeStarted = System.nanoTime();
+        CompletionStage<Void> write;
+        try {
+            write = sink.write(batch).whenComplete((ignored, error) -> {
+                if (error == null) {
+                    metrics.recordBatchWritten(firstBuffered, writeStarted);
+                    metrics.recordCommitted(batch);
+                }
+            });
+        } catch (RuntimeException e) {
+            write = CompletableFuture.failedFuture(e);
+        }
+        try {
+            window.add(batch, write);
+        } catch (SinkUnavailableException e) {
+            abandon();
+            throw e;
+        }
+    }
+
+    private void flushAndAwait() {
+        flush();
+        try {
+            window.awaitAll();
+        } catch (SinkUnavailableException e) {
+            abandon();
+            throw e;
+        }
+    }
+
+    private void countRecord(RecordMetadata metadata) {
+        // A task normally reads a single partition, so the counter lookup happens once per task.
+        if (metadata.partition() != counterPartition || !metadata.topic().equals(counterTopic)) {
+            counterTopic = metadata.topic();
+            counterPartition = metadata.partition();
+            records = metrics.records(counterTopic, counterPartition);
+        }
+        records.increment();
+    }
+
+    private void logSample(BidRequest request, RecordMetadata metadata) {
+        LOG.infof(
+                "bid_sample task=%s partition=%d offset=%d bid_request_id=%s domain=%s app_bundle=%s os=%s sample_every=%d",
+                context.taskId(),
+                metadata != null ? metadata.partition() : -1,
+                metadata != null ? metadata.offset() : -1L,
+                request.id,
+                Dimension.DOMAIN.valueOf(request),
+                Dimension.APP_BUNDLE.valueOf(request),
+                Dimension.OS.valueOf(request),
+                logSampleEvery
+        );
+    }
+
+    private void abandon() {
+        abandoned = true;
+        buffer.clear();
+        window.clear();
+    }
+}
@@ -0,0 +1,33 @@
+package demo.adtech;
+
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+import org.apache.kafka.streams.processor.api.RecordMetadata;
+
+/**
+ * Decodes the raw value once a record has passed the header-based routing,
+ * so dropped and forwarded bids are never parsed.
+ */
+final class BidDecoder implements FixedKeyProcessor<String, byte[], BidRequest> {
+
+    private final Deserializer<BidRequest> deserializer;
+
+    private FixedKeyProcessorContext<String, BidRequest> context;
+
+    BidDecoder(Deserializer<BidRequest> deserializer) {
+        this.deserializer = deserializer;
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, BidRequest> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, byte[]> record) {
+        String topic = context.recordMetadata().map(RecordMetadata::topic).orElse(null);
+        context.forward(record.withValue(deserializer.deserialize(topic, record.headers(), record.value())));
+    }
+}
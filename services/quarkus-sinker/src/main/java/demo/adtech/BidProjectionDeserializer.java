@@ -0,0 +1,143 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+
+import java.io.IOException;
+
+/**
+ * Streaming decoder for the input topic that reads only what the sinker stores.
+ *
+ * The upstream payload carries impressions, user agent, user and whatever else the
+ * receiver forwards; data binding tokenizes and matches all of it against the bean.
+ * This parser walks the token stream once, picks up {@code id}, {@code site.domain},
+ * {@code app.bundle} and {@code device.ip/os/lmt}, and skips every other subtree with
+ * {@link JsonParser#skipChildren()}, which only counts brackets. The receive timestamp
+ * comes from the record headers, see {@link ReceiveTimestampExtractor}.
+ */
+final class BidProjectionDeserializer implements Deserializer<BidRequest> {
+
+    private static final JsonFactory FACTORY = JsonFactory.builder().build();
+
+    @Override
+    public BidRequest deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        try (JsonParser parser = FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new SerializationException("Bid on " + topic + " is not a JSON object");
+            }
+            return readBid(parser);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to decode bid on " + topic, e);
+        }
+    }
+
+    @Override
+    public BidRequest deserialize(String topic, Headers headers, byte[] data) {
+        BidRequest request = deserialize(topic, data);
+        if (request != null) {
+            request.receivedAt = ReceiveTimestampExtractor.receivedAt(headers);
+        }
+        return request;
+    }
+
+    private static BidRequest readBid(JsonParser parser) throws IOException {
+        BidRequest request = new BidRequest();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "id" -> request.id = scalar(parser, token);
+                case "site" -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        request.site = readSite(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "app" -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        request.app = readApp(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                case "device" -> {
+                    if (token == JsonToken.START_OBJECT) {
+                        request.device = readDevice(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return request;
+    }
+
+    private static BidRequest.Site readSite(JsonParser parser) throws IOException {
+        BidRequest.Site site = new BidRequest.Site();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if ("domain".equals(field)) {
+                site.domain = scalar(parser, token);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return site;
+    }
+
+    private static BidRequest.App readApp(JsonParser parser) throws IOException {
+        BidRequest.App app = new BidRequest.App();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if ("bundle".equals(field)) {
+                app.bundle = scalar(parser, token);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return app;
+    }
+
+    private static BidRequest.Device readDevice(JsonParser parser) throws IOException {
+        BidRequest.Device device = new BidRequest.Device();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            switch (field) {
+                case "ip" -> device.ip = scalar(parser, token);
+                case "os" -> device.os = scalar(parser, token);
+                case "lmt" -> {
+                    if (token.isScalarValue()) {
+                        device.lmt = parser.getValueAsInt();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return device;
+    }
+
+    /**
+     * Text of a scalar value, null for JSON null; objects and arrays are skipped and read as null.
+     */
+    private static String scalar(JsonParser parser, JsonToken token) throws IOException {
+        if (token.isScalarValue()) {
+            return parser.getValueAsString();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
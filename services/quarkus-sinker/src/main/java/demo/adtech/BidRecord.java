@@ -1,23 +1,32 @@
 package demo.adtech;
 
-import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
 import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 import java.time.Instant;
 
 // This is the Panache Entity that will be saved to Postgres.
 @Entity
 @Table(name = "bid_records")
-public class BidRecord extends PanacheEntity {
+public class BidRecord extends PanacheEntityBase {
 
-    // We get a 'long id' primary key for free from PanacheEntity
+    // The database assigns ids (BIGSERIAL), so the reactive writer can insert
+    // rows without sharing Hibernate's sequence allocation.
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
 
     public String bidRequestId; // The 'id' from the BidRequest
-    public String domain;
-    public String appBundle;
+    // Low-cardinality strings are stored as keys into the dim_* dictionary tables.
+    public Integer domainId;
+    public Integer appBundleId;
     public String ip;
-    public String os;
+    public Integer osId;
     public boolean limitAdTracking;
+    public Instant eventTime; // When the receiver accepted the bid; null if it was not stamped
     public Instant processedAt;
 
     // Default constructor required for Hibernate
@@ -25,22 +34,20 @@ public class BidRecord extends PanacheEntity {
 
     /**
      * Helper constructor to map from the Kafka object to the DB object.
+     * {@code keys} must hold the dimension keys resolved for the request's batch.
      */
-    public BidRecord(BidRequest request) {
+    BidRecord(BidRequest request, DimensionKeys keys) {
         this.bidRequestId = request.id;
+        this.domainId = keys.keyOf(Dimension.DOMAIN, request);
+        this.appBundleId = keys.keyOf(Dimension.APP_BUNDLE, request);
+        this.osId = keys.keyOf(Dimension.OS, request);
 
-        if (request.site != null) {
-            this.domain = request.site.domain;
-        }
-        if (request.app != null) {
-            this.appBundle = request.app.bundle;
-        }
         if (request.device != null) {
             this.ip = request.device.ip;
-            this.os = request.device.os;
             this.limitAdTracking = (request.device.lmt == 1);
         }
 
+        this.eventTime = request.receivedAt > 0 ? Instant.ofEpochMilli(request.receivedAt) : null;
         this.processedAt = Instant.now();
     }
-}
\ No newline at end of file
+}
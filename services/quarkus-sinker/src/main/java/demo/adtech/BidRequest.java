@@ -14,6 +14,10 @@ public class BidRequest {
     public App app;
     public Device device;
     public User user;
+    // Epoch millis at which the receiver accepted the bid, from the 'received-at' record
+    // header rather than the payload; 0 when unknown. Kept in DLQ records so replays
+    // preserve event time.
+    public long receivedAt;
 
     public static class Site {
         public String domain;
@@ -0,0 +1,18 @@
+package demo.adtech;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Destination for the batches flushed by {@link BatchingProcessor}.
+ */
+public interface BidSink {
+
+    /**
+     * Persists a batch of bids.
+     *
+     * @param batch the bids in arrival order; the list is owned by the sink after the call
+     * @return a stage that completes once the batch is durable, or exceptionally if it is not
+     */
+    CompletionStage<Void> write(List<BidRequest> batch);
+}
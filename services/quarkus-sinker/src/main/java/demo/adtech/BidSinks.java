@@ -0,0 +1,43 @@
+package demo.adtech;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+/**
+ * Picks the Postgres writer configured by {@code sinker.writer}, shared by the
+ * stream topology and the DLQ replay.
+ */
+@ApplicationScoped
+public class BidSinks {
+
+    private static final Logger LOG = Logger.getLogger(BidSinks.class);
+
+    static final String WRITER_PANACHE = "panache";
+    static final String WRITER_REACTIVE = "reactive";
+
+    @ConfigProperty(name = "sinker.writer", defaultValue = WRITER_PANACHE)
+    String writer;
+
+    @Inject
+    PanacheBidSink panacheSink;
+
+    @Inject
+    ReactivePgBidSink reactiveSink;
+
+    BidSink selected() {
+        return WRITER_REACTIVE.equals(writerName()) ? reactiveSink : panacheSink;
+    }
+
+    String writerName() {
+        String normalized = writer == null ? WRITER_PANACHE : writer.trim().toLowerCase();
+        return switch (normalized) {
+            case WRITER_REACTIVE, WRITER_PANACHE -> normalized;
+            default -> {
+                LOG.warnf("Unknown SINKER_WRITER=%s; defaulting to %s", writer, WRITER_PANACHE);
+                yield WRITER_PANACHE;
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package demo.adtech;
+
+import java.util.Arrays;
+
+/**
+ * Bounded, column-oriented staging buffer for the archive sink.
+ * Each field of a bid lands in its own array so a full buffer can be
+ * compressed column by column into one row group of an archive file.
+ */
+final class ColumnBuffer {
+
+    static final String[] COLUMNS = {
+            "bid_request_id",
+            "domain",
+            "app_bundle",
+            "ip",
+            "os",
+            "limit_ad_tracking",
+            "processed_at"
+    };
+
+    private final int capacity;
+    private final String[] bidRequestIds;
+    private final String[] domains;
+    private final String[] appBundles;
+    private final String[] ips;
+    private final String[] oses;
+    private final boolean[] limitAdTracking;
+    private final long[] processedAtMillis;
+    private int size;
+
+    ColumnBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.bidRequestIds = new String[capacity];
+        this.domains = new String[capacity];
+        this.appBundles = new String[capacity];
+        this.ips = new String[capacity];
+        this.oses = new String[capacity];
+        this.limitAdTracking = new boolean[capacity];
+        this.processedAtMillis = new long[capacity];
+    }
+
+    /**
+     * Appends one bid. Callers must spill the buffer once {@link #isFull()} is true.
+     */
+    void add(BidRequest request, long processedAt) {
+        if (size == capacity) {
+            throw new IllegalStateException("column buffer is full");
+        }
+
+        bidRequestIds[size] = request.id;
+        domains[size] = request.site != null ? request.site.domain : null;
+        appBundles[size] = request.app != null ? request.app.bundle : null;
+        ips[size] = request.device != null ? request.device.ip : null;
+        oses[size] = request.device != null ? request.device.os : null;
+        limitAdTracking[size] = request.device != null && request.device.lmt == 1;
+        processedAtMillis[size] = processedAt;
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    /**
+     * Drops the buffered rows and the string references they hold.
+     */
+    void clear() {
+        Arrays.fill(bidRequestIds, 0, size, null);
+        Arrays.fill(domains, 0, size, null);
+        Arrays.fill(appBundles, 0, size, null);
+        Arrays.fill(ips, 0, size, null);
+        Arrays.fill(oses, 0, size, null);
+        size = 0;
+    }
+
+    String[] stringColumn(int column) {
+        return switch (column) {
+            case 0 -> bidRequestIds;
+            case 1 -> domains;
+            case 2 -> appBundles;
+            case 3 -> ips;
+            case 4 -> oses;
+            default -> throw new IllegalArgumentException("Not a string column: " + COLUMNS[column]);
+        };
+    }
+
+    boolean[] limitAdTracking() {
+        return limitAdTracking;
+    }
+
+    long[] processedAtMillis() {
+        return processedAtMillis;
+    }
+}
@@ -0,0 +1,427 @@
+package demo.adtech;
+
+import io.quarkus.kafka.client.serialization.ObjectMapperDeserializer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Archival sink that writes bids into compressed column-chunked files.
+ *
+ * It runs its own consumer group next to (or instead of) the Kafka Streams
+ * Postgres topology. Offsets are committed only after the file holding those
+ * records has been finalized, so a crash replays at most the open file.
+ * Files roll over at every UTC hour boundary and once they reach the size limit.
+ *
+ * Several instances may share one archive directory. Every file name starts with
+ * the instance id, {@code sinker.archive.instance-id} or else the host name, and an
+ * instance only ever deletes unfinished files carrying its own id.
+ *
+ * An unexpected error drops the open file, closes the consumer and starts a new one
+ * from the committed offsets after a backoff that doubles up to a minute. Until a
+ * new consumer polls successfully, {@link ArchiveSinkHealthCheck} reports not ready.
+ */
+@ApplicationScoped
+public class ColumnarArchiveSink {
+
+    private static final Logger LOG = Logger.getLogger(ColumnarArchiveSink.class);
+    private static final long RESTART_INITIAL_BACKOFF_MS = 1_000L;
+    private static final long RESTART_MAX_BACKOFF_MS = 60_000L;
+    private static final DateTimeFormatter HOUR_PATH = DateTimeFormatter.ofPattern("yyyy-MM-dd/HH").withZone(ZoneOffset.UTC);
+
+    @ConfigProperty(name = "sinker.archive.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "kafka.bootstrap.servers", defaultValue = "localhost:9092")
+    String bootstrapServers;
+
+    @ConfigProperty(name = "kafka-streams.topics-in")
+    String inputTopic;
+
+    @ConfigProperty(name = "sinker.archive.group-id", defaultValue = "adtech-sinker-archive")
+    String groupId;
+
+    @ConfigProperty(name = "sinker.archive.directory", defaultValue = "/tmp/bid-archive")
+    String directory;
+
+    @ConfigProperty(name = "sinker.archive.row-group-rows", defaultValue = "65536")
+    int rowGroupRows;
+
+    @ConfigProperty(name = "sinker.archive.max-file-bytes", defaultValue = "268435456")
+    long maxFileBytes;
+
+    @ConfigProperty(name = "sinker.archive.compression-level", defaultValue = "6")
+    int compressionLevel;
+
+    @ConfigProperty(name = "sinker.archive.poll-timeout-ms", defaultValue = "1000")
+    long pollTimeoutMs;
+
+    @ConfigProperty(name = "sinker.archive.instance-id")
+    Optional<String> configuredInstanceId;
+
+    private final Map<TopicPartition, OffsetAndMetadata> pendingOffsets = new HashMap<>();
+
+    private volatile boolean running;
+    private volatile KafkaConsumer<String, BidRequest> consumer;
+    private String instanceId;
+    private long startedAtMs;
+    private volatile Thread worker;
+    private volatile boolean failing;
+    private volatile long restarts;
+    private volatile String lastFailure;
+    private long restartBackoffMs = RESTART_INITIAL_BACKOFF_MS;
+    private ColumnBuffer buffer;
+    private ColumnarFileWriter writer;
+    private long writerHour;
+    private int fileSequence;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        instanceId = instanceId(configuredInstanceId.orElse(null));
+        startedAtMs = System.currentTimeMillis();
+        buffer = new ColumnBuffer(rowGroupRows);
+        running = true;
+        worker = Thread.ofPlatform().name("archive-sink").unstarted(this::run);
+        worker.start();
+        LOG.infof(
+                "Columnar archive sink started (directory=%s, instance_id=%s, group_id=%s, row_group_rows=%d, max_file_bytes=%d)",
+                directory,
+                instanceId,
+                groupId,
+                rowGroupRows,
+                maxFileBytes
+        );
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (worker == null) {
+            return;
+        }
+
+        running = false;
+        KafkaConsumer<String, BidRequest> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        LockSupport.unpark(worker);
+        try {
+            worker.join(Duration.ofSeconds(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return true while the consumer thread is alive
+     */
+    boolean isRunning() {
+        Thread current = worker;
+        return current != null && current.isAlive();
+    }
+
+    /**
+     * @return true from a consumer failure until a restarted consumer has polled successfully
+     */
+    boolean isFailing() {
+        return failing;
+    }
+
+    long restarts() {
+        return restarts;
+    }
+
+    String lastFailure() {
+        return lastFailure;
+    }
+
+    private void run() {
+        try {
+            for (Path file : discardInProgressFiles(Path.of(directory), filePrefix(instanceId))) {
+                LOG.infof("Discarded unfinished archive file %s", file);
+            }
+        } catch (IOException e) {
+            LOG.errorf(e, "Failed to clean up unfinished archive files in %s", directory);
+        }
+
+        while (running) {
+            try {
+                consume();
+                return;
+            } catch (RuntimeException e) {
+                failing = true;
+                lastFailure = e.toString();
+                abortCurrentFile();
+                LOG.errorf(e, "Columnar archive sink failed; restarting the consumer in %d ms", restartBackoffMs);
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(restartBackoffMs);
+            for (long remaining; running && (remaining = deadline - System.nanoTime()) > 0; ) {
+                LockSupport.parkNanos(remaining);
+            }
+            restartBackoffMs = Math.min(restartBackoffMs * 2, RESTART_MAX_BACKOFF_MS);
+            restarts++;
+        }
+    }
+
+    /**
+     * Consumes until shutdown. Errors other than a shutdown wakeup are thrown, with the
+     * consumer closed and nothing committed past the last finalized file.
+     */
+    private void consume() {
+        try (KafkaConsumer<String, BidRequest> kafkaConsumer = new KafkaConsumer<>(consumerProperties())) {
+            consumer = kafkaConsumer;
+            kafkaConsumer.subscribe(List.of(inputTopic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    finalizeAndCommit(kafkaConsumer);
+                }
+
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    // Nothing to restore: the committed offsets already point past the last finalized file.
+                }
+
+                @Override
+                public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                    // The offsets can no longer be committed by us, so the open file would duplicate
+                    // whatever the new owner replays.
+                    abortCurrentFile();
+                }
+            });
+
+            while (running) {
+                ConsumerRecords<String, BidRequest> records;
+                try {
+                    records = kafkaConsumer.poll(Duration.ofMillis(pollTimeoutMs));
+                } catch (WakeupException e) {
+                    break;
+                } catch (RecordDeserializationException e) {
+                    LOG.warnf(e, "Skipping undecodable record at %s offset %d", e.topicPartition(), e.offset());
+                    kafkaConsumer.seek(e.topicPartition(), e.offset() + 1);
+                    continue;
+                }
+                if (failing) {
+                    LOG.info("Columnar archive sink recovered");
+                    failing = false;
+                    restartBackoffMs = RESTART_INITIAL_BACKOFF_MS;
+                }
+
+                for (ConsumerRecord<String, BidRequest> record : records) {
+                    append(record);
+                }
+
+                if (writer != null && currentHour() != writerHour) {
+                    finalizeAndCommit(kafkaConsumer);
+                }
+            }
+
+            finalizeAndCommit(kafkaConsumer);
+        } catch (WakeupException e) {
+            // Shutdown raced with the final commit; the open file is replayed on restart.
+            abortCurrentFile();
+        } finally {
+            consumer = null;
+        }
+    }
+
+    private void append(ConsumerRecord<String, BidRequest> record) {
+        pendingOffsets.put(
+                new TopicPartition(record.topic(), record.partition()),
+                new OffsetAndMetadata(record.offset() + 1)
+        );
+
+        if (record.value() == null) {
+            return;
+        }
+
+        try {
+            if (writer == null) {
+                openWriter();
+            }
+
+            buffer.add(record.value(), System.currentTimeMillis());
+            if (buffer.isFull()) {
+                writer.writeRowGroup(buffer);
+                buffer.clear();
+                if (writer.bytesWritten() >= maxFileBytes) {
+                    finalizeAndCommit(consumer);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write archive row group", e);
+        }
+    }
+
+    private void openWriter() throws IOException {
+        long hour = currentHour();
+        Path path = Path.of(directory)
+                .resolve(HOUR_PATH.format(Instant.ofEpochSecond(hour * 3600)))
+                .resolve(filePrefix(instanceId) + startedAtMs + "-" + (fileSequence++) + ColumnarFileWriter.FILE_SUFFIX);
+        writer = ColumnarFileWriter.open(path, compressionLevel);
+        writerHour = hour;
+    }
+
+    /**
+     * Flushes the column buffer, finalizes the open file and only then commits the
+     * offsets of every record it contains.
+     */
+    private void finalizeAndCommit(KafkaConsumer<String, BidRequest> kafkaConsumer) {
+        try {
+            if (writer != null) {
+                writer.writeRowGroup(buffer);
+                buffer.clear();
+                long rows = writer.rowCount();
+                Path finalized = writer.finish();
+                writer = null;
+                LOG.infof("Finalized archive file %s (%d rows)", finalized, rows);
+            }
+        } catch (IOException e) {
+            abortCurrentFile();
+            throw new UncheckedIOException("Failed to finalize archive file", e);
+        }
+
+        if (!pendingOffsets.isEmpty()) {
+            kafkaConsumer.commitSync(Map.copyOf(pendingOffsets));
+            pendingOffsets.clear();
+        }
+    }
+
+    private void abortCurrentFile() {
+        buffer.clear();
+        pendingOffsets.clear();
+        if (writer == null) {
+            return;
+        }
+
+        try {
+            writer.abort();
+        } catch (IOException e) {
+            LOG.warn("Failed to delete unfinished archive file", e);
+        }
+        writer = null;
+    }
+
+    /**
+     * Deletes the unfinished files under {@code root} whose names start with {@code prefix}.
+     * Their offsets were never committed, so the records are consumed again.
+     *
+     * @return the deleted files
+     */
+    static List<Path> discardInProgressFiles(Path root, String prefix) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return List.of();
+        }
+
+        List<Path> discarded = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(f -> isInProgressFile(f, prefix)).toList()) {
+                if (Files.deleteIfExists(file)) {
+                    discarded.add(file);
+                }
+            }
+        }
+        return discarded;
+    }
+
+    private static boolean isInProgressFile(Path file, String prefix) {
+        String name = file.getFileName().toString();
+        return name.startsWith(prefix) && name.endsWith(ColumnarFileWriter.IN_PROGRESS_SUFFIX);
+    }
+
+    /**
+     * File names start with {@code bids-<instance id>_}. Instance ids never contain an
+     * underscore, so no instance's prefix is a prefix of another's.
+     */
+    static String filePrefix(String instanceId) {
+        return "bids-" + instanceId + "_";
+    }
+
+    /**
+     * The configured id, else the host name, which stays the same across restarts of a
+     * container or pod. Characters other than letters, digits and dashes become dashes.
+     */
+    static String instanceId(String configured) {
+        String id = configured;
+        if (id == null || id.isBlank()) {
+            id = System.getenv("HOSTNAME");
+        }
+        if (id == null || id.isBlank()) {
+            try {
+                id = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                id = UUID.randomUUID().toString().substring(0, 8);
+                LOG.warnf("Cannot resolve the host name; archive instance id is %s. Set SINKER_ARCHIVE_INSTANCE_ID "
+                        + "so unfinished files are cleaned up after a restart", id);
+            }
+        }
+        return id.trim().replaceAll("[^A-Za-z0-9-]", "-");
+    }
+
+    private Properties consumerProperties() {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, groupId + "-" + instanceId);
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.min(rowGroupRows, 5000));
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, BidRequestDeserializer.class.getName());
+        return props;
+    }
+
+    private static long currentHour() {
+        return System.currentTimeMillis() / 3_600_000L;
+    }
+
+    /**
+     * Named subclass so the consumer can instantiate it from configuration.
+     */
+    public static class BidRequestDeserializer extends ObjectMapperDeserializer<BidRequest> {
+        public BidRequestDeserializer() {
+            super(BidRequest.class);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package demo.adtech;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads finalized archive files written by {@link ColumnarFileWriter}.
+ * Only the footer and the requested column chunks are read from disk.
+ */
+final class ColumnarFileReader implements AutoCloseable {
+
+    private final FileChannel channel;
+    private final List<String> columns = new ArrayList<>();
+    private final List<ColumnarFileWriter.RowGroup> rowGroups = new ArrayList<>();
+
+    private ColumnarFileReader(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        readFooter();
+    }
+
+    static ColumnarFileReader open(Path path) throws IOException {
+        return new ColumnarFileReader(path);
+    }
+
+    List<String> columns() {
+        return columns;
+    }
+
+    List<ColumnarFileWriter.RowGroup> rowGroups() {
+        return rowGroups;
+    }
+
+    long rowCount() {
+        long rows = 0;
+        for (ColumnarFileWriter.RowGroup rowGroup : rowGroups) {
+            rows += rowGroup.rows();
+        }
+        return rows;
+    }
+
+    List<String> readStrings(String column) throws IOException {
+        List<String> values = new ArrayList<>();
+        for (ColumnarFileWriter.RowGroup rowGroup : rowGroups) {
+            DataInputStream in = openChunk(rowGroup, column);
+            for (int row = 0; row < rowGroup.rows(); row++) {
+                int length = in.readInt();
+                if (length < 0) {
+                    values.add(null);
+                    continue;
+                }
+                values.add(new String(in.readNBytes(length), StandardCharsets.UTF_8));
+            }
+        }
+        return values;
+    }
+
+    List<Boolean> readBooleans(String column) throws IOException {
+        List<Boolean> values = new ArrayList<>();
+        for (ColumnarFileWriter.RowGroup rowGroup : rowGroups) {
+            DataInputStream in = openChunk(rowGroup, column);
+            int packed = 0;
+            for (int row = 0; row < rowGroup.rows(); row++) {
+                if ((row & 7) == 0) {
+                    packed = in.readUnsignedByte();
+                }
+                values.add((packed & (1 << (row & 7))) != 0);
+            }
+        }
+        return values;
+    }
+
+    List<Long> readLongs(String column) throws IOException {
+        List<Long> values = new ArrayList<>();
+        for (ColumnarFileWriter.RowGroup rowGroup : rowGroups) {
+            DataInputStream in = openChunk(rowGroup, column);
+            long previous = 0;
+            for (int row = 0; row < rowGroup.rows(); row++) {
+                previous += in.readLong();
+                values.add(previous);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private DataInputStream openChunk(ColumnarFileWriter.RowGroup rowGroup, String column) throws IOException {
+        int index = columns.indexOf(column);
+        if (index < 0) {
+            throw new IllegalArgumentException("Unknown column: " + column);
+        }
+
+        long offset = rowGroup.offset();
+        int[] chunkLengths = rowGroup.chunkLengths();
+        for (int i = 0; i < index; i++) {
+            offset += chunkLengths[i];
+        }
+
+        byte[] compressed = read(offset, chunkLengths[index]);
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)));
+    }
+
+    private void readFooter() throws IOException {
+        int magicLength = ColumnarFileWriter.MAGIC.length;
+        long size = channel.size();
+        if (size < 2L * magicLength + Integer.BYTES) {
+            throw new IOException("Not an archive file: too short");
+        }
+
+        byte[] trailer = read(size - magicLength - Integer.BYTES, magicLength + Integer.BYTES);
+        byte[] magic = Arrays.copyOfRange(trailer, Integer.BYTES, trailer.length);
+        if (!Arrays.equals(magic, ColumnarFileWriter.MAGIC)
+                || !Arrays.equals(read(0, magicLength), ColumnarFileWriter.MAGIC)) {
+            throw new IOException("Not an archive file: bad magic");
+        }
+
+        int footerLength = ByteBuffer.wrap(trailer, 0, Integer.BYTES).getInt();
+        long footerOffset = size - magicLength - Integer.BYTES - footerLength;
+        DataInputStream footer = new DataInputStream(new ByteArrayInputStream(read(footerOffset, footerLength)));
+
+        int columnCount = footer.readInt();
+        for (int i = 0; i < columnCount; i++) {
+            columns.add(footer.readUTF());
+        }
+
+        int rowGroupCount = footer.readInt();
+        for (int i = 0; i < rowGroupCount; i++) {
+            long offset = footer.readLong();
+            int rows = footer.readInt();
+            long minProcessedAt = footer.readLong();
+            long maxProcessedAt = footer.readLong();
+            int[] chunkLengths = new int[columnCount];
+            for (int column = 0; column < columnCount; column++) {
+                chunkLengths[column] = footer.readInt();
+            }
+            rowGroups.add(new ColumnarFileWriter.RowGroup(offset, rows, minProcessedAt, maxProcessedAt, chunkLengths));
+        }
+    }
+
+    private byte[] read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of archive file");
+            }
+        }
+        return buffer.array();
+    }
+}
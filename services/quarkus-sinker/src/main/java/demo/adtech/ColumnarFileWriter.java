@@ -0,0 +1,216 @@
+package demo.adtech;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes bid archive files in a small column-chunked format.
+ *
+ * <pre>
+ * MAGIC
+ * row group*   one deflate-compressed chunk per column
+ * footer       column names, then per row group: offset, rows, min/max processed_at, chunk lengths
+ * int          footer length
+ * MAGIC
+ * </pre>
+ *
+ * The file is written under an {@code .inprogress} name and only renamed to its
+ * final name by {@link #finish()}, after the data has been forced to disk.
+ */
+final class ColumnarFileWriter implements Closeable {
+
+    static final byte[] MAGIC = "BIDCOL1\n".getBytes(StandardCharsets.US_ASCII);
+    static final String FILE_SUFFIX = ".bidcol";
+    static final String IN_PROGRESS_SUFFIX = ".inprogress";
+
+    private final Path finalPath;
+    private final Path inProgressPath;
+    private final FileChannel channel;
+    private final OutputStream out;
+    private final Deflater deflater;
+    private final ByteArrayOutputStream chunk = new ByteArrayOutputStream(64 * 1024);
+    private final List<RowGroup> rowGroups = new ArrayList<>();
+    private long position;
+    private long rowCount;
+    private boolean closed;
+
+    private ColumnarFileWriter(Path finalPath, int compressionLevel) throws IOException {
+        this.finalPath = finalPath;
+        this.inProgressPath = finalPath.resolveSibling(finalPath.getFileName() + IN_PROGRESS_SUFFIX);
+        Files.createDirectories(finalPath.getParent());
+        this.channel = FileChannel.open(inProgressPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        this.out = new BufferedOutputStream(Channels.newOutputStream(channel), 256 * 1024);
+        this.deflater = new Deflater(compressionLevel);
+        write(MAGIC);
+    }
+
+    static ColumnarFileWriter open(Path finalPath, int compressionLevel) throws IOException {
+        return new ColumnarFileWriter(finalPath, compressionLevel);
+    }
+
+    /**
+     * Compresses the buffered rows into one row group and appends it to the file.
+     * The buffer is left untouched; callers clear it once the write succeeded.
+     */
+    void writeRowGroup(ColumnBuffer buffer) throws IOException {
+        int rows = buffer.size();
+        if (rows == 0) {
+            return;
+        }
+
+        long offset = position;
+        int[] chunkLengths = new int[ColumnBuffer.COLUMNS.length];
+        for (int column = 0; column < ColumnBuffer.COLUMNS.length; column++) {
+            chunkLengths[column] = writeChunk(buffer, column, rows);
+        }
+
+        long[] processedAt = buffer.processedAtMillis();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int row = 0; row < rows; row++) {
+            min = Math.min(min, processedAt[row]);
+            max = Math.max(max, processedAt[row]);
+        }
+
+        rowGroups.add(new RowGroup(offset, rows, min, max, chunkLengths));
+        rowCount += rows;
+    }
+
+    long bytesWritten() {
+        return position;
+    }
+
+    long rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Writes the footer, forces the file to disk and atomically publishes it under its final name.
+     */
+    Path finish() throws IOException {
+        ByteArrayOutputStream footerBytes = new ByteArrayOutputStream();
+        DataOutputStream footer = new DataOutputStream(footerBytes);
+        footer.writeInt(ColumnBuffer.COLUMNS.length);
+        for (String column : ColumnBuffer.COLUMNS) {
+            footer.writeUTF(column);
+        }
+        footer.writeInt(rowGroups.size());
+        for (RowGroup rowGroup : rowGroups) {
+            footer.writeLong(rowGroup.offset());
+            footer.writeInt(rowGroup.rows());
+            footer.writeLong(rowGroup.minProcessedAt());
+            footer.writeLong(rowGroup.maxProcessedAt());
+            for (int length : rowGroup.chunkLengths()) {
+                footer.writeInt(length);
+            }
+        }
+        footer.flush();
+
+        write(footerBytes.toByteArray());
+        DataOutputStream trailer = new DataOutputStream(out);
+        trailer.writeInt(footerBytes.size());
+        position += Integer.BYTES;
+        write(MAGIC);
+
+        out.flush();
+        channel.force(true);
+        close();
+        return Files.move(inProgressPath, finalPath, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Discards a file that will never be finalized.
+     */
+    void abort() throws IOException {
+        close();
+        Files.deleteIfExists(inProgressPath);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        deflater.end();
+        try {
+            out.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private int writeChunk(ColumnBuffer buffer, int column, int rows) throws IOException {
+        chunk.reset();
+        deflater.reset();
+        DeflaterOutputStream compressed = new DeflaterOutputStream(chunk, deflater, 8192);
+        DataOutputStream encoded = new DataOutputStream(compressed);
+
+        switch (ColumnBuffer.COLUMNS[column]) {
+            case "limit_ad_tracking" -> {
+                boolean[] values = buffer.limitAdTracking();
+                int packed = 0;
+                for (int row = 0; row < rows; row++) {
+                    if (values[row]) {
+                        packed |= 1 << (row & 7);
+                    }
+                    if ((row & 7) == 7 || row == rows - 1) {
+                        encoded.writeByte(packed);
+                        packed = 0;
+                    }
+                }
+            }
+            case "processed_at" -> {
+                long[] values = buffer.processedAtMillis();
+                long previous = 0;
+                for (int row = 0; row < rows; row++) {
+                    encoded.writeLong(values[row] - previous);
+                    previous = values[row];
+                }
+            }
+            default -> {
+                String[] values = buffer.stringColumn(column);
+                for (int row = 0; row < rows; row++) {
+                    String value = values[row];
+                    if (value == null) {
+                        encoded.writeInt(-1);
+                        continue;
+                    }
+                    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                    encoded.writeInt(bytes.length);
+                    encoded.write(bytes);
+                }
+            }
+        }
+
+        // Finishes the deflate stream without ending the shared Deflater.
+        encoded.flush();
+        compressed.finish();
+
+        chunk.writeTo(out);
+        position += chunk.size();
+        return chunk.size();
+    }
+
+    private void write(byte[] bytes) throws IOException {
+        out.write(bytes);
+        position += bytes.length;
+    }
+
+    record RowGroup(long offset, int rows, long minProcessedAt, long maxProcessedAt, int[] chunkLengths) {}
+}
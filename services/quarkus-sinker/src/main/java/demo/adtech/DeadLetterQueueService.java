@@ -9,6 +9,10 @@ import org.eclipse.microprofile.reactive.messaging.OnOverflow;
 import org.jboss.logging.Logger;
 
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Dead Letter Queue service for handling failed bid processing.
@@ -18,13 +22,17 @@ import java.time.Instant;
 public class DeadLetterQueueService {
 
     private static final Logger LOG = Logger.getLogger(DeadLetterQueueService.class);
+    private static final int EMITTER_BUFFER = 1000;
 
     @ConfigProperty(name = "sinker.dlq.enabled", defaultValue = "false")
     boolean dlqEnabled;
 
+    @Inject
+    SinkerMetrics metrics;
+
     @Inject
     @Channel("dlq-out")
-    @OnOverflow(value = OnOverflow.Strategy.BUFFER, bufferSize = 1000)
+    @OnOverflow(value = OnOverflow.Strategy.BUFFER, bufferSize = EMITTER_BUFFER)
     Emitter<FailedBidRecord> dlqEmitter;
 
     public boolean isEnabled() {
@@ -45,15 +53,8 @@ public class DeadLetterQueueService {
         }
 
         try {
-            FailedBidRecord failedRecord = new FailedBidRecord(
-                    request,
-                    error.getClass().getName(),
-                    error.getMessage(),
-                    operation,
-                    Instant.now()
-            );
-
-            dlqEmitter.send(failedRecord);
+            dlqEmitter.send(FailedBidRecord.of(request, error, operation));
+            metrics.deadLettered(operation, 1);
             LOG.warnf("Sent failed bid %s to DLQ. Error: %s", request.id, error.getMessage());
 
         } catch (Exception dlqError) {
@@ -63,6 +64,42 @@ public class DeadLetterQueueService {
         }
     }
 
+    /**
+     * Sends a group of failed bids to the Dead Letter Queue and waits until Kafka acknowledged all of them.
+     * The caller commits offsets afterwards, so a bid is never lost between the sink and the DLQ.
+     * Sends are chunked to the emitter buffer so a large batch cannot overflow it.
+     *
+     * @param records The failed bids, typically everything a single batch could not persist
+     * @throws SinkUnavailableException if the DLQ topic did not acknowledge every record
+     */
+    public void sendToDeadLetterQueue(List<FailedBidRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (!dlqEnabled) {
+            LOG.errorf("DLQ disabled, dropping %d failed bids. First error: %s",
+                    records.size(), records.get(0).errorMessage());
+            return;
+        }
+
+        for (int from = 0; from < records.size(); from += EMITTER_BUFFER) {
+            List<FailedBidRecord> chunk = records.subList(from, Math.min(records.size(), from + EMITTER_BUFFER));
+            List<CompletableFuture<Void>> acks = new ArrayList<>(chunk.size());
+            for (FailedBidRecord record : chunk) {
+                acks.add(dlqEmitter.send(record).toCompletableFuture());
+            }
+            try {
+                CompletableFuture.allOf(acks.toArray(CompletableFuture[]::new)).join();
+            } catch (CompletionException e) {
+                throw new SinkUnavailableException("Failed to send " + chunk.size() + " bids to DLQ", e.getCause());
+            }
+            for (FailedBidRecord record : chunk) {
+                metrics.deadLettered(record.failedOperation(), 1);
+            }
+        }
+        LOG.warnf("Sent %d failed bids to DLQ. First error: %s", records.size(), records.get(0).errorMessage());
+    }
+
     /**
      * Record representing a failed bid that goes to the DLQ.
      */
@@ -72,5 +109,9 @@ public class DeadLetterQueueService {
             String errorMessage,
             String failedOperation,
             Instant failedAt
-    ) {}
+    ) {
+        public static FailedBidRecord of(BidRequest request, Throwable error, String operation) {
+            return new FailedBidRecord(request, error.getClass().getName(), error.getMessage(), operation, Instant.now());
+        }
+    }
 }
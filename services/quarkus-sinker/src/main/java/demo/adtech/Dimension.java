@@ -0,0 +1,39 @@
+package demo.adtech;
+
+import java.util.function.Function;
+
+/**
+ * Low-cardinality bid attributes that {@code bid_records} stores as integer
+ * surrogate keys into a dictionary table instead of repeating the string per row.
+ */
+enum Dimension {
+    DOMAIN("dim_domain", 255, request -> request.site != null ? request.site.domain : null),
+    APP_BUNDLE("dim_app_bundle", 255, request -> request.app != null ? request.app.bundle : null),
+    OS("dim_os", 50, request -> request.device != null ? request.device.os : null);
+
+    private final String table;
+    private final int maxLength;
+    private final Function<BidRequest, String> extractor;
+
+    Dimension(String table, int maxLength, Function<BidRequest, String> extractor) {
+        this.table = table;
+        this.maxLength = maxLength;
+        this.extractor = extractor;
+    }
+
+    String table() {
+        return table;
+    }
+
+    /**
+     * Returns the dimension value of a bid, or {@code null} when the bid does not carry it.
+     * Values longer than the dictionary column are truncated rather than failing the batch.
+     */
+    String valueOf(BidRequest request) {
+        String value = extractor.apply(request);
+        if (value == null || value.length() <= maxLength) {
+            return value;
+        }
+        return value.substring(0, maxLength);
+    }
+}
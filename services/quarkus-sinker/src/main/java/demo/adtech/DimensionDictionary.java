@@ -0,0 +1,85 @@
+package demo.adtech;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Bounded value-to-key cache for one dimension table.
+ *
+ * Entries are evicted least-recently-used once {@code maxEntries} is reached, so a
+ * long tail of one-off domains cannot grow the heap without limit. An evicted value
+ * is simply looked up again; the dictionary table is the source of truth.
+ * Shared by all stream threads, hence the coarse lock around a plain access-ordered map.
+ */
+final class DimensionDictionary {
+
+    private final Dimension dimension;
+    private final LinkedHashMap<String, Integer> keys;
+
+    DimensionDictionary(Dimension dimension, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.dimension = dimension;
+        this.keys = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    Dimension dimension() {
+        return dimension;
+    }
+
+    /**
+     * Resolves the keys of all distinct values in one pass. Cache misses are handed to
+     * {@code loader} together, so a batch costs at most one round trip per dimension.
+     */
+    Map<String, Integer> resolve(Collection<String> values, Function<Set<String>, Map<String, Integer>> loader) {
+        Map<String, Integer> resolved = new HashMap<>();
+        Set<String> misses = new HashSet<>();
+        synchronized (this) {
+            for (String value : values) {
+                if (value == null || resolved.containsKey(value)) {
+                    continue;
+                }
+                Integer key = keys.get(value);
+                if (key != null) {
+                    resolved.put(value, key);
+                } else {
+                    misses.add(value);
+                }
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            // Loaded outside the lock so a slow insert does not stall cache hits on other threads.
+            Map<String, Integer> loaded = loader.apply(misses);
+            if (!loaded.keySet().containsAll(misses)) {
+                throw new IllegalStateException("Could not resolve every " + dimension.table() + " value");
+            }
+            putAll(loaded);
+            resolved.putAll(loaded);
+        }
+        return resolved;
+    }
+
+    synchronized Integer get(String value) {
+        return keys.get(value);
+    }
+
+    synchronized void putAll(Map<String, Integer> resolved) {
+        keys.putAll(resolved);
+    }
+
+    synchronized int size() {
+        return keys.size();
+    }
+}
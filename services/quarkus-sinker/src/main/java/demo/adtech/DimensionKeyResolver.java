@@ -0,0 +1,99 @@
+package demo.adtech;
+
+import io.agroal.api.AgroalDataSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps the dimension values of a batch to their surrogate keys.
+ *
+ * Known values come from a bounded in-memory {@link DimensionDictionary}; unknown
+ * ones are upserted into the dictionary table with a single statement per dimension.
+ * Both writers resolve keys before they open their own transaction, so new dictionary
+ * rows are committed even when the batch itself is rolled back and later retried.
+ */
+@ApplicationScoped
+public class DimensionKeyResolver {
+
+    private static final String UPSERT_SQL = "WITH input(value) AS (SELECT DISTINCT unnest(?::varchar[])), "
+            + "inserted AS (INSERT INTO %1$s (value) SELECT value FROM input ON CONFLICT (value) DO NOTHING RETURNING id, value) "
+            + "SELECT id, value FROM inserted "
+            + "UNION ALL SELECT d.id, d.value FROM %1$s d JOIN input i ON d.value = i.value";
+
+    private static final String SELECT_SQL = "SELECT id, value FROM %s WHERE value = ANY(?::varchar[])";
+
+    @Inject
+    AgroalDataSource dataSource;
+
+    @ConfigProperty(name = "sinker.dimensions.cache-size", defaultValue = "10000")
+    int cacheSize;
+
+    private final Map<Dimension, DimensionDictionary> dictionaries = new EnumMap<>(Dimension.class);
+
+    @PostConstruct
+    void init() {
+        for (Dimension dimension : Dimension.values()) {
+            dictionaries.put(dimension, new DimensionDictionary(dimension, cacheSize));
+        }
+    }
+
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public DimensionKeys resolve(List<BidRequest> batch) {
+        Map<Dimension, Map<String, Integer>> keys = new EnumMap<>(Dimension.class);
+        for (Dimension dimension : Dimension.values()) {
+            List<String> values = new ArrayList<>(batch.size());
+            for (BidRequest request : batch) {
+                values.add(dimension.valueOf(request));
+            }
+            keys.put(dimension, dictionaries.get(dimension).resolve(values, misses -> load(dimension, misses)));
+        }
+        return new DimensionKeys(keys);
+    }
+
+    private Map<String, Integer> load(Dimension dimension, Set<String> values) {
+        try (Connection connection = dataSource.getConnection()) {
+            Map<String, Integer> loaded = query(connection, UPSERT_SQL.formatted(dimension.table()), values);
+
+            // A value inserted by another sinker after this statement's snapshot was taken is
+            // neither returned by the insert nor visible to the join, so read it back once more.
+            if (!loaded.keySet().containsAll(values)) {
+                Set<String> missing = new HashSet<>(values);
+                missing.removeAll(loaded.keySet());
+                loaded.putAll(query(connection, SELECT_SQL.formatted(dimension.table()), missing));
+            }
+            return loaded;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to resolve " + dimension.table() + " keys", e);
+        }
+    }
+
+    private static Map<String, Integer> query(Connection connection, String sql, Set<String> values) throws SQLException {
+        Map<String, Integer> keys = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            Array array = connection.createArrayOf("varchar", values.toArray());
+            statement.setArray(1, array);
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    keys.put(rows.getString(2), rows.getInt(1));
+                }
+            }
+        }
+        return keys;
+    }
+}
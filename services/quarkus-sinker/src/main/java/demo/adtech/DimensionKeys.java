@@ -0,0 +1,25 @@
+package demo.adtech;
+
+import java.util.Map;
+
+/**
+ * Surrogate keys resolved for every dimension value that occurs in one batch.
+ */
+record DimensionKeys(Map<Dimension, Map<String, Integer>> keys) {
+
+    /**
+     * Returns the key of the bid's value for {@code dimension}, or {@code null} when the bid has none.
+     */
+    Integer keyOf(Dimension dimension, BidRequest request) {
+        String value = dimension.valueOf(request);
+        if (value == null) {
+            return null;
+        }
+
+        Integer key = keys.getOrDefault(dimension, Map.of()).get(value);
+        if (key == null) {
+            throw new IllegalStateException("No " + dimension.table() + " key resolved for '" + value + "'");
+        }
+        return key;
+    }
+}
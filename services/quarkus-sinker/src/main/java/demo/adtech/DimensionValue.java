@@ -0,0 +1,23 @@
+package demo.adtech;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.MappedSuperclass;
+
+/**
+ * Row of a dimension dictionary table: a unique string value and its integer surrogate key.
+ * The sinker writes these rows through {@link DimensionKeyResolver}; the mappings exist so
+ * Hibernate creates the tables wherever the schema is not provisioned by SQL scripts.
+ */
+@MappedSuperclass
+public abstract class DimensionValue {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Integer id;
+
+    @Column(nullable = false, unique = true)
+    public String value;
+}
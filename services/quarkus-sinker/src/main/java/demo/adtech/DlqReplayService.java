@@ -0,0 +1,381 @@
+package demo.adtech;
+
+import io.quarkus.kafka.client.serialization.ObjectMapperDeserializer;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RecordDeserializationException;
+import org.apache.kafka.common.errors.WakeupException;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Replays dead-lettered bids back into Postgres.
+ *
+ * Enabled with {@code sinker.replay.enabled}; it reads the DLQ topic with its own
+ * consumer group, keeps the records that match the configured {@link ReplayFilter}
+ * and writes their original requests through the same batched {@link BidSink},
+ * in-flight window and retry handling as the stream topology. Offsets are committed
+ * as progress checkpoints, only after every batch before them is persisted, so a
+ * stopped replay continues where it left off. By default it stops once it reaches
+ * the end offsets seen at assignment, so bids it dead-letters again are not re-read.
+ */
+@ApplicationScoped
+public class DlqReplayService {
+
+    static final String OPERATION = "DLQ_REPLAY";
+
+    private static final Logger LOG = Logger.getLogger(DlqReplayService.class);
+
+    @ConfigProperty(name = "sinker.replay.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "kafka.bootstrap.servers", defaultValue = "localhost:9092")
+    String bootstrapServers;
+
+    @ConfigProperty(name = "kafka-streams.topics-dlq")
+    String dlqTopic;
+
+    @ConfigProperty(name = "sinker.replay.group-id", defaultValue = "adtech-sinker-dlq-replay")
+    String groupId;
+
+    @ConfigProperty(name = "sinker.replay.error-types")
+    Optional<Set<String>> errorTypes;
+
+    @ConfigProperty(name = "sinker.replay.failed-operations")
+    Optional<Set<String>> failedOperations;
+
+    @ConfigProperty(name = "sinker.replay.from")
+    Optional<Instant> from;
+
+    @ConfigProperty(name = "sinker.replay.until")
+    Optional<Instant> until;
+
+    @ConfigProperty(name = "sinker.replay.rate-limit", defaultValue = "5000")
+    int rateLimit;
+
+    @ConfigProperty(name = "sinker.replay.checkpoint-interval-ms", defaultValue = "5000")
+    long checkpointIntervalMs;
+
+    @ConfigProperty(name = "sinker.replay.stop-at-end", defaultValue = "true")
+    boolean stopAtEnd;
+
+    @ConfigProperty(name = "sinker.batch.size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "sinker.batch.max-in-flight", defaultValue = "4")
+    int maxInFlight;
+
+    @ConfigProperty(name = "sinker.retry.max-attempts", defaultValue = "8")
+    int retryMaxAttempts;
+
+    @ConfigProperty(name = "sinker.retry.initial-backoff-ms", defaultValue = "200")
+    long retryInitialBackoffMs;
+
+    @ConfigProperty(name = "sinker.retry.max-backoff-ms", defaultValue = "10000")
+    long retryMaxBackoffMs;
+
+    @Inject
+    BidSinks sinks;
+
+    @Inject
+    DeadLetterQueueService dlqService;
+
+    private final Map<TopicPartition, OffsetAndMetadata> pendingOffsets = new HashMap<>();
+    private final Map<TopicPartition, Long> endOffsets = new HashMap<>();
+    private final Set<TopicPartition> finished = new HashSet<>();
+
+    private volatile boolean running;
+    private volatile KafkaConsumer<String, DeadLetterQueueService.FailedBidRecord> consumer;
+    private Thread worker;
+    private ReplayFilter filter;
+    private BidSink sink;
+    private InFlightWindow window;
+    private RateLimiter rateLimiter;
+    private List<BidRequest> batch;
+    private long replayed;
+    private long skipped;
+    private long startedNanos;
+
+    void onStart(@Observes StartupEvent event) {
+        if (!enabled) {
+            return;
+        }
+
+        filter = new ReplayFilter(
+                errorTypes.orElse(Set.of()),
+                failedOperations.orElse(Set.of()),
+                from.orElse(null),
+                until.orElse(null)
+        );
+        sink = sinks.selected();
+        window = new InFlightWindow(maxInFlight, new BatchFailureHandler(
+                sink,
+                retryMaxAttempts,
+                Duration.ofMillis(retryInitialBackoffMs),
+                Duration.ofMillis(retryMaxBackoffMs),
+                OPERATION,
+                dlqService::sendToDeadLetterQueue
+        ));
+        rateLimiter = new RateLimiter(rateLimit);
+        batch = new ArrayList<>(batchSize);
+
+        running = true;
+        worker = Thread.ofPlatform().name("dlq-replay").unstarted(this::run);
+        worker.start();
+        LOG.infof(
+                "DLQ replay started (topic=%s, group_id=%s, writer=%s, filter=%s, rate_limit=%d/s, stop_at_end=%s)",
+                dlqTopic,
+                groupId,
+                sinks.writerName(),
+                filter,
+                rateLimit,
+                stopAtEnd
+        );
+    }
+
+    void onStop(@Observes ShutdownEvent event) {
+        if (worker == null) {
+            return;
+        }
+
+        running = false;
+        KafkaConsumer<String, DeadLetterQueueService.FailedBidRecord> current = consumer;
+        if (current != null) {
+            current.wakeup();
+        }
+        try {
+            worker.join(Duration.ofSeconds(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        startedNanos = System.nanoTime();
+        try (KafkaConsumer<String, DeadLetterQueueService.FailedBidRecord> kafkaConsumer =
+                     new KafkaConsumer<>(consumerProperties())) {
+            consumer = kafkaConsumer;
+            kafkaConsumer.subscribe(List.of(dlqTopic), new ConsumerRebalanceListener() {
+                @Override
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    checkpoint(kafkaConsumer);
+                }
+
+                @Override
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    seekToRangeStart(kafkaConsumer, partitions);
+                    endOffsets.putAll(kafkaConsumer.endOffsets(partitions));
+                }
+
+                @Override
+                public void onPartitionsLost(Collection<TopicPartition> partitions) {
+                    // The new owner replays from our last checkpoint.
+                    batch.clear();
+                    window.clear();
+                    pendingOffsets.clear();
+                }
+            });
+
+            long lastCheckpoint = System.nanoTime();
+            while (running) {
+                ConsumerRecords<String, DeadLetterQueueService.FailedBidRecord> records;
+                try {
+                    records = kafkaConsumer.poll(Duration.ofMillis(1000));
+                } catch (WakeupException e) {
+                    break;
+                } catch (RecordDeserializationException e) {
+                    LOG.warnf(e, "Skipping undecodable DLQ record at %s offset %d", e.topicPartition(), e.offset());
+                    kafkaConsumer.seek(e.topicPartition(), e.offset() + 1);
+                    continue;
+                }
+
+                for (ConsumerRecord<String, DeadLetterQueueService.FailedBidRecord> record : records) {
+                    append(kafkaConsumer, record);
+                }
+
+                if (stopAtEnd && caughtUp(kafkaConsumer)) {
+                    break;
+                }
+                if (System.nanoTime() - lastCheckpoint >= Duration.ofMillis(checkpointIntervalMs).toNanos()) {
+                    checkpoint(kafkaConsumer);
+                    lastCheckpoint = System.nanoTime();
+                }
+            }
+
+            checkpoint(kafkaConsumer);
+            LOG.infof("DLQ replay finished: %s", progress());
+        } catch (WakeupException e) {
+            LOG.infof("DLQ replay stopped before its final checkpoint: %s", progress());
+        } catch (SinkUnavailableException e) {
+            LOG.errorf(e, "DLQ replay paused, database unavailable; resume by restarting with the same group id: %s", progress());
+        } catch (RuntimeException e) {
+            LOG.errorf(e, "DLQ replay stopped unexpectedly: %s", progress());
+        } finally {
+            consumer = null;
+        }
+    }
+
+    private void append(
+            KafkaConsumer<String, DeadLetterQueueService.FailedBidRecord> kafkaConsumer,
+            ConsumerRecord<String, DeadLetterQueueService.FailedBidRecord> record
+    ) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        if (finished.contains(partition)) {
+            return;
+        }
+
+        Instant timestamp = Instant.ofEpochMilli(record.timestamp());
+        if (filter.isPastRange(timestamp)) {
+            // The DLQ is appended in failure order, so nothing later on this partition is in range.
+            finished.add(partition);
+            kafkaConsumer.pause(List.of(partition));
+            return;
+        }
+
+        pendingOffsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+        if (!filter.matches(record.value(), timestamp)) {
+            skipped++;
+            return;
+        }
+
+        batch.add(record.value().originalRequest());
+        if (batch.size() >= batchSize) {
+            writeBatch();
+        }
+    }
+
+    private void writeBatch() {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<BidRequest> full = batch;
+        batch = new ArrayList<>(batchSize);
+        try {
+            rateLimiter.acquire(full.size());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WakeupException();
+        }
+
+        CompletionStage<Void> write;
+        try {
+            write = sink.write(full);
+        } catch (RuntimeException e) {
+            write = CompletableFuture.failedFuture(e);
+        }
+        window.add(full, write);
+        replayed += full.size();
+    }
+
+    /**
+     * Persists everything read so far, then commits the offsets behind it.
+     */
+    private void checkpoint(KafkaConsumer<String, DeadLetterQueueService.FailedBidRecord> kafkaConsumer) {
+        writeBatch();
+        window.awaitAll();
+        if (!pendingOffsets.isEmpty()) {
+            kafkaConsumer.commitSync(Map.copyOf(pendingOffsets));
+            pendingOffsets.clear();
+            LOG.infof("DLQ replay checkpoint: %s", progress());
+        }
+    }
+
+    private boolean caughtUp(KafkaConsumer<String, DeadLetterQueueService.FailedBidRecord> kafkaConsumer) {
+        Set<TopicPartition> assigned = kafkaConsumer.assignment();
+        if (assigned.isEmpty()) {
+            return false;
+        }
+        for (TopicPartition partition : assigned) {
+            Long end = endOffsets.get(partition);
+            if (!finished.contains(partition) && (end == null || kafkaConsumer.position(partition) < end)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Partitions without a checkpoint skip straight to the first record at or after {@code from}.
+     */
+    private void seekToRangeStart(
+            KafkaConsumer<String, DeadLetterQueueService.FailedBidRecord> kafkaConsumer,
+            Collection<TopicPartition> partitions
+    ) {
+        if (filter.from() == null || partitions.isEmpty()) {
+            return;
+        }
+
+        Map<TopicPartition, OffsetAndMetadata> committed = kafkaConsumer.committed(Set.copyOf(partitions));
+        Map<TopicPartition, Long> search = new HashMap<>();
+        for (TopicPartition partition : partitions) {
+            if (committed.get(partition) == null) {
+                search.put(partition, filter.from().toEpochMilli());
+            }
+        }
+        if (search.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<TopicPartition, OffsetAndTimestamp> entry : kafkaConsumer.offsetsForTimes(search).entrySet()) {
+            if (entry.getValue() != null) {
+                kafkaConsumer.seek(entry.getKey(), entry.getValue().offset());
+            } else {
+                kafkaConsumer.seekToEnd(List.of(entry.getKey()));
+            }
+        }
+    }
+
+    private String progress() {
+        double seconds = Math.max(1e-3, (System.nanoTime() - startedNanos) / 1e9);
+        return String.format("replayed=%d skipped=%d elapsed=%.1fs rate=%.0f/s", replayed, skipped, seconds, replayed / seconds);
+    }
+
+    private Properties consumerProperties() {
+        Properties props = new Properties();
+        props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        props.put(ConsumerConfig.CLIENT_ID_CONFIG, groupId + "-replay");
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, Math.max(batchSize, 500));
+        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, FailedBidRecordDeserializer.class.getName());
+        return props;
+    }
+
+    /**
+     * Named subclass so the consumer can instantiate it from configuration.
+     */
+    public static class FailedBidRecordDeserializer extends ObjectMapperDeserializer<DeadLetterQueueService.FailedBidRecord> {
+        public FailedBidRecordDeserializer() {
+            super(DeadLetterQueueService.FailedBidRecord.class);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package demo.adtech;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * Dictionary of {@link Dimension#DOMAIN} values.
+ */
+@Entity
+@Table(name = "dim_domain")
+public class DomainDimension extends DimensionValue {
+}
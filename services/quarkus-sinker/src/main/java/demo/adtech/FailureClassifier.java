@@ -0,0 +1,61 @@
+package demo.adtech;
+
+import io.vertx.pgclient.PgException;
+import io.vertx.sqlclient.ClosedConnectionException;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Decides whether a failed write is worth retrying.
+ *
+ * Transient failures are about the database being unreachable or busy: lost
+ * connections, pool timeouts, failover, serialization conflicts. Retrying the same
+ * batch later is expected to succeed. Everything else, notably data and constraint
+ * errors, is permanent for the bids involved and retrying would fail the same way.
+ */
+final class FailureClassifier {
+
+    enum Kind { TRANSIENT, PERMANENT }
+
+    // SQLSTATE classes: connection exception, transaction rollback, insufficient resources,
+    // operator intervention (admin shutdown, cannot connect now) and system error.
+    private static final Set<String> TRANSIENT_SQL_STATE_CLASSES = Set.of("08", "40", "53", "57", "58");
+
+    private FailureClassifier() {}
+
+    static Kind classify(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException
+                    || cause instanceof ClosedConnectionException
+                    || cause instanceof TimeoutException
+                    || cause instanceof IOException) {
+                return Kind.TRANSIENT;
+            }
+            if (cause instanceof PgException pg) {
+                return classifySqlState(pg.getSqlState());
+            }
+            if (cause instanceof SQLException sql) {
+                // Pool-level errors such as an acquisition timeout carry no SQLSTATE.
+                return sql.getSQLState() == null ? Kind.TRANSIENT : classifySqlState(sql.getSQLState());
+            }
+        }
+        return Kind.PERMANENT;
+    }
+
+    static boolean isTransient(Throwable failure) {
+        return classify(failure) == Kind.TRANSIENT;
+    }
+
+    private static Kind classifySqlState(String sqlState) {
+        if (sqlState != null && sqlState.length() >= 2 && TRANSIENT_SQL_STATE_CLASSES.contains(sqlState.substring(0, 2))) {
+            return Kind.TRANSIENT;
+        }
+        return Kind.PERMANENT;
+    }
+}
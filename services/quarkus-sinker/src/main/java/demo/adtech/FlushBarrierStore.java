@@ -0,0 +1,157 @@
+package demo.adtech;
+
+import org.apache.kafka.streams.processor.StateStore;
+import org.apache.kafka.streams.processor.StateStoreContext;
+import org.apache.kafka.streams.state.StoreBuilder;
+import org.apache.kafka.streams.state.internals.CacheFlushListener;
+import org.apache.kafka.streams.state.internals.CachedStateStore;
+
+import java.util.Map;
+
+/**
+ * Data-less state store used as a pre-commit hook.
+ *
+ * When Kafka Streams prepares a task commit it flushes the caches of the task's
+ * cached stores before committing offsets. Full store flushes only happen later,
+ * at checkpoints. The barrier therefore poses as a cached store.
+ * {@link BatchingProcessor} registers a callback here that drains its batch buffer
+ * and in-flight writes, so offsets are never committed for bids that have not
+ * reached the sink yet.
+ *
+ * {@code CachedStateStore} is internal Kafka Streams API. {@code FlushBarrierStoreTest}
+ * runs the topology through {@code TopologyTestDriver}, which commits after every
+ * record, and fails if a commit completes with a write still outstanding. Only the
+ * pre-commit flush drains, so the test catches an upgrade that stops calling it.
+ */
+final class FlushBarrierStore implements StateStore, CachedStateStore<Void, Void> {
+
+    private final String name;
+    private Runnable flushCallback = () -> { };
+    private int drainEvery = 1;
+    private int flushesSinceDrain;
+    private boolean open;
+
+    private FlushBarrierStore(String name) {
+        this.name = name;
+    }
+
+    static StoreBuilder<FlushBarrierStore> builder(String name) {
+        return new Builder(name);
+    }
+
+    void onFlush(Runnable callback) {
+        this.flushCallback = callback;
+    }
+
+    /**
+     * Drains on every {@code flushes}-th pre-commit flush only. Production keeps the
+     * default of one; {@code SinkerTopologyBenchmark} uses it to stand in for
+     * {@code commit.interval.ms}, because {@code TopologyTestDriver} commits after every record.
+     */
+    void drainEvery(int flushes) {
+        this.drainEvery = Math.max(1, flushes);
+        this.flushesSinceDrain = 0;
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public void init(StateStoreContext context, StateStore root) {
+        // Nothing is stored, so there is nothing to restore.
+        context.register(root, (key, value) -> { });
+        open = true;
+    }
+
+    @Override
+    public void flushCache() {
+        if (++flushesSinceDrain < drainEvery) {
+            return;
+        }
+        flushesSinceDrain = 0;
+        flushCallback.run();
+    }
+
+    @Override
+    public void flush() {
+        // Runs at checkpoints, after the offsets were committed, so draining here would be
+        // too late to protect them and would hide a missing pre-commit flush. On close the
+        // processor drains itself.
+    }
+
+    @Override
+    public boolean setFlushListener(CacheFlushListener<Void, Void> listener, boolean sendOldValues) {
+        return false;
+    }
+
+    @Override
+    public void clearCache() {
+        // Nothing is cached.
+    }
+
+    @Override
+    public void close() {
+        open = false;
+    }
+
+    @Override
+    public boolean persistent() {
+        return false;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    private static final class Builder implements StoreBuilder<FlushBarrierStore> {
+
+        private final String name;
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public StoreBuilder<FlushBarrierStore> withCachingEnabled() {
+            return this;
+        }
+
+        @Override
+        public StoreBuilder<FlushBarrierStore> withCachingDisabled() {
+            return this;
+        }
+
+        @Override
+        public StoreBuilder<FlushBarrierStore> withLoggingEnabled(Map<String, String> config) {
+            return this;
+        }
+
+        @Override
+        public StoreBuilder<FlushBarrierStore> withLoggingDisabled() {
+            return this;
+        }
+
+        @Override
+        public FlushBarrierStore build() {
+            return new FlushBarrierStore(name);
+        }
+
+        @Override
+        public Map<String, String> logConfig() {
+            return Map.of();
+        }
+
+        @Override
+        public boolean loggingEnabled() {
+            return false;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package demo.adtech;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Bounded window of batches a single stream task has handed to a {@link BidSink}
+ * but not yet seen complete.
+ *
+ * Only the owning stream thread touches the window. Failures are reported back on
+ * that thread while draining, so sink callbacks never run DLQ or retry logic on an
+ * I/O thread.
+ */
+final class InFlightWindow {
+
+    /**
+     * Receives batches whose write completed exceptionally.
+     */
+    interface FailureHandler {
+        void onFailure(List<BidRequest> batch, Throwable failure);
+    }
+
+    private final int maxInFlight;
+    private final FailureHandler failureHandler;
+    private final ArrayDeque<PendingBatch> pending = new ArrayDeque<>();
+
+    InFlightWindow(int maxInFlight, FailureHandler failureHandler) {
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Tracks a submitted batch, blocking the caller while the window is full.
+     * Blocking the stream thread is the backpressure: it stops polling Kafka until
+     * the oldest batch completes.
+     */
+    void add(List<BidRequest> batch, CompletionStage<Void> write) {
+        pending.addLast(new PendingBatch(batch, write.toCompletableFuture()));
+        drainCompleted();
+        while (pending.size() > maxInFlight) {
+            awaitOldest();
+        }
+    }
+
+    /**
+     * Waits for every outstanding batch. Called before offsets are committed.
+     */
+    void awaitAll() {
+        while (!pending.isEmpty()) {
+            awaitOldest();
+        }
+    }
+
+    int size() {
+        return pending.size();
+    }
+
+    /**
+     * Forgets outstanding batches without waiting for them, once the task gives up on the sink.
+     */
+    void clear() {
+        pending.clear();
+    }
+
+    private void drainCompleted() {
+        while (!pending.isEmpty() && pending.peekFirst().write().isDone()) {
+            awaitOldest();
+        }
+    }
+
+    private void awaitOldest() {
+        PendingBatch oldest = pending.removeFirst();
+        try {
+            oldest.write().join();
+        } catch (CompletionException e) {
+            failureHandler.onFailure(oldest.batch(), e.getCause() != null ? e.getCause() : e);
+        } catch (RuntimeException e) {
+            failureHandler.onFailure(oldest.batch(), e);
+        }
+    }
+
+    private record PendingBatch(List<BidRequest> batch, CompletableFuture<Void> write) {}
+}
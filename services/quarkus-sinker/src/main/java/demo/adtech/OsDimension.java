@@ -0,0 +1,15 @@
+package demo.adtech;
+
+import jakarta.persistence.AttributeOverride;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * Dictionary of {@link Dimension#OS} values.
+ */
+@Entity
+@Table(name = "dim_os")
+@AttributeOverride(name = "value", column = @Column(name = "value", nullable = false, unique = true, length = 50))
+public class OsDimension extends DimensionValue {
+}
@@ -0,0 +1,37 @@
+package demo.adtech;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Blocking sink that persists each batch through Panache in one JDBC transaction.
+ * The stream thread waits for the commit, so the returned stage is always complete.
+ */
+@ApplicationScoped
+public class PanacheBidSink implements BidSink {
+
+    @Inject
+    DimensionKeyResolver dimensions;
+
+    @Override
+    public CompletionStage<Void> write(List<BidRequest> batch) {
+        try {
+            persist(batch, dimensions.resolve(batch));
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @Transactional
+    void persist(List<BidRequest> batch, DimensionKeys keys) {
+        for (BidRequest request : batch) {
+            new BidRecord(request, keys).persist();
+        }
+    }
+}
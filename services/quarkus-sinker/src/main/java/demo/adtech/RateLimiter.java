@@ -0,0 +1,32 @@
+package demo.adtech;
+
+/**
+ * Paces a single thread to a steady number of permits per second.
+ * Unused capacity is not banked beyond one second, so a stall is not followed by a burst.
+ */
+final class RateLimiter {
+
+    private final double nanosPerPermit;
+    private long nextFreeNanos = System.nanoTime();
+
+    RateLimiter(int permitsPerSecond) {
+        this.nanosPerPermit = permitsPerSecond > 0 ? 1_000_000_000d / permitsPerSecond : 0;
+    }
+
+    /**
+     * Blocks until {@code permits} more may be consumed. A non-positive rate never blocks.
+     */
+    void acquire(int permits) throws InterruptedException {
+        if (nanosPerPermit == 0 || permits <= 0) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        nextFreeNanos = Math.max(nextFreeNanos, now - 1_000_000_000L);
+        long waitNanos = nextFreeNanos - now;
+        nextFreeNanos += (long) (permits * nanosPerPermit);
+        if (waitNanos > 0) {
+            Thread.sleep(waitNanos / 1_000_000L, (int) (waitNanos % 1_000_000L));
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package demo.adtech;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.streams.processor.TimestampExtractor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Uses the time the receiver accepted a bid as the record's stream time.
+ *
+ * The Java receivers stamp every record with a {@value #HEADER} header (epoch millis,
+ * 8-byte big-endian). It is read here, before the value is decoded, and later copied
+ * into {@link BidRequest#receivedAt} by {@link BidProjectionDeserializer}. Records
+ * without it, e.g. from the other receivers, fall back to the Kafka record timestamp.
+ * While extracting, the gap between receipt and the record timestamp is recorded as
+ * the receive-to-broker stage of the end-to-end latency.
+ */
+final class ReceiveTimestampExtractor implements TimestampExtractor {
+
+    static final String HEADER = "received-at";
+
+    private final SinkerMetrics metrics;
+
+    ReceiveTimestampExtractor(SinkerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public long extract(ConsumerRecord<Object, Object> record, long partitionTime) {
+        long brokerTimestamp = record.timestamp();
+        long receivedAt = receivedAt(record.headers());
+        if (receivedAt > 0) {
+            if (brokerTimestamp >= 0) {
+                metrics.recordBrokerLatency(brokerTimestamp - receivedAt);
+            }
+            return receivedAt;
+        }
+        if (brokerTimestamp >= 0) {
+            return brokerTimestamp;
+        }
+        return partitionTime >= 0 ? partitionTime : System.currentTimeMillis();
+    }
+
+    /**
+     * Epoch millis from the {@value #HEADER} header, or 0 when it is missing or malformed.
+     */
+    static long receivedAt(Headers headers) {
+        Header header = headers == null ? null : headers.lastHeader(HEADER);
+        if (header == null || header.value() == null || header.value().length != Long.BYTES) {
+            return 0L;
+        }
+        return ByteBuffer.wrap(header.value()).getLong();
+    }
+}
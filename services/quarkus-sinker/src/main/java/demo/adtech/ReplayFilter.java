@@ -0,0 +1,46 @@
+package demo.adtech;
+
+import java.time.Instant;
+import java.util.Set;
+
+/**
+ * Selects which dead-lettered bids a replay re-persists.
+ * Empty sets and {@code null} bounds match everything.
+ *
+ * @param errorTypes       exception class names, fully qualified or simple
+ * @param failedOperations operations recorded by the failing component, e.g. {@code DATABASE_PERSIST}
+ * @param from             inclusive lower bound on {@code failedAt}
+ * @param until            exclusive upper bound on {@code failedAt}
+ */
+record ReplayFilter(Set<String> errorTypes, Set<String> failedOperations, Instant from, Instant until) {
+
+    boolean matches(DeadLetterQueueService.FailedBidRecord record, Instant recordTimestamp) {
+        if (record == null || record.originalRequest() == null) {
+            return false;
+        }
+
+        Instant failedAt = record.failedAt() != null ? record.failedAt() : recordTimestamp;
+        return matchesErrorType(record.errorType())
+                && (failedOperations.isEmpty() || failedOperations.contains(record.failedOperation()))
+                && (from == null || !failedAt.isBefore(from))
+                && (until == null || failedAt.isBefore(until));
+    }
+
+    /**
+     * True once a record's Kafka timestamp shows that the rest of its partition failed after {@code until}.
+     */
+    boolean isPastRange(Instant recordTimestamp) {
+        return until != null && !recordTimestamp.isBefore(until);
+    }
+
+    private boolean matchesErrorType(String errorType) {
+        if (errorTypes.isEmpty()) {
+            return true;
+        }
+        if (errorType == null) {
+            return false;
+        }
+        String simpleName = errorType.substring(errorType.lastIndexOf('.') + 1);
+        return errorTypes.contains(errorType) || errorTypes.contains(simpleName);
+    }
+}
@@ -0,0 +1,43 @@
+package demo.adtech;
+
+import org.apache.kafka.streams.processor.api.FixedKeyProcessor;
+import org.apache.kafka.streams.processor.api.FixedKeyProcessorContext;
+import org.apache.kafka.streams.processor.api.FixedKeyRecord;
+
+import java.util.function.Consumer;
+
+/**
+ * Passes on the records that {@link RoutingRules} sends to one route, looking only at headers.
+ * Each route of the topology gets its own filter on the same source stream.
+ */
+final class RouteFilter implements FixedKeyProcessor<String, byte[], byte[]> {
+
+    private final RoutingRules rules;
+    private final RoutingRules.Route route;
+    private final Consumer<RoutingRules.Route> onRouted;
+
+    private FixedKeyProcessorContext<String, byte[]> context;
+
+    /**
+     * @param onRouted sees every record's route; lets exactly one filter count them
+     */
+    RouteFilter(RoutingRules rules, RoutingRules.Route route, Consumer<RoutingRules.Route> onRouted) {
+        this.rules = rules;
+        this.route = route;
+        this.onRouted = onRouted;
+    }
+
+    @Override
+    public void init(FixedKeyProcessorContext<String, byte[]> context) {
+        this.context = context;
+    }
+
+    @Override
+    public void process(FixedKeyRecord<String, byte[]> record) {
+        RoutingRules.Route routed = rules.route(record.headers());
+        onRouted.accept(routed);
+        if (routed == route) {
+            context.forward(record);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package demo.adtech;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Decides from the receivers' routing headers alone what happens to a bid.
+ *
+ * The Java receivers attach {@code inv} ({@code site}/{@code app}), {@code os} and
+ * {@code lmt} headers; values are compared as raw bytes, so neither the headers nor
+ * the JSON value are decoded. Bids without routing headers are always persisted.
+ *
+ * @param inventory inventory types to persist; {@code site}, {@code app} or both
+ * @param dropLmt   drop bids flagged with limit ad tracking
+ * @param appTopic  when present, app bids are forwarded unchanged to this topic instead of Postgres
+ */
+record RoutingRules(Set<String> inventory, boolean dropLmt, Optional<String> appTopic) {
+
+    static final String INVENTORY_HEADER = "inv";
+    static final String LMT_HEADER = "lmt";
+
+    static final String SITE = "site";
+    static final String APP = "app";
+
+    private static final byte[] SITE_BYTES = SITE.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] APP_BYTES = APP.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LMT_ON = {'1'};
+
+    enum Route { PERSIST, FORWARD, DROP }
+
+    RoutingRules {
+        for (String type : inventory) {
+            if (!SITE.equals(type) && !APP.equals(type)) {
+                throw new IllegalArgumentException("Unknown inventory type in sinker.filter.inventory: " + type);
+            }
+        }
+        inventory = Set.copyOf(inventory);
+        appTopic = appTopic.filter(topic -> !topic.isBlank());
+    }
+
+    Route route(Headers headers) {
+        if (dropLmt && matches(headers, LMT_HEADER, LMT_ON)) {
+            return Route.DROP;
+        }
+        if (matches(headers, INVENTORY_HEADER, APP_BYTES)) {
+            if (appTopic.isPresent()) {
+                return Route.FORWARD;
+            }
+            return inventory.contains(APP) ? Route.PERSIST : Route.DROP;
+        }
+        if (matches(headers, INVENTORY_HEADER, SITE_BYTES)) {
+            return inventory.contains(SITE) ? Route.PERSIST : Route.DROP;
+        }
+        return Route.PERSIST;
+    }
+
+    private static boolean matches(Headers headers, String key, byte[] expected) {
+        Header header = headers.lastHeader(key);
+        return header != null && Arrays.equals(header.value(), expected);
+    }
+}
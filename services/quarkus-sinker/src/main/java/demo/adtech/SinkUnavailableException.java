@@ -0,0 +1,15 @@
+package demo.adtech;
+
+/**
+ * Thrown on the stream thread once a transient write failure outlasted the retry budget.
+ *
+ * It deliberately escapes the processor: the stream thread dies before committing,
+ * Kafka Streams replaces it, and the uncommitted bids are consumed again from the
+ * last committed offset instead of being dead-lettered.
+ */
+class SinkUnavailableException extends RuntimeException {
+
+    SinkUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
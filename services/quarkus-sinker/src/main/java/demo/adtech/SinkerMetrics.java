@@ -0,0 +1,154 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.kafka.KafkaStreamsMetrics;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.apache.kafka.streams.KafkaStreams;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters used to size sinker replicas, exported through the Prometheus registry.
+ *
+ * <ul>
+ *   <li>{@code sinker_records_total{topic,partition}}: rate() gives records/sec per partition</li>
+ *   <li>{@code sinker_batch_size}: bids per flushed batch</li>
+ *   <li>{@code sinker_batch_flush_seconds}: first buffered bid until the batch is persisted</li>
+ *   <li>{@code sinker_db_write_seconds} and {@code sinker_deserialize_seconds}: where a record's time goes</li>
+ *   <li>{@code sinker_dlq_records_total{operation}}: bids handed to the DLQ</li>
+ *   <li>{@code sinker_routed_records_total{route}}: bids persisted, forwarded or dropped by routing headers</li>
+ *   <li>{@code sinker_e2e_latency_seconds{stage}}: from receipt at the receiver to the Kafka record
+ *       timestamp ({@code broker}) and to the committed database write ({@code commit})</li>
+ *   <li>{@code kafka_consumer_fetch_manager_records_lag{topic,partition}}: lag per input partition,
+ *       i.e. per stream task, from the bound Kafka Streams client metrics</li>
+ * </ul>
+ */
+@ApplicationScoped
+public class SinkerMetrics {
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Counter> recordCounters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Counter> dlqCounters = new ConcurrentHashMap<>();
+    private final Map<RoutingRules.Route, Counter> routeCounters = new EnumMap<>(RoutingRules.Route.class);
+    private final DistributionSummary batchSize;
+    private final Timer flushLatency;
+    private final Timer dbWrite;
+    private final Timer deserialize;
+    private final Timer receiveToBroker;
+    private final Timer receiveToCommit;
+
+    @Inject
+    public SinkerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.batchSize = DistributionSummary.builder("sinker.batch.size")
+                .description("Bids per batch handed to the Postgres writer")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(10_000.0)
+                .register(registry);
+        this.flushLatency = Timer.builder("sinker.batch.flush")
+                .description("Time from the first buffered bid of a batch until the batch is persisted")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+        this.dbWrite = Timer.builder("sinker.db.write")
+                .description("Time the writer spends persisting one batch")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(registry);
+        this.deserialize = Timer.builder("sinker.deserialize")
+                .description("Time spent decoding one bid from the input topic")
+                .register(registry);
+        this.receiveToBroker = endToEnd("broker", registry);
+        this.receiveToCommit = endToEnd("commit", registry);
+        for (RoutingRules.Route route : RoutingRules.Route.values()) {
+            routeCounters.put(route, Counter.builder("sinker.routed.records")
+                    .description("Bids by the route their headers selected")
+                    .tag("route", route.name().toLowerCase())
+                    .register(registry));
+        }
+    }
+
+    private static Timer endToEnd(String stage, MeterRegistry registry) {
+        return Timer.builder("sinker.e2e.latency")
+                .description("Time since the receiver accepted a bid, at the given stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(10))
+                .register(registry);
+    }
+
+    void onStart(@Observes StartupEvent event, Instance<KafkaStreams> kafkaStreams) {
+        // Without a topology the Kafka Streams extension produces no client.
+        KafkaStreams streams = kafkaStreams.isResolvable() ? kafkaStreams.get() : null;
+        if (streams != null) {
+            new KafkaStreamsMetrics(streams).bindTo(registry);
+        }
+    }
+
+    Counter records(String topic, int partition) {
+        return recordCounters.computeIfAbsent(topic + "-" + partition, key -> Counter.builder("sinker.records")
+                .description("Bids consumed by the Postgres sink")
+                .tag("topic", topic)
+                .tag("partition", Integer.toString(partition))
+                .register(registry));
+    }
+
+    void recordBatchSize(int size) {
+        batchSize.record(size);
+    }
+
+    void recordBatchWritten(long firstBufferedNanos, long writeStartedNanos) {
+        long now = System.nanoTime();
+        flushLatency.record(now - firstBufferedNanos, TimeUnit.NANOSECONDS);
+        dbWrite.record(now - writeStartedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void routed(RoutingRules.Route route) {
+        routeCounters.get(route).increment();
+    }
+
+    void recordBrokerLatency(long millis) {
+        receiveToBroker.record(Math.max(0L, millis), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records receive-to-commit latency for every stamped bid of a batch that was just persisted.
+     */
+    void recordCommitted(List<BidRequest> batch) {
+        long now = System.currentTimeMillis();
+        for (BidRequest request : batch) {
+            if (request.receivedAt > 0) {
+                receiveToCommit.record(Math.max(0L, now - request.receivedAt), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    Timer deserializeTimer() {
+        return deserialize;
+    }
+
+    void deadLettered(String operation, int count) {
+        dlqCounters.computeIfAbsent(operation, key -> Counter.builder("sinker.dlq.records")
+                        .description("Bids sent to the dead letter queue")
+                        .tag("operation", operation)
+                        .register(registry))
+                .increment(count);
+    }
+}
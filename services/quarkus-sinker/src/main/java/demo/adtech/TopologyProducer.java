@@ -1,16 +1,23 @@
 package demo.adtech;
 
+import io.quarkus.arc.lookup.LookupIfProperty;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
 import jakarta.inject.Inject;
-import jakarta.transaction.Transactional;
+import org.apache.kafka.common.serialization.Serdes;
 import org.apache.kafka.streams.StreamsBuilder;
 import org.apache.kafka.streams.Topology;
+import org.apache.kafka.streams.errors.StreamsUncaughtExceptionHandler;
 import org.apache.kafka.streams.kstream.Consumed;
 import org.apache.kafka.streams.kstream.KStream;
+import org.apache.kafka.streams.kstream.Produced;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
 @ApplicationScoped
 public class TopologyProducer {
 
@@ -19,54 +26,124 @@ public class TopologyProducer {
     @ConfigProperty(name = "kafka-streams.topics-in")
     String inputTopic;
 
+    @ConfigProperty(name = "sinker.batch.size", defaultValue = "500")
+    int batchSize;
+
+    @ConfigProperty(name = "sinker.batch.max-wait-ms", defaultValue = "200")
+    long batchMaxWaitMs;
+
+    @ConfigProperty(name = "sinker.batch.max-in-flight", defaultValue = "4")
+    int batchMaxInFlight;
+
+    @ConfigProperty(name = "sinker.retry.max-attempts", defaultValue = "8")
+    int retryMaxAttempts;
+
+    @ConfigProperty(name = "sinker.retry.initial-backoff-ms", defaultValue = "200")
+    long retryInitialBackoffMs;
+
+    @ConfigProperty(name = "sinker.retry.max-backoff-ms", defaultValue = "10000")
+    long retryMaxBackoffMs;
+
+    @ConfigProperty(name = "sinker.log.sample-every", defaultValue = "10000")
+    int logSampleEvery;
+
+    @ConfigProperty(name = "sinker.filter.inventory", defaultValue = "site,app")
+    Set<String> filterInventory;
+
+    @ConfigProperty(name = "sinker.filter.drop-lmt", defaultValue = "false")
+    boolean filterDropLmt;
+
+    @ConfigProperty(name = "sinker.route.app-topic")
+    Optional<String> routeAppTopic;
+
     @Inject
     DeadLetterQueueService dlqService;
 
+    @Inject
+    SinkerMetrics metrics;
+
+    @Inject
+    BidSinks sinks;
+
     /**
      * This is the core logic of the Kafka Streams application.
      * It defines the "Topology" (the flow of data).
+     *
+     * With the Postgres sink disabled there is no topology to look up, so the Kafka
+     * Streams extension neither creates nor starts a client and the archive sink is the
+     * only consumer.
      */
     @Produces
+    @LookupIfProperty(name = "sinker.postgres.enabled", stringValue = "true", lookupIfMissing = true)
     public Topology buildTopology() {
         StreamsBuilder builder = new StreamsBuilder();
 
-        // 1. READ: Consume from the 'bids' topic.
-        // We use the BidRequest.class for deserialization.
-        KStream<String, BidRequest> stream = builder.stream(inputTopic,
-                Consumed.with(org.apache.kafka.common.serialization.Serdes.String(),
-                        new io.quarkus.kafka.client.serialization.ObjectMapperSerde<>(BidRequest.class))
-        );
+        // 1. READ: Consume the 'bids' topic as raw bytes; stream time is the receivers' receive timestamp.
+        KStream<String, byte[]> raw = builder.stream(inputTopic, Consumed.with(Serdes.String(), Serdes.ByteArray())
+                .withTimestampExtractor(new ReceiveTimestampExtractor(metrics)));
+
+        // 2. ROUTE: Drop or forward bids by their routing headers before any value is parsed.
+        // Each branch filters the same source; only the persist branch counts routes.
+        RoutingRules routing = new RoutingRules(filterInventory, filterDropLmt, routeAppTopic);
+        routing.appTopic().ifPresent(appTopic -> raw
+                .processValues(() -> new RouteFilter(routing, RoutingRules.Route.FORWARD, route -> { }))
+                .to(appTopic, Produced.with(Serdes.String(), Serdes.ByteArray())));
 
-        // 2. TRANSFORM & SINK: For each message, create a BidRecord and save it.
-        // This is a "terminal operation" (a sink).
-        stream
-                .peek((key, request) -> LOG.infof("Processing bid request: %s", request.id))
-                .foreach((key, request) -> {
-                    // This logic is executed for every single message
-                    try {
-                        saveToDatabase(request);
-                    } catch (Exception e) {
-                        if (dlqService.isEnabled()) {
-                            LOG.errorf(e, "Failed to save bid %s to database. Sending to DLQ.", request.id);
-                            dlqService.sendToDeadLetterQueue(request, e, "DATABASE_PERSIST");
-                        } else {
-                            LOG.errorf(e, "Failed to save bid %s to database. DLQ disabled.", request.id);
-                        }
-                    }
-                });
+        // 3. DECODE: Projecting parser for the fields the sink stores, timed so decode cost shows up next to DB time.
+        KStream<String, BidRequest> stream = raw
+                .processValues(() -> new RouteFilter(routing, RoutingRules.Route.PERSIST, metrics::routed))
+                .processValues(() -> new BidDecoder(
+                        new TimedDeserializer<>(new BidProjectionDeserializer(), metrics.deserializeTimer())));
 
+        // 4. SINK: Batch records per stream task and write each batch in one go.
+        // The barrier store is flushed before every offset commit, which drains the batch
+        // buffer and waits for in-flight writes, so commits never run ahead of the database.
+        BidSink sink = sinks.selected();
+        Duration maxWait = Duration.ofMillis(batchMaxWaitMs);
+        BatchFailureHandler failureHandler = new BatchFailureHandler(
+                sink,
+                retryMaxAttempts,
+                Duration.ofMillis(retryInitialBackoffMs),
+                Duration.ofMillis(retryMaxBackoffMs),
+                BatchFailureHandler.OPERATION,
+                dlqService::sendToDeadLetterQueue
+        );
+        builder.addStateStore(FlushBarrierStore.builder(BatchingProcessor.BARRIER_STORE));
+        stream.process(
+                () -> new BatchingProcessor(
+                        sink, batchSize, maxWait, batchMaxInFlight, failureHandler, metrics, logSampleEvery),
+                BatchingProcessor.BARRIER_STORE
+        );
+
+        LOG.infof(
+                "Postgres sink configured (writer=%s, batch_size=%d, batch_max_wait_ms=%d, batch_max_in_flight=%d, retry_max_attempts=%d, log_sample_every=%d, routing=%s)",
+                sinks.writerName(),
+                batchSize,
+                batchMaxWaitMs,
+                batchMaxInFlight,
+                retryMaxAttempts,
+                logSampleEvery,
+                routing
+        );
         return builder.build();
     }
 
     /**
-     * This helper method wraps the database write in a transaction.
-     * This is CRITICAL for Panache.
+     * Picked up by the Kafka Streams extension. A stream thread that gave up on an
+     * unavailable database is replaced and resumes from the last committed offset;
+     * any other error still shuts the client down, as without a handler.
      */
-    @Transactional
-    void saveToDatabase(BidRequest request) {
-        BidRecord record = new BidRecord(request);
-        // Panache.withTransaction will run this block in a new transaction.
-        // This is a common pattern for handling writes from a stream.
-        record.persist();
+    @Produces
+    StreamsUncaughtExceptionHandler uncaughtExceptionHandler() {
+        return exception -> {
+            for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+                if (cause instanceof SinkUnavailableException) {
+                    LOG.warnf("Replacing stream thread: %s", cause.getMessage());
+                    return StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse.REPLACE_THREAD;
+                }
+            }
+            LOG.error("Unrecoverable stream thread failure; shutting down", exception);
+            return StreamsUncaughtExceptionHandler.StreamThreadExceptionResponse.SHUTDOWN_CLIENT;
+        };
     }
 }
@@ -0,0 +1,49 @@
+-- V2__Dictionary_encode_dimensions.sql
+-- Replaces the repeated domain/app_bundle/os strings in bid_records with integer
+-- keys into small dictionary tables.
+
+CREATE TABLE IF NOT EXISTS dim_domain (
+    id SERIAL PRIMARY KEY,
+    value VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS dim_app_bundle (
+    id SERIAL PRIMARY KEY,
+    value VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS dim_os (
+    id SERIAL PRIMARY KEY,
+    value VARCHAR(50) NOT NULL UNIQUE
+);
+
+INSERT INTO dim_domain (value) SELECT DISTINCT domain FROM bid_records WHERE domain IS NOT NULL;
+INSERT INTO dim_app_bundle (value) SELECT DISTINCT app_bundle FROM bid_records WHERE app_bundle IS NOT NULL;
+INSERT INTO dim_os (value) SELECT DISTINCT os FROM bid_records WHERE os IS NOT NULL;
+
+ALTER TABLE bid_records
+    ADD COLUMN domain_id INTEGER REFERENCES dim_domain(id),
+    ADD COLUMN app_bundle_id INTEGER REFERENCES dim_app_bundle(id),
+    ADD COLUMN os_id INTEGER REFERENCES dim_os(id);
+
+UPDATE bid_records b SET domain_id = d.id FROM dim_domain d WHERE b.domain = d.value;
+UPDATE bid_records b SET app_bundle_id = a.id FROM dim_app_bundle a WHERE b.app_bundle = a.value;
+UPDATE bid_records b SET os_id = o.id FROM dim_os o WHERE b.os = o.value;
+
+DROP INDEX IF EXISTS idx_bid_records_domain;
+ALTER TABLE bid_records DROP COLUMN domain, DROP COLUMN app_bundle, DROP COLUMN os;
+
+CREATE INDEX idx_bid_records_domain_id ON bid_records(domain_id);
+
+-- Readable view for ad-hoc queries; group-bys should prefer the key columns.
+CREATE VIEW bid_records_expanded AS
+SELECT b.id, b.bid_request_id, d.value AS domain, a.value AS app_bundle, b.ip, o.value AS os,
+       b.limit_ad_tracking, b.processed_at
+FROM bid_records b
+LEFT JOIN dim_domain d ON d.id = b.domain_id
+LEFT JOIN dim_app_bundle a ON a.id = b.app_bundle_id
+LEFT JOIN dim_os o ON o.id = b.os_id;
+
+COMMENT ON COLUMN bid_records.domain_id IS 'Key into dim_domain';
+COMMENT ON COLUMN bid_records.app_bundle_id IS 'Key into dim_app_bundle';
+COMMENT ON COLUMN bid_records.os_id IS 'Key into dim_os';
@@ -0,0 +1,16 @@
+-- V3__Add_event_time.sql
+-- Store when the receiver accepted each bid next to when the sinker persisted it
+
+ALTER TABLE bid_records ADD COLUMN event_time TIMESTAMP WITH TIME ZONE;
+
+CREATE INDEX idx_bid_records_event_time ON bid_records(event_time);
+
+CREATE OR REPLACE VIEW bid_records_expanded AS
+SELECT b.id, b.bid_request_id, d.value AS domain, a.value AS app_bundle, b.ip, o.value AS os,
+       b.limit_ad_tracking, b.processed_at, b.event_time
+FROM bid_records b
+LEFT JOIN dim_domain d ON d.id = b.domain_id
+LEFT JOIN dim_app_bundle a ON a.id = b.app_bundle_id
+LEFT JOIN dim_os o ON o.id = b.os_id;
+
+COMMENT ON COLUMN bid_records.event_time IS 'Receive time stamped by the receiver (received-at header); NULL if absent';
@@ -0,0 +1,59 @@
+package demo.adtech;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.health.SmallRyeHealth;
+import io.smallrye.health.SmallRyeHealthReporter;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.Topology;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Boots the sinker with the Postgres sink disabled and the archive sink enabled.
+ */
+@QuarkusTest
+@TestProfile(ArchiveOnlyModeTest.ArchiveOnly.class)
+class ArchiveOnlyModeTest {
+
+    @Inject
+    Instance<Topology> topology;
+
+    @Inject
+    Instance<KafkaStreams> kafkaStreams;
+
+    @Inject
+    ColumnarArchiveSink archiveSink;
+
+    @Inject
+    SmallRyeHealthReporter healthReporter;
+
+    @Test
+    @DisplayName("Archive-only mode should run the archive sink without a Kafka Streams client")
+    void testArchiveOnly() {
+        assertTrue(topology.isUnsatisfied());
+        assertTrue(kafkaStreams.isUnsatisfied() || kafkaStreams.get() == null);
+        assertTrue(archiveSink.isRunning());
+
+        SmallRyeHealth health = healthReporter.getHealth();
+        assertFalse(health.isDown(), health.getPayload().toString());
+    }
+
+    public static class ArchiveOnly implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "sinker.postgres.enabled", "false",
+                    "sinker.archive.enabled", "true",
+                    "sinker.archive.directory", "target/archive-only-test"
+            );
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package demo.adtech;
+
+import org.eclipse.microprofile.health.HealthCheckResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the archive sink readiness check.
+ */
+class ArchiveSinkHealthCheckTest {
+
+    @Test
+    @DisplayName("A disabled archive sink should not affect readiness")
+    void testDisabled() {
+        assertEquals(HealthCheckResponse.Status.UP, check(false, false, false).call().getStatus());
+    }
+
+    @Test
+    @DisplayName("A failing or stopped consumer should report the archive sink as not ready")
+    void testFailingOrStopped() {
+        assertEquals(HealthCheckResponse.Status.UP, check(true, true, false).call().getStatus());
+
+        HealthCheckResponse failing = check(true, true, true).call();
+        assertEquals(HealthCheckResponse.Status.DOWN, failing.getStatus());
+        assertEquals("java.lang.IllegalStateException: boom", failing.getData().orElseThrow().get("last_failure"));
+
+        assertEquals(HealthCheckResponse.Status.DOWN, check(true, false, false).call().getStatus());
+    }
+
+    private static ArchiveSinkHealthCheck check(boolean enabled, boolean running, boolean failing) {
+        ArchiveSinkHealthCheck check = new ArchiveSinkHealthCheck();
+        check.archiveSink = new ColumnarArchiveSink() {
+            @Override
+            boolean isEnabled() {
+                return enabled;
+            }
+
+            @Override
+            boolean isRunning() {
+                return running;
+            }
+
+            @Override
+            boolean isFailing() {
+                return failing;
+            }
+
+            @Override
+            String lastFailure() {
+                return failing ? new IllegalStateException("boom").toString() : null;
+            }
+        };
+        return check;
+    }
+}
@@ -0,0 +1,133 @@
+package demo.adtech;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for retry classification in front of the DLQ.
+ */
+class BatchFailureHandlerTest {
+
+    private static final Throwable CONNECTION_LOST = new SQLException("connection lost", "08006");
+    private static final Throwable CONSTRAINT_VIOLATION = new SQLException("value too long", "22001");
+
+    private final List<DeadLetterQueueService.FailedBidRecord> deadLetters = new ArrayList<>();
+
+    @Test
+    @DisplayName("Transient batch failure should be retried without touching the DLQ")
+    void testTransientFailureRetriesBatch() {
+        // Arrange
+        ScriptedSink sink = new ScriptedSink(CONNECTION_LOST, CONNECTION_LOST);
+        BatchFailureHandler handler = handler(sink, 5);
+        List<BidRequest> batch = List.of(bid("a"), bid("b"));
+
+        // Act
+        handler.onFailure(batch, CONNECTION_LOST);
+
+        // Assert
+        assertEquals(List.of(batch, batch, batch), sink.writes);
+        assertTrue(deadLetters.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Exhausted transient retries should pause instead of spilling to the DLQ")
+    void testExhaustedRetriesThrow() {
+        // Arrange
+        ScriptedSink sink = new ScriptedSink(CONNECTION_LOST, CONNECTION_LOST, CONNECTION_LOST);
+        BatchFailureHandler handler = handler(sink, 3);
+
+        // Act & Assert
+        assertThrows(SinkUnavailableException.class, () -> handler.onFailure(List.of(bid("a")), CONNECTION_LOST));
+        assertEquals(3, sink.writes.size());
+        assertTrue(deadLetters.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Permanent failure should dead-letter only the failing bids in one batch")
+    void testPermanentFailureIsolatesBids() {
+        // Arrange
+        ScriptedSink sink = new ScriptedSink(null, CONSTRAINT_VIOLATION, null, CONSTRAINT_VIOLATION);
+        BatchFailureHandler handler = handler(sink, 3);
+        List<BidRequest> batch = List.of(bid("a"), bid("b"), bid("c"), bid("d"));
+
+        // Act
+        handler.onFailure(batch, CONSTRAINT_VIOLATION);
+
+        // Assert
+        assertEquals(4, sink.writes.size());
+        assertEquals(List.of("b", "d"), deadLetters.stream().map(r -> r.originalRequest().id).toList());
+        assertEquals(BatchFailureHandler.OPERATION, deadLetters.get(0).failedOperation());
+        assertEquals("value too long", deadLetters.get(0).errorMessage());
+    }
+
+    @Test
+    @DisplayName("Failures should be classified by SQLSTATE and exception type")
+    void testClassification() {
+        assertTrue(FailureClassifier.isTransient(new RuntimeException(CONNECTION_LOST)));
+        assertTrue(FailureClassifier.isTransient(new SQLException("could not serialize access", "40001")));
+        assertTrue(FailureClassifier.isTransient(new SQLTransientConnectionException("timeout")));
+        assertTrue(FailureClassifier.isTransient(new SQLException("Sorry, acquisition timeout!")));
+        assertFalse(FailureClassifier.isTransient(CONSTRAINT_VIOLATION));
+        assertFalse(FailureClassifier.isTransient(new IllegalStateException("bad data")));
+    }
+
+    @Test
+    @DisplayName("Backoff should grow exponentially up to the cap")
+    void testBackoffIsCapped() {
+        // Arrange
+        BatchFailureHandler handler = new BatchFailureHandler(
+                new ScriptedSink(), 10, Duration.ofMillis(100), Duration.ofMillis(1000), BatchFailureHandler.OPERATION, deadLetters::addAll);
+
+        // Act & Assert
+        assertTrue(handler.backoff(1).toMillis() >= 50 && handler.backoff(1).toMillis() <= 100);
+        assertTrue(handler.backoff(3).toMillis() >= 200 && handler.backoff(3).toMillis() <= 400);
+        assertTrue(handler.backoff(30).toMillis() >= 500 && handler.backoff(30).toMillis() <= 1000);
+    }
+
+    private BatchFailureHandler handler(BidSink sink, int maxAttempts) {
+        return new BatchFailureHandler(sink, maxAttempts, Duration.ZERO, Duration.ZERO, BatchFailureHandler.OPERATION, deadLetters::addAll);
+    }
+
+    private static BidRequest bid(String id) {
+        BidRequest request = new BidRequest();
+        request.id = id;
+        return request;
+    }
+
+    /**
+     * Fails writes in the scripted order (null means success); succeeds once the script runs out.
+     */
+    private static final class ScriptedSink implements BidSink {
+        private final Deque<Throwable> outcomes = new ArrayDeque<>();
+        private final List<List<BidRequest>> writes = new ArrayList<>();
+
+        ScriptedSink(Throwable... outcomes) {
+            for (Throwable outcome : outcomes) {
+                this.outcomes.addLast(outcome == null ? new Success() : outcome);
+            }
+        }
+
+        @Override
+        public CompletionStage<Void> write(List<BidRequest> batch) {
+            writes.add(batch);
+            Throwable outcome = outcomes.pollFirst();
+            return outcome == null || outcome instanceof Success
+                    ? CompletableFuture.completedFuture(null)
+                    : CompletableFuture.failedFuture(outcome);
+        }
+
+        private static final class Success extends Throwable {}
+    }
+}
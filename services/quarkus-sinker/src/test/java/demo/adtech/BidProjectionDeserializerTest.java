@@ -0,0 +1,91 @@
+package demo.adtech;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the projecting input decoder.
+ */
+class BidProjectionDeserializerTest {
+
+    private final BidProjectionDeserializer deserializer = new BidProjectionDeserializer();
+
+    @Test
+    @DisplayName("Should pick the stored fields and skip everything else")
+    void testProjectsStoredFields() {
+        // Arrange
+        String json = """
+                {"imp":[{"id":"1","banner":{"w":300,"h":250,"format":[{"w":300},{"w":728}]}}],
+                 "id":"bid-1",
+                 "site":{"id":"s1","publisher":{"id":"p1"},"domain":"example.com"},
+                 "device":{"ua":"Mozilla/5.0","geo":{"country":"DE"},"ip":"10.0.0.1","os":"iOS","lmt":1},
+                 "user":{"id":"u1","ext":{"consent":"abc"}},
+                 "ext":null}
+                """;
+
+        // Act
+        BidRequest request = decode(json);
+
+        // Assert
+        assertEquals("bid-1", request.id);
+        assertEquals("example.com", request.site.domain);
+        assertNull(request.app);
+        assertEquals("10.0.0.1", request.device.ip);
+        assertEquals("iOS", request.device.os);
+        assertEquals(1, request.device.lmt);
+        assertNull(request.user);
+    }
+
+    @Test
+    @DisplayName("Should read the app bundle and tolerate nulls and unexpected shapes")
+    void testAppAndNulls() {
+        // Act
+        BidRequest request = decode("""
+                {"id":"bid-2","site":null,"app":{"bundle":"com.example.app","cat":["IAB1"]},
+                 "device":{"ip":null,"os":{"name":"Android"},"lmt":"0"}}
+                """);
+
+        // Assert
+        assertEquals("bid-2", request.id);
+        assertNull(request.site);
+        assertEquals("com.example.app", request.app.bundle);
+        assertNull(request.device.ip);
+        assertNull(request.device.os);
+        assertEquals(0, request.device.lmt);
+    }
+
+    @Test
+    @DisplayName("Should take the receive time from the record header")
+    void testReceivedAtHeader() {
+        // Arrange
+        byte[] payload = "{\"id\":\"bid-4\"}".getBytes(StandardCharsets.UTF_8);
+        RecordHeaders stamped = new RecordHeaders();
+        stamped.add(ReceiveTimestampExtractor.HEADER, ByteBuffer.allocate(Long.BYTES).putLong(1_760_000_000_000L).array());
+        RecordHeaders malformed = new RecordHeaders();
+        malformed.add(ReceiveTimestampExtractor.HEADER, new byte[] {1, 2});
+
+        // Act & Assert
+        assertEquals(1_760_000_000_000L, deserializer.deserialize("bids", stamped, payload).receivedAt);
+        assertEquals(0L, deserializer.deserialize("bids", malformed, payload).receivedAt);
+        assertEquals(0L, deserializer.deserialize("bids", new RecordHeaders(), payload).receivedAt);
+    }
+
+    @Test
+    @DisplayName("Null payloads pass through and malformed ones fail as serialization errors")
+    void testNullAndMalformed() {
+        assertNull(deserializer.deserialize("bids", null));
+        assertThrows(SerializationException.class, () -> decode("[1,2]"));
+        assertThrows(SerializationException.class, () -> decode("{\"id\":\"bid-3\",\"site\":{"));
+    }
+
+    private BidRequest decode(String json) {
+        return deserializer.deserialize("bids", json.getBytes(StandardCharsets.UTF_8));
+    }
+}
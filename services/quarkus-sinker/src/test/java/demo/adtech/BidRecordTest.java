@@ -4,6 +4,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -12,6 +13,12 @@ import static org.junit.jupiter.api.Assertions.*;
  */
 class BidRecordTest {
 
+    private static final DimensionKeys KEYS = new DimensionKeys(Map.of(
+            Dimension.DOMAIN, Map.of("example.com", 1, "test.com", 2),
+            Dimension.APP_BUNDLE, Map.of("com.example.app", 7),
+            Dimension.OS, Map.of("iOS", 3, "Android", 4)
+    ));
+
     @Test
     @DisplayName("BidRecord should correctly map from BidRequest with site")
     void testBidRecordFromSiteRequest() {
@@ -26,14 +33,14 @@ class BidRecordTest {
         request.device.lmt = 0;
 
         // Act
-        BidRecord record = new BidRecord(request);
+        BidRecord record = new BidRecord(request, KEYS);
 
         // Assert
         assertEquals("test-123", record.bidRequestId);
-        assertEquals("example.com", record.domain);
-        assertNull(record.appBundle);
+        assertEquals(1, record.domainId);
+        assertNull(record.appBundleId);
         assertEquals("192.168.1.1", record.ip);
-        assertEquals("iOS", record.os);
+        assertEquals(3, record.osId);
         assertFalse(record.limitAdTracking);
         assertNotNull(record.processedAt);
         assertTrue(record.processedAt.isBefore(Instant.now().plusSeconds(1)));
@@ -53,14 +60,14 @@ class BidRecordTest {
         request.device.lmt = 1;
 
         // Act
-        BidRecord record = new BidRecord(request);
+        BidRecord record = new BidRecord(request, KEYS);
 
         // Assert
         assertEquals("test-456", record.bidRequestId);
-        assertNull(record.domain);
-        assertEquals("com.example.app", record.appBundle);
+        assertNull(record.domainId);
+        assertEquals(7, record.appBundleId);
         assertEquals("10.0.0.1", record.ip);
-        assertEquals("Android", record.os);
+        assertEquals(4, record.osId);
         assertTrue(record.limitAdTracking);
     }
 
@@ -74,12 +81,12 @@ class BidRecordTest {
         request.device.ip = "172.16.0.1";
 
         // Act
-        BidRecord record = new BidRecord(request);
+        BidRecord record = new BidRecord(request, KEYS);
 
         // Assert
         assertEquals("test-789", record.bidRequestId);
-        assertNull(record.domain);
-        assertNull(record.appBundle);
+        assertNull(record.domainId);
+        assertNull(record.appBundleId);
     }
 
     @Test
@@ -92,16 +99,49 @@ class BidRecordTest {
         request.site.domain = "test.com";
 
         // Act
-        BidRecord record = new BidRecord(request);
+        BidRecord record = new BidRecord(request, KEYS);
 
         // Assert
         assertEquals("test-null-device", record.bidRequestId);
-        assertEquals("test.com", record.domain);
+        assertEquals(2, record.domainId);
         assertNull(record.ip);
-        assertNull(record.os);
+        assertNull(record.osId);
         assertFalse(record.limitAdTracking);
     }
 
+    @Test
+    @DisplayName("BidRecord should carry the receive time as event time")
+    void testBidRecordEventTime() {
+        // Arrange
+        BidRequest stamped = new BidRequest();
+        stamped.id = "test-stamped";
+        stamped.receivedAt = 1_760_000_000_000L;
+        BidRequest unstamped = new BidRequest();
+        unstamped.id = "test-unstamped";
+
+        // Act
+        BidRecord stampedRecord = new BidRecord(stamped, KEYS);
+        BidRecord unstampedRecord = new BidRecord(unstamped, KEYS);
+
+        // Assert
+        assertEquals(Instant.ofEpochMilli(1_760_000_000_000L), stampedRecord.eventTime);
+        assertNull(unstampedRecord.eventTime);
+        assertNotNull(unstampedRecord.processedAt);
+    }
+
+    @Test
+    @DisplayName("BidRecord should fail when a dimension key was not resolved")
+    void testBidRecordWithUnresolvedDimension() {
+        // Arrange
+        BidRequest request = new BidRequest();
+        request.id = "test-unresolved";
+        request.site = new BidRequest.Site();
+        request.site.domain = "unknown.com";
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class, () -> new BidRecord(request, KEYS));
+    }
+
     @Test
     @DisplayName("Default constructor should create empty BidRecord")
     void testDefaultConstructor() {
@@ -110,7 +150,7 @@ class BidRecordTest {
 
         // Assert
         assertNull(record.bidRequestId);
-        assertNull(record.domain);
+        assertNull(record.domainId);
         assertNull(record.processedAt);
     }
 }
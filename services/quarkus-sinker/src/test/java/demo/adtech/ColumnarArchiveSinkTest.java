@@ -0,0 +1,52 @@
+package demo.adtech;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for archive file naming and cleanup in a shared directory.
+ */
+class ColumnarArchiveSinkTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Startup cleanup should only delete this instance's unfinished files")
+    void testDiscardsOwnInProgressFilesOnly() throws Exception {
+        // Arrange
+        Path hour = Files.createDirectories(tempDir.resolve("2026-01-01/00"));
+        Path own = Files.createFile(hour.resolve("bids-sinker-1_1000-0.bidcol.inprogress"));
+        Path ownFinished = Files.createFile(hour.resolve("bids-sinker-1_1000-1.bidcol"));
+        Path other = Files.createFile(hour.resolve("bids-sinker-1-b_2000-0.bidcol.inprogress"));
+        Path otherReplica = Files.createFile(hour.resolve("bids-sinker-2_3000-0.bidcol.inprogress"));
+
+        // Act
+        List<Path> discarded = ColumnarArchiveSink.discardInProgressFiles(
+                tempDir, ColumnarArchiveSink.filePrefix("sinker-1"));
+
+        // Assert
+        assertEquals(List.of(own), discarded);
+        assertFalse(Files.exists(own));
+        assertTrue(Files.exists(ownFinished));
+        assertTrue(Files.exists(other));
+        assertTrue(Files.exists(otherReplica));
+    }
+
+    @Test
+    @DisplayName("Instance ids should be sanitized so no prefix contains another")
+    void testInstanceId() {
+        assertEquals("sinker-1", ColumnarArchiveSink.instanceId("sinker-1"));
+        assertEquals("pod-a-b-c", ColumnarArchiveSink.instanceId(" pod_a.b/c "));
+        assertFalse(ColumnarArchiveSink.instanceId(null).isBlank());
+        assertEquals(List.of(), assertDoesNotThrow(
+                () -> ColumnarArchiveSink.discardInProgressFiles(tempDir.resolve("missing"), "bids-x_")));
+    }
+}
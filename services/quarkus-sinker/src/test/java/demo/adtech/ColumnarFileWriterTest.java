@@ -0,0 +1,117 @@
+package demo.adtech;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the columnar archive file format.
+ */
+class ColumnarFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Finished file should round-trip every column across row groups")
+    void testRoundTripAcrossRowGroups() throws Exception {
+        // Arrange
+        Path target = tempDir.resolve("2026-01-01/00/bids-test-0.bidcol");
+        ColumnBuffer buffer = new ColumnBuffer(2);
+
+        // Act
+        try (ColumnarFileWriter writer = ColumnarFileWriter.open(target, 6)) {
+            buffer.add(siteRequest("bid-1", "example.com", 0), 1_000L);
+            buffer.add(appRequest("bid-2", "com.example.app", 1), 1_005L);
+            writer.writeRowGroup(buffer);
+            buffer.clear();
+            buffer.add(siteRequest("bid-3", "example.org", 0), 2_000L);
+            writer.writeRowGroup(buffer);
+            buffer.clear();
+            writer.finish();
+        }
+
+        // Assert
+        try (ColumnarFileReader reader = ColumnarFileReader.open(target)) {
+            assertEquals(3, reader.rowCount());
+            assertEquals(2, reader.rowGroups().size());
+            assertEquals(List.of(ColumnBuffer.COLUMNS), reader.columns());
+            assertEquals(List.of("bid-1", "bid-2", "bid-3"), reader.readStrings("bid_request_id"));
+            assertEquals(Arrays.asList("example.com", null, "example.org"), reader.readStrings("domain"));
+            assertEquals(Arrays.asList(null, "com.example.app", null), reader.readStrings("app_bundle"));
+            assertEquals(List.of(false, true, false), reader.readBooleans("limit_ad_tracking"));
+            assertEquals(List.of(1_000L, 1_005L, 2_000L), reader.readLongs("processed_at"));
+            assertEquals(1_000L, reader.rowGroups().get(0).minProcessedAt());
+            assertEquals(1_005L, reader.rowGroups().get(0).maxProcessedAt());
+        }
+    }
+
+    @Test
+    @DisplayName("File should only appear under its final name after finish")
+    void testInProgressUntilFinished() throws Exception {
+        // Arrange
+        Path target = tempDir.resolve("bids-test-1.bidcol");
+        Path inProgress = tempDir.resolve("bids-test-1.bidcol" + ColumnarFileWriter.IN_PROGRESS_SUFFIX);
+        ColumnBuffer buffer = new ColumnBuffer(4);
+        buffer.add(siteRequest("bid-1", "example.com", 0), 1_000L);
+
+        // Act
+        ColumnarFileWriter writer = ColumnarFileWriter.open(target, 6);
+        writer.writeRowGroup(buffer);
+
+        // Assert
+        assertTrue(Files.exists(inProgress));
+        assertFalse(Files.exists(target));
+
+        writer.finish();
+        assertFalse(Files.exists(inProgress));
+        assertTrue(Files.exists(target));
+    }
+
+    @Test
+    @DisplayName("Aborted file should be removed")
+    void testAbortDeletesInProgressFile() throws Exception {
+        // Arrange
+        Path target = tempDir.resolve("bids-test-2.bidcol");
+        ColumnarFileWriter writer = ColumnarFileWriter.open(target, 6);
+
+        // Act
+        writer.abort();
+
+        // Assert
+        try (var files = Files.list(tempDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private static BidRequest siteRequest(String id, String domain, int lmt) {
+        BidRequest request = new BidRequest();
+        request.id = id;
+        request.site = new BidRequest.Site();
+        request.site.domain = domain;
+        request.device = new BidRequest.Device();
+        request.device.ip = "192.168.1.1";
+        request.device.os = "iOS";
+        request.device.lmt = lmt;
+        return request;
+    }
+
+    private static BidRequest appRequest(String id, String bundle, int lmt) {
+        BidRequest request = new BidRequest();
+        request.id = id;
+        request.app = new BidRequest.App();
+        request.app.bundle = bundle;
+        request.device = new BidRequest.Device();
+        request.device.ip = "10.0.0.1";
+        request.device.os = "Android";
+        request.device.lmt = lmt;
+        return request;
+    }
+}
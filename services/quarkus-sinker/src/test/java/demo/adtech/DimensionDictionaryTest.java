@@ -0,0 +1,82 @@
+package demo.adtech;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the bounded dimension key cache.
+ */
+class DimensionDictionaryTest {
+
+    @Test
+    @DisplayName("Misses in a batch should be loaded together and cached")
+    void testMissesLoadedInBulk() {
+        // Arrange
+        DimensionDictionary dictionary = new DimensionDictionary(Dimension.DOMAIN, 10);
+        RecordingLoader loader = new RecordingLoader();
+
+        // Act
+        Map<String, Integer> first = dictionary.resolve(Arrays.asList("a.com", "b.com", null, "a.com"), loader::load);
+        Map<String, Integer> second = dictionary.resolve(List.of("b.com", "a.com"), loader::load);
+
+        // Assert
+        assertEquals(List.of(Set.of("a.com", "b.com")), loader.requests);
+        assertEquals(first, second);
+        assertEquals(2, first.size());
+    }
+
+    @Test
+    @DisplayName("Least recently used values should be evicted beyond the bound")
+    void testLeastRecentlyUsedEviction() {
+        // Arrange
+        DimensionDictionary dictionary = new DimensionDictionary(Dimension.OS, 2);
+        RecordingLoader loader = new RecordingLoader();
+        dictionary.resolve(List.of("iOS"), loader::load);
+        dictionary.resolve(List.of("Android"), loader::load);
+
+        // Act
+        dictionary.resolve(List.of("iOS"), loader::load);
+        dictionary.resolve(List.of("Linux"), loader::load);
+
+        // Assert
+        assertEquals(2, dictionary.size());
+        assertNotNull(dictionary.get("iOS"));
+        assertNull(dictionary.get("Android"));
+        assertNotNull(dictionary.get("Linux"));
+    }
+
+    @Test
+    @DisplayName("A loader that leaves values unresolved should fail the batch")
+    void testIncompleteLoadFails() {
+        // Arrange
+        DimensionDictionary dictionary = new DimensionDictionary(Dimension.APP_BUNDLE, 10);
+
+        // Act & Assert
+        assertThrows(IllegalStateException.class,
+                () -> dictionary.resolve(List.of("com.example.app"), misses -> Map.of()));
+        assertEquals(0, dictionary.size());
+    }
+
+    private static final class RecordingLoader {
+        private final List<Set<String>> requests = new ArrayList<>();
+        private int nextKey = 1;
+
+        Map<String, Integer> load(Set<String> values) {
+            requests.add(Set.copyOf(values));
+            Map<String, Integer> keys = new HashMap<>();
+            for (String value : values) {
+                keys.put(value, nextKey++);
+            }
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the pre-commit batch barrier, driven through the real topology.
+ *
+ * {@code TopologyTestDriver} prepares and commits the task after every record it pipes.
+ * The batch size and wait are far larger than the test's input, so a bid only reaches
+ * the sink if the barrier drained it while the commit was prepared.
+ */
+class FlushBarrierStoreTest {
+
+    private static final String TOPIC = "bids";
+
+    @Test
+    @DisplayName("Offsets should not be committed while a batch is buffered or in flight")
+    void testCommitWaitsForBatches() {
+        // Arrange
+        AtomicInteger written = new AtomicInteger();
+        AtomicInteger durable = new AtomicInteger();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        BidSink sink = batch -> {
+            written.addAndGet(batch.size());
+            CompletableFuture<Void> write = new CompletableFuture<>();
+            executor.schedule(() -> {
+                durable.addAndGet(batch.size());
+                write.complete(null);
+            }, 50, TimeUnit.MILLISECONDS);
+            return write;
+        };
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "flush-barrier-test");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "test:9092");
+
+        try (TopologyTestDriver driver = new TopologyTestDriver(topologyProducer(sink).buildTopology(), props)) {
+            TestInputTopic<String, byte[]> input =
+                    driver.createInputTopic(TOPIC, new StringSerializer(), new ByteArraySerializer());
+
+            for (int i = 1; i <= 3; i++) {
+                // Act
+                input.pipeInput("bid-" + i, ("{\"id\":\"bid-" + i + "\",\"site\":{\"domain\":\"example.com\"}}")
+                        .getBytes(StandardCharsets.UTF_8));
+
+                // Assert: the commit that followed the record waited for its write.
+                assertEquals(i, written.get());
+                assertEquals(i, durable.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static TopologyProducer topologyProducer(BidSink sink) {
+        TopologyProducer producer = new TopologyProducer();
+        producer.inputTopic = TOPIC;
+        producer.batchSize = 1_000;
+        producer.batchMaxWaitMs = Duration.ofMinutes(10).toMillis();
+        producer.batchMaxInFlight = 4;
+        producer.retryMaxAttempts = 0;
+        producer.retryInitialBackoffMs = 0;
+        producer.retryMaxBackoffMs = 0;
+        producer.logSampleEvery = 0;
+        producer.filterInventory = Set.of(RoutingRules.SITE, RoutingRules.APP);
+        producer.routeAppTopic = Optional.empty();
+        producer.metrics = new SinkerMetrics(new SimpleMeterRegistry());
+        producer.dlqService = new DeadLetterQueueService();
+        producer.sinks = new BidSinks() {
+            @Override
+            BidSink selected() {
+                return sink;
+            }
+
+            @Override
+            String writerName() {
+                return "test";
+            }
+        };
+        return producer;
+    }
+}
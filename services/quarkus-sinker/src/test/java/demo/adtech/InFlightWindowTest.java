@@ -0,0 +1,72 @@
+package demo.adtech;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the per-task in-flight batch window.
+ */
+class InFlightWindowTest {
+
+    @Test
+    @DisplayName("Window should block once more than maxInFlight batches are outstanding")
+    void testBlocksWhenFull() throws Exception {
+        // Arrange
+        InFlightWindow window = new InFlightWindow(2, (batch, failure) -> fail("unexpected failure"));
+        CompletableFuture<Void> first = new CompletableFuture<>();
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+        try {
+            // Act
+            window.add(List.of(request("bid-1")), first);
+            window.add(List.of(request("bid-2")), new CompletableFuture<>());
+            assertEquals(2, window.size());
+
+            executor.schedule(() -> first.complete(null), 100, TimeUnit.MILLISECONDS);
+            long started = System.nanoTime();
+            window.add(List.of(request("bid-3")), new CompletableFuture<>());
+
+            // Assert
+            assertTrue(System.nanoTime() - started >= TimeUnit.MILLISECONDS.toNanos(50));
+            assertEquals(2, window.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Failed batches should be reported to the failure handler on drain")
+    void testReportsFailures() {
+        // Arrange
+        List<String> failedIds = new ArrayList<>();
+        InFlightWindow window = new InFlightWindow(4, (batch, failure) -> {
+            assertEquals("connection reset", failure.getMessage());
+            batch.forEach(request -> failedIds.add(request.id));
+        });
+
+        // Act
+        window.add(List.of(request("bid-1")), CompletableFuture.completedFuture(null));
+        window.add(List.of(request("bid-2"), request("bid-3")),
+                CompletableFuture.failedFuture(new IllegalStateException("connection reset")));
+        window.awaitAll();
+
+        // Assert
+        assertEquals(List.of("bid-2", "bid-3"), failedIds);
+        assertEquals(0, window.size());
+    }
+
+    private static BidRequest request(String id) {
+        BidRequest request = new BidRequest();
+        request.id = id;
+        return request;
+    }
+}
@@ -0,0 +1,73 @@
+package demo.adtech;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DLQ replay filtering.
+ */
+class ReplayFilterTest {
+
+    private static final Instant NOON = Instant.parse("2026-01-01T12:00:00Z");
+
+    @Test
+    @DisplayName("Empty filter should match every dead-lettered bid")
+    void testEmptyFilterMatchesAll() {
+        // Arrange
+        ReplayFilter filter = new ReplayFilter(Set.of(), Set.of(), null, null);
+
+        // Act & Assert
+        assertTrue(filter.matches(failed("java.sql.SQLException", "DATABASE_PERSIST", NOON), NOON));
+        assertFalse(filter.isPastRange(NOON));
+    }
+
+    @Test
+    @DisplayName("Error type should match by qualified or simple class name")
+    void testErrorTypeMatching() {
+        // Arrange
+        ReplayFilter bySimpleName = new ReplayFilter(Set.of("PSQLException"), Set.of(), null, null);
+        ReplayFilter byQualifiedName = new ReplayFilter(Set.of("org.postgresql.util.PSQLException"), Set.of(), null, null);
+
+        // Act & Assert
+        assertTrue(bySimpleName.matches(failed("org.postgresql.util.PSQLException", "DATABASE_PERSIST", NOON), NOON));
+        assertTrue(byQualifiedName.matches(failed("org.postgresql.util.PSQLException", "DATABASE_PERSIST", NOON), NOON));
+        assertFalse(bySimpleName.matches(failed("java.lang.IllegalStateException", "DATABASE_PERSIST", NOON), NOON));
+    }
+
+    @Test
+    @DisplayName("Operation and failedAt range should both have to match")
+    void testOperationAndRange() {
+        // Arrange
+        ReplayFilter filter = new ReplayFilter(
+                Set.of(), Set.of("DATABASE_PERSIST"), NOON.minusSeconds(3600), NOON.plusSeconds(3600));
+
+        // Act & Assert
+        assertTrue(filter.matches(failed("E", "DATABASE_PERSIST", NOON), NOON));
+        assertFalse(filter.matches(failed("E", "VALIDATION", NOON), NOON));
+        assertFalse(filter.matches(failed("E", "DATABASE_PERSIST", NOON.minusSeconds(7200)), NOON));
+        assertFalse(filter.matches(failed("E", "DATABASE_PERSIST", NOON.plusSeconds(3600)), NOON));
+        assertTrue(filter.isPastRange(NOON.plusSeconds(3600)));
+    }
+
+    @Test
+    @DisplayName("Missing failedAt should fall back to the Kafka record timestamp")
+    void testFallbackToRecordTimestamp() {
+        // Arrange
+        ReplayFilter filter = new ReplayFilter(Set.of(), Set.of(), NOON, null);
+
+        // Act & Assert
+        assertTrue(filter.matches(failed("E", "DATABASE_PERSIST", null), NOON.plusSeconds(1)));
+        assertFalse(filter.matches(failed("E", "DATABASE_PERSIST", null), NOON.minusSeconds(1)));
+    }
+
+    private static DeadLetterQueueService.FailedBidRecord failed(String errorType, String operation, Instant failedAt) {
+        BidRequest request = new BidRequest();
+        request.id = "bid-1";
+        return new DeadLetterQueueService.FailedBidRecord(request, errorType, "boom", operation, failedAt);
+    }
+}
@@ -0,0 +1,71 @@
+package demo.adtech;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for header-based routing in front of the Postgres sink.
+ */
+class RoutingRulesTest {
+
+    private static final Set<String> ALL = Set.of(RoutingRules.SITE, RoutingRules.APP);
+
+    @Test
+    @DisplayName("Default rules should persist every bid")
+    void testDefaultsPersistEverything() {
+        // Arrange
+        RoutingRules rules = new RoutingRules(ALL, false, Optional.empty());
+
+        // Act & Assert
+        assertEquals(RoutingRules.Route.PERSIST, rules.route(headers("site", "0")));
+        assertEquals(RoutingRules.Route.PERSIST, rules.route(headers("app", "1")));
+        assertEquals(RoutingRules.Route.PERSIST, rules.route(new RecordHeaders()));
+    }
+
+    @Test
+    @DisplayName("Inventory and LMT filters should drop matching bids")
+    void testFiltersDrop() {
+        // Arrange
+        RoutingRules rules = new RoutingRules(Set.of(RoutingRules.SITE), true, Optional.empty());
+
+        // Act & Assert
+        assertEquals(RoutingRules.Route.PERSIST, rules.route(headers("site", "0")));
+        assertEquals(RoutingRules.Route.DROP, rules.route(headers("site", "1")));
+        assertEquals(RoutingRules.Route.DROP, rules.route(headers("app", "0")));
+        assertEquals(RoutingRules.Route.PERSIST, rules.route(new RecordHeaders()));
+    }
+
+    @Test
+    @DisplayName("App bids should be forwarded when an app topic is configured")
+    void testAppTopicForwards() {
+        // Arrange
+        RoutingRules rules = new RoutingRules(ALL, true, Optional.of("bids-app"));
+
+        // Act & Assert
+        assertEquals(RoutingRules.Route.FORWARD, rules.route(headers("app", "0")));
+        assertEquals(RoutingRules.Route.DROP, rules.route(headers("app", "1")));
+        assertEquals(RoutingRules.Route.PERSIST, rules.route(headers("site", "0")));
+    }
+
+    @Test
+    @DisplayName("Blank app topic and unknown inventory types should be handled at construction")
+    void testConfigValidation() {
+        assertTrue(new RoutingRules(ALL, false, Optional.of(" ")).appTopic().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new RoutingRules(Set.of("ctv"), false, Optional.empty()));
+    }
+
+    private static Headers headers(String inventory, String lmt) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(RoutingRules.INVENTORY_HEADER, inventory.getBytes(StandardCharsets.US_ASCII));
+        headers.add(RoutingRules.LMT_HEADER, lmt.getBytes(StandardCharsets.US_ASCII));
+        return headers;
+    }
+}
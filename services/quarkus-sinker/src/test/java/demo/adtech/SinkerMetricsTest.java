@@ -0,0 +1,111 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the sinker throughput meters.
+ */
+class SinkerMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SinkerMetrics metrics = new SinkerMetrics(registry);
+
+    @Test
+    @DisplayName("Record counters should be tagged and reused per partition")
+    void testRecordCountersPerPartition() {
+        // Act
+        metrics.records("bids", 0).increment();
+        metrics.records("bids", 0).increment();
+        metrics.records("bids", 1).increment();
+
+        // Assert
+        assertSame(metrics.records("bids", 0), metrics.records("bids", 0));
+        assertEquals(2.0, registry.get("sinker.records").tag("partition", "0").counter().count());
+        assertEquals(1.0, registry.get("sinker.records").tag("partition", "1").counter().count());
+    }
+
+    @Test
+    @DisplayName("Batch meters should record size, flush latency and DB time")
+    void testBatchMeters() {
+        // Arrange
+        long firstBuffered = System.nanoTime() - 50_000_000L;
+        long writeStarted = System.nanoTime() - 10_000_000L;
+
+        // Act
+        metrics.recordBatchSize(500);
+        metrics.recordBatchWritten(firstBuffered, writeStarted);
+
+        // Assert
+        assertEquals(500.0, registry.get("sinker.batch.size").summary().totalAmount());
+        double flushMillis = registry.get("sinker.batch.flush").timer().totalTime(TimeUnit.MILLISECONDS);
+        double dbMillis = registry.get("sinker.db.write").timer().totalTime(TimeUnit.MILLISECONDS);
+        assertTrue(flushMillis >= 50.0);
+        assertTrue(dbMillis >= 10.0 && dbMillis <= flushMillis);
+    }
+
+    @Test
+    @DisplayName("Timed deserializer should time every decoded record")
+    void testTimedDeserializer() {
+        // Arrange
+        Deserializer<String> delegate = (topic, data) -> new String(data, StandardCharsets.UTF_8);
+        TimedDeserializer<String> timed = new TimedDeserializer<>(delegate, metrics.deserializeTimer());
+
+        // Act
+        String value = timed.deserialize("bids", "hello".getBytes(StandardCharsets.UTF_8));
+
+        // Assert
+        assertEquals("hello", value);
+        assertEquals(1, registry.get("sinker.deserialize").timer().count());
+    }
+
+    @Test
+    @DisplayName("End-to-end latency should be recorded per stage for stamped bids only")
+    void testEndToEndLatency() {
+        // Arrange
+        BidRequest stamped = new BidRequest();
+        stamped.receivedAt = System.currentTimeMillis() - 2_000L;
+        BidRequest unstamped = new BidRequest();
+
+        // Act
+        metrics.recordBrokerLatency(15);
+        metrics.recordCommitted(List.of(stamped, unstamped));
+
+        // Assert
+        assertEquals(15.0, registry.get("sinker.e2e.latency").tag("stage", "broker").timer().totalTime(TimeUnit.MILLISECONDS));
+        assertEquals(1, registry.get("sinker.e2e.latency").tag("stage", "commit").timer().count());
+        assertTrue(registry.get("sinker.e2e.latency").tag("stage", "commit").timer().totalTime(TimeUnit.MILLISECONDS) >= 2_000.0);
+    }
+
+    @Test
+    @DisplayName("Route counters should be tagged by route")
+    void testRouteCounters() {
+        // Act
+        metrics.routed(RoutingRules.Route.PERSIST);
+        metrics.routed(RoutingRules.Route.DROP);
+        metrics.routed(RoutingRules.Route.DROP);
+
+        // Assert
+        assertEquals(1.0, registry.get("sinker.routed.records").tag("route", "persist").counter().count());
+        assertEquals(2.0, registry.get("sinker.routed.records").tag("route", "drop").counter().count());
+        assertEquals(0.0, registry.get("sinker.routed.records").tag("route", "forward").counter().count());
+    }
+
+    @Test
+    @DisplayName("DLQ counter should be tagged by operation")
+    void testDeadLetterCounter() {
+        // Act
+        metrics.deadLettered(BatchFailureHandler.OPERATION, 3);
+
+        // Assert
+        assertEquals(3.0, registry.get("sinker.dlq.records").tag("operation", "DATABASE_PERSIST").counter().count());
+    }
+}
@@ -0,0 +1,445 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.config.MeterFilter;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.TestInputTopic;
+import org.apache.kafka.streams.TopologyTestDriver;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Throughput harness for the sinker's Postgres path, without a Kafka cluster.
+ *
+ * Drives {@link TopologyProducer#buildTopology()} through {@link TopologyTestDriver} with a
+ * synthetic bid corpus, so deserialization, batching, the in-flight window and the sink are
+ * all on the measured path. Not picked up by the default surefire includes; run it with
+ *
+ * <pre>
+ * mvn test -DskipTests=false -Dtest=SinkerTopologyBenchmark -Dsinker.benchmark.sink=memory|h2|postgres
+ * </pre>
+ *
+ * TopologyTestDriver prepares and commits the task after every record, which would drain
+ * every batch at size one. The harness sets the barrier to drain on every
+ * {@code commit-every}-th commit instead, which stands in for {@code commit.interval.ms};
+ * closing the driver drains the rest through {@code BatchingProcessor#close}. The run fails
+ * if the mean batch size it observed falls short of {@code batch-size}.
+ */
+class SinkerTopologyBenchmark {
+
+    private static final String TOPIC = "bids";
+
+    @Test
+    @DisplayName("Sinker topology throughput with a pluggable sink")
+    void benchmark() throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        List<byte[]> warmup = corpus(settings.warmupRecords(), "warmup");
+        List<byte[]> measured = corpus(settings.records(), "bench");
+
+        try (BenchmarkSink sink = BenchmarkSink.create(settings)) {
+            run(settings, sink, warmup);
+            sink.reset();
+
+            Result result = run(settings, sink, measured);
+            System.out.println(Result.CSV_HEADER);
+            System.out.println(result.csv());
+            assertEquals(measured.size(), sink.persisted());
+            assertTrue(result.meanBatchSize() >= 0.9 * settings.batchSize(),
+                    "Mean batch size " + result.meanBatchSize() + " is below batch-size " + settings.batchSize()
+                            + "; raise records or commit-every");
+        }
+    }
+
+    private static Result run(Settings settings, BenchmarkSink sink, List<byte[]> corpus) {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        registry.config().meterFilter(new MeterFilter() {
+            @Override
+            public DistributionStatisticConfig configure(Meter.Id id, DistributionStatisticConfig config) {
+                return DistributionStatisticConfig.builder().percentiles(0.5, 0.99).build().merge(config);
+            }
+        });
+        SinkerMetrics metrics = new SinkerMetrics(registry);
+
+        Properties props = new Properties();
+        props.put(StreamsConfig.APPLICATION_ID_CONFIG, "sinker-benchmark");
+        props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, "benchmark:9092");
+
+        long allocatedBefore;
+        long started;
+        try (TopologyTestDriver driver = new TopologyTestDriver(topologyProducer(settings, sink, metrics).buildTopology(), props)) {
+            TestInputTopic<String, byte[]> input =
+                    driver.createInputTopic(TOPIC, new StringSerializer(), new ByteArraySerializer());
+            FlushBarrierStore barrier = (FlushBarrierStore) driver.getStateStore(BatchingProcessor.BARRIER_STORE);
+            barrier.drainEvery(settings.commitEvery());
+
+            allocatedBefore = allocatedBytes();
+            started = System.nanoTime();
+            for (int i = 0; i < corpus.size(); i++) {
+                input.pipeInput(Integer.toString(i), corpus.get(i));
+            }
+        }
+        // Closing the driver closed the processor, which drained the last batches.
+        long elapsedNanos = System.nanoTime() - started;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        return new Result(
+                sink.name(),
+                corpus.size(),
+                registry.get("sinker.batch.size").summary().mean(),
+                elapsedNanos,
+                allocated,
+                percentile(registry.get("sinker.batch.flush").timer(), 0.5),
+                percentile(registry.get("sinker.batch.flush").timer(), 0.99),
+                percentile(registry.get("sinker.db.write").timer(), 0.99)
+        );
+    }
+
+    private static TopologyProducer topologyProducer(Settings settings, BidSink sink, SinkerMetrics metrics) {
+        TopologyProducer producer = new TopologyProducer();
+        producer.inputTopic = TOPIC;
+        producer.batchSize = settings.batchSize();
+        producer.batchMaxWaitMs = Duration.ofMinutes(10).toMillis();
+        producer.batchMaxInFlight = settings.maxInFlight();
+        producer.retryMaxAttempts = 0;
+        producer.retryInitialBackoffMs = 0;
+        producer.retryMaxBackoffMs = 0;
+        producer.logSampleEvery = 0;
+        producer.filterInventory = Set.of(RoutingRules.SITE, RoutingRules.APP);
+        producer.routeAppTopic = Optional.empty();
+        producer.metrics = metrics;
+        producer.dlqService = new DeadLetterQueueService();
+        producer.sinks = new BidSinks() {
+            @Override
+            BidSink selected() {
+                return sink;
+            }
+
+            @Override
+            String writerName() {
+                return "benchmark";
+            }
+        };
+        return producer;
+    }
+
+    /**
+     * Pre-serialized bids with realistic dimension cardinality, so encoding is not measured.
+     */
+    private static List<byte[]> corpus(int records, String prefix) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        List<byte[]> corpus = new ArrayList<>(records);
+        for (int i = 0; i < records; i++) {
+            Map<String, Object> bid = new HashMap<>();
+            bid.put("id", prefix + "-" + i);
+            if (i % 3 == 0) {
+                bid.put("app", Map.of("id", "app-" + (i % 20), "bundle", "com.example.app" + (i % 20)));
+            } else {
+                bid.put("site", Map.of("id", "site-" + (i % 50), "domain", "site" + (i % 50) + ".example.com"));
+            }
+            bid.put("device", Map.of(
+                    "ip", "192.168." + ((i / 256) % 256) + "." + (i % 256),
+                    "ua", "Mozilla/5.0 (benchmark)",
+                    "os", i % 2 == 0 ? "iOS" : "Android",
+                    "lmt", i % 10 == 0 ? 1 : 0
+            ));
+            bid.put("user", Map.of("id", "user-" + i));
+            corpus.add(mapper.writeValueAsBytes(bid));
+        }
+        return corpus;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+
+    private static double percentile(Timer timer, double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MILLISECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    record Settings(
+            String sink,
+            int records,
+            int warmupRecords,
+            int batchSize,
+            int maxInFlight,
+            int commitEvery,
+            String jdbcUrl,
+            String jdbcUser,
+            String jdbcPassword
+    ) {
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    System.getProperty("sinker.benchmark.sink", "memory"),
+                    Integer.getInteger("sinker.benchmark.records", 200_000),
+                    Integer.getInteger("sinker.benchmark.warmup-records", 50_000),
+                    Integer.getInteger("sinker.benchmark.batch-size", 500),
+                    Integer.getInteger("sinker.benchmark.max-in-flight", 4),
+                    Integer.getInteger("sinker.benchmark.commit-every", 10_000),
+                    System.getProperty("sinker.benchmark.jdbc-url",
+                            "jdbc:postgresql://localhost:5432/postgres?currentSchema=sinker_bench&reWriteBatchedInserts=true"),
+                    System.getProperty("sinker.benchmark.jdbc-user", "user"),
+                    System.getProperty("sinker.benchmark.jdbc-password", "password")
+            );
+        }
+    }
+
+    record Result(
+            String sink,
+            int records,
+            double meanBatchSize,
+            long elapsedNanos,
+            long allocatedBytes,
+            double flushP50Millis,
+            double flushP99Millis,
+            double dbWriteP99Millis
+    ) {
+        static final String CSV_HEADER =
+                "sink,records,mean_batch_size,seconds,records_per_sec,alloc_mb_per_sec,alloc_bytes_per_record,flush_p50_ms,flush_p99_ms,db_write_p99_ms";
+
+        String csv() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%s,%d,%.1f,%.2f,%.0f,%.1f,%.0f,%.2f,%.2f,%.2f",
+                    sink,
+                    records,
+                    meanBatchSize,
+                    seconds,
+                    records / seconds,
+                    allocatedBytes / seconds / (1024 * 1024),
+                    (double) allocatedBytes / records,
+                    flushP50Millis,
+                    flushP99Millis,
+                    dbWriteP99Millis);
+        }
+    }
+
+    /**
+     * Sink under test. Implementations must be usable from the single TopologyTestDriver thread.
+     */
+    interface BenchmarkSink extends BidSink, AutoCloseable {
+
+        String name();
+
+        long persisted();
+
+        void reset() throws SQLException;
+
+        static BenchmarkSink create(Settings settings) throws SQLException {
+            return switch (settings.sink()) {
+                case "memory" -> new MemorySink();
+                case "h2" -> new JdbcSink(
+                        "h2",
+                        DriverManager.getConnection("jdbc:h2:mem:sinker_bench;MODE=PostgreSQL;NON_KEYWORDS=VALUE;DB_CLOSE_DELAY=-1"),
+                        List.of()
+                );
+                case "postgres" -> new JdbcSink(
+                        "postgres",
+                        DriverManager.getConnection(settings.jdbcUrl(), settings.jdbcUser(), settings.jdbcPassword()),
+                        List.of("CREATE SCHEMA IF NOT EXISTS sinker_bench")
+                );
+                default -> throw new IllegalArgumentException("Unknown sinker.benchmark.sink: " + settings.sink());
+            };
+        }
+    }
+
+    /**
+     * Completes immediately; isolates the topology's own cost.
+     */
+    static final class MemorySink implements BenchmarkSink {
+        private long persisted;
+
+        @Override
+        public CompletionStage<Void> write(List<BidRequest> batch) {
+            persisted += batch.size();
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public String name() {
+            return "memory";
+        }
+
+        @Override
+        public long persisted() {
+            return persisted;
+        }
+
+        @Override
+        public void reset() {
+            persisted = 0;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Blocking JDBC batch writer with the same row layout and dimension dictionary as the
+     * production sinks, using portable SQL so it runs on embedded H2 and on Postgres.
+     * Postgres runs in a separate {@code sinker_bench} schema so the real tables are untouched.
+     */
+    static final class JdbcSink implements BenchmarkSink {
+
+        private static final List<String> SCHEMA = List.of(
+                "CREATE TABLE IF NOT EXISTS dim_domain (id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, value VARCHAR(255) NOT NULL UNIQUE)",
+                "CREATE TABLE IF NOT EXISTS dim_app_bundle (id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, value VARCHAR(255) NOT NULL UNIQUE)",
+                "CREATE TABLE IF NOT EXISTS dim_os (id INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, value VARCHAR(50) NOT NULL UNIQUE)",
+                "CREATE TABLE IF NOT EXISTS bid_records (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+                        + "bid_request_id VARCHAR(255) NOT NULL, domain_id INTEGER, app_bundle_id INTEGER, ip VARCHAR(45), "
+                        + "os_id INTEGER, limit_ad_tracking BOOLEAN, event_time TIMESTAMP WITH TIME ZONE, processed_at TIMESTAMP WITH TIME ZONE)"
+        );
+
+        private final String name;
+        private final Connection connection;
+        private final Map<Dimension, DimensionDictionary> dictionaries = new EnumMap<>(Dimension.class);
+        private long persisted;
+
+        JdbcSink(String name, Connection connection, List<String> setup) throws SQLException {
+            this.name = name;
+            this.connection = connection;
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : setup) {
+                    statement.execute(sql);
+                }
+                for (String sql : SCHEMA) {
+                    statement.execute(sql);
+                }
+            }
+            connection.setAutoCommit(false);
+            for (Dimension dimension : Dimension.values()) {
+                dictionaries.put(dimension, new DimensionDictionary(dimension, 10_000));
+            }
+        }
+
+        @Override
+        public CompletionStage<Void> write(List<BidRequest> batch) {
+            try {
+                DimensionKeys keys = resolve(batch);
+                try (PreparedStatement insert = connection.prepareStatement(ReactivePgBidSink.INSERT_SQL.replaceAll("\\$\\d", "?"))) {
+                    for (BidRequest request : batch) {
+                        BidRecord record = new BidRecord(request, keys);
+                        insert.setString(1, record.bidRequestId);
+                        insert.setObject(2, record.domainId);
+                        insert.setObject(3, record.appBundleId);
+                        insert.setString(4, record.ip);
+                        insert.setObject(5, record.osId);
+                        insert.setBoolean(6, record.limitAdTracking);
+                        insert.setObject(7, record.eventTime != null ? OffsetDateTime.ofInstant(record.eventTime, ZoneOffset.UTC) : null);
+                        insert.setObject(8, OffsetDateTime.ofInstant(record.processedAt, ZoneOffset.UTC));
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                }
+                connection.commit();
+                persisted += batch.size();
+                return CompletableFuture.completedFuture(null);
+            } catch (SQLException | RuntimeException e) {
+                try {
+                    connection.rollback();
+                } catch (SQLException rollback) {
+                    e.addSuppressed(rollback);
+                }
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        private DimensionKeys resolve(List<BidRequest> batch) {
+            Map<Dimension, Map<String, Integer>> keys = new EnumMap<>(Dimension.class);
+            for (Dimension dimension : Dimension.values()) {
+                List<String> values = new ArrayList<>(batch.size());
+                for (BidRequest request : batch) {
+                    values.add(dimension.valueOf(request));
+                }
+                keys.put(dimension, dictionaries.get(dimension).resolve(values, misses -> load(dimension, misses)));
+            }
+            return new DimensionKeys(keys);
+        }
+
+        private Map<String, Integer> load(Dimension dimension, Set<String> values) {
+            Map<String, Integer> loaded = new HashMap<>();
+            try (PreparedStatement select = connection.prepareStatement("SELECT id FROM " + dimension.table() + " WHERE value = ?");
+                 PreparedStatement insert = connection.prepareStatement(
+                         "INSERT INTO " + dimension.table() + " (value) VALUES (?)", new String[] {"id"})) {
+                for (String value : values) {
+                    select.setString(1, value);
+                    try (ResultSet rows = select.executeQuery()) {
+                        if (rows.next()) {
+                            loaded.put(value, rows.getInt(1));
+                            continue;
+                        }
+                    }
+                    insert.setString(1, value);
+                    insert.executeUpdate();
+                    try (ResultSet generated = insert.getGeneratedKeys()) {
+                        generated.next();
+                        loaded.put(value, generated.getInt(1));
+                    }
+                }
+                connection.commit();
+                return loaded;
+            } catch (SQLException e) {
+                throw new IllegalStateException("Failed to resolve " + dimension.table() + " keys", e);
+            }
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public long persisted() {
+            return persisted;
+        }
+
+        @Override
+        public void reset() throws SQLException {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DELETE FROM bid_records");
+            }
+            connection.commit();
+            persisted = 0;
+        }
+
+        @Override
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+}
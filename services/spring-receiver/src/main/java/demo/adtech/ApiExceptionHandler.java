@@ -1,6 +1,8 @@
 package demo.adtech;
 
 import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -12,8 +14,20 @@ import java.util.Map;
 @RestControllerAdvice
 public class ApiExceptionHandler {
 
-    @ExceptionHandler({ServerWebInputException.class, DecodingException.class})
-    public Mono<ResponseEntity<Map<String, String>>> handleHttpMessageNotReadable() {
+    @ExceptionHandler({
+            ServerWebInputException.class,
+            DecodingException.class,
+            RequestDecompressor.MalformedBodyException.class
+    })
+    public Mono<ResponseEntity<Map<String, String>>> handleHttpMessageNotReadable(Exception exception) {
+        if (RequestDecompressor.isLimitExceeded(exception)) {
+            return handlePayloadTooLarge();
+        }
         return Mono.just(ResponseEntity.badRequest().body(Map.of("status", "bad request")));
     }
+
+    @ExceptionHandler({RequestDecompressor.LimitExceededException.class, DataBufferLimitException.class})
+    public Mono<ResponseEntity<Map<String, String>>> handlePayloadTooLarge() {
+        return Mono.just(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("status", "payload too large")));
+    }
 }
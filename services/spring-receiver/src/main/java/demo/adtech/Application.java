@@ -1,11 +1,19 @@
 package demo.adtech;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeHints.class)
 public class Application {
 
     public static void main(String[] args) {
@@ -14,6 +22,39 @@ public class Application {
 
     @Bean
     ObjectMapper objectMapper() {
-        return new ObjectMapper();
+        return new ObjectMapper().registerModule(BidRequestCodec.module());
+    }
+
+    /**
+     * Decodes request bodies with the shared mapper, so bids are read by
+     * {@link BidRequestCodec} rather than by the default JSON codec's own mapper. The Jackson 2
+     * codecs are deprecated in Spring Framework 7, but the receivers stay on Jackson 2.
+     */
+    @Bean
+    @SuppressWarnings({"deprecation", "removal"})
+    WebFluxConfigurer bidRequestCodecs(ObjectMapper objectMapper) {
+        return new WebFluxConfigurer() {
+            @Override
+            public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+                configurer.customCodecs().registerWithDefaultConfig(new Jackson2JsonDecoder(objectMapper));
+            }
+        };
+    }
+
+    /**
+     * Two codec states per core cover the event loops plus requests still draining a body.
+     */
+    @Bean
+    RequestDecompressor requestDecompressor(BenchmarkSettings settings, MeterRegistry registry) {
+        return new RequestDecompressor(
+                settings.decompressionMaxBytes(),
+                Runtime.getRuntime().availableProcessors() * 2,
+                registry
+        );
+    }
+
+    @Bean
+    RouterFunction<ServerResponse> passThroughRoutes(PassThroughBidHandler handler) {
+        return handler.routes();
     }
 }
@@ -0,0 +1,34 @@
+package demo.adtech;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Stamps every exchange with its arrival time before decompression and body decoding,
+ * so the received-at header on the Kafka record covers the whole ingress. Handlers read
+ * it back with {@link #receivedAt(ServerWebExchange)}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ArrivalTimeWebFilter implements WebFilter {
+
+    static final String RECEIVED_AT = ArrivalTimeWebFilter.class.getName() + ".receivedAt";
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        exchange.getAttributes().put(RECEIVED_AT, System.currentTimeMillis());
+        return chain.filter(exchange);
+    }
+
+    /**
+     * @return epoch millis at which the request arrived, or now if it bypassed this filter
+     */
+    static long receivedAt(ServerWebExchange exchange) {
+        return exchange.getAttribute(RECEIVED_AT) instanceof Long receivedAt ? receivedAt : System.currentTimeMillis();
+    }
+}
@@ -15,6 +15,24 @@ public class BenchmarkSettings {
     static final String DELIVERY_MODE_ENQUEUE = "enqueue";
     static final String DELIVERY_MODE_HTTP_ONLY = "http-only";
 
+    static final String INGEST_DECODE = "decode";
+    static final String INGEST_PASS_THROUGH = "pass-through";
+
+    static final String PARTITIONER_DEFAULT = "default";
+    static final String PARTITIONER_HOT_KEY = "hot-key";
+
+    static final String NETTY_TRANSPORT_AUTO = "auto";
+    static final String NETTY_TRANSPORT_NIO = "nio";
+    static final String NETTY_TRANSPORT_EPOLL = "epoll";
+    static final String NETTY_TRANSPORT_IO_URING = "io_uring";
+
+    static final String NETTY_ALLOCATOR_DEFAULT = "default";
+    static final String NETTY_ALLOCATOR_POOLED = "pooled";
+    static final String NETTY_ALLOCATOR_UNPOOLED = "unpooled";
+
+    /** Netty's own ceiling: a pooled chunk is the 8 KiB page size shifted left by max order. */
+    private static final int NETTY_MAX_ORDER_LIMIT = 14;
+
     private final String deliveryMode;
     private final String kafkaBootstrapServers;
     private final String kafkaTopic;
@@ -24,6 +42,24 @@ public class BenchmarkSettings {
     private final int kafkaRequestTimeoutMs;
     private final int kafkaRetries;
     private final int kafkaRetryBackoffMs;
+    private final BidRouter router;
+    private final String kafkaPartitioner;
+    private final int kafkaHotKeyThreshold;
+    private final int decompressionMaxBytes;
+    private final int kafkaSenderThreads;
+    private final int kafkaSenderQueueCapacity;
+    private final String ingestMode;
+    private final int kafkaConfirmBatchRecords;
+    private final int kafkaConfirmBatchWindowUs;
+    private final String nettyTransport;
+    private final int nettyEventLoops;
+    private final int nettyAcceptors;
+    private final String nettyAllocator;
+    private final int nettyDirectArenas;
+    private final int nettyMaxOrder;
+    private final int nettyIdleTimeoutMs;
+    private final int nettyMaxKeepAliveRequests;
+    private final int nettyPipelineLimit;
 
     @Autowired
     public BenchmarkSettings(Environment environment) {
@@ -36,7 +72,29 @@ public class BenchmarkSettings {
                 environment.getProperty("benchmark.kafka.batch.bytes"),
                 environment.getProperty("benchmark.kafka.request.timeout.ms"),
                 environment.getProperty("benchmark.kafka.retries"),
-                environment.getProperty("benchmark.kafka.retry.backoff.ms")
+                environment.getProperty("benchmark.kafka.retry.backoff.ms"),
+                environment.getProperty("benchmark.kafka.route.by"),
+                environment.getProperty("benchmark.kafka.topic.site"),
+                environment.getProperty("benchmark.kafka.topic.app"),
+                environment.getProperty("benchmark.kafka.topic.geo"),
+                environment.getProperty("benchmark.kafka.key"),
+                environment.getProperty("benchmark.kafka.partitioner"),
+                environment.getProperty("benchmark.kafka.hot-key.threshold"),
+                environment.getProperty("benchmark.decompression.max-bytes"),
+                environment.getProperty("benchmark.kafka.sender.threads"),
+                environment.getProperty("benchmark.kafka.sender.queue-capacity"),
+                environment.getProperty("benchmark.ingest.mode"),
+                environment.getProperty("benchmark.kafka.confirm-batch.records"),
+                environment.getProperty("benchmark.kafka.confirm-batch.window-us"),
+                environment.getProperty("benchmark.netty.transport"),
+                environment.getProperty("benchmark.netty.event-loops"),
+                environment.getProperty("benchmark.netty.acceptors"),
+                environment.getProperty("benchmark.netty.allocator"),
+                environment.getProperty("benchmark.netty.allocator.direct-arenas"),
+                environment.getProperty("benchmark.netty.allocator.max-order"),
+                environment.getProperty("benchmark.netty.idle-timeout-ms"),
+                environment.getProperty("benchmark.netty.max-keep-alive-requests"),
+                environment.getProperty("benchmark.netty.pipeline-limit")
         );
     }
 
@@ -49,7 +107,29 @@ public class BenchmarkSettings {
             String kafkaBatchBytes,
             String kafkaRequestTimeoutMs,
             String kafkaRetries,
-            String kafkaRetryBackoffMs
+            String kafkaRetryBackoffMs,
+            String kafkaRouteBy,
+            String kafkaSiteTopic,
+            String kafkaAppTopic,
+            String kafkaGeoTopics,
+            String kafkaKey,
+            String kafkaPartitioner,
+            String kafkaHotKeyThreshold,
+            String decompressionMaxBytes,
+            String kafkaSenderThreads,
+            String kafkaSenderQueueCapacity,
+            String ingestMode,
+            String kafkaConfirmBatchRecords,
+            String kafkaConfirmBatchWindowUs,
+            String nettyTransport,
+            String nettyEventLoops,
+            String nettyAcceptors,
+            String nettyAllocator,
+            String nettyDirectArenas,
+            String nettyMaxOrder,
+            String nettyIdleTimeoutMs,
+            String nettyMaxKeepAliveRequests,
+            String nettyPipelineLimit
     ) {
         this.deliveryMode = normalizeDeliveryMode(deliveryMode);
         this.kafkaBootstrapServers = normalizeKafkaBootstrapServers(kafkaBootstrapServers);
@@ -68,6 +148,55 @@ public class BenchmarkSettings {
                 100,
                 "BENCHMARK_KAFKA_RETRY_BACKOFF_MS"
         );
+        this.router = new BidRouter(
+                normalizeRouteBy(kafkaRouteBy),
+                normalizeKeyStrategy(kafkaKey),
+                this.kafkaTopic,
+                normalizeOptionalTopic(kafkaSiteTopic),
+                normalizeOptionalTopic(kafkaAppTopic),
+                BidRouter.parseGeoTopics(kafkaGeoTopics)
+        );
+        this.kafkaPartitioner = normalizePartitioner(kafkaPartitioner);
+        this.kafkaHotKeyThreshold = normalizePositiveInt(
+                kafkaHotKeyThreshold,
+                1000,
+                "BENCHMARK_KAFKA_HOT_KEY_THRESHOLD"
+        );
+        this.decompressionMaxBytes = normalizePositiveInt(
+                decompressionMaxBytes,
+                1048576,
+                "BENCHMARK_DECOMPRESSION_MAX_BYTES"
+        );
+        this.kafkaSenderThreads = normalizePositiveInt(kafkaSenderThreads, 1, "BENCHMARK_KAFKA_SENDER_THREADS");
+        this.kafkaSenderQueueCapacity = normalizePositiveInt(
+                kafkaSenderQueueCapacity,
+                8192,
+                "BENCHMARK_KAFKA_SENDER_QUEUE_CAPACITY"
+        );
+        this.ingestMode = normalizeIngestMode(ingestMode);
+        this.kafkaConfirmBatchRecords = normalizeNonNegativeInt(
+                kafkaConfirmBatchRecords,
+                0,
+                "BENCHMARK_KAFKA_CONFIRM_BATCH_RECORDS"
+        );
+        this.kafkaConfirmBatchWindowUs = normalizePositiveInt(
+                kafkaConfirmBatchWindowUs,
+                1000,
+                "BENCHMARK_KAFKA_CONFIRM_BATCH_WINDOW_US"
+        );
+        this.nettyTransport = normalizeNettyTransport(nettyTransport);
+        this.nettyEventLoops = normalizeNonNegativeInt(nettyEventLoops, 0, "BENCHMARK_NETTY_EVENT_LOOPS");
+        this.nettyAcceptors = normalizePositiveInt(nettyAcceptors, 1, "BENCHMARK_NETTY_ACCEPTORS");
+        this.nettyAllocator = normalizeNettyAllocator(nettyAllocator);
+        this.nettyDirectArenas = normalizeNonNegativeInt(nettyDirectArenas, 0, "BENCHMARK_NETTY_DIRECT_ARENAS");
+        this.nettyMaxOrder = normalizeNettyMaxOrder(nettyMaxOrder);
+        this.nettyIdleTimeoutMs = normalizeNonNegativeInt(nettyIdleTimeoutMs, 0, "BENCHMARK_NETTY_IDLE_TIMEOUT_MS");
+        this.nettyMaxKeepAliveRequests = normalizeNonNegativeInt(
+                nettyMaxKeepAliveRequests,
+                0,
+                "BENCHMARK_NETTY_MAX_KEEP_ALIVE_REQUESTS"
+        );
+        this.nettyPipelineLimit = normalizeNonNegativeInt(nettyPipelineLimit, 0, "BENCHMARK_NETTY_PIPELINE_LIMIT");
     }
 
     public static BenchmarkSettings forTests(
@@ -76,7 +205,9 @@ public class BenchmarkSettings {
             String kafkaTopic,
             String kafkaAcks
     ) {
-        return new BenchmarkSettings(deliveryMode, kafkaBootstrapServers, kafkaTopic, kafkaAcks, null, null, null, null, null);
+        return new BenchmarkSettings(deliveryMode, kafkaBootstrapServers, kafkaTopic, kafkaAcks, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+                null, null, null, null);
     }
 
     public boolean isConfirmDeliveryMode() {
@@ -127,6 +258,117 @@ public class BenchmarkSettings {
         return kafkaRetryBackoffMs;
     }
 
+    public BidRouter router() {
+        return router;
+    }
+
+    public String kafkaPartitioner() {
+        return kafkaPartitioner;
+    }
+
+    public boolean usesHotKeyPartitioner() {
+        return PARTITIONER_HOT_KEY.equals(kafkaPartitioner);
+    }
+
+    public int kafkaHotKeyThreshold() {
+        return kafkaHotKeyThreshold;
+    }
+
+    public int decompressionMaxBytes() {
+        return decompressionMaxBytes;
+    }
+
+    public int kafkaSenderThreads() {
+        return kafkaSenderThreads;
+    }
+
+    public int kafkaSenderQueueCapacity() {
+        return kafkaSenderQueueCapacity;
+    }
+
+    public String ingestMode() {
+        return ingestMode;
+    }
+
+    public int kafkaConfirmBatchRecords() {
+        return kafkaConfirmBatchRecords;
+    }
+
+    /**
+     * @return true if confirm-mode requests are acknowledged per batch rather than one by one
+     */
+    public boolean usesConfirmBatching() {
+        return kafkaConfirmBatchRecords > 1;
+    }
+
+    public int kafkaConfirmBatchWindowUs() {
+        return kafkaConfirmBatchWindowUs;
+    }
+
+    /**
+     * @return true if single bids are published as received instead of decoded and re-encoded
+     */
+    public boolean usesPassThroughIngest() {
+        return INGEST_PASS_THROUGH.equals(ingestMode);
+    }
+
+    /**
+     * @return auto, nio, epoll or io_uring; auto picks epoll where it is available
+     */
+    public String nettyTransport() {
+        return nettyTransport;
+    }
+
+    /**
+     * @return event loop threads, or 0 for Reactor Netty's default worker count
+     */
+    public int nettyEventLoops() {
+        return nettyEventLoops;
+    }
+
+    /**
+     * @return listening sockets bound to the server port with SO_REUSEPORT
+     */
+    public int nettyAcceptors() {
+        return nettyAcceptors;
+    }
+
+    public String nettyAllocator() {
+        return nettyAllocator;
+    }
+
+    /**
+     * @return direct arenas of the pooled allocator, or 0 for Netty's default
+     */
+    public int nettyDirectArenas() {
+        return nettyDirectArenas;
+    }
+
+    public int nettyMaxOrder() {
+        return nettyMaxOrder;
+    }
+
+    /**
+     * @return how long a keep-alive connection may sit idle, or 0 for no limit
+     */
+    public int nettyIdleTimeoutMs() {
+        return nettyIdleTimeoutMs;
+    }
+
+    /**
+     * @return requests served on one connection before it is closed, or 0 for no limit
+     */
+    public int nettyMaxKeepAliveRequests() {
+        return nettyMaxKeepAliveRequests;
+    }
+
+    /**
+     * @return pipelined requests a connection may have open at once, or 0 for no limit
+     */
+    public int nettyPipelineLimit() {
+        return nettyPipelineLimit;
+    }
+
     private static String normalizeDeliveryMode(String raw) {
         String candidate = normalize(raw, DELIVERY_MODE_CONFIRM);
         if (DELIVERY_MODE_CONFIRM.equals(candidate)
@@ -160,6 +402,88 @@ public class BenchmarkSettings {
         };
     }
 
+    private static BidRouter.Mode normalizeRouteBy(String raw) {
+        BidRouter.Mode mode = BidRouter.Mode.fromConfig(normalize(raw, "none"));
+        if (mode != null) {
+            return mode;
+        }
+
+        LOG.warn("Unknown BENCHMARK_KAFKA_ROUTE_BY={}; routing every bid to BENCHMARK_KAFKA_TOPIC", raw);
+        return BidRouter.Mode.NONE;
+    }
+
+    private static BidRouter.KeyStrategy normalizeKeyStrategy(String raw) {
+        BidRouter.KeyStrategy strategy = BidRouter.KeyStrategy.fromConfig(normalize(raw, "request-id"));
+        if (strategy != null) {
+            return strategy;
+        }
+
+        LOG.warn("Unknown BENCHMARK_KAFKA_KEY={}; keying by request id", raw);
+        return BidRouter.KeyStrategy.REQUEST_ID;
+    }
+
+    private static String normalizeIngestMode(String raw) {
+        String candidate = normalize(raw, INGEST_DECODE);
+        if (INGEST_DECODE.equals(candidate) || INGEST_PASS_THROUGH.equals(candidate)) {
+            return candidate;
+        }
+
+        LOG.warn("Unknown BENCHMARK_INGEST_MODE={}; defaulting to {}", raw, INGEST_DECODE);
+        return INGEST_DECODE;
+    }
+
+    private static String normalizeNettyTransport(String raw) {
+        String candidate = normalize(raw, NETTY_TRANSPORT_AUTO).replace('-', '_');
+        if (NETTY_TRANSPORT_AUTO.equals(candidate)
+                || NETTY_TRANSPORT_NIO.equals(candidate)
+                || NETTY_TRANSPORT_EPOLL.equals(candidate)
+                || NETTY_TRANSPORT_IO_URING.equals(candidate)) {
+            return candidate;
+        }
+
+        LOG.warn("Unknown BENCHMARK_NETTY_TRANSPORT={}; defaulting to {}", raw, NETTY_TRANSPORT_AUTO);
+        return NETTY_TRANSPORT_AUTO;
+    }
+
+    private static String normalizeNettyAllocator(String raw) {
+        String candidate = normalize(raw, NETTY_ALLOCATOR_DEFAULT);
+        if (NETTY_ALLOCATOR_DEFAULT.equals(candidate)
+                || NETTY_ALLOCATOR_POOLED.equals(candidate)
+                || NETTY_ALLOCATOR_UNPOOLED.equals(candidate)) {
+            return candidate;
+        }
+
+        LOG.warn("Unknown BENCHMARK_NETTY_ALLOCATOR={}; defaulting to {}", raw, NETTY_ALLOCATOR_DEFAULT);
+        return NETTY_ALLOCATOR_DEFAULT;
+    }
+
+    private static int normalizeNettyMaxOrder(String raw) {
+        int maxOrder = normalizeNonNegativeInt(raw, 9, "BENCHMARK_NETTY_MAX_ORDER");
+        if (maxOrder <= NETTY_MAX_ORDER_LIMIT) {
+            return maxOrder;
+        }
+
+        LOG.warn("Ignoring BENCHMARK_NETTY_MAX_ORDER={} above {}; defaulting to 9", raw, NETTY_MAX_ORDER_LIMIT);
+        return 9;
+    }
+
+    private static String normalizePartitioner(String raw) {
+        String candidate = normalize(raw, PARTITIONER_DEFAULT);
+        if (PARTITIONER_DEFAULT.equals(candidate) || PARTITIONER_HOT_KEY.equals(candidate)) {
+            return candidate;
+        }
+
+        LOG.warn("Unknown BENCHMARK_KAFKA_PARTITIONER={}; defaulting to {}", raw, PARTITIONER_DEFAULT);
+        return PARTITIONER_DEFAULT;
+    }
+
+    private static String normalizeOptionalTopic(String raw) {
+        if (raw == null || raw.trim().isEmpty()) {
+            return null;
+        }
+        return raw.trim();
+    }
+
     private static String normalize(String raw, String fallback) {
         if (raw == null) {
             return fallback;
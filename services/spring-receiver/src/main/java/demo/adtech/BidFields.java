@@ -0,0 +1,200 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * The few fields of a bid that screening, routing and the routing headers look at, read
+ * straight off the request bytes.
+ *
+ * {@link #scan} walks the JSON once with Jackson's non-blocking parser, fed directly from
+ * the body's {@link ByteBuffer}s, and keeps only these fields; everything else is skipped
+ * token by token. No {@link BidRequest} graph is built and the body is not copied, so the
+ * original bytes can be published as they are. Type rules follow the data binding of
+ * {@link BidRequest}: scalars are accepted for string fields, {@code lmt} must be an
+ * integer, and objects must be objects or null.
+ */
+final class BidFields {
+
+    String id;
+    boolean site;
+    String siteId;
+    boolean app;
+    boolean device;
+    String ip;
+    String os;
+    String ifa;
+    String geo;
+    int lmt;
+
+    /**
+     * @param body the request body, in order; the buffers are read through duplicates and left untouched
+     * @return the fields, or null if the body is empty or the JSON value {@code null}
+     * @throws JsonParseException if the body is not a well-formed bid
+     */
+    static BidFields scan(JsonFactory factory, Iterator<ByteBuffer> body) throws IOException {
+        try (JsonParser parser = factory.createNonBlockingByteBufferParser()) {
+            Feed feed = new Feed(parser, body);
+            JsonToken token = feed.next();
+            if (token == null || token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a JSON object");
+            }
+
+            BidFields fields = new BidFields();
+            while ((token = feed.next()) == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                token = feed.next();
+                switch (name) {
+                    case "id" -> fields.id = text(parser, token);
+                    case "site" -> fields.site = readSite(feed, parser, token, fields);
+                    case "app" -> fields.app = skipObject(feed, parser, token);
+                    case "device" -> fields.device = readDevice(feed, parser, token, fields);
+                    default -> feed.skip(token);
+                }
+            }
+            if (token != JsonToken.END_OBJECT) {
+                throw new JsonParseException(parser, "Unterminated JSON object");
+            }
+            return fields;
+        }
+    }
+
+    private static boolean readSite(Feed feed, JsonParser parser, JsonToken token, BidFields fields) throws IOException {
+        if (!isObject(parser, token)) {
+            return false;
+        }
+        while ((token = feed.next()) == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            token = feed.next();
+            if ("id".equals(name)) {
+                fields.siteId = text(parser, token);
+            } else {
+                feed.skip(token);
+            }
+        }
+        return true;
+    }
+
+    private static boolean readDevice(Feed feed, JsonParser parser, JsonToken token, BidFields fields) throws IOException {
+        if (!isObject(parser, token)) {
+            return false;
+        }
+        while ((token = feed.next()) == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            token = feed.next();
+            switch (name) {
+                case "ip" -> fields.ip = text(parser, token);
+                case "os" -> fields.os = text(parser, token);
+                case "ifa" -> fields.ifa = text(parser, token);
+                case "geo" -> fields.geo = text(parser, token);
+                case "lmt" -> fields.lmt = integer(parser, token);
+                default -> feed.skip(token);
+            }
+        }
+        return true;
+    }
+
+    private static boolean skipObject(Feed feed, JsonParser parser, JsonToken token) throws IOException {
+        if (!isObject(parser, token)) {
+            return false;
+        }
+        feed.skip(token);
+        return true;
+    }
+
+    /**
+     * @return true for an object, false for null
+     */
+    private static boolean isObject(JsonParser parser, JsonToken token) throws JsonParseException {
+        if (token == JsonToken.START_OBJECT) {
+            return true;
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return false;
+        }
+        throw new JsonParseException(parser, "Expected a JSON object or null");
+    }
+
+    private static String text(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == null || !token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a scalar value");
+        }
+        return parser.getText();
+    }
+
+    private static int integer(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.VALUE_NULL) {
+            return 0;
+        }
+        if (token != JsonToken.VALUE_NUMBER_INT) {
+            throw new JsonParseException(parser, "Expected an integer");
+        }
+        return parser.getIntValue();
+    }
+
+    /**
+     * Pulls tokens, handing the parser the next buffer whenever it runs dry.
+     */
+    private static final class Feed {
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+        private final Iterator<ByteBuffer> body;
+
+        Feed(JsonParser parser, Iterator<ByteBuffer> body) {
+            this.parser = parser;
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+            this.body = body;
+        }
+
+        JsonToken next() throws IOException {
+            JsonToken token = parser.nextToken();
+            while (token == JsonToken.NOT_AVAILABLE) {
+                if (body.hasNext()) {
+                    feeder.feedInput(body.next().duplicate());
+                } else {
+                    feeder.endOfInput();
+                }
+                token = parser.nextToken();
+            }
+            return token;
+        }
+
+        /**
+         * Skips the value starting at {@code token}, including nested containers.
+         * {@link JsonParser#skipChildren()} cannot be used, as it does not refill input.
+         */
+        void skip(JsonToken token) throws IOException {
+            if (token == null) {
+                throw new JsonParseException(parser, "Unexpected end of input");
+            }
+            if (!token.isStructStart()) {
+                return;
+            }
+            int depth = 1;
+            while (depth > 0) {
+                token = next();
+                if (token == null) {
+                    throw new JsonParseException(parser, "Unexpected end of input");
+                }
+                if (token.isStructStart()) {
+                    depth++;
+                } else if (token.isStructEnd()) {
+                    depth--;
+                }
+            }
+        }
+    }
+}
@@ -2,11 +2,26 @@ package demo.adtech;
 
 import java.io.Closeable;
 
+import org.springframework.core.io.buffer.DataBuffer;
 import reactor.core.publisher.Mono;
 
 public interface BidPublisher extends Closeable {
 
-    Mono<Void> publish(String key, byte[] payload, boolean confirm);
+    /**
+     * @param request      the accepted bid; selects topic, key and routing headers
+     * @param payload      the serialized bid
+     * @param receivedAtMs epoch millis at which the HTTP request arrived, forwarded as a record header
+     */
+    Mono<Void> publish(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm);
+
+    /**
+     * Publishes the request body exactly as received. Ownership of {@code body} passes to
+     * the publisher, which releases it once the producer is done with the bytes.
+     *
+     * @param fields the screened fields of the bid; select topic, key and routing headers
+     * @param body   the request body
+     */
+    Mono<Void> publishRaw(BidFields fields, DataBuffer body, long receivedAtMs, boolean confirm);
 
     @Override
     default void close() {
@@ -3,23 +3,31 @@ package demo.adtech;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 public class BidReceiverController {
 
+    static final int MAX_BATCH_ITEMS = 1000;
+
     private static final Map<String, String> ACCEPTED = Map.of("status", "accepted");
     private static final Map<String, String> BAD_REQUEST = Map.of("status", "bad request");
     private static final Map<String, String> KAFKA_UNAVAILABLE = Map.of("status", "kafka unavailable");
     private static final Map<String, String> KAFKA_BUFFER_FULL = Map.of("status", "kafka buffer full");
     private static final Map<String, String> SERIALIZATION_ERROR = Map.of("status", "serialization error");
+    private static final Map<String, String> BATCH_TOO_LARGE = Map.of("status", "batch too large");
 
     private final BidPublisher bidPublisher;
     private final BenchmarkSettings benchmarkSettings;
@@ -36,24 +44,40 @@ public class BidReceiverController {
     }
 
     @PostMapping("/bid-request")
-    public Mono<ResponseEntity<?>> receiveBid(@RequestBody Mono<BidRequest> request) {
+    public Mono<ResponseEntity<?>> receiveBid(@RequestBody Mono<BidRequest> request, ServerWebExchange exchange) {
+        long receivedAt = ArrivalTimeWebFilter.receivedAt(exchange);
         return request
-                .flatMap(this::handleRequest)
+                .flatMap(bid -> handleRequest(bid, receivedAt))
                 .switchIfEmpty(Mono.just(ResponseEntity.badRequest().body(BAD_REQUEST)));
     }
 
-    private Mono<ResponseEntity<?>> handleRequest(BidRequest request) {
-        if (request.id == null || request.id.isBlank() || request.device == null
-                || (request.site == null && request.app == null)) {
+    /**
+     * Bulk variant of {@code /bid-request}: NDJSON or a JSON array, decoded element by
+     * element as the body streams in. Every bid is screened like a single request, the
+     * accepted ones are sent to the producer back to back so they share producer batches,
+     * and the response lists one HTTP status per item in request order.
+     */
+    @PostMapping(
+            value = "/bid-requests",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE}
+    )
+    public Mono<ResponseEntity<?>> receiveBids(@RequestBody Flux<BidRequest> requests, ServerWebExchange exchange) {
+        long receivedAt = ArrivalTimeWebFilter.receivedAt(exchange);
+        return requests
+                .take(MAX_BATCH_ITEMS + 1L)
+                .collectList()
+                .flatMap(batch -> batch.size() > MAX_BATCH_ITEMS
+                        ? response(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(BATCH_TOO_LARGE))
+                        : handleBatch(batch, receivedAt));
+    }
+
+    private Mono<ResponseEntity<?>> handleRequest(BidRequest request, long receivedAt) {
+        HttpStatus rejected = screen(request);
+        if (rejected == HttpStatus.BAD_REQUEST) {
             return response(ResponseEntity.badRequest().body(BAD_REQUEST));
         }
-
-        if (request.device.lmt == 1) {
-            return response(ResponseEntity.noContent().build());
-        }
-
-        if (request.device.ip != null && request.device.ip.startsWith("10.10.")) {
-            return response(ResponseEntity.noContent().build());
+        if (rejected != null) {
+            return response(ResponseEntity.status(rejected).build());
         }
 
         if (benchmarkSettings.isHttpOnlyMode()) {
@@ -67,11 +91,81 @@ public class BidReceiverController {
             return response(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(SERIALIZATION_ERROR));
         }
 
-        return bidPublisher.publish(request.id, payload, benchmarkSettings.isConfirmDeliveryMode())
+        return bidPublisher.publish(request, payload, receivedAt, benchmarkSettings.isConfirmDeliveryMode())
                 .then(response(ResponseEntity.ok(ACCEPTED)))
                 .onErrorResume(failure -> response(mapPublisherFailure(failure)));
     }
 
+    private Mono<ResponseEntity<?>> handleBatch(List<BidRequest> batch, long receivedAt) {
+        boolean confirm = benchmarkSettings.isConfirmDeliveryMode();
+        List<Mono<Integer>> outcomes = new ArrayList<>(batch.size());
+        for (BidRequest request : batch) {
+            outcomes.add(handleItem(request, receivedAt, confirm));
+        }
+
+        // Subscribing to every outcome at once issues all sends before any acknowledgement is awaited.
+        return Flux.mergeSequential(outcomes, Math.max(1, outcomes.size()), 1)
+                .collectList()
+                .<ResponseEntity<?>>map(statuses -> ResponseEntity.ok(
+                        Map.of("items", statuses.stream().mapToInt(Integer::intValue).toArray())
+                ));
+    }
+
+    private Mono<Integer> handleItem(BidRequest request, long receivedAt, boolean confirm) {
+        HttpStatus rejected = screen(request);
+        if (rejected != null) {
+            return Mono.just(rejected.value());
+        }
+        if (benchmarkSettings.isHttpOnlyMode()) {
+            return Mono.just(HttpStatus.OK.value());
+        }
+
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException exception) {
+            return Mono.just(HttpStatus.INTERNAL_SERVER_ERROR.value());
+        }
+
+        return bidPublisher.publish(request, payload, receivedAt, confirm)
+                .thenReturn(HttpStatus.OK.value())
+                .onErrorReturn(HttpStatus.SERVICE_UNAVAILABLE.value());
+    }
+
+    /**
+     * Validation and business filters shared by the single, batch and pass-through endpoints.
+     *
+     * @return the status to answer with if the bid is rejected, or null if it should be published
+     */
+    private static HttpStatus screen(BidRequest request) {
+        if (request == null || request.device == null) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        return screen(request.id, request.site != null || request.app != null, request.device.lmt, request.device.ip);
+    }
+
+    static HttpStatus screen(BidFields fields) {
+        if (fields == null || !fields.device) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        return screen(fields.id, fields.site || fields.app, fields.lmt, fields.ip);
+    }
+
+    private static HttpStatus screen(String id, boolean hasInventory, int lmt, String ip) {
+        if (id == null || id.isBlank() || !hasInventory) {
+            return HttpStatus.BAD_REQUEST;
+        }
+
+        if (lmt == 1) {
+            return HttpStatus.NO_CONTENT;
+        }
+
+        if (ip != null && ip.startsWith("10.10.")) {
+            return HttpStatus.NO_CONTENT;
+        }
+        return null;
+    }
+
     @GetMapping("/health")
     public Mono<Map<String, String>> health() {
         return Mono.just(Map.of("status", "healthy"));
@@ -0,0 +1,153 @@
+package demo.adtech;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Confirm-mode publishing with one acknowledgement per batch instead of one per request.
+ *
+ * Requests are pushed into a {@link Sinks.Many} and grouped with {@code bufferTimeout}:
+ * a batch closes when it holds {@code maxRecords} records or when {@code window} has
+ * passed since its first one. Each batch goes to one sender thread as a single task, and
+ * every record in it shares one {@link Callback}. When the last record is acknowledged,
+ * that callback completes all the requests in the batch at once. A failed record fails
+ * the whole batch, since its requests are acknowledged together.
+ */
+final class ConfirmBatcher implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ConfirmBatcher.class);
+
+    private final ProducerHandoff handoff;
+    private final Sinks.Many<Pending> pending;
+    private final Scheduler timer;
+    private final Disposable pipeline;
+
+    ConfirmBatcher(ProducerHandoff handoff, int maxRecords, Duration window, int queueCapacity) {
+        this.handoff = handoff;
+        this.pending = Sinks.many().unicast().onBackpressureBuffer(Queues.<Pending>get(queueCapacity).get());
+        this.timer = Schedulers.newSingle("kafka-confirm-batch", true);
+        this.pipeline = pending.asFlux()
+                .bufferTimeout(maxRecords, window, timer)
+                .subscribe(this::send, error -> LOG.error("Confirm batching stopped", error));
+    }
+
+    /**
+     * @param retained released once the batch is acknowledged, or at once if the record is not queued
+     */
+    Mono<Void> submit(ProducerRecord<String, ByteBuffer> record, DataBuffer retained) {
+        return Mono.create(sink -> {
+            Sinks.EmitResult result = emit(new Pending(record, sink, retained));
+            if (result.isSuccess()) {
+                return;
+            }
+            release(retained);
+            sink.error(result == Sinks.EmitResult.FAIL_OVERFLOW
+                    ? new PublisherBackpressureException(null)
+                    : new PublisherUnavailableException(null));
+        });
+    }
+
+    /**
+     * Flushes the open batch to the sender threads. Call before closing the handoff.
+     */
+    @Override
+    public void close() {
+        while (pending.tryEmitComplete() == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+        pipeline.dispose();
+        timer.dispose();
+    }
+
+    /**
+     * The sink is fed from every event loop. Emission is serialized, so a caller that
+     * finds another thread mid-emit retries; the other emit only appends to a queue.
+     */
+    private Sinks.EmitResult emit(Pending entry) {
+        Sinks.EmitResult result;
+        while ((result = pending.tryEmitNext(entry)) == Sinks.EmitResult.FAIL_NON_SERIALIZED) {
+            Thread.onSpinWait();
+        }
+        return result;
+    }
+
+    private void send(List<Pending> entries) {
+        List<ProducerRecord<String, ByteBuffer>> records = new ArrayList<>(entries.size());
+        for (Pending entry : entries) {
+            records.add(entry.record());
+        }
+        Batch batch = new Batch(entries);
+        if (!handoff.offer(records, batch)) {
+            batch.complete(new PublisherBackpressureException(null));
+        }
+    }
+
+    private static void release(DataBuffer retained) {
+        if (retained != null) {
+            DataBufferUtils.release(retained);
+        }
+    }
+
+    private record Pending(ProducerRecord<String, ByteBuffer> record, MonoSink<Void> sink, DataBuffer retained) {
+    }
+
+    /**
+     * The callback shared by every record of a batch. Counts acknowledgements down and
+     * completes the waiting requests when the last one arrives.
+     */
+    private static final class Batch implements Callback {
+
+        private final List<Pending> entries;
+        private final AtomicInteger remaining;
+        private volatile Exception failure;
+
+        Batch(List<Pending> entries) {
+            this.entries = entries;
+            this.remaining = new AtomicInteger(entries.size());
+        }
+
+        @Override
+        public void onCompletion(RecordMetadata metadata, Exception exception) {
+            if (exception != null && failure == null) {
+                failure = exception;
+            }
+            if (remaining.decrementAndGet() == 0) {
+                complete(failure);
+            }
+        }
+
+        void complete(Exception exception) {
+            Throwable error = exception == null || exception instanceof PublisherUnavailableException
+                    || exception instanceof PublisherBackpressureException
+                    ? exception
+                    : new PublisherBackpressureException(exception);
+            for (Pending entry : entries) {
+                release(entry.retained());
+                if (error == null) {
+                    entry.sink().success();
+                } else {
+                    entry.sink().error(error);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package demo.adtech;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Decodes gzip and zstd request bodies before they reach the JSON decoder.
+ *
+ * The compressed body is joined into one buffer, which is bounded by the same limit as
+ * the decompressed body, and then read through {@link RequestDecompressor} in chunks
+ * allocated from the server's buffer factory. The codec works on in-memory input, so it
+ * runs on the event loop without blocking. Unknown encodings are answered with 415.
+ */
+@Component
+public class DecompressionWebFilter implements WebFilter {
+
+    private static final int CHUNK_BYTES = 8 * 1024;
+
+    private final RequestDecompressor decompressor;
+
+    public DecompressionWebFilter(RequestDecompressor decompressor) {
+        this.decompressor = decompressor;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String encoding = exchange.getRequest().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (RequestDecompressor.isIdentity(encoding)) {
+            return chain.filter(exchange);
+        }
+        if (!decompressor.supports(encoding)) {
+            exchange.getResponse().setStatusCode(HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+            return exchange.getResponse().setComplete();
+        }
+
+        ServerHttpRequest request = exchange.getRequest().mutate()
+                .headers(headers -> {
+                    headers.remove(HttpHeaders.CONTENT_ENCODING);
+                    headers.remove(HttpHeaders.CONTENT_LENGTH);
+                })
+                .build();
+        ServerHttpRequest decompressed = new ServerHttpRequestDecorator(request) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                int maxCompressedBytes = (int) Math.min(Integer.MAX_VALUE, decompressor.maxBytes());
+                return DataBufferUtils.join(super.getBody(), maxCompressedBytes)
+                        .flatMapMany(body -> DataBufferUtils.readInputStream(
+                                () -> decompressor.open(encoding, body.asInputStream(true)),
+                                exchange.getResponse().bufferFactory(),
+                                CHUNK_BYTES
+                        ));
+            }
+        };
+        return chain.filter(exchange.mutate().request(decompressed).build());
+    }
+}
@@ -3,15 +3,20 @@ package demo.adtech;
 import jakarta.annotation.PreDestroy;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.StringSerializer;
-import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.Properties;
 
 @Component
@@ -19,20 +24,51 @@ public class KafkaBidPublisher implements BidPublisher {
 
     private static final Logger LOG = LoggerFactory.getLogger(KafkaBidPublisher.class);
 
-    private final KafkaProducer<String, byte[]> producer;
+    /**
+     * Record header carrying the epoch millis at which the HTTP request arrived, as an
+     * 8-byte big-endian long. The sinker uses it as event time and for end-to-end latency.
+     */
+    static final String RECEIVED_AT_HEADER = "received-at";
+
+    private final Producer<String, ByteBuffer> producer;
+    private final ProducerHandoff handoff;
+    private final ConfirmBatcher batcher;
     private final BenchmarkSettings settings;
+    private final BidRouter router;
 
     public KafkaBidPublisher(BenchmarkSettings settings) {
+        this(settings, settings.usesKafka() ? new KafkaProducer<>(buildProperties(settings)) : null);
+    }
+
+    KafkaBidPublisher(BenchmarkSettings settings, Producer<String, ByteBuffer> producer) {
         this.settings = settings;
-        this.producer = settings.usesKafka() ? new KafkaProducer<>(buildProperties(settings)) : null;
+        this.router = settings.router();
+        this.producer = producer;
+        this.handoff = producer == null
+                ? null
+                : new ProducerHandoff(producer, settings.kafkaSenderThreads(), settings.kafkaSenderQueueCapacity());
+        this.batcher = handoff == null || !settings.isConfirmDeliveryMode() || !settings.usesConfirmBatching()
+                ? null
+                : new ConfirmBatcher(
+                        handoff,
+                        confirmBatchRecords(settings),
+                        Duration.ofNanos(settings.kafkaConfirmBatchWindowUs() * 1000L),
+                        settings.kafkaSenderQueueCapacity()
+                );
 
         if (this.producer == null) {
             LOG.info("HTTP-only benchmark mode enabled; skipping Kafka producer initialization");
         } else {
             LOG.info(
-                    "Initialized Spring receiver publisher (delivery_mode={}, topic={}, acks={}, retries={}, retry_backoff_ms={})",
+                    "Initialized Spring receiver publisher (delivery_mode={}, routing=[{}], partitioner={}, sender_threads={}, sender_queue={}, confirm_batch={}, acks={}, retries={}, retry_backoff_ms={})",
                     settings.deliveryMode(),
-                    settings.kafkaTopic(),
+                    router,
+                    settings.kafkaPartitioner(),
+                    settings.kafkaSenderThreads(),
+                    settings.kafkaSenderQueueCapacity(),
+                    batcher == null
+                            ? "off"
+                            : confirmBatchRecords(settings) + " records/" + settings.kafkaConfirmBatchWindowUs() + "us",
                     settings.kafkaAcks(),
                     settings.kafkaRetries(),
                     settings.kafkaRetryBackoffMs()
@@ -41,61 +77,134 @@ public class KafkaBidPublisher implements BidPublisher {
     }
 
     @Override
-    public Mono<Void> publish(String key, byte[] payload, boolean confirm) {
+    public Mono<Void> publish(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm) {
         return Mono.defer(() -> {
             if (producer == null) {
                 return Mono.error(new PublisherUnavailableException(null));
             }
 
-            ProducerRecord<String, byte[]> record = new ProducerRecord<>(settings.kafkaTopic(), key, payload);
-            if (!confirm) {
-                return Mono.fromRunnable(() -> {
-                    try {
-                        producer.send(record);
-                    } catch (RuntimeException exception) {
-                        throw new PublisherUnavailableException(exception);
-                    }
-                });
+            // Wrapping the whole array lets the serializer hand it over without copying.
+            ProducerRecord<String, ByteBuffer> record = new ProducerRecord<>(
+                    router.topic(request), router.key(request), ByteBuffer.wrap(payload));
+            RoutingHeaders.of(request).addTo(record.headers());
+            return send(record, receivedAtMs, confirm, null);
+        });
+    }
+
+    @Override
+    public Mono<Void> publishRaw(BidFields fields, DataBuffer body, long receivedAtMs, boolean confirm) {
+        return Mono.defer(() -> {
+            if (producer == null) {
+                DataBufferUtils.release(body);
+                return Mono.error(new PublisherUnavailableException(null));
             }
 
-            return Mono.create(sink -> {
-                Callback callback = (metadata, exception) -> {
-                    if (exception == null) {
-                        sink.success();
-                        return;
-                    }
-                    sink.error(new PublisherBackpressureException(exception));
-                };
+            ProducerRecord<String, ByteBuffer> record = new ProducerRecord<>(
+                    router.topic(fields), router.key(fields), readableView(body));
+            RoutingHeaders.of(fields).addTo(record.headers());
+            return send(record, receivedAtMs, confirm, body);
+        });
+    }
 
-                try {
-                    producer.send(record, callback);
-                } catch (RuntimeException exception) {
-                    sink.error(new PublisherUnavailableException(exception));
+    /**
+     * @param retained released once the producer reports the outcome, or at once if the record is not queued
+     */
+    private Mono<Void> send(ProducerRecord<String, ByteBuffer> record, long receivedAtMs, boolean confirm, DataBuffer retained) {
+        record.headers().add(RECEIVED_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(receivedAtMs).array());
+        if (!confirm) {
+            Callback release = retained == null ? null : (metadata, exception) -> DataBufferUtils.release(retained);
+            if (handoff.offer(record, release)) {
+                return Mono.empty();
+            }
+            release(retained);
+            return Mono.error(new PublisherBackpressureException(null));
+        }
+
+        if (batcher != null) {
+            return batcher.submit(record, retained);
+        }
+
+        return Mono.create(sink -> {
+            Callback callback = (metadata, exception) -> {
+                release(retained);
+                if (exception == null) {
+                    sink.success();
+                } else if (exception instanceof PublisherUnavailableException) {
+                    sink.error(exception);
+                } else {
+                    sink.error(new PublisherBackpressureException(exception));
                 }
-            });
+            };
+
+            if (!handoff.offer(record, callback)) {
+                release(retained);
+                sink.error(new PublisherBackpressureException(null));
+            }
         });
     }
 
+    /**
+     * The body's readable bytes as one buffer. A body that arrived in a single chunk is
+     * exposed as a view of the pooled buffer; a body spread over several chunks has to be
+     * gathered into one, as a record value is a single buffer.
+     */
+    private static ByteBuffer readableView(DataBuffer body) {
+        try (DataBuffer.ByteBufferIterator buffers = body.readableByteBuffers()) {
+            ByteBuffer first = buffers.hasNext() ? buffers.next() : ByteBuffer.allocate(0);
+            if (!buffers.hasNext()) {
+                return first.slice();
+            }
+            ByteBuffer gathered = ByteBuffer.allocate(body.readableByteCount());
+            gathered.put(first);
+            while (buffers.hasNext()) {
+                gathered.put(buffers.next());
+            }
+            return gathered.flip();
+        }
+    }
+
+    private static void release(DataBuffer retained) {
+        if (retained != null) {
+            DataBufferUtils.release(retained);
+        }
+    }
+
     @PreDestroy
     @Override
     public void close() {
         if (producer != null) {
+            if (batcher != null) {
+                batcher.close();
+            }
+            handoff.close();
             producer.close();
         }
     }
 
+    /**
+     * A batch is queued on one sender lane as a whole, so it cannot be larger than a lane.
+     */
+    private static int confirmBatchRecords(BenchmarkSettings settings) {
+        int laneCapacity = Math.max(1, settings.kafkaSenderQueueCapacity() / settings.kafkaSenderThreads());
+        return Math.min(settings.kafkaConfirmBatchRecords(), laneCapacity);
+    }
+
     private static Properties buildProperties(BenchmarkSettings settings) {
         Properties properties = new Properties();
         properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, settings.kafkaBootstrapServers());
         properties.put(ProducerConfig.CLIENT_ID_CONFIG, "spring-receiver");
         properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
-        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class.getName());
+        properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteBufferSerializer.class.getName());
         properties.put(ProducerConfig.ACKS_CONFIG, settings.kafkaAcks());
         properties.put(ProducerConfig.LINGER_MS_CONFIG, Integer.toString(settings.kafkaLingerMs()));
         properties.put(ProducerConfig.BATCH_SIZE_CONFIG, Integer.toString(settings.kafkaBatchBytes()));
         properties.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, Integer.toString(settings.kafkaRequestTimeoutMs()));
         properties.put(ProducerConfig.RETRIES_CONFIG, Integer.toString(settings.kafkaRetries()));
         properties.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, Integer.toString(settings.kafkaRetryBackoffMs()));
+        if (settings.usesHotKeyPartitioner()) {
+            properties.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, HotKeyPartitioner.class.getName());
+            properties.put(HotKeyPartitioner.THRESHOLD_CONFIG, Integer.toString(settings.kafkaHotKeyThreshold()));
+        }
         properties.put(
                 ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG,
                 Integer.toString(computeDeliveryTimeoutMs(settings))
@@ -0,0 +1,336 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.netty4.NettyAllocatorMetrics;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufAllocatorMetricProvider;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.IoHandlerFactory;
+import io.netty.channel.MultiThreadIoEventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollIoHandler;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioIoHandler;
+import io.netty.channel.socket.nio.NioChannelOption;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.channel.unix.UnixChannelOption;
+import io.netty.channel.uring.IoUring;
+import io.netty.channel.uring.IoUringIoHandler;
+import io.netty.channel.uring.IoUringServerSocketChannel;
+import io.netty.channel.uring.IoUringSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.reactor.netty.NettyServerCustomizer;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.NettyPipeline;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.net.StandardSocketOptions;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Applies the {@code BENCHMARK_NETTY_*} settings to the Reactor Netty server.
+ *
+ * The server runs on event loops of the configured transport, allocates its buffers from
+ * the configured allocator, and closes idle or long-lived keep-alive connections and caps
+ * pipelined requests when asked to. With more than one acceptor, further listening
+ * sockets are bound to the same port with SO_REUSEPORT next to the one Spring Boot
+ * binds, each serving the same handler, and the kernel spreads new connections across
+ * them instead of funnelling every accept through one event loop.
+ *
+ * The allocator is exported through Micrometer's Netty allocator metrics. For the pooled
+ * allocator, each direct arena also reports how many threads share it and how many
+ * allocations it has served: event loops sharing an arena contend for its lock.
+ */
+@Component
+class NettyServerTuning implements NettyServerCustomizer, SmartLifecycle, DisposableBean {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NettyServerTuning.class);
+
+    private final BenchmarkSettings settings;
+    private final ObjectProvider<HttpHandler> httpHandler;
+    private final int port;
+    private final Transport transport;
+    private final TransportLoops loops;
+    private final ByteBufAllocator allocator;
+    private final List<DisposableServer> extraAcceptors = new ArrayList<>();
+
+    NettyServerTuning(
+            BenchmarkSettings settings,
+            ObjectProvider<HttpHandler> httpHandler,
+            Environment environment,
+            MeterRegistry registry
+    ) {
+        this.settings = settings;
+        this.httpHandler = httpHandler;
+        this.port = environment.getProperty("server.port", Integer.class, 8080);
+        this.transport = Transport.resolve(settings.nettyTransport());
+        int eventLoops = settings.nettyEventLoops() > 0 ? settings.nettyEventLoops() : LoopResources.DEFAULT_IO_WORKER_COUNT;
+        this.loops = new TransportLoops(transport, eventLoops);
+        this.allocator = allocator(settings);
+        bindMetrics(allocator, registry);
+        LOG.info(
+                "Netty server transport={} event_loops={} acceptors={} allocator={} idle_timeout_ms={} max_keep_alive_requests={} pipeline_limit={}",
+                transport.label,
+                eventLoops,
+                settings.nettyAcceptors(),
+                settings.nettyAllocator(),
+                settings.nettyIdleTimeoutMs(),
+                settings.nettyMaxKeepAliveRequests(),
+                settings.nettyPipelineLimit()
+        );
+    }
+
+    @Override
+    public HttpServer apply(HttpServer server) {
+        HttpServer tuned = server.runOn(loops)
+                .option(ChannelOption.ALLOCATOR, allocator)
+                .childOption(ChannelOption.ALLOCATOR, allocator);
+        if (settings.nettyAcceptors() > 1) {
+            tuned = tuned.option(transport.reusePort.get(), true);
+        }
+        if (settings.nettyIdleTimeoutMs() > 0) {
+            tuned = tuned.idleTimeout(Duration.ofMillis(settings.nettyIdleTimeoutMs()));
+        }
+        if (settings.nettyMaxKeepAliveRequests() > 0) {
+            tuned = tuned.maxKeepAliveRequests(settings.nettyMaxKeepAliveRequests());
+        }
+        int pipelineLimit = settings.nettyPipelineLimit();
+        if (pipelineLimit > 0) {
+            tuned = tuned.doOnChannelInit((observer, channel, remoteAddress) -> {
+                if (channel.pipeline().get(NettyPipeline.HttpTrafficHandler) != null) {
+                    channel.pipeline().addBefore(
+                            NettyPipeline.HttpTrafficHandler,
+                            "benchmark.pipelineLimiter",
+                            new PipelineLimiter(pipelineLimit)
+                    );
+                }
+            });
+        }
+        return tuned;
+    }
+
+    @Override
+    public void start() {
+        if (settings.nettyAcceptors() <= 1) {
+            return;
+        }
+        if (port <= 0) {
+            LOG.warn("BENCHMARK_NETTY_ACCEPTORS={} needs a fixed server.port; using one acceptor", settings.nettyAcceptors());
+            return;
+        }
+        ReactorHttpHandlerAdapter adapter = new ReactorHttpHandlerAdapter(httpHandler.getObject());
+        for (int i = 1; i < settings.nettyAcceptors(); i++) {
+            extraAcceptors.add(apply(HttpServer.create()).port(port).handle(adapter).bindNow());
+        }
+    }
+
+    @Override
+    public void stop() {
+        for (DisposableServer acceptor : extraAcceptors) {
+            acceptor.disposeNow();
+        }
+        extraAcceptors.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return !extraAcceptors.isEmpty();
+    }
+
+    /**
+     * Spring Boot has stopped its own server by the time beans are destroyed, so the
+     * event loops are idle.
+     */
+    @Override
+    public void destroy() {
+        loops.disposeLater(Duration.ZERO, Duration.ofSeconds(5)).block();
+    }
+
+    private static ByteBufAllocator allocator(BenchmarkSettings settings) {
+        return switch (settings.nettyAllocator()) {
+            case BenchmarkSettings.NETTY_ALLOCATOR_POOLED -> new PooledByteBufAllocator(
+                    true,
+                    PooledByteBufAllocator.defaultNumHeapArena(),
+                    settings.nettyDirectArenas() > 0
+                            ? settings.nettyDirectArenas()
+                            : PooledByteBufAllocator.defaultNumDirectArena(),
+                    PooledByteBufAllocator.defaultPageSize(),
+                    settings.nettyMaxOrder(),
+                    PooledByteBufAllocator.defaultSmallCacheSize(),
+                    PooledByteBufAllocator.defaultNormalCacheSize(),
+                    PooledByteBufAllocator.defaultUseCacheForAllThreads()
+            );
+            case BenchmarkSettings.NETTY_ALLOCATOR_UNPOOLED -> new UnpooledByteBufAllocator(true);
+            default -> ByteBufAllocator.DEFAULT;
+        };
+    }
+
+    private static void bindMetrics(ByteBufAllocator allocator, MeterRegistry registry) {
+        if (allocator instanceof ByteBufAllocatorMetricProvider provider) {
+            new NettyAllocatorMetrics(provider).bindTo(registry);
+        }
+        if (!(allocator instanceof PooledByteBufAllocator pooled)) {
+            return;
+        }
+        List<PoolArenaMetric> arenas = pooled.metric().directArenas();
+        for (int i = 0; i < arenas.size(); i++) {
+            PoolArenaMetric arena = arenas.get(i);
+            String tag = Integer.toString(i);
+            Gauge.builder("receiver.netty.allocator.arena.threads", arena, PoolArenaMetric::numThreadCaches)
+                    .description("Threads caching buffers from this direct arena")
+                    .tag("arena", tag)
+                    .register(registry);
+            FunctionCounter.builder("receiver.netty.allocator.arena.allocations", arena, PoolArenaMetric::numAllocations)
+                    .description("Allocations served by this direct arena")
+                    .tag("arena", tag)
+                    .register(registry);
+        }
+    }
+
+    private enum Transport {
+        NIO("nio", NioIoHandler::newFactory,
+                NioServerSocketChannel.class, NioServerSocketChannel::new,
+                NioSocketChannel.class, NioSocketChannel::new,
+                () -> NioChannelOption.of(StandardSocketOptions.SO_REUSEPORT)),
+        EPOLL("epoll", EpollIoHandler::newFactory,
+                EpollServerSocketChannel.class, EpollServerSocketChannel::new,
+                EpollSocketChannel.class, EpollSocketChannel::new,
+                () -> UnixChannelOption.SO_REUSEPORT),
+        IO_URING("io_uring", IoUringIoHandler::newFactory,
+                IoUringServerSocketChannel.class, IoUringServerSocketChannel::new,
+                IoUringSocketChannel.class, IoUringSocketChannel::new,
+                () -> UnixChannelOption.SO_REUSEPORT);
+
+        private final String label;
+        private final Supplier<IoHandlerFactory> ioHandler;
+        private final Class<? extends ServerChannel> serverChannelType;
+        private final Supplier<ServerChannel> serverChannel;
+        private final Class<? extends Channel> socketChannelType;
+        private final Supplier<Channel> socketChannel;
+        private final Supplier<ChannelOption<Boolean>> reusePort;
+
+        Transport(
+                String label,
+                Supplier<IoHandlerFactory> ioHandler,
+                Class<? extends ServerChannel> serverChannelType,
+                Supplier<ServerChannel> serverChannel,
+                Class<? extends Channel> socketChannelType,
+                Supplier<Channel> socketChannel,
+                Supplier<ChannelOption<Boolean>> reusePort
+        ) {
+            this.label = label;
+            this.ioHandler = ioHandler;
+            this.serverChannelType = serverChannelType;
+            this.serverChannel = serverChannel;
+            this.socketChannelType = socketChannelType;
+            this.socketChannel = socketChannel;
+            this.reusePort = reusePort;
+        }
+
+        /**
+         * A native transport the kernel or the platform cannot run falls back to NIO.
+         */
+        static Transport resolve(String configured) {
+            return switch (configured) {
+                case BenchmarkSettings.NETTY_TRANSPORT_NIO -> NIO;
+                case BenchmarkSettings.NETTY_TRANSPORT_EPOLL -> {
+                    if (Epoll.isAvailable()) {
+                        yield EPOLL;
+                    }
+                    LOG.warn("BENCHMARK_NETTY_TRANSPORT=epoll is unavailable; using nio", Epoll.unavailabilityCause());
+                    yield NIO;
+                }
+                case BenchmarkSettings.NETTY_TRANSPORT_IO_URING -> {
+                    if (IoUring.isAvailable()) {
+                        yield IO_URING;
+                    }
+                    LOG.warn("BENCHMARK_NETTY_TRANSPORT=io_uring is unavailable; using nio", IoUring.unavailabilityCause());
+                    yield NIO;
+                }
+                default -> Epoll.isAvailable() ? EPOLL : NIO;
+            };
+        }
+    }
+
+    /**
+     * One event loop group of the chosen transport, which accepts and serves connections.
+     * Reactor Netty asks it for the server channel, so the channel always matches the loops.
+     */
+    private static final class TransportLoops implements LoopResources {
+
+        private final Transport transport;
+        private final EventLoopGroup group;
+
+        TransportLoops(Transport transport, int threads) {
+            this.transport = transport;
+            this.group = new MultiThreadIoEventLoopGroup(
+                    threads,
+                    new DefaultThreadFactory("reactor-http-" + transport.label, true),
+                    transport.ioHandler.get()
+            );
+        }
+
+        @Override
+        public EventLoopGroup onServer(boolean useNative) {
+            return group;
+        }
+
+        @Override
+        public EventLoopGroup onClient(boolean useNative) {
+            return group;
+        }
+
+        @Override
+        public <C extends Channel> C onChannel(Class<C> channelType, EventLoopGroup eventLoopGroup) {
+            Channel channel = ServerChannel.class.isAssignableFrom(channelType)
+                    ? transport.serverChannel.get()
+                    : transport.socketChannel.get();
+            return channelType.cast(channel);
+        }
+
+        @Override
+        public <C extends Channel> Class<? extends C> onChannelClass(Class<C> channelType, EventLoopGroup eventLoopGroup) {
+            Class<? extends Channel> type = ServerChannel.class.isAssignableFrom(channelType)
+                    ? transport.serverChannelType
+                    : transport.socketChannelType;
+            return type.asSubclass(channelType);
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return group.isShuttingDown();
+        }
+
+        @Override
+        public Mono<Void> disposeLater(Duration quietPeriod, Duration timeout) {
+            return Mono.create(sink -> group
+                    .shutdownGracefully(quietPeriod.toMillis(), timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .addListener(future -> sink.success()));
+        }
+    }
+}
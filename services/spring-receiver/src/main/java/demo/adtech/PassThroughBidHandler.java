@@ -0,0 +1,97 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.server.RequestPredicates;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * {@code POST /bid-request} without data binding, used when {@code BENCHMARK_INGEST_MODE=pass-through}.
+ *
+ * The body is joined into one pooled buffer and scanned in place by {@link BidFields};
+ * screening, routing and the routing headers work from those fields. An accepted body is
+ * handed to {@link BidPublisher#publishRaw} as it arrived, so there is no bid object and
+ * no re-encoded copy, and the pooled buffer is released once the producer reports back.
+ * Router functions are matched before annotated controllers, so this takes over the
+ * single-bid path while {@link BidReceiverController} keeps serving the rest.
+ */
+@Component
+public class PassThroughBidHandler {
+
+    private static final Map<String, String> ACCEPTED = Map.of("status", "accepted");
+    private static final Map<String, String> BAD_REQUEST = Map.of("status", "bad request");
+    private static final Map<String, String> KAFKA_UNAVAILABLE = Map.of("status", "kafka unavailable");
+    private static final Map<String, String> KAFKA_BUFFER_FULL = Map.of("status", "kafka buffer full");
+    private static final Map<String, String> PAYLOAD_TOO_LARGE = Map.of("status", "payload too large");
+
+    private final BidPublisher bidPublisher;
+    private final BenchmarkSettings benchmarkSettings;
+    private final JsonFactory jsonFactory;
+
+    public PassThroughBidHandler(
+            BidPublisher bidPublisher,
+            BenchmarkSettings benchmarkSettings,
+            ObjectMapper objectMapper
+    ) {
+        this.bidPublisher = bidPublisher;
+        this.benchmarkSettings = benchmarkSettings;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route(
+                RequestPredicates.POST("/bid-request").and(request -> benchmarkSettings.usesPassThroughIngest()),
+                this::receiveBid
+        );
+    }
+
+    Mono<ServerResponse> receiveBid(ServerRequest request) {
+        long receivedAt = ArrivalTimeWebFilter.receivedAt(request.exchange());
+        return DataBufferUtils.join(request.body(BodyExtractors.toDataBuffers()), benchmarkSettings.decompressionMaxBytes())
+                .flatMap(body -> handle(body, receivedAt))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.badRequest().bodyValue(BAD_REQUEST)))
+                .onErrorResume(failure -> failure instanceof DataBufferLimitException
+                                || RequestDecompressor.isLimitExceeded(failure),
+                        failure -> ServerResponse.status(HttpStatus.PAYLOAD_TOO_LARGE).bodyValue(PAYLOAD_TOO_LARGE))
+                .onErrorResume(RequestDecompressor.MalformedBodyException.class,
+                        failure -> ServerResponse.badRequest().bodyValue(BAD_REQUEST));
+    }
+
+    private Mono<ServerResponse> handle(DataBuffer body, long receivedAt) {
+        BidFields fields;
+        try (DataBuffer.ByteBufferIterator buffers = body.readableByteBuffers()) {
+            fields = BidFields.scan(jsonFactory, buffers);
+        } catch (IOException exception) {
+            DataBufferUtils.release(body);
+            return ServerResponse.badRequest().bodyValue(BAD_REQUEST);
+        }
+
+        HttpStatus rejected = BidReceiverController.screen(fields);
+        if (rejected != null || benchmarkSettings.isHttpOnlyMode()) {
+            DataBufferUtils.release(body);
+            if (rejected == HttpStatus.BAD_REQUEST) {
+                return ServerResponse.badRequest().bodyValue(BAD_REQUEST);
+            }
+            return rejected != null ? ServerResponse.status(rejected).build() : ServerResponse.ok().bodyValue(ACCEPTED);
+        }
+
+        return bidPublisher.publishRaw(fields, body, receivedAt, benchmarkSettings.isConfirmDeliveryMode())
+                .then(Mono.defer(() -> ServerResponse.ok().bodyValue(ACCEPTED)))
+                .onErrorResume(failure -> ServerResponse.status(HttpStatus.SERVICE_UNAVAILABLE).bodyValue(
+                        failure instanceof PublisherBackpressureException ? KAFKA_BUFFER_FULL : KAFKA_UNAVAILABLE
+                ));
+    }
+}
@@ -0,0 +1,110 @@
+package demo.adtech;
+
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.ArrayDeque;
+
+/**
+ * Caps the HTTP/1.1 requests a connection has open at once.
+ *
+ * Reactor Netty answers pipelined requests in order but queues every request a client
+ * sends ahead of its responses, without a bound. This handler sits in front of Reactor
+ * Netty's traffic handler and passes a request on only while fewer than {@code limit}
+ * are waiting for their response. Later requests, with their content, are held here in
+ * arrival order, and the channel stops reading from the socket until the held requests
+ * have been passed on, so a client that pipelines faster than it is answered waits in
+ * its own TCP window instead of in receiver memory. A response counts as done once its
+ * last content has been written.
+ */
+final class PipelineLimiter extends ChannelDuplexHandler {
+
+    private final int limit;
+    private final ArrayDeque<Object> held = new ArrayDeque<>();
+    private int inFlight;
+
+    PipelineLimiter(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (!held.isEmpty() || (msg instanceof HttpRequest && inFlight >= limit)) {
+            held.add(msg);
+            ctx.channel().config().setAutoRead(false);
+            return;
+        }
+        if (msg instanceof HttpRequest) {
+            inFlight++;
+        }
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (!(msg instanceof LastHttpContent)) {
+            ctx.write(msg, promise);
+            return;
+        }
+        ChannelPromise written = promise.unvoid();
+        written.addListener(future -> {
+            inFlight--;
+            if (ctx.channel().isActive()) {
+                drain(ctx);
+            }
+        });
+        ctx.write(msg, written);
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        releaseHeld();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        releaseHeld();
+    }
+
+    int inFlight() {
+        return inFlight;
+    }
+
+    int held() {
+        return held.size();
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        boolean passed = false;
+        while (!held.isEmpty()) {
+            Object next = held.peek();
+            if (next instanceof HttpRequest) {
+                if (inFlight >= limit) {
+                    break;
+                }
+                inFlight++;
+            }
+            held.poll();
+            ctx.fireChannelRead(next);
+            passed = true;
+        }
+        if (passed) {
+            ctx.fireChannelReadComplete();
+        }
+        if (held.isEmpty()) {
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    private void releaseHeld() {
+        Object msg;
+        while ((msg = held.poll()) != null) {
+            ReferenceCountUtil.release(msg);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package demo.adtech;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Moves {@link Producer#send} off the caller's thread.
+ *
+ * {@code send} can block for up to {@code max.block.ms} while it waits for metadata or
+ * for room in the record accumulator. On a Reactor Netty event loop that stalls every
+ * connection on the loop, so callers only enqueue the record here and dedicated sender
+ * threads call {@code send}. Each sender owns one lane: a lock-free queue with a fixed
+ * number of slots. A caller always uses the same lane, so records from one event loop
+ * keep their order. When the lane is full, {@link #offer} fails at once instead of waiting.
+ */
+final class ProducerHandoff implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProducerHandoff.class);
+
+    /** Upper bound on an idle park, so a sender notices shutdown without being woken. */
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final Producer<String, ByteBuffer> producer;
+    private final Lane[] lanes;
+
+    ProducerHandoff(Producer<String, ByteBuffer> producer, int senderThreads, int queueCapacity) {
+        this.producer = producer;
+        this.lanes = new Lane[senderThreads];
+        int laneCapacity = Math.max(1, (queueCapacity + senderThreads - 1) / senderThreads);
+        for (int i = 0; i < senderThreads; i++) {
+            lanes[i] = new Lane(laneCapacity);
+            Thread thread = new Thread(lanes[i], "kafka-sender-" + i);
+            thread.setDaemon(true);
+            lanes[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    /**
+     * Queues the record for a sender thread. Never blocks.
+     *
+     * @param callback completed by the producer, or with a {@link PublisherUnavailableException}
+     *                 if {@code send} itself throws; may be null
+     * @return false if the caller's lane is full and the record was not queued
+     */
+    boolean offer(ProducerRecord<String, ByteBuffer> record, Callback callback) {
+        return lane().offer(new Task(record, null, callback));
+    }
+
+    /**
+     * Queues a batch to be sent in order by one sender thread, sharing one callback. The
+     * batch takes as many slots as it has records and is queued whole or not at all.
+     *
+     * @param callback completed once per record; may be null
+     * @return false if the caller's lane cannot take the whole batch
+     */
+    boolean offer(List<ProducerRecord<String, ByteBuffer>> records, Callback callback) {
+        return lane().offer(new Task(null, records, callback));
+    }
+
+    private Lane lane() {
+        return lanes[(int) (Thread.currentThread().threadId() % lanes.length)];
+    }
+
+    /**
+     * Stops accepting work, lets the senders drain what is already queued and waits for them.
+     */
+    @Override
+    public void close() {
+        for (Lane lane : lanes) {
+            lane.running = false;
+            LockSupport.unpark(lane.thread);
+        }
+        for (Lane lane : lanes) {
+            try {
+                lane.thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Either a single record or a batch.
+     */
+    private record Task(ProducerRecord<String, ByteBuffer> record, List<ProducerRecord<String, ByteBuffer>> batch, Callback callback) {
+
+        int slots() {
+            return batch == null ? 1 : batch.size();
+        }
+    }
+
+    private final class Lane implements Runnable {
+
+        private final ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean parked = new AtomicBoolean();
+        private final int capacity;
+        private volatile boolean running = true;
+        private Thread thread;
+
+        Lane(int capacity) {
+            this.capacity = capacity;
+        }
+
+        boolean offer(Task task) {
+            if (!running) {
+                return false;
+            }
+            int slots = task.slots();
+            if (size.addAndGet(slots) > capacity) {
+                size.addAndGet(-slots);
+                return false;
+            }
+            queue.offer(task);
+            if (parked.get() && parked.compareAndSet(true, false)) {
+                LockSupport.unpark(thread);
+            }
+            return true;
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                Task task = queue.poll();
+                if (task != null) {
+                    size.addAndGet(-task.slots());
+                    send(task);
+                    continue;
+                }
+                if (!running) {
+                    return;
+                }
+
+                // Publish the parked flag before the last look at the queue, so an offer
+                // racing with this check either is seen here or unparks us.
+                parked.set(true);
+                if (queue.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                parked.set(false);
+            }
+        }
+
+        private void send(Task task) {
+            if (task.batch() == null) {
+                send(task.record(), task.callback());
+                return;
+            }
+            for (ProducerRecord<String, ByteBuffer> record : task.batch()) {
+                send(record, task.callback());
+            }
+        }
+
+        private void send(ProducerRecord<String, ByteBuffer> record, Callback callback) {
+            try {
+                producer.send(record, callback);
+            } catch (RuntimeException exception) {
+                if (callback != null) {
+                    callback.onCompletion(null, new PublisherUnavailableException(exception));
+                } else {
+                    LOG.warn("Kafka send failed for an enqueued bid", exception);
+                }
+            }
+        }
+    }
+}
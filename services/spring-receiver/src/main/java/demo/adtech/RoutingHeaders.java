@@ -0,0 +1,103 @@
+package demo.adtech;
+
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeader;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Routing attributes of a bid as Kafka record headers, so consumers can filter
+ * and route without parsing the JSON value.
+ *
+ * <ul>
+ *   <li>{@code inv}: {@code site} or {@code app}</li>
+ *   <li>{@code os}: {@code ios}, {@code android} or {@code other}</li>
+ *   <li>{@code lmt}: {@code 0} or {@code 1}</li>
+ * </ul>
+ *
+ * Every combination is built once up front and shares pre-encoded header instances,
+ * so attaching them allocates nothing per record. A header is omitted when the bid
+ * has no value for it.
+ */
+final class RoutingHeaders {
+
+    static final String INVENTORY = "inv";
+    static final String OS = "os";
+    static final String LMT = "lmt";
+
+    private static final Header[] INVENTORY_VALUES = {null, header(INVENTORY, "site"), header(INVENTORY, "app")};
+    private static final Header[] OS_VALUES = {null, header(OS, "ios"), header(OS, "android"), header(OS, "other")};
+    private static final Header[] LMT_VALUES = {header(LMT, "0"), header(LMT, "1")};
+
+    private static final RoutingHeaders[] COMBINATIONS = new RoutingHeaders[INVENTORY_VALUES.length * OS_VALUES.length * LMT_VALUES.length];
+
+    static {
+        for (int inventory = 0; inventory < INVENTORY_VALUES.length; inventory++) {
+            for (int os = 0; os < OS_VALUES.length; os++) {
+                for (int lmt = 0; lmt < LMT_VALUES.length; lmt++) {
+                    COMBINATIONS[index(inventory, os, lmt)] = new RoutingHeaders(
+                            INVENTORY_VALUES[inventory], OS_VALUES[os], LMT_VALUES[lmt]);
+                }
+            }
+        }
+    }
+
+    private final Header[] headers;
+
+    private RoutingHeaders(Header... candidates) {
+        int count = 0;
+        for (Header candidate : candidates) {
+            if (candidate != null) {
+                count++;
+            }
+        }
+        headers = new Header[count];
+        int i = 0;
+        for (Header candidate : candidates) {
+            if (candidate != null) {
+                headers[i++] = candidate;
+            }
+        }
+    }
+
+    static RoutingHeaders of(BidRequest request) {
+        int inventory = request.site != null ? 1 : request.app != null ? 2 : 0;
+        int os = 0;
+        int lmt = 0;
+        if (request.device != null) {
+            os = osIndex(request.device.os);
+            lmt = request.device.lmt == 1 ? 1 : 0;
+        }
+        return COMBINATIONS[index(inventory, os, lmt)];
+    }
+
+    static RoutingHeaders of(BidFields fields) {
+        int inventory = fields.site ? 1 : fields.app ? 2 : 0;
+        return COMBINATIONS[index(inventory, osIndex(fields.os), fields.lmt == 1 ? 1 : 0)];
+    }
+
+    void addTo(Headers target) {
+        for (Header header : headers) {
+            target.add(header);
+        }
+    }
+
+    private static int osIndex(String os) {
+        if (os == null) {
+            return 0;
+        }
+        if ("ios".equalsIgnoreCase(os)) {
+            return 1;
+        }
+        return "android".equalsIgnoreCase(os) ? 2 : 3;
+    }
+
+    private static int index(int inventory, int os, int lmt) {
+        return (inventory * OS_VALUES.length + os) * LMT_VALUES.length + lmt;
+    }
+
+    private static Header header(String key, String value) {
+        return new RecordHeader(key, value.getBytes(StandardCharsets.US_ASCII));
+    }
+}
@@ -0,0 +1,76 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class BidFieldsTest {
+
+    private static final String BID = "{\"id\":\"req-1\",\"imp\":[{\"id\":\"1\",\"banner\":{\"w\":300}}],"
+            + "\"site\":{\"domain\":\"example.com\",\"id\":\"site-1\",\"cat\":[\"IAB1\",{\"ext\":[1,2]}]},"
+            + "\"device\":{\"ip\":\"1.2.3.4\",\"os\":\"iOS\",\"lmt\":1,\"geo\":\"US\",\"ifa\":\"ifa-1\",\"ext\":{}},"
+            + "\"user\":null}";
+
+    private final JsonFactory factory = new JsonFactory();
+
+    @Test
+    void readsScreeningAndRoutingFieldsAcrossChunks() throws IOException {
+        for (int chunk : new int[]{BID.length(), 7, 1}) {
+            BidFields fields = scan(BID, chunk);
+
+            if (!"req-1".equals(fields.id) || !fields.site || !"site-1".equals(fields.siteId) || fields.app) {
+                throw new AssertionError("Expected request and site fields with " + chunk + "-byte chunks");
+            }
+            if (!fields.device || !"1.2.3.4".equals(fields.ip) || !"iOS".equals(fields.os)
+                    || !"US".equals(fields.geo) || !"ifa-1".equals(fields.ifa) || fields.lmt != 1) {
+                throw new AssertionError("Expected device fields with " + chunk + "-byte chunks");
+            }
+        }
+    }
+
+    @Test
+    void treatsNullObjectsAsAbsent() throws IOException {
+        BidFields fields = scan("{\"id\":\"req-1\",\"site\":null,\"app\":{\"id\":\"app-1\"},\"device\":null}", 5);
+
+        if (fields.site || !fields.app || fields.device) {
+            throw new AssertionError("Expected only the app to be present");
+        }
+        if (scan("null", 2) != null || scan("", 2) != null) {
+            throw new AssertionError("Expected no fields for an empty or null body");
+        }
+    }
+
+    @Test
+    void rejectsMalformedOrMistypedBids() {
+        String[] invalid = {
+                "{\"id\":",
+                "{\"id\":\"req-1\",\"site\":{\"id\":\"site-1\"}",
+                "[1]",
+                "{\"device\":{\"lmt\":\"yes\"}}",
+                "{\"site\":5}",
+                "{\"id\":{}}"
+        };
+        for (String body : invalid) {
+            try {
+                scan(body, 3);
+                throw new AssertionError("Expected " + body + " to be rejected");
+            } catch (IOException expected) {
+                // expected
+            }
+        }
+    }
+
+    private BidFields scan(String json, int chunk) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int offset = 0; offset < bytes.length; offset += chunk) {
+            buffers.add(ByteBuffer.wrap(bytes, offset, Math.min(chunk, bytes.length - offset)).slice());
+        }
+        return BidFields.scan(factory, buffers.iterator());
+    }
+}
@@ -1,12 +1,22 @@
 package demo.adtech;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.server.WebFilter;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 class BidReceiverControllerTest {
 
@@ -38,6 +48,7 @@ class BidReceiverControllerTest {
                 publisher
         );
 
+        long requestedAt = System.currentTimeMillis();
         webTestClient.post()
                 .uri("/bid-request")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -50,6 +61,14 @@ class BidReceiverControllerTest {
         if (!publisher.lastConfirm) {
             throw new AssertionError("Expected confirm mode to wait for Kafka delivery");
         }
+        if (publisher.lastReceivedAtMs < requestedAt) {
+            throw new AssertionError("Expected the receive timestamp to be taken when the request arrived");
+        }
+        RecordHeaders headers = new RecordHeaders();
+        RoutingHeaders.of(publisher.lastRequest).addTo(headers);
+        if (!"site".equals(new String(headers.lastHeader(RoutingHeaders.INVENTORY).value()))) {
+            throw new AssertionError("Expected site inventory routing header");
+        }
     }
 
     @Test
@@ -123,6 +142,106 @@ class BidReceiverControllerTest {
                 .jsonPath("$.status").isEqualTo("kafka buffer full");
     }
 
+    @Test
+    void answersNdjsonBatchWithPerItemStatuses() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(Mono.empty());
+        WebTestClient webTestClient = buildWebTestClient(
+                BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "1"),
+                publisher
+        );
+
+        String ndjson = validPayload() + "\n"
+                + "{\"id\":\"req-2\",\"site\":{\"id\":\"site-1\"},\"device\":{\"lmt\":1}}\n"
+                + "{\"id\":\"req-3\"}\n";
+        webTestClient.post()
+                .uri("/bid-requests")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue(ndjson)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items.length()").isEqualTo(3)
+                .jsonPath("$.items[0]").isEqualTo(200)
+                .jsonPath("$.items[1]").isEqualTo(204)
+                .jsonPath("$.items[2]").isEqualTo(400);
+
+        if (publisher.published != 1) {
+            throw new AssertionError("Expected only the valid bid to be published, got " + publisher.published);
+        }
+    }
+
+    @Test
+    void answersJsonArrayBatchAndMapsPublisherFailures() throws Exception {
+        WebTestClient webTestClient = buildWebTestClient(
+                BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "1"),
+                new RecordingPublisher(Mono.error(new PublisherBackpressureException(new IllegalStateException("busy"))))
+        );
+
+        webTestClient.post()
+                .uri("/bid-requests")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[" + validPayload() + "," + validPayload() + "]")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.items[0]").isEqualTo(503)
+                .jsonPath("$.items[1]").isEqualTo(503);
+    }
+
+    @Test
+    void rejectsMalformedBatch() throws Exception {
+        WebTestClient webTestClient = buildWebTestClient(
+                BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "1"),
+                new RecordingPublisher(Mono.empty())
+        );
+
+        webTestClient.post()
+                .uri("/bid-requests")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("[{\"id\":")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void decodesGzipBodiesAndEnforcesTheSizeLimit() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(Mono.empty());
+        WebTestClient webTestClient = buildWebTestClient(
+                BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "1"),
+                publisher
+        );
+
+        webTestClient.post()
+                .uri("/bid-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .bodyValue(RequestDecompressorTest.gzip(validPayload().getBytes(StandardCharsets.UTF_8)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("accepted");
+
+        if (!"req-1".equals(publisher.lastRequest.id)) {
+            throw new AssertionError("Expected the decompressed bid to be published");
+        }
+
+        webTestClient.post()
+                .uri("/bid-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                .bodyValue(RequestDecompressorTest.gzip(new byte[2 * 1024 * 1024]))
+                .exchange()
+                .expectStatus().isEqualTo(413);
+
+        webTestClient.post()
+                .uri("/bid-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.CONTENT_ENCODING, "br")
+                .bodyValue(validPayload())
+                .exchange()
+                .expectStatus().isEqualTo(415);
+    }
+
     @Test
     void exposesHealthEndpoint() throws Exception {
         WebTestClient webTestClient = buildWebTestClient(
@@ -138,9 +257,112 @@ class BidReceiverControllerTest {
                 .jsonPath("$.status").isEqualTo("healthy");
     }
 
+    @Test
+    void passThroughPublishesTheRequestBytesAsReceived() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(Mono.empty());
+        WebTestClient webTestClient = buildPassThroughClient("confirm", publisher);
+        String payload = validPayload();
+
+        webTestClient.post()
+                .uri("/bid-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(payload)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("accepted");
+
+        if (!payload.equals(publisher.lastRawBody)) {
+            throw new AssertionError("Expected the body to be published byte for byte");
+        }
+        if (!"req-1".equals(publisher.lastFields.id) || !publisher.lastFields.site || publisher.lastRequest != null) {
+            throw new AssertionError("Expected the bid to be scanned, not bound");
+        }
+    }
+
+    @Test
+    void passThroughAppliesTheSameScreening() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(Mono.empty());
+        WebTestClient webTestClient = buildPassThroughClient("confirm", publisher);
+
+        webTestClient.post()
+                .uri("/bid-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(objectMapper.writeValueAsString(Map.of(
+                        "id", "req-1",
+                        "app", Map.of("id", "app-1"),
+                        "device", Map.of("ip", "1.2.3.4", "lmt", 1)
+                )))
+                .exchange()
+                .expectStatus().isNoContent();
+        webTestClient.post()
+                .uri("/bid-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"id\":\"req-1\",\"site\":{\"id\":\"site-1\"}}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("bad request");
+        webTestClient.post()
+                .uri("/bid-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"id\":")
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        if (publisher.published != 0) {
+            throw new AssertionError("Expected screened bids not to be published");
+        }
+    }
+
+    @Test
+    void stampsTheReceiveTimeBeforeTheBodyIsRead() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(Mono.empty());
+        AtomicLong readStartedAt = new AtomicLong();
+        // Stands in for a slow upload: the body only reaches the controller 50 ms after arrival.
+        WebFilter slowBody = (exchange, chain) -> Mono.delay(Duration.ofMillis(50))
+                .then(Mono.defer(() -> {
+                    readStartedAt.set(System.currentTimeMillis());
+                    return chain.filter(exchange);
+                }));
+        WebTestClient webTestClient = WebTestClient.bindToController(new BidReceiverController(
+                        publisher,
+                        BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "all"),
+                        objectMapper
+                ))
+                .webFilter(new ArrivalTimeWebFilter(), slowBody)
+                .build();
+
+        webTestClient.post()
+                .uri("/bid-request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(validPayload())
+                .exchange()
+                .expectStatus().isOk();
+
+        if (publisher.lastReceivedAtMs == 0 || publisher.lastReceivedAtMs >= readStartedAt.get()) {
+            throw new AssertionError("Expected the receive timestamp to be taken before the body was read");
+        }
+    }
+
+    private WebTestClient buildPassThroughClient(String deliveryMode, BidPublisher publisher) {
+        BenchmarkSettings settings = new BenchmarkSettings(new MockEnvironment()
+                .withProperty("benchmark.delivery.mode", deliveryMode)
+                .withProperty("benchmark.ingest.mode", "pass-through"));
+        return WebTestClient.bindToRouterFunction(new PassThroughBidHandler(publisher, settings, objectMapper).routes())
+                .webFilter(new ArrivalTimeWebFilter())
+                .build();
+    }
+
     private WebTestClient buildWebTestClient(BenchmarkSettings settings, BidPublisher publisher) {
+        RequestDecompressor decompressor = new RequestDecompressor(
+                settings.decompressionMaxBytes(),
+                1,
+                new SimpleMeterRegistry()
+        );
         return WebTestClient.bindToController(new BidReceiverController(publisher, settings, objectMapper))
                 .controllerAdvice(new ApiExceptionHandler())
+                .webFilter(new ArrivalTimeWebFilter(), new DecompressionWebFilter(decompressor))
                 .build();
     }
 
@@ -155,14 +377,33 @@ class BidReceiverControllerTest {
     private static final class RecordingPublisher implements BidPublisher {
         private final Mono<Void> result;
         private boolean lastConfirm;
+        private long lastReceivedAtMs;
+        private BidRequest lastRequest;
+        private BidFields lastFields;
+        private String lastRawBody;
+        private int published;
 
         private RecordingPublisher(Mono<Void> result) {
             this.result = result;
         }
 
         @Override
-        public Mono<Void> publish(String key, byte[] payload, boolean confirm) {
+        public Mono<Void> publish(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm) {
+            this.lastConfirm = confirm;
+            this.lastRequest = request;
+            this.lastReceivedAtMs = receivedAtMs;
+            this.published++;
+            return result;
+        }
+
+        @Override
+        public Mono<Void> publishRaw(BidFields fields, DataBuffer body, long receivedAtMs, boolean confirm) {
             this.lastConfirm = confirm;
+            this.lastFields = fields;
+            this.lastRawBody = body.toString(StandardCharsets.UTF_8);
+            this.lastReceivedAtMs = receivedAtMs;
+            this.published++;
+            DataBufferUtils.release(body);
             return result;
         }
     }
@@ -0,0 +1,103 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reflective data binding versus {@link BidRequestCodec} for reading and writing a bid.
+ *
+ * A JMH benchmark, run with the GC profiler so each binding also reports the bytes it
+ * allocates per operation. The bid carries an impression array and extensions the model
+ * does not map, as real traffic does, so skipping unknown members is part of the read
+ * cost. Not picked up by the default surefire includes; run it with
+ *
+ * <pre>
+ * mvn test -Dtest=BidRequestCodecBenchmark -Dcodec.benchmark.forks=2
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BidRequestCodecBenchmark {
+
+    private static final byte[] BID = ("{\"id\":\"80ce30c53c16e6ede735f123ef6e32361bfc7b22\","
+            + "\"imp\":[{\"id\":\"1\",\"banner\":{\"w\":300,\"h\":250,\"pos\":1},\"bidfloor\":0.5,\"bidfloorcur\":\"USD\"}],"
+            + "\"site\":{\"id\":\"site-1\",\"domain\":\"example.com\",\"cat\":[\"IAB1\",\"IAB12\"],"
+            + "\"page\":\"https://example.com/news/article\",\"publisher\":{\"id\":\"pub-1\"}},"
+            + "\"device\":{\"ua\":\"Mozilla/5.0 (iPhone; CPU iPhone OS 17_0 like Mac OS X)\",\"ip\":\"203.0.113.10\","
+            + "\"os\":\"iOS\",\"ifa\":\"aa3b4c5d-6e7f-4081-9213-a4b5c6d7e8f9\",\"geo\":\"US\",\"lmt\":0,"
+            + "\"ext\":{\"atts\":3}},"
+            + "\"user\":{\"id\":\"user-1\",\"buyeruid\":\"b-1\"},\"tmax\":120,\"at\":1}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    @Param({"databind", "codec"})
+    public String binding;
+
+    private ObjectMapper mapper;
+    private BidRequest bid;
+
+    @Setup
+    public void setUp() throws IOException {
+        mapper = "codec".equals(binding) ? new ObjectMapper().registerModule(BidRequestCodec.module()) : new ObjectMapper();
+        bid = mapper.readValue(BID, BidRequest.class);
+    }
+
+    @Benchmark
+    public BidRequest read() throws IOException {
+        return mapper.readValue(BID, BidRequest.class);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return mapper.writeValueAsBytes(bid);
+    }
+
+    @Test
+    void benchmark() throws Exception {
+        Options options = new OptionsBuilder()
+                .include(BidRequestCodecBenchmark.class.getName() + "\\.(read|write)$")
+                .forks(Integer.getInteger("codec.benchmark.forks", 1))
+                .warmupIterations(Integer.getInteger("codec.benchmark.warmup-iterations", 5))
+                .measurementIterations(Integer.getInteger("codec.benchmark.iterations", 5))
+                .measurementTime(TimeValue.seconds(Integer.getInteger("codec.benchmark.iteration-seconds", 1)))
+                .addProfiler(GCProfiler.class)
+                .build();
+        Collection<RunResult> results = new Runner(options).run();
+
+        System.out.println("binding,operation,ns_per_op,alloc_bytes_per_op");
+        for (RunResult result : results) {
+            Result<?> alloc = result.getSecondaryResults().get("gc.alloc.rate.norm");
+            System.out.printf("%s,%s,%.1f,%.0f%n",
+                    result.getParams().getParam("binding"),
+                    result.getParams().getBenchmark().substring(result.getParams().getBenchmark().lastIndexOf('.') + 1),
+                    result.getPrimaryResult().getScore(),
+                    alloc == null ? Double.NaN : alloc.getScore());
+        }
+    }
+}
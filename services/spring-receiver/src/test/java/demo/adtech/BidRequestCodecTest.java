@@ -0,0 +1,79 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+class BidRequestCodecTest {
+
+    private static final String BID = "{\"id\":\"req-1\",\"imp\":[{\"id\":\"1\",\"banner\":{\"w\":300}}],"
+            + "\"site\":{\"domain\":\"example.com\",\"id\":\"site-1\",\"cat\":[\"IAB1\",{\"ext\":[1,2]}]},"
+            + "\"app\":{\"bundle\":\"com.example\",\"id\":\"app-1\"},"
+            + "\"device\":{\"ip\":\"1.2.3.4\",\"os\":\"iOS\",\"ua\":\"ua-1\",\"lmt\":1,\"geo\":\"US\",\"ifa\":\"ifa-1\",\"ext\":{}},"
+            + "\"user\":{\"id\":\"user-1\",\"buyeruid\":\"b\"}}";
+
+    private final ObjectMapper databind = new ObjectMapper();
+    private final ObjectMapper codec = new ObjectMapper().registerModule(BidRequestCodec.module());
+
+    @Test
+    void readsAndWritesWhatDataBindingDoes() throws JsonProcessingException {
+        String[] bids = {
+                BID,
+                "{}",
+                "{\"id\":null,\"site\":null,\"app\":null,\"device\":null,\"user\":null}",
+                "{\"device\":{\"ip\":\"1.2.3.4\"},\"unknown\":[{\"device\":{\"ip\":\"5.6.7.8\"}}]}"
+        };
+        for (String bid : bids) {
+            String expected = databind.writeValueAsString(databind.readValue(bid, BidRequest.class));
+
+            String read = databind.writeValueAsString(codec.readValue(bid, BidRequest.class));
+            String written = codec.writeValueAsString(databind.readValue(bid, BidRequest.class));
+
+            if (!expected.equals(read) || !expected.equals(written)) {
+                throw new AssertionError("Expected " + expected + " for " + bid + ", read " + read + ", wrote " + written);
+            }
+        }
+    }
+
+    @Test
+    void coercesScalarsLikeDataBinding() throws JsonProcessingException {
+        BidRequest request = codec.readValue(
+                "{\"id\":5,\"device\":{\"ip\":true,\"os\":1.5,\"lmt\":\"1\"},\"site\":{\"id\":null}}",
+                BidRequest.class
+        );
+
+        if (!"5".equals(request.id) || !"true".equals(request.device.ip) || !"1.5".equals(request.device.os)
+                || request.device.lmt != 1 || request.site.id != null) {
+            throw new AssertionError("Expected scalars coerced to the field types");
+        }
+        if (codec.readValue("{\"device\":{\"lmt\":null}}", BidRequest.class).device.lmt != 0) {
+            throw new AssertionError("Expected a null lmt to read as 0");
+        }
+        if (codec.readValue("null", BidRequest.class) != null) {
+            throw new AssertionError("Expected a JSON null to read as no bid");
+        }
+    }
+
+    @Test
+    void rejectsWhatDataBindingRejects() {
+        String[] invalid = {
+                "[1]",
+                "\"bid\"",
+                "{\"id\":{}}",
+                "{\"id\":[\"a\"]}",
+                "{\"site\":5}",
+                "{\"device\":[]}",
+                "{\"device\":{\"lmt\":\"yes\"}}",
+                "{\"device\":{\"lmt\":true}}",
+                "{\"id\":\"req-1\""
+        };
+        for (String bid : invalid) {
+            try {
+                codec.readValue(bid, BidRequest.class);
+                throw new AssertionError("Expected " + bid + " to be rejected");
+            } catch (JsonProcessingException expected) {
+                // expected
+            }
+        }
+    }
+}
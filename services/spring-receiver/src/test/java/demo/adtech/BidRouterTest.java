@@ -0,0 +1,140 @@
+package demo.adtech;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class BidRouterTest {
+
+    @Test
+    void routesByInventoryType() {
+        BidRouter router = new BidRouter(
+                BidRouter.Mode.INVENTORY, BidRouter.KeyStrategy.REQUEST_ID, "bids", "bids-site", "bids-app", Map.of());
+
+        if (!"bids-site".equals(router.topic(siteBid()))) {
+            throw new AssertionError("Expected site bids on the site topic");
+        }
+        if (!"bids-app".equals(router.topic(appBid()))) {
+            throw new AssertionError("Expected app bids on the app topic");
+        }
+    }
+
+    @Test
+    void routesByGeoAndFallsBackToDefaultTopic() {
+        BidRouter router = new BidRouter(
+                BidRouter.Mode.GEO,
+                BidRouter.KeyStrategy.REQUEST_ID,
+                "bids",
+                null,
+                null,
+                BidRouter.parseGeoTopics("US=bids-us,de=bids-eu,malformed")
+        );
+        BidRequest request = siteBid();
+
+        request.device.geo = "DE";
+        if (!"bids-eu".equals(router.topic(request))) {
+            throw new AssertionError("Expected geo lookup to ignore case");
+        }
+        request.device.geo = "us";
+        if (!"bids-us".equals(router.topic(request))) {
+            throw new AssertionError("Expected lower-case geo to match an upper-case mapping");
+        }
+        request.device.geo = "BR";
+        if (!"bids".equals(router.topic(request))) {
+            throw new AssertionError("Expected unmapped geo to use the default topic");
+        }
+    }
+
+    @Test
+    void keysBySelectedAttributeWithRequestIdFallback() {
+        BidRouter byIfa = new BidRouter(BidRouter.Mode.NONE, BidRouter.KeyStrategy.IFA, "bids", null, null, Map.of());
+        BidRouter bySite = new BidRouter(BidRouter.Mode.NONE, BidRouter.KeyStrategy.SITE_ID, "bids", null, null, Map.of());
+        BidRequest request = siteBid();
+        request.device.ifa = "ifa-1";
+
+        if (!"ifa-1".equals(byIfa.key(request))) {
+            throw new AssertionError("Expected the device IFA as key");
+        }
+        if (!"site-1".equals(bySite.key(request))) {
+            throw new AssertionError("Expected the site id as key");
+        }
+        if (!"req-1".equals(bySite.key(appBid()))) {
+            throw new AssertionError("Expected app bids without a site to fall back to the request id");
+        }
+        request.device.ifa = null;
+        if (!"req-1".equals(byIfa.key(request))) {
+            throw new AssertionError("Expected a missing IFA to fall back to the request id");
+        }
+    }
+
+    @Test
+    void hotKeyPartitionerSpreadsOnlyHotKeys() {
+        HotKeyPartitioner partitioner = new HotKeyPartitioner();
+        partitioner.configure(Map.of(HotKeyPartitioner.THRESHOLD_CONFIG, "10"));
+        Cluster cluster = cluster("bids", 4);
+        byte[] cold = "cold".getBytes(StandardCharsets.UTF_8);
+        byte[] hot = "hot".getBytes(StandardCharsets.UTF_8);
+
+        int coldPartition = partitioner.partition("bids", "cold", cold, null, null, cluster);
+        Set<Integer> hotPartitions = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            hotPartitions.add(partitioner.partition("bids", "hot", hot, null, null, cluster));
+        }
+
+        if (hotPartitions.size() < 2) {
+            throw new AssertionError("Expected a hot key to be spread over several partitions");
+        }
+        if (partitioner.partition("bids", "cold", cold, null, null, cluster) != coldPartition) {
+            throw new AssertionError("Expected a cold key to keep its partition");
+        }
+    }
+
+    @Test
+    void hotKeyCountsResetEverySecond() {
+        HotKeyPartitioner partitioner = new HotKeyPartitioner();
+        partitioner.configure(Map.of(HotKeyPartitioner.THRESHOLD_CONFIG, "2"));
+
+        partitioner.isHot(42, 100);
+        partitioner.isHot(42, 100);
+        if (!partitioner.isHot(42, 100)) {
+            throw new AssertionError("Expected the key to turn hot above the threshold");
+        }
+        if (partitioner.isHot(42, 101)) {
+            throw new AssertionError("Expected the count to reset in the next second");
+        }
+    }
+
+    private static Cluster cluster(String topic, int partitions) {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> infos = new ArrayList<>();
+        for (int i = 0; i < partitions; i++) {
+            infos.add(new PartitionInfo(topic, i, node, new Node[] {node}, new Node[] {node}));
+        }
+        return new Cluster("test", List.of(node), infos, Set.of(), Set.of());
+    }
+
+    private static BidRequest siteBid() {
+        BidRequest request = new BidRequest();
+        request.id = "req-1";
+        request.site = new BidRequest.Site();
+        request.site.id = "site-1";
+        request.device = new BidRequest.Device();
+        return request;
+    }
+
+    private static BidRequest appBid() {
+        BidRequest request = new BidRequest();
+        request.id = "req-1";
+        request.app = new BidRequest.App();
+        request.device = new BidRequest.Device();
+        return request;
+    }
+}
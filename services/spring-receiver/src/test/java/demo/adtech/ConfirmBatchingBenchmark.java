@@ -0,0 +1,251 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-request versus batched confirm acknowledgements at a fixed request rate.
+ *
+ * Publishes from Reactor parallel threads standing in for the event loops, at an open
+ * arrival rate, into a producer stub that acknowledges every record a linger interval
+ * later from its own thread, like the Kafka I/O thread does. The comparison covers the
+ * publisher's overhead only: the time spent in completion callbacks per record, and the
+ * bytes allocated per record across all threads. Not picked up by the default surefire
+ * includes; run it with
+ *
+ * <pre>
+ * mvn test -Dtest=ConfirmBatchingBenchmark -Dpublisher.benchmark.rps=100000 -Dpublisher.benchmark.batch-records=64
+ * </pre>
+ */
+class ConfirmBatchingBenchmark {
+
+    private static final byte[] PAYLOAD = ("{\"id\":\"bench\",\"site\":{\"id\":\"site-1\",\"domain\":\"example.com\"},"
+            + "\"device\":{\"ip\":\"203.0.113.10\",\"os\":\"linux\"}}").getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void benchmark() throws Exception {
+        Settings settings = Settings.fromSystemProperties();
+        List<Result> results = new ArrayList<>();
+        for (int batchRecords : new int[]{0, settings.batchRecords()}) {
+            run(settings, batchRecords, settings.warmupSeconds());
+            results.add(run(settings, batchRecords, settings.seconds()));
+        }
+
+        System.out.println(Result.CSV_HEADER);
+        for (Result result : results) {
+            System.out.println(result.csv());
+            if (result.failed() > 0) {
+                throw new AssertionError(result.failed() + " publishes failed with batch_records=" + result.batchRecords());
+            }
+        }
+    }
+
+    private static Result run(Settings settings, int batchRecords, int seconds) throws InterruptedException {
+        AckingProducer producer = new AckingProducer(settings.lingerMs());
+        KafkaBidPublisher publisher = new KafkaBidPublisher(new BenchmarkSettings(new MockEnvironment()
+                .withProperty("benchmark.delivery.mode", "confirm")
+                .withProperty("benchmark.kafka.sender.threads", Integer.toString(settings.senderThreads()))
+                .withProperty("benchmark.kafka.sender.queue-capacity", Integer.toString(settings.queueCapacity()))
+                .withProperty("benchmark.kafka.confirm-batch.records", Integer.toString(batchRecords))
+                .withProperty("benchmark.kafka.confirm-batch.window-us", Integer.toString(settings.windowUs()))),
+                producer);
+
+        Timer latency = Timer.builder("confirm").publishPercentiles(0.5, 0.99).register(new SimpleMeterRegistry());
+        LongAdder completed = new LongAdder();
+        LongAdder failed = new LongAdder();
+        BidRequest request = bid();
+        Scheduler eventLoops = Schedulers.newParallel("event-loop", settings.eventLoops());
+        int perTick = Math.max(1, settings.rps() / settings.eventLoops() / 1000);
+
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        List<Disposable> ticks = new ArrayList<>();
+        for (int i = 0; i < settings.eventLoops(); i++) {
+            ticks.add(eventLoops.schedulePeriodically(() -> {
+                for (int n = 0; n < perTick; n++) {
+                    long issued = System.nanoTime();
+                    publisher.publish(request, PAYLOAD, 1L, true).subscribe(
+                            null,
+                            error -> failed.increment(),
+                            () -> {
+                                latency.record(System.nanoTime() - issued, TimeUnit.NANOSECONDS);
+                                completed.increment();
+                            }
+                    );
+                }
+            }, 0, 1, TimeUnit.MILLISECONDS));
+        }
+
+        TimeUnit.SECONDS.sleep(seconds);
+        ticks.forEach(Disposable::dispose);
+        eventLoops.dispose();
+        long elapsedNanos = System.nanoTime() - started;
+        publisher.close();
+        producer.close();
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        return new Result(
+                batchRecords,
+                settings.rps(),
+                completed.sum(),
+                failed.sum(),
+                elapsedNanos,
+                producer.callbackNanos.sum(),
+                allocated,
+                percentile(latency, 0.5),
+                percentile(latency, 0.99)
+        );
+    }
+
+    private static BidRequest bid() {
+        BidRequest request = new BidRequest();
+        request.id = "bench";
+        request.site = new BidRequest.Site();
+        request.site.id = "site-1";
+        request.device = new BidRequest.Device();
+        request.device.ip = "203.0.113.10";
+        return request;
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getTotalThreadAllocatedBytes();
+    }
+
+    private static double percentile(Timer timer, double percentile) {
+        for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+            if (value.percentile() == percentile) {
+                return value.value(TimeUnit.MICROSECONDS);
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * Keeps no history and acknowledges every record one linger interval after it was
+     * sent, from a single thread, timing the callbacks it runs.
+     */
+    private static final class AckingProducer extends MockProducer<String, ByteBuffer> {
+
+        private final ConcurrentLinkedQueue<Callback> unacknowledged = new ConcurrentLinkedQueue<>();
+        private final LongAdder callbackNanos = new LongAdder();
+        private final Thread ioThread;
+        private volatile boolean running = true;
+
+        AckingProducer(int lingerMs) {
+            super(true, null, new StringSerializer(), new ByteBufferSerializer());
+            this.ioThread = new Thread(() -> {
+                while (running || !unacknowledged.isEmpty()) {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(lingerMs);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long started = System.nanoTime();
+                    Callback callback;
+                    while ((callback = unacknowledged.poll()) != null) {
+                        callback.onCompletion(null, null);
+                    }
+                    callbackNanos.add(System.nanoTime() - started);
+                }
+            }, "kafka-producer-network-thread");
+            ioThread.setDaemon(true);
+            ioThread.start();
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<String, ByteBuffer> record, Callback callback) {
+            if (callback != null) {
+                unacknowledged.add(callback);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void close() {
+            running = false;
+            try {
+                ioThread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    record Settings(
+            int rps,
+            int seconds,
+            int warmupSeconds,
+            int eventLoops,
+            int senderThreads,
+            int queueCapacity,
+            int batchRecords,
+            int windowUs,
+            int lingerMs
+    ) {
+        static Settings fromSystemProperties() {
+            return new Settings(
+                    Integer.getInteger("publisher.benchmark.rps", 100_000),
+                    Integer.getInteger("publisher.benchmark.seconds", 10),
+                    Integer.getInteger("publisher.benchmark.warmup-seconds", 5),
+                    Integer.getInteger("publisher.benchmark.event-loops", 2),
+                    Integer.getInteger("publisher.benchmark.sender-threads", 1),
+                    Integer.getInteger("publisher.benchmark.queue-capacity", 65_536),
+                    Integer.getInteger("publisher.benchmark.batch-records", 64),
+                    Integer.getInteger("publisher.benchmark.window-us", 1000),
+                    Integer.getInteger("publisher.benchmark.linger-ms", 1)
+            );
+        }
+    }
+
+    record Result(
+            int batchRecords,
+            int targetRps,
+            long completed,
+            long failed,
+            long elapsedNanos,
+            long callbackNanos,
+            long allocatedBytes,
+            double confirmP50Micros,
+            double confirmP99Micros
+    ) {
+        static final String CSV_HEADER =
+                "batch_records,target_rps,achieved_rps,failed,confirm_p50_us,confirm_p99_us,callback_ns_per_record,alloc_bytes_per_record";
+
+        String csv() {
+            double seconds = elapsedNanos / 1e9;
+            long records = Math.max(1, completed);
+            return String.format("%d,%d,%.0f,%d,%.0f,%.0f,%.0f,%.0f",
+                    batchRecords,
+                    targetRps,
+                    completed / seconds,
+                    failed,
+                    confirmP50Micros,
+                    confirmP99Micros,
+                    (double) callbackNanos / records,
+                    (double) allocatedBytes / records);
+        }
+    }
+}
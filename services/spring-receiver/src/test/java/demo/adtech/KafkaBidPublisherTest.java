@@ -0,0 +1,279 @@
+package demo.adtech;
+
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.NettyDataBuffer;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+import org.springframework.mock.env.MockEnvironment;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class KafkaBidPublisherTest {
+
+    private static final byte[] PAYLOAD = "{}".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Same contract BlockHound enforces: nothing reached from a Reactor non-blocking thread
+     * may block. The producer's {@code send} blocks until released, as it would while
+     * waiting on metadata, so publishing from an event loop must return without entering it.
+     */
+    @Test
+    void neverCallsSendOnTheEventLoop() throws Exception {
+        BlockingProducer producer = new BlockingProducer();
+        KafkaBidPublisher publisher = new KafkaBidPublisher(settings(1, 8192), producer);
+        Scheduler eventLoop = Schedulers.newParallel("event-loop", 1);
+        try {
+            CountDownLatch delivered = new CountDownLatch(1);
+            AtomicReference<Boolean> subscribedOnNonBlocking = new AtomicReference<>();
+            long subscribeNanos = timeOnEventLoop(eventLoop, () -> {
+                subscribedOnNonBlocking.set(Schedulers.isInNonBlockingThread());
+                publisher.publish(siteBid(), PAYLOAD, 1L, true).subscribe(null, error -> { }, delivered::countDown);
+            });
+
+            if (!Boolean.TRUE.equals(subscribedOnNonBlocking.get())) {
+                throw new AssertionError("Expected the publish to be issued from a non-blocking thread");
+            }
+            if (!producer.entered.await(5, TimeUnit.SECONDS)) {
+                throw new AssertionError("Expected the record to reach the producer");
+            }
+            if (subscribeNanos > TimeUnit.MILLISECONDS.toNanos(500)) {
+                throw new AssertionError("Expected publish to return while send was still blocked");
+            }
+            if (delivered.getCount() == 0) {
+                throw new AssertionError("Expected confirm mode to wait for the producer callback");
+            }
+
+            producer.release.countDown();
+            if (!delivered.await(5, TimeUnit.SECONDS)) {
+                throw new AssertionError("Expected the publish to complete from the producer callback");
+            }
+            if (producer.sendThread.get().getName().startsWith("event-loop")
+                    || producer.sentFromNonBlockingThread) {
+                throw new AssertionError("Expected send on a sender thread, not the event loop");
+            }
+        } finally {
+            producer.release.countDown();
+            eventLoop.dispose();
+            publisher.close();
+        }
+    }
+
+    @Test
+    void rejectsImmediatelyWhenTheQueueIsFull() throws Exception {
+        BlockingProducer producer = new BlockingProducer();
+        KafkaBidPublisher publisher = new KafkaBidPublisher(settings(1, 1), producer);
+        try {
+            publisher.publish(siteBid(), PAYLOAD, 1L, false).block(Duration.ofSeconds(1));
+            if (!producer.entered.await(5, TimeUnit.SECONDS)) {
+                throw new AssertionError("Expected the sender to pick up the first record");
+            }
+            // The sender is stuck in send, so this one takes the only queue slot.
+            publisher.publish(siteBid(), PAYLOAD, 1L, false).block(Duration.ofSeconds(1));
+
+            try {
+                publisher.publish(siteBid(), PAYLOAD, 1L, true).block(Duration.ofSeconds(1));
+                throw new AssertionError("Expected a full queue to fail the publish");
+            } catch (PublisherBackpressureException expected) {
+                // expected
+            }
+        } finally {
+            producer.release.countDown();
+            publisher.close();
+        }
+    }
+
+    @Test
+    void mapsSendFailuresToPublisherUnavailable() {
+        MockProducer<String, ByteBuffer> producer = new MockProducer<>(true, null, new StringSerializer(), new ByteBufferSerializer()) {
+            @Override
+            public synchronized Future<RecordMetadata> send(ProducerRecord<String, ByteBuffer> record, Callback callback) {
+                throw new IllegalStateException("metadata unavailable");
+            }
+        };
+        KafkaBidPublisher publisher = new KafkaBidPublisher(settings(1, 8192), producer);
+        try {
+            publisher.publish(siteBid(), PAYLOAD, 1L, true).block(Duration.ofSeconds(5));
+            throw new AssertionError("Expected the send failure to fail the publish");
+        } catch (PublisherUnavailableException expected) {
+            // expected
+        } finally {
+            publisher.close();
+        }
+    }
+
+    @Test
+    void publishesThePassThroughBodyAndReleasesItOnCompletion() {
+        MockProducer<String, ByteBuffer> producer = new MockProducer<>(true, null, new StringSerializer(), new ByteBufferSerializer());
+        KafkaBidPublisher publisher = new KafkaBidPublisher(settings(1, 8192), producer);
+        // Heap-backed, so the value kept in the mock's history stays readable after the release.
+        NettyDataBuffer body = new NettyDataBufferFactory(new UnpooledByteBufAllocator(false)).allocateBuffer(64);
+        body.write("{\"id\":\"req-1\"}", StandardCharsets.UTF_8);
+        BidFields fields = new BidFields();
+        fields.id = "req-1";
+        fields.site = true;
+        try {
+            publisher.publishRaw(fields, body, 1L, true).block(Duration.ofSeconds(5));
+
+            ByteBuffer value = producer.history().get(0).value();
+            if (!"{\"id\":\"req-1\"}".equals(StandardCharsets.UTF_8.decode(value.duplicate()).toString())) {
+                throw new AssertionError("Expected the request bytes to be published as received");
+            }
+            if (body.getNativeBuffer().refCnt() != 0) {
+                throw new AssertionError("Expected the body to be released once the producer reported back");
+            }
+            if (producer.history().get(0).headers().lastHeader(RoutingHeaders.INVENTORY) == null) {
+                throw new AssertionError("Expected routing headers derived from the scanned fields");
+            }
+        } finally {
+            publisher.close();
+        }
+    }
+
+    @Test
+    void acknowledgesABatchOnceItsLastRecordIsAcknowledged() throws Exception {
+        MockProducer<String, ByteBuffer> producer = new MockProducer<>(false, null, new StringSerializer(), new ByteBufferSerializer());
+        KafkaBidPublisher publisher = new KafkaBidPublisher(batchedSettings(3, 10_000_000), producer);
+        try {
+            CountDownLatch delivered = new CountDownLatch(3);
+            for (int i = 0; i < 3; i++) {
+                publisher.publish(siteBid(), PAYLOAD, 1L, true).subscribe(null, error -> { }, delivered::countDown);
+            }
+            awaitSent(producer, 3);
+
+            producer.completeNext();
+            producer.completeNext();
+            if (delivered.await(100, TimeUnit.MILLISECONDS) || delivered.getCount() != 3) {
+                throw new AssertionError("Expected no request to complete before the whole batch is acknowledged");
+            }
+
+            producer.completeNext();
+            if (!delivered.await(5, TimeUnit.SECONDS)) {
+                throw new AssertionError("Expected the last acknowledgement to complete every request in the batch");
+            }
+        } finally {
+            publisher.close();
+        }
+    }
+
+    @Test
+    void failsTheWholeBatchAndFlushesPartialBatchesAfterTheWindow() throws Exception {
+        MockProducer<String, ByteBuffer> producer = new MockProducer<>(false, null, new StringSerializer(), new ByteBufferSerializer());
+        KafkaBidPublisher publisher = new KafkaBidPublisher(batchedSettings(64, 1000), producer);
+        try {
+            CountDownLatch failed = new CountDownLatch(2);
+            for (int i = 0; i < 2; i++) {
+                publisher.publish(siteBid(), PAYLOAD, 1L, true).subscribe(null, error -> {
+                    if (error instanceof PublisherBackpressureException) {
+                        failed.countDown();
+                    }
+                });
+            }
+            // Far fewer records than a batch, so only the window can release them.
+            awaitSent(producer, 2);
+
+            producer.completeNext();
+            producer.errorNext(new RuntimeException("not enough replicas"));
+            if (!failed.await(5, TimeUnit.SECONDS)) {
+                throw new AssertionError("Expected one failed record to fail every request in its batch");
+            }
+        } finally {
+            publisher.close();
+        }
+    }
+
+    private static void awaitSent(MockProducer<String, ByteBuffer> producer, int records) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (producer.history().size() < records) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Expected " + records + " records to reach the producer");
+            }
+            Thread.sleep(5);
+        }
+    }
+
+    private static long timeOnEventLoop(Scheduler eventLoop, Runnable task) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        long[] elapsed = new long[1];
+        eventLoop.schedule(() -> {
+            long start = System.nanoTime();
+            task.run();
+            elapsed[0] = System.nanoTime() - start;
+            done.countDown();
+        });
+        if (!done.await(5, TimeUnit.SECONDS)) {
+            throw new AssertionError("Expected the event loop task to finish");
+        }
+        return elapsed[0];
+    }
+
+    private static BenchmarkSettings settings(int senderThreads, int queueCapacity) {
+        return new BenchmarkSettings(new MockEnvironment()
+                .withProperty("benchmark.delivery.mode", "confirm")
+                .withProperty("benchmark.kafka.sender.threads", Integer.toString(senderThreads))
+                .withProperty("benchmark.kafka.sender.queue-capacity", Integer.toString(queueCapacity)));
+    }
+
+    private static BenchmarkSettings batchedSettings(int batchRecords, int windowUs) {
+        return new BenchmarkSettings(new MockEnvironment()
+                .withProperty("benchmark.delivery.mode", "confirm")
+                .withProperty("benchmark.kafka.confirm-batch.records", Integer.toString(batchRecords))
+                .withProperty("benchmark.kafka.confirm-batch.window-us", Integer.toString(windowUs)));
+    }
+
+    private static BidRequest siteBid() {
+        BidRequest request = new BidRequest();
+        request.id = "req-1";
+        request.site = new BidRequest.Site();
+        request.site.id = "site-1";
+        request.device = new BidRequest.Device();
+        request.device.ip = "1.2.3.4";
+        return request;
+    }
+
+    /**
+     * Stands in for a producer stuck on metadata or a full accumulator.
+     */
+    private static final class BlockingProducer extends MockProducer<String, ByteBuffer> {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<Thread> sendThread = new AtomicReference<>();
+        volatile boolean sentFromNonBlockingThread;
+
+        BlockingProducer() {
+            super(true, null, new StringSerializer(), new ByteBufferSerializer());
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<String, ByteBuffer> record, Callback callback) {
+            sendThread.compareAndSet(null, Thread.currentThread());
+            sentFromNonBlockingThread |= Schedulers.isInNonBlockingThread();
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (callback != null) {
+                callback.onCompletion(null, null);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package demo.adtech;
+
+import com.github.luben.zstd.ZstdDecompressCtx;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+class NativeHintsTest {
+
+    private final RuntimeHints hints = registeredHints();
+
+    @Test
+    void registersEveryBidRequestTypeForBinding() {
+        for (Class<?> type : new Class<?>[]{BidRequest.class, BidRequest.Site.class, BidRequest.App.class,
+                BidRequest.Device.class, BidRequest.User.class}) {
+            if (!RuntimeHintsPredicates.reflection().onType(type)
+                    .withMemberCategories(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.ACCESS_PUBLIC_FIELDS)
+                    .test(hints)) {
+                throw new AssertionError("Expected binding hints for " + type.getSimpleName());
+            }
+        }
+    }
+
+    @Test
+    void registersWhatTheKafkaClientLoadsByName() {
+        for (Class<?> type : new Class<?>[]{ByteBufferSerializer.class, HotKeyPartitioner.class}) {
+            if (!RuntimeHintsPredicates.reflection().onType(type)
+                    .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS).test(hints)) {
+                throw new AssertionError("Expected " + type.getSimpleName() + " to be instantiable by name");
+            }
+        }
+        if (!RuntimeHintsPredicates.resource().forResource("kafka/kafka-version.properties").test(hints)) {
+            throw new AssertionError("Expected the Kafka client version resource to be included");
+        }
+    }
+
+    @Test
+    void includesTheZstdLibrary() {
+        if (!RuntimeHintsPredicates.resource().forResource("linux/amd64/libzstd-jni-1.5.6-10.so").test(hints)) {
+            throw new AssertionError("Expected the zstd shared library to be included");
+        }
+        if (hints.jni().getTypeHint(ZstdDecompressCtx.class) == null) {
+            throw new AssertionError("Expected JNI access to the zstd context");
+        }
+    }
+
+    private static RuntimeHints registeredHints() {
+        RuntimeHints hints = new RuntimeHints();
+        new NativeHints().registerHints(hints, NativeHintsTest.class.getClassLoader());
+        return hints;
+    }
+}
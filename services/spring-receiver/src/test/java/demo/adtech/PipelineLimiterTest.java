@@ -0,0 +1,124 @@
+package demo.adtech;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.util.ReferenceCountUtil;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+class PipelineLimiterTest {
+
+    @Test
+    void holdsPipelinedRequestsBeyondTheLimitUntilResponsesAreWritten() {
+        PipelineLimiter limiter = new PipelineLimiter(1);
+        Recorder recorder = new Recorder();
+        EmbeddedChannel channel = new EmbeddedChannel(limiter, recorder);
+
+        channel.writeInbound(request("/1"), content("a"), new DefaultLastHttpContent());
+        channel.writeInbound(request("/2"), new DefaultLastHttpContent());
+        channel.writeInbound(request("/3"), new DefaultLastHttpContent());
+
+        if (!recorder.uris().equals(List.of("/1")) || recorder.received.size() != 3) {
+            throw new AssertionError("Expected only the first request and its content, got " + recorder.uris());
+        }
+        if (limiter.held() != 4 || channel.config().isAutoRead()) {
+            throw new AssertionError("Expected the later requests to be held with reads paused");
+        }
+
+        channel.writeOutbound(response());
+        if (!recorder.uris().equals(List.of("/1", "/2")) || limiter.held() != 2 || limiter.inFlight() != 1) {
+            throw new AssertionError("Expected the second request after the first response, got " + recorder.uris());
+        }
+
+        channel.writeOutbound(response());
+        if (!recorder.uris().equals(List.of("/1", "/2", "/3")) || limiter.held() != 0 || !channel.config().isAutoRead()) {
+            throw new AssertionError("Expected every request passed on and reads resumed, got " + recorder.uris());
+        }
+
+        channel.writeOutbound(response());
+        if (limiter.inFlight() != 0) {
+            throw new AssertionError("Expected no requests in flight once all were answered");
+        }
+        recorder.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void passesRequestsThroughBelowTheLimit() {
+        PipelineLimiter limiter = new PipelineLimiter(2);
+        Recorder recorder = new Recorder();
+        EmbeddedChannel channel = new EmbeddedChannel(limiter, recorder);
+
+        channel.writeInbound(request("/1"), new DefaultLastHttpContent(), request("/2"), new DefaultLastHttpContent());
+
+        if (!recorder.uris().equals(List.of("/1", "/2")) || limiter.held() != 0 || !channel.config().isAutoRead()) {
+            throw new AssertionError("Expected both requests passed on, got " + recorder.uris());
+        }
+        recorder.release();
+        channel.finishAndReleaseAll();
+    }
+
+    @Test
+    void releasesHeldContentWhenTheConnectionCloses() {
+        PipelineLimiter limiter = new PipelineLimiter(1);
+        EmbeddedChannel channel = new EmbeddedChannel(limiter, new Recorder());
+        ByteBuf held = Unpooled.copiedBuffer("held", StandardCharsets.UTF_8);
+
+        channel.writeInbound(request("/1"), request("/2"), new DefaultHttpContent(held));
+        channel.close();
+
+        if (held.refCnt() != 0 || limiter.held() != 0) {
+            throw new AssertionError("Expected held content to be released on close");
+        }
+    }
+
+    private static HttpRequest request(String uri) {
+        return new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, uri);
+    }
+
+    private static DefaultHttpContent content(String body) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+    }
+
+    private static DefaultFullHttpResponse response() {
+        return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+    }
+
+    private static final class Recorder extends ChannelInboundHandlerAdapter {
+
+        private final List<Object> received = new ArrayList<>();
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            received.add(msg);
+        }
+
+        List<String> uris() {
+            List<String> uris = new ArrayList<>();
+            for (Object msg : received) {
+                if (msg instanceof HttpRequest request) {
+                    uris.add(request.uri());
+                }
+            }
+            return uris;
+        }
+
+        void release() {
+            received.forEach(ReferenceCountUtil::release);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package demo.adtech;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+class RequestDecompressorTest {
+
+    private static final byte[] BODY = "{\"id\":\"req-1\",\"site\":{\"id\":\"site-1\"},\"device\":{\"lmt\":0}}\n"
+            .repeat(200)
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RequestDecompressor decompressor = new RequestDecompressor(64 * 1024, 1, registry);
+
+    @Test
+    void decodesGzipRepeatedlyWithPooledState() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            if (!Arrays.equals(BODY, decode("gzip", gzip(BODY)))) {
+                throw new AssertionError("Expected gzip round trip " + i + " to restore the body");
+            }
+        }
+
+        double decompressed = registry.get("receiver.decompression.bytes")
+                .tag("encoding", "gzip")
+                .tag("side", "decompressed")
+                .counter()
+                .count();
+        if (decompressed != BODY.length * 3.0) {
+            throw new AssertionError("Expected decompressed bytes to be counted, got " + decompressed);
+        }
+        if (registry.get("receiver.decompression.time").tag("encoding", "gzip").timer().count() != 3) {
+            throw new AssertionError("Expected one decompression timing per request");
+        }
+    }
+
+    @Test
+    void decodesZstd() throws Exception {
+        if (!decompressor.supports("zstd")) {
+            throw new AssertionError("Expected zstd-jni to be available on the test classpath");
+        }
+        if (!Arrays.equals(BODY, decode("zstd", Zstd.compress(BODY)))) {
+            throw new AssertionError("Expected zstd round trip to restore the body");
+        }
+    }
+
+    @Test
+    void stopsAtTheDecompressedSizeLimit() throws Exception {
+        byte[] bomb = gzip(new byte[1024 * 1024]);
+
+        try {
+            decode("gzip", bomb);
+            throw new AssertionError("Expected the size limit to stop decompression");
+        } catch (RequestDecompressor.LimitExceededException expected) {
+            // expected
+        }
+        try {
+            decode("zstd", Zstd.compress(new byte[1024 * 1024]));
+            throw new AssertionError("Expected the size limit to stop zstd decompression");
+        } catch (RequestDecompressor.LimitExceededException expected) {
+            // expected
+        }
+        if (registry.get("receiver.decompression.rejected").tag("encoding", "gzip").counter().count() != 1) {
+            throw new AssertionError("Expected the rejected body to be counted");
+        }
+    }
+
+    @Test
+    void rejectsCorruptAndTruncatedBodies() throws Exception {
+        byte[] corrupt = gzip(BODY);
+        corrupt[corrupt.length - 6] ^= 0x01;
+        byte[] truncated = Arrays.copyOf(gzip(BODY), 20);
+
+        for (byte[] body : new byte[][] {corrupt, truncated, BODY}) {
+            try {
+                decode("gzip", body);
+                throw new AssertionError("Expected a malformed gzip body to fail");
+            } catch (RequestDecompressor.MalformedBodyException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    void recognisesEncodings() {
+        if (!RequestDecompressor.isIdentity(null) || !RequestDecompressor.isIdentity(" identity ")) {
+            throw new AssertionError("Expected missing and identity encodings to pass through");
+        }
+        if (!decompressor.supports("x-gzip") || decompressor.supports("br")) {
+            throw new AssertionError("Expected gzip aliases to be supported and brotli not");
+        }
+    }
+
+    private byte[] decode(String encoding, byte[] body) throws IOException {
+        try (InputStream in = decompressor.open(encoding, new ByteArrayInputStream(body))) {
+            return in.readAllBytes();
+        }
+    }
+
+    static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+}
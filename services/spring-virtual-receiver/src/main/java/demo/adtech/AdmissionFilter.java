@@ -0,0 +1,61 @@
+package demo.adtech;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies the {@link AdmissionLimiter} to the bid endpoints before anything is read from
+ * the body, so a turned-away request never allocates a payload. Runs ahead of the
+ * {@link DecompressionFilter} for the same reason. Requests that get no permit in time are
+ * answered with 503.
+ */
+@Component
+@Order(0)
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final byte[] OVERLOADED = "{\"status\":\"overloaded\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AdmissionLimiter limiter;
+
+    public AdmissionFilter(AdmissionLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return !"/bid-request".equals(path) && !"/bid-requests".equals(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!limiter.tryAdmit()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setContentLength(OVERLOADED.length);
+            response.getOutputStream().write(OVERLOADED);
+            return;
+        }
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limiter.release();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounds how many bid requests are held by virtual threads at once.
+ *
+ * Virtual threads are cheap, but each parked request still pins its body, the parsed bid
+ * and the serialized payload. When the broker slows down, confirmations back up and the
+ * number of parked threads would otherwise grow with the arrival rate. Requests take a
+ * permit before their body is read and give up after a short wait, and delivery waits are
+ * cut off at a deadline, so memory stays bounded by {@code maxInFlight} requests.
+ */
+public class AdmissionLimiter {
+
+    private final Semaphore permits;
+    private final long admitTimeoutNanos;
+    private final long deliveryDeadlineNanos;
+    private final AtomicInteger parked = new AtomicInteger();
+    private final Timer admissionWait;
+    private final Counter admissionRejected;
+    private final Timer deliveryWait;
+    private final Counter deliveryTimeouts;
+
+    /**
+     * @param maxInFlight        requests admitted at once
+     * @param admitTimeoutMs     how long a request may wait for a permit before it is turned away
+     * @param deliveryDeadlineMs how long a request may wait for its Kafka confirmations
+     */
+    public AdmissionLimiter(int maxInFlight, long admitTimeoutMs, long deliveryDeadlineMs, MeterRegistry registry) {
+        this.permits = new Semaphore(maxInFlight);
+        this.admitTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(admitTimeoutMs);
+        this.deliveryDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(deliveryDeadlineMs);
+
+        Gauge.builder("receiver.admission.in_flight", permits, semaphore -> maxInFlight - semaphore.availablePermits())
+                .description("Requests currently holding an admission permit")
+                .register(registry);
+        Gauge.builder("receiver.admission.waiting", permits, Semaphore::getQueueLength)
+                .description("Threads parked waiting for an admission permit")
+                .register(registry);
+        this.admissionWait = Timer.builder("receiver.admission.wait")
+                .description("Time spent waiting for an admission permit")
+                .register(registry);
+        this.admissionRejected = Counter.builder("receiver.admission.rejected")
+                .description("Requests answered with 503 because no permit freed up in time")
+                .register(registry);
+        Gauge.builder("receiver.delivery.parked", parked, AtomicInteger::get)
+                .description("Threads parked waiting for Kafka confirmations")
+                .register(registry);
+        this.deliveryWait = Timer.builder("receiver.delivery.wait")
+                .description("Time spent waiting for Kafka confirmations")
+                .register(registry);
+        this.deliveryTimeouts = Counter.builder("receiver.delivery.timeouts")
+                .description("Kafka confirmations abandoned at the delivery deadline")
+                .register(registry);
+    }
+
+    /**
+     * Takes a permit, waiting at most the admission timeout. Every successful call must be
+     * paired with {@link #release()}.
+     *
+     * @return false if the request should be turned away
+     */
+    public boolean tryAdmit() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+
+        long start = System.nanoTime();
+        boolean admitted;
+        try {
+            admitted = admitTimeoutNanos > 0 && permits.tryAcquire(admitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        admissionWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!admitted) {
+            admissionRejected.increment();
+        }
+        return admitted;
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * @param arrivedAtNanos the {@link System#nanoTime()} at which the request arrived
+     * @return the {@link System#nanoTime()} by which confirmations for that request must be in
+     */
+    public long deliveryDeadline(long arrivedAtNanos) {
+        return arrivedAtNanos + deliveryDeadlineNanos;
+    }
+
+    /**
+     * Counts a delivery abandoned at its deadline by a caller that waits for it in other ways
+     * than {@link #await}.
+     */
+    public void recordDeliveryTimeout() {
+        deliveryTimeouts.increment();
+    }
+
+    /**
+     * Waits for a delivery until the given deadline. The send itself is not cancelled; the
+     * request just stops waiting for it.
+     *
+     * @throws CompletionException wrapping the delivery failure
+     * @throws TimeoutException    if the deadline passed first
+     */
+    public void await(CompletableFuture<?> delivery, long deadlineNanos) throws TimeoutException {
+        if (delivery.isDone()) {
+            delivery.join();
+            return;
+        }
+
+        parked.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            delivery.get(Math.max(0, deadlineNanos - start), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (TimeoutException e) {
+            deliveryTimeouts.increment();
+            throw e;
+        } finally {
+            parked.decrementAndGet();
+            deliveryWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package demo.adtech;
 
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,8 +11,16 @@ import java.util.Map;
 @RestControllerAdvice
 public class ApiExceptionHandler {
 
-    @ExceptionHandler(HttpMessageNotReadableException.class)
-    public ResponseEntity<Map<String, String>> handleHttpMessageNotReadable() {
+    @ExceptionHandler({HttpMessageNotReadableException.class, RequestDecompressor.MalformedBodyException.class})
+    public ResponseEntity<Map<String, String>> handleHttpMessageNotReadable(Exception exception) {
+        if (RequestDecompressor.isLimitExceeded(exception)) {
+            return handlePayloadTooLarge();
+        }
         return ResponseEntity.badRequest().body(Map.of("status", "bad request"));
     }
+
+    @ExceptionHandler(RequestDecompressor.LimitExceededException.class)
+    public ResponseEntity<Map<String, String>> handlePayloadTooLarge() {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(Map.of("status", "payload too large"));
+    }
 }
@@ -1,11 +1,19 @@
 package demo.adtech;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
 
 @SpringBootApplication
+@ImportRuntimeHints(NativeHints.class)
 public class Application {
 
     public static void main(String[] args) {
@@ -14,6 +22,45 @@ public class Application {
 
     @Bean
     ObjectMapper objectMapper() {
-        return new ObjectMapper();
+        return new ObjectMapper().registerModule(BidRequestCodec.module());
+    }
+
+    /**
+     * Reads request bodies with the shared mapper, so bids are bound by
+     * {@link BidRequestCodec} rather than by the default JSON converter's own mapper. The
+     * Jackson 2 converter is deprecated in Spring Framework 7, but the receivers stay on Jackson 2.
+     */
+    @Bean
+    @SuppressWarnings({"deprecation", "removal"})
+    WebMvcConfigurer bidRequestConverters(ObjectMapper objectMapper) {
+        return new WebMvcConfigurer() {
+            @Override
+            public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+                converters.addFirst(new MappingJackson2HttpMessageConverter(objectMapper));
+            }
+        };
+    }
+
+    /**
+     * Virtual threads hold codec state while they wait on the socket, so more of it is kept
+     * pooled than there are cores; requests beyond the pool get a fresh state.
+     */
+    @Bean
+    RequestDecompressor requestDecompressor(BenchmarkSettings settings, MeterRegistry registry) {
+        return new RequestDecompressor(
+                settings.decompressionMaxBytes(),
+                Runtime.getRuntime().availableProcessors() * 4,
+                registry
+        );
+    }
+
+    @Bean
+    AdmissionLimiter admissionLimiter(BenchmarkSettings settings, MeterRegistry registry) {
+        return new AdmissionLimiter(
+                settings.admissionMaxInFlight(),
+                settings.admissionTimeoutMs(),
+                settings.deliveryDeadlineMs(),
+                registry
+        );
     }
 }
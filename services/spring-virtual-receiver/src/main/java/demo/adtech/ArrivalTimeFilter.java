@@ -0,0 +1,48 @@
+package demo.adtech;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Stamps every request with its arrival time before admission, decompression and body
+ * binding, so the received-at header on the Kafka record covers the whole ingress and the
+ * delivery deadline runs from arrival on both bid endpoints. Controllers read them back
+ * with {@link #receivedAt(HttpServletRequest)} and {@link #arrivedAtNanos(HttpServletRequest)}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ArrivalTimeFilter extends OncePerRequestFilter {
+
+    static final String RECEIVED_AT = ArrivalTimeFilter.class.getName() + ".receivedAt";
+    static final String ARRIVED_AT_NANOS = ArrivalTimeFilter.class.getName() + ".arrivedAtNanos";
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        request.setAttribute(ARRIVED_AT_NANOS, System.nanoTime());
+        request.setAttribute(RECEIVED_AT, System.currentTimeMillis());
+        chain.doFilter(request, response);
+    }
+
+    /**
+     * @return epoch millis at which the request arrived, or now if it bypassed this filter
+     */
+    static long receivedAt(HttpServletRequest request) {
+        return request.getAttribute(RECEIVED_AT) instanceof Long receivedAt ? receivedAt : System.currentTimeMillis();
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the request arrived, or now if it bypassed this filter
+     */
+    static long arrivedAtNanos(HttpServletRequest request) {
+        return request.getAttribute(ARRIVED_AT_NANOS) instanceof Long arrivedAt ? arrivedAt : System.nanoTime();
+    }
+}
@@ -15,6 +15,12 @@ public class BenchmarkSettings {
     static final String DELIVERY_MODE_ENQUEUE = "enqueue";
     static final String DELIVERY_MODE_HTTP_ONLY = "http-only";
 
+    static final String PARTITIONER_DEFAULT = "default";
+    static final String PARTITIONER_HOT_KEY = "hot-key";
+
+    static final String EXECUTION_SEQUENTIAL = "sequential";
+    static final String EXECUTION_STRUCTURED = "structured";
+
     private final String deliveryMode;
     private final String kafkaBootstrapServers;
     private final String kafkaTopic;
@@ -24,6 +30,19 @@ public class BenchmarkSettings {
     private final int kafkaRequestTimeoutMs;
     private final int kafkaRetries;
     private final int kafkaRetryBackoffMs;
+    private final BidRouter router;
+    private final String kafkaPartitioner;
+    private final int kafkaHotKeyThreshold;
+    private final int decompressionMaxBytes;
+    private final int admissionMaxInFlight;
+    private final int admissionTimeoutMs;
+    private final int deliveryDeadlineMs;
+    private final int kafkaSenderThreads;
+    private final int kafkaSenderQueueCapacity;
+    private final boolean pinnedMonitorEnabled;
+    private final int pinnedThresholdMs;
+    private final String executionMode;
+    private final String kafkaShadowTopic;
 
     @Autowired
     public BenchmarkSettings(Environment environment) {
@@ -36,7 +55,24 @@ public class BenchmarkSettings {
                 environment.getProperty("benchmark.kafka.batch.bytes"),
                 environment.getProperty("benchmark.kafka.request.timeout.ms"),
                 environment.getProperty("benchmark.kafka.retries"),
-                environment.getProperty("benchmark.kafka.retry.backoff.ms")
+                environment.getProperty("benchmark.kafka.retry.backoff.ms"),
+                environment.getProperty("benchmark.kafka.route.by"),
+                environment.getProperty("benchmark.kafka.topic.site"),
+                environment.getProperty("benchmark.kafka.topic.app"),
+                environment.getProperty("benchmark.kafka.topic.geo"),
+                environment.getProperty("benchmark.kafka.key"),
+                environment.getProperty("benchmark.kafka.partitioner"),
+                environment.getProperty("benchmark.kafka.hot-key.threshold"),
+                environment.getProperty("benchmark.decompression.max-bytes"),
+                environment.getProperty("benchmark.admission.max-in-flight"),
+                environment.getProperty("benchmark.admission.timeout-ms"),
+                environment.getProperty("benchmark.delivery.deadline-ms"),
+                environment.getProperty("benchmark.kafka.sender.threads"),
+                environment.getProperty("benchmark.kafka.sender.queue-capacity"),
+                environment.getProperty("benchmark.jfr.pinned.enabled"),
+                environment.getProperty("benchmark.jfr.pinned.threshold-ms"),
+                environment.getProperty("benchmark.execution.mode"),
+                environment.getProperty("benchmark.kafka.topic.shadow")
         );
     }
 
@@ -49,7 +85,24 @@ public class BenchmarkSettings {
             String kafkaBatchBytes,
             String kafkaRequestTimeoutMs,
             String kafkaRetries,
-            String kafkaRetryBackoffMs
+            String kafkaRetryBackoffMs,
+            String kafkaRouteBy,
+            String kafkaSiteTopic,
+            String kafkaAppTopic,
+            String kafkaGeoTopics,
+            String kafkaKey,
+            String kafkaPartitioner,
+            String kafkaHotKeyThreshold,
+            String decompressionMaxBytes,
+            String admissionMaxInFlight,
+            String admissionTimeoutMs,
+            String deliveryDeadlineMs,
+            String kafkaSenderThreads,
+            String kafkaSenderQueueCapacity,
+            String pinnedMonitorEnabled,
+            String pinnedThresholdMs,
+            String executionMode,
+            String kafkaShadowTopic
     ) {
         this.deliveryMode = normalizeDeliveryMode(deliveryMode);
         this.kafkaBootstrapServers = normalizeKafkaBootstrapServers(kafkaBootstrapServers);
@@ -68,6 +121,42 @@ public class BenchmarkSettings {
                 100,
                 "BENCHMARK_KAFKA_RETRY_BACKOFF_MS"
         );
+        this.router = new BidRouter(
+                normalizeRouteBy(kafkaRouteBy),
+                normalizeKeyStrategy(kafkaKey),
+                this.kafkaTopic,
+                normalizeOptionalTopic(kafkaSiteTopic),
+                normalizeOptionalTopic(kafkaAppTopic),
+                BidRouter.parseGeoTopics(kafkaGeoTopics)
+        );
+        this.kafkaPartitioner = normalizePartitioner(kafkaPartitioner);
+        this.kafkaHotKeyThreshold = normalizePositiveInt(
+                kafkaHotKeyThreshold,
+                1000,
+                "BENCHMARK_KAFKA_HOT_KEY_THRESHOLD"
+        );
+        this.decompressionMaxBytes = normalizePositiveInt(
+                decompressionMaxBytes,
+                1048576,
+                "BENCHMARK_DECOMPRESSION_MAX_BYTES"
+        );
+        this.admissionMaxInFlight = normalizePositiveInt(
+                admissionMaxInFlight,
+                4096,
+                "BENCHMARK_ADMISSION_MAX_IN_FLIGHT"
+        );
+        this.admissionTimeoutMs = normalizeNonNegativeInt(admissionTimeoutMs, 50, "BENCHMARK_ADMISSION_TIMEOUT_MS");
+        this.deliveryDeadlineMs = normalizePositiveInt(deliveryDeadlineMs, 5000, "BENCHMARK_DELIVERY_DEADLINE_MS");
+        this.kafkaSenderThreads = normalizeNonNegativeInt(kafkaSenderThreads, 0, "BENCHMARK_KAFKA_SENDER_THREADS");
+        this.kafkaSenderQueueCapacity = normalizePositiveInt(
+                kafkaSenderQueueCapacity,
+                8192,
+                "BENCHMARK_KAFKA_SENDER_QUEUE_CAPACITY"
+        );
+        this.pinnedMonitorEnabled = normalizeBoolean(pinnedMonitorEnabled, true, "BENCHMARK_PINNED_MONITOR_ENABLED");
+        this.pinnedThresholdMs = normalizeNonNegativeInt(pinnedThresholdMs, 20, "BENCHMARK_PINNED_THRESHOLD_MS");
+        this.executionMode = normalizeExecutionMode(executionMode);
+        this.kafkaShadowTopic = normalizeOptionalTopic(kafkaShadowTopic);
     }
 
     public static BenchmarkSettings forTests(
@@ -76,7 +165,8 @@ public class BenchmarkSettings {
             String kafkaTopic,
             String kafkaAcks
     ) {
-        return new BenchmarkSettings(deliveryMode, kafkaBootstrapServers, kafkaTopic, kafkaAcks, null, null, null, null, null);
+        return new BenchmarkSettings(deliveryMode, kafkaBootstrapServers, kafkaTopic, kafkaAcks, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null, null);
     }
 
     public boolean isConfirmDeliveryMode() {
@@ -127,6 +217,75 @@ public class BenchmarkSettings {
         return kafkaRetryBackoffMs;
     }
 
+    public BidRouter router() {
+        return router;
+    }
+
+    public String kafkaPartitioner() {
+        return kafkaPartitioner;
+    }
+
+    public boolean usesHotKeyPartitioner() {
+        return PARTITIONER_HOT_KEY.equals(kafkaPartitioner);
+    }
+
+    public int kafkaHotKeyThreshold() {
+        return kafkaHotKeyThreshold;
+    }
+
+    public int decompressionMaxBytes() {
+        return decompressionMaxBytes;
+    }
+
+    public int admissionMaxInFlight() {
+        return admissionMaxInFlight;
+    }
+
+    public int admissionTimeoutMs() {
+        return admissionTimeoutMs;
+    }
+
+    public int deliveryDeadlineMs() {
+        return deliveryDeadlineMs;
+    }
+
+    /**
+     * @return platform threads that call {@code KafkaProducer.send}; 0 sends on the request's virtual thread
+     */
+    public int kafkaSenderThreads() {
+        return kafkaSenderThreads;
+    }
+
+    public int kafkaSenderQueueCapacity() {
+        return kafkaSenderQueueCapacity;
+    }
+
+    public boolean pinnedMonitorEnabled() {
+        return pinnedMonitorEnabled;
+    }
+
+    public int pinnedThresholdMs() {
+        return pinnedThresholdMs;
+    }
+
+    public String executionMode() {
+        return executionMode;
+    }
+
+    /**
+     * @return true if the independent parts of a request run on virtual threads forked per request
+     */
+    public boolean usesStructuredExecution() {
+        return EXECUTION_STRUCTURED.equals(executionMode);
+    }
+
+    /**
+     * @return the topic every accepted bid is also published to, or null for none
+     */
+    public String kafkaShadowTopic() {
+        return kafkaShadowTopic;
+    }
+
     private static String normalizeDeliveryMode(String raw) {
         String candidate = normalize(raw, DELIVERY_MODE_CONFIRM);
         if (DELIVERY_MODE_CONFIRM.equals(candidate)
@@ -160,6 +319,53 @@ public class BenchmarkSettings {
         };
     }
 
+    private static BidRouter.Mode normalizeRouteBy(String raw) {
+        BidRouter.Mode mode = BidRouter.Mode.fromConfig(normalize(raw, "none"));
+        if (mode != null) {
+            return mode;
+        }
+
+        LOG.warn("Unknown BENCHMARK_KAFKA_ROUTE_BY={}; routing every bid to BENCHMARK_KAFKA_TOPIC", raw);
+        return BidRouter.Mode.NONE;
+    }
+
+    private static BidRouter.KeyStrategy normalizeKeyStrategy(String raw) {
+        BidRouter.KeyStrategy strategy = BidRouter.KeyStrategy.fromConfig(normalize(raw, "request-id"));
+        if (strategy != null) {
+            return strategy;
+        }
+
+        LOG.warn("Unknown BENCHMARK_KAFKA_KEY={}; keying by request id", raw);
+        return BidRouter.KeyStrategy.REQUEST_ID;
+    }
+
+    private static String normalizePartitioner(String raw) {
+        String candidate = normalize(raw, PARTITIONER_DEFAULT);
+        if (PARTITIONER_DEFAULT.equals(candidate) || PARTITIONER_HOT_KEY.equals(candidate)) {
+            return candidate;
+        }
+
+        LOG.warn("Unknown BENCHMARK_KAFKA_PARTITIONER={}; defaulting to {}", raw, PARTITIONER_DEFAULT);
+        return PARTITIONER_DEFAULT;
+    }
+
+    private static String normalizeExecutionMode(String raw) {
+        String candidate = normalize(raw, EXECUTION_SEQUENTIAL);
+        if (EXECUTION_SEQUENTIAL.equals(candidate) || EXECUTION_STRUCTURED.equals(candidate)) {
+            return candidate;
+        }
+
+        LOG.warn("Unknown BENCHMARK_VIRTUAL_EXECUTION={}; defaulting to {}", raw, EXECUTION_SEQUENTIAL);
+        return EXECUTION_SEQUENTIAL;
+    }
+
+    private static String normalizeOptionalTopic(String raw) {
+        if (raw == null || raw.trim().isEmpty()) {
+            return null;
+        }
+        return raw.trim();
+    }
+
     private static String normalize(String raw, String fallback) {
         if (raw == null) {
             return fallback;
@@ -187,6 +393,16 @@ public class BenchmarkSettings {
         return fallback;
     }
 
+    private static boolean normalizeBoolean(String raw, boolean fallback, String envName) {
+        String candidate = normalize(raw, Boolean.toString(fallback));
+        if ("true".equals(candidate) || "false".equals(candidate)) {
+            return Boolean.parseBoolean(candidate);
+        }
+
+        LOG.warn("Ignoring invalid {}={}; defaulting to {}", envName, raw, fallback);
+        return fallback;
+    }
+
     private static int normalizeNonNegativeInt(String raw, int fallback, String envName) {
         if (raw == null || raw.trim().isEmpty()) {
             return fallback;
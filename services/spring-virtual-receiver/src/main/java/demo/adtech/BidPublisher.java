@@ -5,7 +5,22 @@ import java.util.concurrent.CompletableFuture;
 
 public interface BidPublisher extends Closeable {
 
-    CompletableFuture<Void> publish(String key, byte[] payload, boolean confirm);
+    /**
+     * @param request      the accepted bid; selects topic, key and routing headers
+     * @param payload      the serialized bid
+     * @param receivedAtMs epoch millis at which the HTTP request arrived, forwarded as a record header
+     */
+    CompletableFuture<Void> publish(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm);
+
+    /**
+     * Publishes a copy of the bid to the shadow topic, with the same key and headers as
+     * {@link #publish}.
+     *
+     * @return the delivery, already complete if no shadow topic is configured
+     */
+    default CompletableFuture<Void> publishShadow(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm) {
+        return CompletableFuture.completedFuture(null);
+    }
 
     @Override
     default void close() {
@@ -1,53 +1,72 @@
 package demo.adtech;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 public class BidReceiverController {
 
+    static final int MAX_BATCH_ITEMS = 1000;
+
     private static final Map<String, String> ACCEPTED = Map.of("status", "accepted");
     private static final Map<String, String> BAD_REQUEST = Map.of("status", "bad request");
     private static final Map<String, String> KAFKA_UNAVAILABLE = Map.of("status", "kafka unavailable");
     private static final Map<String, String> KAFKA_BUFFER_FULL = Map.of("status", "kafka buffer full");
+    private static final Map<String, String> KAFKA_TIMEOUT = Map.of("status", "kafka timeout");
     private static final Map<String, String> SERIALIZATION_ERROR = Map.of("status", "serialization error");
+    private static final Map<String, String> BATCH_TOO_LARGE = Map.of("status", "batch too large");
+    private static final Map<String, String> PAYLOAD_TOO_LARGE = Map.of("status", "payload too large");
 
     private final BidPublisher bidPublisher;
     private final BenchmarkSettings benchmarkSettings;
     private final ObjectMapper objectMapper;
+    private final AdmissionLimiter admissionLimiter;
+    private final StructuredDelivery structuredDelivery;
 
     public BidReceiverController(
             BidPublisher bidPublisher,
             BenchmarkSettings benchmarkSettings,
-            ObjectMapper objectMapper
+            ObjectMapper objectMapper,
+            AdmissionLimiter admissionLimiter
     ) {
         this.bidPublisher = bidPublisher;
         this.benchmarkSettings = benchmarkSettings;
         this.objectMapper = objectMapper;
+        this.admissionLimiter = admissionLimiter;
+        this.structuredDelivery = benchmarkSettings.usesStructuredExecution()
+                ? new StructuredDelivery(bidPublisher, objectMapper, admissionLimiter, benchmarkSettings)
+                : null;
     }
 
     @PostMapping("/bid-request")
-    public ResponseEntity<Map<String, String>> receiveBid(@RequestBody BidRequest request) {
-        if (request.id == null || request.id.isBlank() || request.device == null
-                || (request.site == null && request.app == null)) {
+    public ResponseEntity<Map<String, String>> receiveBid(@RequestBody BidRequest request, HttpServletRequest httpRequest) {
+        long receivedAt = ArrivalTimeFilter.receivedAt(httpRequest);
+        long deadline = admissionLimiter.deliveryDeadline(ArrivalTimeFilter.arrivedAtNanos(httpRequest));
+        HttpStatus rejected = screen(request);
+        if (rejected == HttpStatus.BAD_REQUEST) {
             return ResponseEntity.badRequest().body(BAD_REQUEST);
         }
-
-        if (request.device.lmt == 1) {
-            return ResponseEntity.noContent().build();
-        }
-
-        if (request.device.ip != null && request.device.ip.startsWith("10.10.")) {
-            return ResponseEntity.noContent().build();
+        if (rejected != null) {
+            return ResponseEntity.status(rejected).build();
         }
 
         if (benchmarkSettings.isHttpOnlyMode()) {
@@ -62,7 +81,9 @@ public class BidReceiverController {
         }
 
         try {
-            bidPublisher.publish(request.id, payload, benchmarkSettings.isConfirmDeliveryMode()).join();
+            deliver(request, payload, receivedAt, benchmarkSettings.isConfirmDeliveryMode(), deadline);
+        } catch (TimeoutException exception) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(KAFKA_TIMEOUT);
         } catch (CompletionException exception) {
             Throwable cause = exception.getCause();
             if (cause instanceof PublisherBackpressureException) {
@@ -74,6 +95,131 @@ public class BidReceiverController {
         return ResponseEntity.ok(ACCEPTED);
     }
 
+    /**
+     * Publishes a bid, and its shadow copy if a shadow topic is set, and waits for both.
+     */
+    private void deliver(BidRequest request, byte[] payload, long receivedAt, boolean confirm, long deadline)
+            throws TimeoutException {
+        if (structuredDelivery != null) {
+            structuredDelivery.deliver(request, payload, receivedAt, confirm, deadline);
+            return;
+        }
+
+        CompletableFuture<Void> delivery = bidPublisher.publish(request, payload, receivedAt, confirm);
+        CompletableFuture<Void> shadow = bidPublisher.publishShadow(request, payload, receivedAt, confirm);
+        admissionLimiter.await(delivery, deadline);
+        admissionLimiter.await(shadow, deadline);
+    }
+
+    /**
+     * Bulk variant of {@code /bid-request}: NDJSON or a JSON array, read bid by bid from
+     * the request stream. Every bid is screened like a single request, the accepted ones
+     * are sent to the producer back to back so they share producer batches, and only then
+     * are confirmations awaited, all against one deadline. In structured execution each
+     * accepted bid is serialized and published in its own virtual thread instead. The response
+     * lists one HTTP status per item in request order.
+     */
+    @PostMapping(
+            value = "/bid-requests",
+            consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE}
+    )
+    public ResponseEntity<?> receiveBids(InputStream body, HttpServletRequest httpRequest) {
+        long receivedAt = ArrivalTimeFilter.receivedAt(httpRequest);
+        long deadline = admissionLimiter.deliveryDeadline(ArrivalTimeFilter.arrivedAtNanos(httpRequest));
+        List<BidRequest> batch;
+        try {
+            batch = readBatch(body);
+        } catch (IOException exception) {
+            if (RequestDecompressor.isLimitExceeded(exception)) {
+                return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(PAYLOAD_TOO_LARGE);
+            }
+            return ResponseEntity.badRequest().body(BAD_REQUEST);
+        }
+        if (batch.size() > MAX_BATCH_ITEMS) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(BATCH_TOO_LARGE);
+        }
+
+        boolean confirm = benchmarkSettings.isConfirmDeliveryMode();
+        int[] statuses = new int[batch.size()];
+        CompletableFuture<?>[] deliveries = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < statuses.length; i++) {
+            BidRequest request = batch.get(i);
+            HttpStatus rejected = screen(request);
+            if (rejected != null) {
+                statuses[i] = rejected.value();
+                continue;
+            }
+            statuses[i] = HttpStatus.OK.value();
+            if (benchmarkSettings.isHttpOnlyMode() || structuredDelivery != null) {
+                continue;
+            }
+
+            try {
+                byte[] payload = objectMapper.writeValueAsBytes(request);
+                CompletableFuture<Void> delivery = bidPublisher.publish(request, payload, receivedAt, confirm);
+                CompletableFuture<Void> shadow = bidPublisher.publishShadow(request, payload, receivedAt, confirm);
+                deliveries[i] = CompletableFuture.allOf(delivery, shadow);
+            } catch (JsonProcessingException exception) {
+                statuses[i] = HttpStatus.INTERNAL_SERVER_ERROR.value();
+            }
+        }
+
+        if (structuredDelivery != null && !benchmarkSettings.isHttpOnlyMode()) {
+            structuredDelivery.deliverAll(batch, statuses, receivedAt, confirm, deadline);
+        }
+        for (int i = 0; i < deliveries.length; i++) {
+            if (deliveries[i] == null) {
+                continue;
+            }
+            try {
+                admissionLimiter.await(deliveries[i], deadline);
+            } catch (TimeoutException | CompletionException exception) {
+                statuses[i] = HttpStatus.SERVICE_UNAVAILABLE.value();
+            }
+        }
+        return ResponseEntity.ok(Map.of("items", statuses));
+    }
+
+    /**
+     * Reads up to one bid more than {@link #MAX_BATCH_ITEMS}, so oversized batches can be
+     * rejected without parsing the rest. JSON nulls are kept as null items and fail validation.
+     */
+    private List<BidRequest> readBatch(InputStream body) throws IOException {
+        List<BidRequest> batch = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_ARRAY) {
+                token = parser.nextToken();
+            }
+            while (token != null && token != JsonToken.END_ARRAY && batch.size() <= MAX_BATCH_ITEMS) {
+                batch.add(objectMapper.readValue(parser, BidRequest.class));
+                token = parser.nextToken();
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Validation and business filters shared by the single and batch endpoints.
+     *
+     * @return the status to answer with if the bid is rejected, or null if it should be published
+     */
+    private static HttpStatus screen(BidRequest request) {
+        if (request == null || request.id == null || request.id.isBlank() || request.device == null
+                || (request.site == null && request.app == null)) {
+            return HttpStatus.BAD_REQUEST;
+        }
+
+        if (request.device.lmt == 1) {
+            return HttpStatus.NO_CONTENT;
+        }
+
+        if (request.device.ip != null && request.device.ip.startsWith("10.10.")) {
+            return HttpStatus.NO_CONTENT;
+        }
+        return null;
+    }
+
     @GetMapping("/health")
     public Map<String, String> health() {
         return Map.of("status", "healthy");
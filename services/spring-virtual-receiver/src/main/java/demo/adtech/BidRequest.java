@@ -32,6 +32,8 @@ public class BidRequest {
         public String ip;
         public String os;
         public String ua;
+        public String ifa;
+        public String geo;
         public int lmt;
     }
 
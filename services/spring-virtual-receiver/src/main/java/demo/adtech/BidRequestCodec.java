@@ -0,0 +1,234 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Reads and writes {@link BidRequest} without Jackson's bean introspection.
+ *
+ * Data binding handles the bid with its generic bean deserializer and serializer: each
+ * property is looked up by name in a property table and read or written reflectively,
+ * through the same machinery again for every nested type. This codec is the
+ * straight-line equivalent, with one switch over the field names per object, plain field
+ * access and pre-encoded field names on write. It is installed on the shared
+ * {@code ObjectMapper} through {@link #module()}. Nothing is generated at runtime, so the
+ * native images run it unchanged.
+ *
+ * The model's annotations still hold. Unknown properties are skipped. Null members are
+ * left out on write, and members are written in declaration order, so the output is byte
+ * for byte what data binding writes. A value with an unexpected type is handed to data
+ * binding's own scalar deserializers, which apply the same coercions and raise the same
+ * errors.
+ */
+final class BidRequestCodec {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString SITE = new SerializedString("site");
+    private static final SerializedString APP = new SerializedString("app");
+    private static final SerializedString DEVICE = new SerializedString("device");
+    private static final SerializedString USER = new SerializedString("user");
+    private static final SerializedString DOMAIN = new SerializedString("domain");
+    private static final SerializedString BUNDLE = new SerializedString("bundle");
+    private static final SerializedString IP = new SerializedString("ip");
+    private static final SerializedString OS = new SerializedString("os");
+    private static final SerializedString UA = new SerializedString("ua");
+    private static final SerializedString IFA = new SerializedString("ifa");
+    private static final SerializedString GEO = new SerializedString("geo");
+    private static final SerializedString LMT = new SerializedString("lmt");
+
+    private BidRequestCodec() {
+    }
+
+    static SimpleModule module() {
+        return new SimpleModule("BidRequestCodec")
+                .addDeserializer(BidRequest.class, new Reader())
+                .addSerializer(BidRequest.class, new Writer());
+    }
+
+    private static final class Reader extends StdDeserializer<BidRequest> {
+
+        Reader() {
+            super(BidRequest.class);
+        }
+
+        @Override
+        public BidRequest deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String name;
+            if (p.isExpectedStartObjectToken()) {
+                name = p.nextFieldName();
+            } else if (p.hasToken(JsonToken.FIELD_NAME)) {
+                name = p.currentName();
+            } else {
+                return (BidRequest) ctxt.handleUnexpectedToken(BidRequest.class, p);
+            }
+
+            BidRequest request = new BidRequest();
+            for (; name != null; name = p.nextFieldName()) {
+                p.nextToken();
+                switch (name) {
+                    case "id" -> request.id = text(p, ctxt);
+                    case "site" -> request.site = site(p, ctxt);
+                    case "app" -> request.app = app(p, ctxt);
+                    case "device" -> request.device = device(p, ctxt);
+                    case "user" -> request.user = user(p, ctxt);
+                    default -> p.skipChildren();
+                }
+            }
+            return request;
+        }
+
+        private static BidRequest.Site site(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartObjectToken()) {
+                return nullOrUnexpected(p, ctxt, BidRequest.Site.class);
+            }
+            BidRequest.Site site = new BidRequest.Site();
+            for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+                p.nextToken();
+                switch (name) {
+                    case "id" -> site.id = text(p, ctxt);
+                    case "domain" -> site.domain = text(p, ctxt);
+                    default -> p.skipChildren();
+                }
+            }
+            return site;
+        }
+
+        private static BidRequest.App app(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartObjectToken()) {
+                return nullOrUnexpected(p, ctxt, BidRequest.App.class);
+            }
+            BidRequest.App app = new BidRequest.App();
+            for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+                p.nextToken();
+                switch (name) {
+                    case "id" -> app.id = text(p, ctxt);
+                    case "bundle" -> app.bundle = text(p, ctxt);
+                    default -> p.skipChildren();
+                }
+            }
+            return app;
+        }
+
+        private static BidRequest.Device device(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartObjectToken()) {
+                return nullOrUnexpected(p, ctxt, BidRequest.Device.class);
+            }
+            BidRequest.Device device = new BidRequest.Device();
+            for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+                p.nextToken();
+                switch (name) {
+                    case "ip" -> device.ip = text(p, ctxt);
+                    case "os" -> device.os = text(p, ctxt);
+                    case "ua" -> device.ua = text(p, ctxt);
+                    case "ifa" -> device.ifa = text(p, ctxt);
+                    case "geo" -> device.geo = text(p, ctxt);
+                    case "lmt" -> device.lmt = integer(p, ctxt);
+                    default -> p.skipChildren();
+                }
+            }
+            return device;
+        }
+
+        private static BidRequest.User user(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (!p.isExpectedStartObjectToken()) {
+                return nullOrUnexpected(p, ctxt, BidRequest.User.class);
+            }
+            BidRequest.User user = new BidRequest.User();
+            for (String name = p.nextFieldName(); name != null; name = p.nextFieldName()) {
+                p.nextToken();
+                if ("id".equals(name)) {
+                    user.id = text(p, ctxt);
+                } else {
+                    p.skipChildren();
+                }
+            }
+            return user;
+        }
+
+        private static <T> T nullOrUnexpected(JsonParser p, DeserializationContext ctxt, Class<T> type) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_NULL)) {
+                return null;
+            }
+            return type.cast(ctxt.handleUnexpectedToken(type, p));
+        }
+
+        private static String text(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_STRING)) {
+                return p.getText();
+            }
+            if (p.hasToken(JsonToken.VALUE_NULL)) {
+                return null;
+            }
+            return ctxt.readValue(p, String.class);
+        }
+
+        private static int integer(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.hasToken(JsonToken.VALUE_NUMBER_INT)) {
+                return p.getIntValue();
+            }
+            return ctxt.readValue(p, int.class);
+        }
+    }
+
+    private static final class Writer extends StdSerializer<BidRequest> {
+
+        Writer() {
+            super(BidRequest.class);
+        }
+
+        @Override
+        public void serialize(BidRequest request, JsonGenerator g, SerializerProvider provider) throws IOException {
+            g.writeStartObject(request);
+            string(g, ID, request.id);
+            if (request.site != null) {
+                g.writeFieldName(SITE);
+                g.writeStartObject(request.site);
+                string(g, ID, request.site.id);
+                string(g, DOMAIN, request.site.domain);
+                g.writeEndObject();
+            }
+            if (request.app != null) {
+                g.writeFieldName(APP);
+                g.writeStartObject(request.app);
+                string(g, ID, request.app.id);
+                string(g, BUNDLE, request.app.bundle);
+                g.writeEndObject();
+            }
+            if (request.device != null) {
+                g.writeFieldName(DEVICE);
+                g.writeStartObject(request.device);
+                string(g, IP, request.device.ip);
+                string(g, OS, request.device.os);
+                string(g, UA, request.device.ua);
+                string(g, IFA, request.device.ifa);
+                string(g, GEO, request.device.geo);
+                g.writeFieldName(LMT);
+                g.writeNumber(request.device.lmt);
+                g.writeEndObject();
+            }
+            if (request.user != null) {
+                g.writeFieldName(USER);
+                g.writeStartObject(request.user);
+                string(g, ID, request.user.id);
+                g.writeEndObject();
+            }
+            g.writeEndObject();
+        }
+
+        private static void string(JsonGenerator g, SerializedString name, String value) throws IOException {
+            if (value != null) {
+                g.writeFieldName(name);
+                g.writeString(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package demo.adtech;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes gzip and zstd request bodies before they reach the message converters.
+ *
+ * The servlet input stream is wrapped in a {@link RequestDecompressor} stream, so the
+ * JSON parser pulls decompressed bytes straight off the socket on the request's virtual
+ * thread. The pooled codec state is returned when the filter chain completes. Unknown
+ * encodings are answered with 415.
+ */
+@Component
+public class DecompressionFilter extends OncePerRequestFilter {
+
+    private final RequestDecompressor decompressor;
+
+    public DecompressionFilter(RequestDecompressor decompressor) {
+        this.decompressor = decompressor;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (RequestDecompressor.isIdentity(encoding)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!decompressor.supports(encoding)) {
+            response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+            return;
+        }
+
+        try (InputStream body = decompressor.open(encoding, request.getInputStream())) {
+            chain.doFilter(new DecompressedRequest(request, body), response);
+        }
+    }
+
+    private static final class DecompressedRequest extends HttpServletRequestWrapper {
+        private final ServletInputStream body;
+
+        private DecompressedRequest(HttpServletRequest request, InputStream decompressed) {
+            super(request);
+            this.body = new DecompressedInputStream(decompressed);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1L;
+        }
+    }
+
+    private static final class DecompressedInputStream extends ServletInputStream {
+        private final InputStream delegate;
+        private boolean finished;
+
+        private DecompressedInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = delegate.read();
+            finished = read < 0;
+            return read;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = delegate.read(b, off, len);
+            finished = read < 0;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            throw new UnsupportedOperationException("Decompressed bodies are read blocking");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package demo.adtech;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Key-hash partitioner that stops pinning hot keys to a single partition.
+ *
+ * Keys are hashed with murmur2 like Kafka's default partitioner. Each hash also counts
+ * against one of {@value #SLOTS} per-second slots; once a slot exceeds the
+ * {@code hot.key.threshold.per.sec} producer setting within the current second, its keys
+ * are spread round-robin over the available partitions for the rest of that second. Spread keys lose per-key
+ * ordering and locality, which is the trade for not overloading one partition; a cold key
+ * that shares a slot with a hot one is spread too.
+ */
+public final class HotKeyPartitioner implements Partitioner {
+
+    static final String THRESHOLD_CONFIG = "hot.key.threshold.per.sec";
+
+    private static final int SLOTS = 4096;
+
+    // Each slot packs the current second (high 32 bits) and its count (low 32 bits).
+    private final AtomicLongArray slots = new AtomicLongArray(SLOTS);
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private long threshold = 1000;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object raw = configs.get(THRESHOLD_CONFIG);
+        if (raw != null) {
+            threshold = Long.parseLong(raw.toString());
+        }
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int partitions = cluster.partitionsForTopic(topic).size();
+        if (keyBytes == null) {
+            return spread(topic, cluster, partitions);
+        }
+        int hash = Utils.murmur2(keyBytes);
+        if (isHot(hash, System.currentTimeMillis() / 1000)) {
+            return spread(topic, cluster, partitions);
+        }
+        return Utils.toPositive(hash) % partitions;
+    }
+
+    boolean isHot(int hash, long second) {
+        int slot = hash & (SLOTS - 1);
+        long window = second & 0x7FFF_FFFFL;
+        while (true) {
+            long current = slots.get(slot);
+            long count = (current >>> 32) == window ? (current & 0xFFFF_FFFFL) + 1 : 1;
+            if (slots.compareAndSet(slot, current, (window << 32) | Math.min(count, 0xFFFF_FFFFL))) {
+                return count > threshold;
+            }
+        }
+    }
+
+    private int spread(String topic, Cluster cluster, int partitions) {
+        int next = Utils.toPositive(roundRobin.getAndIncrement());
+        List<PartitionInfo> available = cluster.availablePartitionsForTopic(topic);
+        if (!available.isEmpty()) {
+            return available.get(next % available.size()).partition();
+        }
+        return next % partitions;
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -3,6 +3,7 @@ package demo.adtech;
 import jakarta.annotation.PreDestroy;
 import org.apache.kafka.clients.producer.Callback;
 import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.common.serialization.StringSerializer;
@@ -11,28 +12,54 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.nio.ByteBuffer;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Component
 public class KafkaBidPublisher implements BidPublisher {
 
     private static final Logger LOG = LoggerFactory.getLogger(KafkaBidPublisher.class);
 
-    private final KafkaProducer<String, byte[]> producer;
+    /**
+     * Record header carrying the epoch millis at which the HTTP request arrived, as an
+     * 8-byte big-endian long. The sinker uses it as event time and for end-to-end latency.
+     */
+    static final String RECEIVED_AT_HEADER = "received-at";
+
+    private final Producer<String, byte[]> producer;
+    private final ExecutorService senders;
     private final BenchmarkSettings settings;
+    private final BidRouter router;
+    private final String shadowTopic;
 
     public KafkaBidPublisher(BenchmarkSettings settings) {
+        this(settings, settings.usesKafka() ? new KafkaProducer<>(buildProperties(settings)) : null);
+    }
+
+    KafkaBidPublisher(BenchmarkSettings settings, Producer<String, byte[]> producer) {
         this.settings = settings;
-        this.producer = settings.usesKafka() ? new KafkaProducer<>(buildProperties(settings)) : null;
+        this.router = settings.router();
+        this.shadowTopic = settings.kafkaShadowTopic();
+        this.producer = producer;
+        this.senders = producer != null && settings.kafkaSenderThreads() > 0 ? newSenderPool(settings) : null;
 
         if (this.producer == null) {
             LOG.info("HTTP-only benchmark mode enabled; skipping Kafka producer initialization");
         } else {
             LOG.info(
-                    "Initialized Spring virtual receiver publisher (delivery_mode={}, topic={}, acks={}, retries={}, retry_backoff_ms={})",
+                    "Initialized Spring virtual receiver publisher (delivery_mode={}, routing=[{}], shadow_topic={}, partitioner={}, sender_threads={}, acks={}, retries={}, retry_backoff_ms={})",
                     settings.deliveryMode(),
-                    settings.kafkaTopic(),
+                    router,
+                    shadowTopic == null ? "none" : shadowTopic,
+                    settings.kafkaPartitioner(),
+                    settings.kafkaSenderThreads(),
                     settings.kafkaAcks(),
                     settings.kafkaRetries(),
                     settings.kafkaRetryBackoffMs()
@@ -41,15 +68,57 @@ public class KafkaBidPublisher implements BidPublisher {
     }
 
     @Override
-    public CompletableFuture<Void> publish(String key, byte[] payload, boolean confirm) {
+    public CompletableFuture<Void> publish(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm) {
+        return publish(router.topic(request), request, payload, receivedAtMs, confirm);
+    }
+
+    @Override
+    public CompletableFuture<Void> publishShadow(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm) {
+        if (shadowTopic == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return publish(shadowTopic, request, payload, receivedAtMs, confirm);
+    }
+
+    private CompletableFuture<Void> publish(
+            String topic,
+            BidRequest request,
+            byte[] payload,
+            long receivedAtMs,
+            boolean confirm
+    ) {
         if (producer == null) {
             CompletableFuture<Void> failed = new CompletableFuture<>();
             failed.completeExceptionally(new PublisherUnavailableException(null));
             return failed;
         }
 
-        ProducerRecord<String, byte[]> record = new ProducerRecord<>(settings.kafkaTopic(), key, payload);
+        ProducerRecord<String, byte[]> record = new ProducerRecord<>(topic, router.key(request), payload);
+        record.headers().add(RECEIVED_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(receivedAtMs).array());
+        RoutingHeaders.of(request).addTo(record.headers());
+
+        if (senders == null) {
+            return send(record, confirm);
+        }
 
+        // The request's virtual thread only parks on the future, which unmounts it; the send,
+        // with its monitors and blocking waits, runs on a platform thread.
+        CompletableFuture<Void> delivery = new CompletableFuture<>();
+        try {
+            senders.execute(() -> send(record, confirm).whenComplete((ignored, failure) -> {
+                if (failure == null) {
+                    delivery.complete(null);
+                } else {
+                    delivery.completeExceptionally(failure);
+                }
+            }));
+        } catch (RejectedExecutionException exception) {
+            delivery.completeExceptionally(new PublisherBackpressureException(exception));
+        }
+        return delivery;
+    }
+
+    private CompletableFuture<Void> send(ProducerRecord<String, byte[]> record, boolean confirm) {
         if (!confirm) {
             try {
                 producer.send(record);
@@ -82,11 +151,39 @@ public class KafkaBidPublisher implements BidPublisher {
     @PreDestroy
     @Override
     public void close() {
+        if (senders != null) {
+            senders.shutdown();
+            try {
+                senders.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
         if (producer != null) {
             producer.close();
         }
     }
 
+    /**
+     * A fixed pool of platform threads with a bounded queue: once the queue is full, a
+     * publish fails at once with {@link PublisherBackpressureException} instead of piling
+     * up more parked requests.
+     */
+    private static ExecutorService newSenderPool(BenchmarkSettings settings) {
+        AtomicInteger counter = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                settings.kafkaSenderThreads(),
+                settings.kafkaSenderThreads(),
+                0L,
+                TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(settings.kafkaSenderQueueCapacity()),
+                runnable -> Thread.ofPlatform()
+                        .name("kafka-sender-" + counter.getAndIncrement())
+                        .daemon(true)
+                        .unstarted(runnable)
+        );
+    }
+
     private static Properties buildProperties(BenchmarkSettings settings) {
         Properties properties = new Properties();
         properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, settings.kafkaBootstrapServers());
@@ -99,6 +196,10 @@ public class KafkaBidPublisher implements BidPublisher {
         properties.put(ProducerConfig.REQUEST_TIMEOUT_MS_CONFIG, Integer.toString(settings.kafkaRequestTimeoutMs()));
         properties.put(ProducerConfig.RETRIES_CONFIG, Integer.toString(settings.kafkaRetries()));
         properties.put(ProducerConfig.RETRY_BACKOFF_MS_CONFIG, Integer.toString(settings.kafkaRetryBackoffMs()));
+        if (settings.usesHotKeyPartitioner()) {
+            properties.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, HotKeyPartitioner.class.getName());
+            properties.put(HotKeyPartitioner.THRESHOLD_CONFIG, Integer.toString(settings.kafkaHotKeyThreshold()));
+        }
         properties.put(
                 ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG,
                 Integer.toString(computeDeliveryTimeoutMs(settings))
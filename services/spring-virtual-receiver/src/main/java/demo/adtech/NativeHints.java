@@ -0,0 +1,60 @@
+package demo.adtech;
+
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdException;
+import org.apache.kafka.common.metrics.JmxReporter;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.apache.kafka.common.utils.AppInfoParser;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reflection, resource and JNI metadata for the native image.
+ *
+ * Spring AOT sees the beans and the controller's request bodies, but not what the
+ * libraries underneath reach by name at runtime: Jackson binds {@link BidRequest} and its
+ * nested types reflectively, the Kafka client instantiates the serializers, the
+ * partitioner and its metrics reporter from class names in the producer config and reads
+ * its version from a resource, and zstd-jni extracts its shared library from the jar and
+ * reads the context's fields from native code.
+ */
+class NativeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        registerBidRequest(hints);
+        registerKafkaClient(hints);
+        registerZstd(hints);
+    }
+
+    private static void registerBidRequest(RuntimeHints hints) {
+        MemberCategory[] bound = {MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.ACCESS_PUBLIC_FIELDS};
+        hints.reflection().registerType(BidRequest.class, bound);
+        for (Class<?> nested : BidRequest.class.getDeclaredClasses()) {
+            hints.reflection().registerType(nested, bound);
+        }
+    }
+
+    private static void registerKafkaClient(RuntimeHints hints) {
+        for (Class<?> type : new Class<?>[]{
+                StringSerializer.class,
+                ByteArraySerializer.class,
+                HotKeyPartitioner.class,
+                JmxReporter.class
+        }) {
+            hints.reflection().registerType(type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        }
+        hints.reflection().registerType(AppInfoParser.AppInfo.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.reflection().registerType(AppInfoParser.AppInfoMBean.class, MemberCategory.INVOKE_PUBLIC_METHODS);
+        hints.resources().registerPattern("kafka/kafka-version.properties");
+    }
+
+    private static void registerZstd(RuntimeHints hints) {
+        hints.resources().registerPattern("linux/*/libzstd-jni-*.so");
+        hints.jni().registerType(ZstdDecompressCtx.class,
+                MemberCategory.ACCESS_DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_METHODS);
+        hints.jni().registerType(ZstdException.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
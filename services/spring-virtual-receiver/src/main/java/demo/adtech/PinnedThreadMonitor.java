@@ -0,0 +1,107 @@
+package demo.adtech;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams the JDK's {@code jdk.VirtualThreadPinned} events into metrics.
+ *
+ * A virtual thread that blocks while pinned keeps its carrier, and with only one carrier
+ * per core a few long pins are enough to stall every other request. Each pin above the
+ * threshold is recorded in {@code receiver.vthread.pinned}, whose count and duration
+ * percentiles can be lined up against request latency. The first pin seen at each
+ * call site is logged with its stack, so the blocking call can be found and moved.
+ */
+@Component
+public class PinnedThreadMonitor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PinnedThreadMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_LOGGED_SITES = 64;
+    private static final int LOGGED_FRAMES = 12;
+
+    private final RecordingStream stream;
+    private final Set<String> loggedSites = ConcurrentHashMap.newKeySet();
+
+    public PinnedThreadMonitor(BenchmarkSettings settings, MeterRegistry registry) {
+        if (!settings.pinnedMonitorEnabled()) {
+            this.stream = null;
+            return;
+        }
+
+        Timer pinned = Timer.builder("receiver.vthread.pinned")
+                .description("Virtual threads that blocked while pinned to their carrier")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+
+        this.stream = new RecordingStream();
+        stream.enable(PINNED_EVENT)
+                .withThreshold(Duration.ofMillis(settings.pinnedThresholdMs()))
+                .withStackTrace();
+        stream.onEvent(PINNED_EVENT, event -> {
+            pinned.record(event.getDuration());
+            logFirstAtSite(event);
+        });
+        stream.startAsync();
+        LOG.info("Virtual thread pinning monitor started (threshold_ms={})", settings.pinnedThresholdMs());
+    }
+
+    @PreDestroy
+    public void close() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void logFirstAtSite(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null || stackTrace.getFrames().isEmpty() || loggedSites.size() >= MAX_LOGGED_SITES) {
+            return;
+        }
+
+        String site = describe(callSite(stackTrace.getFrames()));
+        if (!loggedSites.add(site)) {
+            return;
+        }
+
+        StringBuilder frames = new StringBuilder();
+        int limit = Math.min(LOGGED_FRAMES, stackTrace.getFrames().size());
+        for (int i = 0; i < limit; i++) {
+            frames.append("\n\tat ").append(describe(stackTrace.getFrames().get(i)));
+        }
+        LOG.warn("Virtual thread pinned for {} ms{}", event.getDuration().toMillis(), frames);
+    }
+
+    /**
+     * The top frames are the JDK's own parking code; the first frame outside the JDK is the
+     * caller that blocked.
+     */
+    private static RecordedFrame callSite(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return frame;
+            }
+        }
+        return frames.get(0);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
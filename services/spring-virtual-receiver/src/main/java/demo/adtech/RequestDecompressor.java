@@ -0,0 +1,478 @@
+package demo.adtech;
+
+import com.github.luben.zstd.ZstdDecompressCtx;
+import com.github.luben.zstd.ZstdException;
+import com.github.luben.zstd.util.Native;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Streaming decoder for {@code Content-Encoding: gzip} and {@code zstd} request bodies.
+ *
+ * {@link #open(String, InputStream)} wraps the compressed body in a stream that the JSON
+ * parser reads directly. The inflater, the zstd context and the I/O buffers live in a
+ * pooled {@link State} that is borrowed for the lifetime of that stream and returned on
+ * close, so steady-state requests allocate no codec state or buffers. Reading more than
+ * the configured number of decompressed bytes fails with {@link LimitExceededException},
+ * which caps what a small zip bomb can expand to.
+ *
+ * Time spent inside the codec is recorded per encoding as
+ * {@code receiver.decompression.time}. The compressed body is already in memory or
+ * arrives through the stream between codec calls, so this is the CPU cost of
+ * decompression, excluding I/O waits.
+ */
+final class RequestDecompressor {
+
+    static final String GZIP = "gzip";
+    static final String ZSTD = "zstd";
+
+    private static final int BUFFER_BYTES = 16 * 1024;
+    private static final boolean ZSTD_AVAILABLE = loadZstd();
+
+    private final long maxBytes;
+    private final ArrayBlockingQueue<State> pool;
+    private final Meters gzipMeters;
+    private final Meters zstdMeters;
+
+    RequestDecompressor(long maxBytes, int poolSize, MeterRegistry registry) {
+        this.maxBytes = maxBytes;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.gzipMeters = new Meters(GZIP, registry);
+        this.zstdMeters = new Meters(ZSTD, registry);
+    }
+
+    /**
+     * @return true when the body is sent as is and needs no decoding
+     */
+    static boolean isIdentity(String contentEncoding) {
+        return contentEncoding == null || contentEncoding.isBlank() || "identity".equalsIgnoreCase(contentEncoding.trim());
+    }
+
+    boolean supports(String contentEncoding) {
+        String encoding = normalize(contentEncoding);
+        return GZIP.equals(encoding) || (ZSTD.equals(encoding) && ZSTD_AVAILABLE);
+    }
+
+    long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * Wraps {@code body}. The returned stream must be closed to hand the codec state back
+     * to the pool; closing it also closes {@code body}. No bytes are read until the caller does.
+     *
+     * @throws IllegalArgumentException if the encoding is not {@link #supports(String) supported}
+     */
+    InputStream open(String contentEncoding, InputStream body) {
+        String encoding = normalize(contentEncoding);
+        if (GZIP.equals(encoding)) {
+            return new GzipStream(body, borrow(), gzipMeters);
+        }
+        if (ZSTD.equals(encoding) && ZSTD_AVAILABLE) {
+            return new ZstdStream(body, borrow(), zstdMeters);
+        }
+        throw new IllegalArgumentException("Unsupported Content-Encoding: " + contentEncoding);
+    }
+
+    /**
+     * @return true if {@code failure} or one of its causes is a {@link LimitExceededException}
+     */
+    static boolean isLimitExceeded(Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause()) {
+            if (current instanceof LimitExceededException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String normalize(String contentEncoding) {
+        if (contentEncoding == null) {
+            return null;
+        }
+        String encoding = contentEncoding.trim().toLowerCase(Locale.ROOT);
+        return "x-gzip".equals(encoding) ? GZIP : encoding;
+    }
+
+    private State borrow() {
+        State state = pool.poll();
+        return state != null ? state : new State();
+    }
+
+    private void release(State state) {
+        if (!pool.offer(state)) {
+            state.dispose();
+        }
+    }
+
+    private static boolean loadZstd() {
+        try {
+            Native.load();
+            return Native.isLoaded();
+        } catch (Throwable unavailable) {
+            return false;
+        }
+    }
+
+    /**
+     * Thrown once a body decompresses to more than the configured limit.
+     */
+    static final class LimitExceededException extends IOException {
+        LimitExceededException(long maxBytes) {
+            super("Decompressed request body exceeds " + maxBytes + " bytes");
+        }
+    }
+
+    /**
+     * Thrown for bodies that are not valid for their declared encoding.
+     */
+    static final class MalformedBodyException extends IOException {
+        MalformedBodyException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    private static final class Meters {
+        private final Timer time;
+        private final Counter compressedBytes;
+        private final Counter decompressedBytes;
+        private final Counter rejected;
+
+        private Meters(String encoding, MeterRegistry registry) {
+            this.time = Timer.builder("receiver.decompression.time")
+                    .description("Time spent decompressing request bodies")
+                    .tag("encoding", encoding)
+                    .register(registry);
+            this.compressedBytes = Counter.builder("receiver.decompression.bytes")
+                    .baseUnit("bytes")
+                    .tag("encoding", encoding)
+                    .tag("side", "compressed")
+                    .register(registry);
+            this.decompressedBytes = Counter.builder("receiver.decompression.bytes")
+                    .baseUnit("bytes")
+                    .tag("encoding", encoding)
+                    .tag("side", "decompressed")
+                    .register(registry);
+            this.rejected = Counter.builder("receiver.decompression.rejected")
+                    .description("Compressed bodies rejected as malformed or over the size limit")
+                    .tag("encoding", encoding)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Codec state and buffers reused across requests. The zstd parts are created on first use.
+     */
+    private static final class State {
+        private final byte[] input = new byte[BUFFER_BYTES];
+        private final Inflater inflater = new Inflater(true);
+        private final CRC32 crc = new CRC32();
+        private ZstdDecompressCtx zstd;
+        private ByteBuffer zstdSource;
+        private ByteBuffer zstdTarget;
+
+        private void resetGzip() {
+            inflater.reset();
+            crc.reset();
+        }
+
+        private void resetZstd() {
+            if (zstd == null) {
+                zstd = new ZstdDecompressCtx();
+                zstdSource = ByteBuffer.allocateDirect(BUFFER_BYTES);
+                zstdTarget = ByteBuffer.allocateDirect(BUFFER_BYTES);
+            } else {
+                zstd.reset();
+            }
+            zstdSource.clear().flip();
+            zstdTarget.clear().flip();
+        }
+
+        private void dispose() {
+            inflater.end();
+            if (zstd != null) {
+                zstd.close();
+            }
+        }
+    }
+
+    /**
+     * Counts, times and bounds the output of one codec; subclasses only implement {@link #decode}.
+     */
+    private abstract class DecompressingStream extends InputStream {
+        final InputStream source;
+        final State state;
+        private final Meters meters;
+        private long compressed;
+        private long decompressed;
+        private long codecNanos;
+        private boolean failed;
+        private boolean closed;
+
+        DecompressingStream(InputStream source, State state, Meters meters) {
+            this.source = source;
+            this.state = state;
+            this.meters = meters;
+        }
+
+        /**
+         * Decodes up to {@code len} bytes, or returns -1 at the end of the compressed body.
+         */
+        abstract int decode(byte[] b, int off, int len) throws IOException;
+
+        /**
+         * Reads compressed bytes into the pooled input buffer.
+         */
+        final int fill() throws IOException {
+            int read = source.read(state.input);
+            if (read > 0) {
+                compressed += read;
+            }
+            return read;
+        }
+
+        /**
+         * Marks the start of a codec call; pass the result to {@link #stopCodec(long)}.
+         */
+        final long startCodec() {
+            return System.nanoTime();
+        }
+
+        final void stopCodec(long started) {
+            codecNanos += System.nanoTime() - started;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (len == 0) {
+                return 0;
+            }
+            int remaining = (int) Math.min(len, maxBytes - decompressed + 1);
+            int read;
+            try {
+                read = decode(b, off, remaining);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+            if (read > 0) {
+                decompressed += read;
+                if (decompressed > maxBytes) {
+                    failed = true;
+                    throw new LimitExceededException(maxBytes);
+                }
+            }
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            meters.time.record(codecNanos, TimeUnit.NANOSECONDS);
+            meters.compressedBytes.increment(compressed);
+            meters.decompressedBytes.increment(decompressed);
+            if (failed) {
+                meters.rejected.increment();
+            }
+            release(state);
+            source.close();
+        }
+    }
+
+    /**
+     * RFC 1952 reader on top of a pooled raw {@link Inflater}; {@code GZIPInputStream} would
+     * allocate an inflater and buffers per request. Only the first member is read.
+     */
+    private final class GzipStream extends DecompressingStream {
+        private static final int FHCRC = 2;
+        private static final int FEXTRA = 4;
+        private static final int FNAME = 8;
+        private static final int FCOMMENT = 16;
+
+        private int position;
+        private int limit;
+        private boolean started;
+        private boolean finished;
+
+        private GzipStream(InputStream source, State state, Meters meters) {
+            super(source, state, meters);
+            state.resetGzip();
+        }
+
+        @Override
+        int decode(byte[] b, int off, int len) throws IOException {
+            if (!started) {
+                readHeader();
+                started = true;
+            }
+            Inflater inflater = state.inflater;
+            while (!finished) {
+                int inflated;
+                long codec = startCodec();
+                try {
+                    inflated = inflater.inflate(b, off, len);
+                } catch (DataFormatException e) {
+                    throw new MalformedBodyException("Corrupt gzip body", e);
+                } finally {
+                    stopCodec(codec);
+                }
+                if (inflated > 0) {
+                    state.crc.update(b, off, inflated);
+                    return inflated;
+                }
+                if (inflater.finished()) {
+                    position = limit - inflater.getRemaining();
+                    readTrailer();
+                    finished = true;
+                } else if (inflater.needsDictionary()) {
+                    throw new MalformedBodyException("Gzip body needs a preset dictionary", null);
+                } else if (inflater.needsInput()) {
+                    if (position == limit && !refill()) {
+                        throw new MalformedBodyException("Truncated gzip body", new EOFException());
+                    }
+                    inflater.setInput(state.input, position, limit - position);
+                    position = limit;
+                }
+            }
+            return -1;
+        }
+
+        private void readHeader() throws IOException {
+            if (readUnsignedByte() != 0x1F || readUnsignedByte() != 0x8B) {
+                throw new MalformedBodyException("Body is not in gzip format", null);
+            }
+            if (readUnsignedByte() != 8) {
+                throw new MalformedBodyException("Unsupported gzip compression method", null);
+            }
+            int flags = readUnsignedByte();
+            skip(6); // MTIME, XFL, OS
+            if ((flags & FEXTRA) != 0) {
+                skip(readUnsignedByte() | readUnsignedByte() << 8);
+            }
+            if ((flags & FNAME) != 0) {
+                skipZeroTerminated();
+            }
+            if ((flags & FCOMMENT) != 0) {
+                skipZeroTerminated();
+            }
+            if ((flags & FHCRC) != 0) {
+                skip(2);
+            }
+        }
+
+        private void readTrailer() throws IOException {
+            long crc = readInt();
+            long size = readInt();
+            if (crc != state.crc.getValue() || size != (state.inflater.getBytesWritten() & 0xFFFF_FFFFL)) {
+                throw new MalformedBodyException("Gzip trailer does not match the body", null);
+            }
+        }
+
+        private long readInt() throws IOException {
+            return (readUnsignedByte() | readUnsignedByte() << 8 | readUnsignedByte() << 16 | (long) readUnsignedByte() << 24);
+        }
+
+        private void skipZeroTerminated() throws IOException {
+            while (readUnsignedByte() != 0) {
+                // skip
+            }
+        }
+
+        private void skip(int bytes) throws IOException {
+            for (int i = 0; i < bytes; i++) {
+                readUnsignedByte();
+            }
+        }
+
+        private int readUnsignedByte() throws IOException {
+            if (position == limit && !refill()) {
+                throw new MalformedBodyException("Truncated gzip body", new EOFException());
+            }
+            return state.input[position++] & 0xFF;
+        }
+
+        private boolean refill() throws IOException {
+            int read = fill();
+            if (read < 0) {
+                return false;
+            }
+            position = 0;
+            limit = read;
+            return true;
+        }
+    }
+
+    /**
+     * Streams through a pooled {@link ZstdDecompressCtx} with pooled direct buffers.
+     */
+    private final class ZstdStream extends DecompressingStream {
+        private boolean frameDone;
+        private boolean targetFull;
+
+        private ZstdStream(InputStream source, State state, Meters meters) {
+            super(source, state, meters);
+            state.resetZstd();
+        }
+
+        @Override
+        int decode(byte[] b, int off, int len) throws IOException {
+            ByteBuffer sourceBuffer = state.zstdSource;
+            ByteBuffer target = state.zstdTarget;
+            while (true) {
+                if (target.hasRemaining()) {
+                    int copied = Math.min(len, target.remaining());
+                    target.get(b, off, copied);
+                    return copied;
+                }
+                if (sourceBuffer.hasRemaining() || targetFull) {
+                    target.clear();
+                    long codec = startCodec();
+                    try {
+                        frameDone = state.zstd.decompressDirectByteBufferStream(target, sourceBuffer);
+                    } catch (ZstdException e) {
+                        throw new MalformedBodyException("Corrupt zstd body", e);
+                    } finally {
+                        stopCodec(codec);
+                    }
+                    target.flip();
+                    targetFull = target.limit() == target.capacity();
+                    continue;
+                }
+                int read = fill();
+                if (read < 0) {
+                    if (frameDone) {
+                        return -1;
+                    }
+                    throw new MalformedBodyException("Truncated zstd body", new EOFException());
+                }
+                sourceBuffer.clear();
+                sourceBuffer.put(state.input, 0, read);
+                sourceBuffer.flip();
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package demo.adtech;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Delivers a request's bids with its independent work forked onto virtual threads owned
+ * by the request.
+ *
+ * In the sequential path the request thread does everything itself: it serializes and
+ * sends each record in turn, and only then waits for the confirmations. Here every unit
+ * that does not depend on another runs in its own virtual thread, from an executor the
+ * request thread opens and closes around the work: the primary and the shadow publish of
+ * a single bid, and serialization plus publishing of each bid in a batch. The request's
+ * delivery deadline bounds the wait. When it passes, or when either publish of a single
+ * bid fails, the tasks that are still running are cancelled and interrupted, including
+ * one blocked in {@code KafkaProducer.send} on metadata or a full buffer, which the
+ * sequential path cannot abandon. Closing the executor waits for them to finish, so no
+ * task outlives the request. Records already handed to the producer are still sent.
+ *
+ * A bid's payload has to exist before it can be published, so serializing a single bid
+ * stays ahead of the fork.
+ */
+final class StructuredDelivery {
+
+    private final BidPublisher publisher;
+    private final ObjectMapper objectMapper;
+    private final AdmissionLimiter admissionLimiter;
+    private final boolean shadow;
+
+    StructuredDelivery(
+            BidPublisher publisher,
+            ObjectMapper objectMapper,
+            AdmissionLimiter admissionLimiter,
+            BenchmarkSettings settings
+    ) {
+        this.publisher = publisher;
+        this.objectMapper = objectMapper;
+        this.admissionLimiter = admissionLimiter;
+        this.shadow = settings.kafkaShadowTopic() != null;
+    }
+
+    /**
+     * Publishes one serialized bid, and its shadow copy alongside if a shadow topic is set.
+     *
+     * @throws CompletionException wrapping the first delivery failure
+     * @throws TimeoutException    if the deadline passed first
+     */
+    void deliver(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm, long deadlineNanos)
+            throws TimeoutException {
+        if (!shadow) {
+            // Nothing to run alongside the publish, so a fork would only add a thread hop.
+            admissionLimiter.await(publisher.publish(request, payload, receivedAtMs, confirm), deadlineNanos);
+            return;
+        }
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<Void> subtasks = new ExecutorCompletionService<>(executor);
+            List<Future<Void>> forked = List.of(
+                    subtasks.submit(() -> {
+                        admissionLimiter.await(publisher.publish(request, payload, receivedAtMs, confirm), deadlineNanos);
+                        return null;
+                    }),
+                    subtasks.submit(() -> {
+                        admissionLimiter.await(publisher.publishShadow(request, payload, receivedAtMs, confirm), deadlineNanos);
+                        return null;
+                    })
+            );
+            try {
+                for (int i = 0; i < forked.size(); i++) {
+                    Future<Void> done = subtasks.poll(remaining(deadlineNanos), TimeUnit.NANOSECONDS);
+                    if (done == null) {
+                        admissionLimiter.recordDeliveryTimeout();
+                        throw new TimeoutException("Delivery deadline passed");
+                    }
+                    done.get();
+                }
+            } catch (ExecutionException exception) {
+                Throwable cause = exception.getCause();
+                if (cause instanceof TimeoutException timeout) {
+                    throw timeout;
+                }
+                throw cause instanceof CompletionException completion ? completion : new CompletionException(cause);
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(exception);
+            } finally {
+                cancel(forked);
+            }
+        }
+    }
+
+    /**
+     * Serializes and publishes every bid of a batch whose status is {@code 200}, each in its
+     * own task, and overwrites that status with the outcome. Bids still in flight when the
+     * deadline passes are answered {@code 503}.
+     */
+    void deliverAll(List<BidRequest> batch, int[] statuses, long receivedAtMs, boolean confirm, long deadlineNanos) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> forked = new ArrayList<>();
+            for (int i = 0; i < statuses.length; i++) {
+                if (statuses[i] != HttpStatus.OK.value()) {
+                    continue;
+                }
+                int item = i;
+                BidRequest request = batch.get(item);
+                statuses[item] = HttpStatus.SERVICE_UNAVAILABLE.value();
+                forked.add(executor.submit(() -> {
+                    statuses[item] = deliverItem(request, receivedAtMs, confirm, deadlineNanos);
+                }));
+            }
+            try {
+                for (Future<?> task : forked) {
+                    task.get(remaining(deadlineNanos), TimeUnit.NANOSECONDS);
+                }
+            } catch (TimeoutException exception) {
+                admissionLimiter.recordDeliveryTimeout();
+            } catch (ExecutionException exception) {
+                // deliverItem maps its own failures to a status; anything else leaves the 503.
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            } finally {
+                cancel(forked);
+            }
+        }
+        // Closing the executor waited for every task, so their writes to statuses are visible here.
+    }
+
+    private int deliverItem(BidRequest request, long receivedAtMs, boolean confirm, long deadlineNanos) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(request);
+        } catch (JsonProcessingException exception) {
+            return HttpStatus.INTERNAL_SERVER_ERROR.value();
+        }
+
+        CompletableFuture<Void> delivery = publisher.publish(request, payload, receivedAtMs, confirm);
+        CompletableFuture<Void> shadowDelivery = publisher.publishShadow(request, payload, receivedAtMs, confirm);
+        try {
+            admissionLimiter.await(delivery, deadlineNanos);
+            admissionLimiter.await(shadowDelivery, deadlineNanos);
+        } catch (TimeoutException | CompletionException exception) {
+            return HttpStatus.SERVICE_UNAVAILABLE.value();
+        }
+        return HttpStatus.OK.value();
+    }
+
+    private static void cancel(List<? extends Future<?>> tasks) {
+        for (Future<?> task : tasks) {
+            task.cancel(true);
+        }
+    }
+
+    private static long remaining(long deadlineNanos) {
+        return Math.max(0, deadlineNanos - System.nanoTime());
+    }
+}
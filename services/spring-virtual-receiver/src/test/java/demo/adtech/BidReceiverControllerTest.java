@@ -1,13 +1,21 @@
 package demo.adtech;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.Filter;
+import org.apache.kafka.common.header.internals.RecordHeaders;
 import org.junit.jupiter.api.Test;
 import org.springframework.http.MediaType;
+import org.springframework.mock.env.MockEnvironment;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -42,6 +50,7 @@ class BidReceiverControllerTest {
                 publisher
         );
 
+        long requestedAt = System.currentTimeMillis();
         mockMvc.perform(post("/bid-request")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(validPayload()))
@@ -51,6 +60,14 @@ class BidReceiverControllerTest {
         if (!publisher.lastConfirm) {
             throw new AssertionError("Expected confirm mode to wait for Kafka delivery");
         }
+        if (publisher.lastReceivedAtMs < requestedAt) {
+            throw new AssertionError("Expected the receive timestamp to be taken when the request arrived");
+        }
+        RecordHeaders headers = new RecordHeaders();
+        RoutingHeaders.of(publisher.lastRequest).addTo(headers);
+        if (!"site".equals(new String(headers.lastHeader(RoutingHeaders.INVENTORY).value()))) {
+            throw new AssertionError("Expected site inventory routing header");
+        }
     }
 
     @Test
@@ -115,6 +132,62 @@ class BidReceiverControllerTest {
                 .andExpect(jsonPath("$.status").value("kafka buffer full"));
     }
 
+    @Test
+    void answersNdjsonBatchWithPerItemStatuses() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(CompletableFuture.completedFuture(null));
+        MockMvc mockMvc = buildMockMvc(
+                BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "1"),
+                publisher
+        );
+
+        String ndjson = validPayload() + "\n"
+                + "{\"id\":\"req-2\",\"site\":{\"id\":\"site-1\"},\"device\":{\"lmt\":1}}\n"
+                + "{\"id\":\"req-3\"}\n";
+        mockMvc.perform(post("/bid-requests")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(3))
+                .andExpect(jsonPath("$.items[0]").value(200))
+                .andExpect(jsonPath("$.items[1]").value(204))
+                .andExpect(jsonPath("$.items[2]").value(400));
+
+        if (publisher.published != 1) {
+            throw new AssertionError("Expected only the valid bid to be published, got " + publisher.published);
+        }
+    }
+
+    @Test
+    void answersJsonArrayBatchAndMapsPublisherFailures() throws Exception {
+        CompletableFuture<Void> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new PublisherBackpressureException(new IllegalStateException("busy")));
+        MockMvc mockMvc = buildMockMvc(
+                BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "1"),
+                new RecordingPublisher(failed)
+        );
+
+        mockMvc.perform(post("/bid-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + validPayload() + ", null]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0]").value(503))
+                .andExpect(jsonPath("$.items[1]").value(400));
+    }
+
+    @Test
+    void rejectsMalformedBatch() throws Exception {
+        MockMvc mockMvc = buildMockMvc(
+                BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "1"),
+                new RecordingPublisher(CompletableFuture.completedFuture(null))
+        );
+
+        mockMvc.perform(post("/bid-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status").value("bad request"));
+    }
+
     @Test
     void exposesHealthEndpoint() throws Exception {
         MockMvc mockMvc = buildMockMvc(
@@ -127,11 +200,190 @@ class BidReceiverControllerTest {
                 .andExpect(jsonPath("$.status").value("healthy"));
     }
 
+    @Test
+    void answersServiceUnavailableWhenDeliveryMissesTheDeadline() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(16, 10, 50, new SimpleMeterRegistry());
+        MockMvc mockMvc = buildMockMvc(
+                BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "1"),
+                new RecordingPublisher(new CompletableFuture<>()),
+                limiter
+        );
+
+        mockMvc.perform(post("/bid-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validPayload()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("kafka timeout"));
+        mockMvc.perform(post("/bid-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + validPayload() + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0]").value(503));
+    }
+
+    @Test
+    void turnsAwayRequestsBeyondTheAdmissionLimit() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(1, 10, 1000, new SimpleMeterRegistry());
+        MockMvc mockMvc = buildMockMvc(
+                BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "1"),
+                new RecordingPublisher(CompletableFuture.completedFuture(null)),
+                limiter
+        );
+
+        if (!limiter.tryAdmit()) {
+            throw new AssertionError("Expected the only permit to be free");
+        }
+        mockMvc.perform(post("/bid-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validPayload()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("overloaded"));
+        mockMvc.perform(get("/health"))
+                .andExpect(status().isOk());
+
+        limiter.release();
+        mockMvc.perform(post("/bid-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validPayload()))
+                .andExpect(status().isOk());
+        if (!limiter.tryAdmit()) {
+            throw new AssertionError("Expected the permit to be returned after the request");
+        }
+    }
+
+    @Test
+    void forksPrimaryAndShadowPublishesInStructuredExecution() throws Exception {
+        ShadowPublisher publisher = new ShadowPublisher(false);
+        MockMvc mockMvc = buildMockMvc(structuredSettings(), publisher);
+
+        mockMvc.perform(post("/bid-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validPayload()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("accepted"));
+        mockMvc.perform(post("/bid-requests")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(validPayload() + "\n{\"id\":\"req-2\"}\n" + validPayload() + "\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0]").value(200))
+                .andExpect(jsonPath("$.items[1]").value(400))
+                .andExpect(jsonPath("$.items[2]").value(200));
+
+        if (publisher.published.get() != 3 || publisher.shadowed.get() != 3) {
+            throw new AssertionError("Expected every accepted bid published and shadowed, got "
+                    + publisher.published + " and " + publisher.shadowed);
+        }
+        if (publisher.onVirtualThreads.get() != 6) {
+            throw new AssertionError("Expected every publish on a forked virtual thread");
+        }
+    }
+
+    @Test
+    void interruptsBlockedSubtasksAtTheDeadlineInStructuredExecution() throws Exception {
+        ShadowPublisher publisher = new ShadowPublisher(true);
+        AdmissionLimiter limiter = new AdmissionLimiter(16, 10, 50, new SimpleMeterRegistry());
+        MockMvc mockMvc = buildMockMvc(structuredSettings(), publisher, limiter);
+
+        mockMvc.perform(post("/bid-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validPayload()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("kafka timeout"));
+        if (!publisher.interrupted.await(0, TimeUnit.SECONDS)) {
+            throw new AssertionError("Expected the blocked shadow send to be interrupted before the response");
+        }
+
+        mockMvc.perform(post("/bid-requests")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + validPayload() + "]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0]").value(503));
+    }
+
+    @Test
+    void stampsTheReceiveTimeBeforeTheBodyIsRead() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(CompletableFuture.completedFuture(null));
+        AtomicLong readStartedAt = new AtomicLong();
+        // Stands in for a slow upload: the body only reaches the controller 50 ms after arrival.
+        Filter slowBody = (request, response, chain) -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            readStartedAt.set(System.currentTimeMillis());
+            chain.doFilter(request, response);
+        };
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new BidReceiverController(
+                        publisher,
+                        BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "all"),
+                        objectMapper,
+                        new AdmissionLimiter(16, 10, 1000, new SimpleMeterRegistry())
+                ))
+                .addFilters(new ArrivalTimeFilter(), slowBody)
+                .build();
+
+        mockMvc.perform(post("/bid-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validPayload()))
+                .andExpect(status().isOk());
+
+        if (publisher.lastReceivedAtMs == 0 || publisher.lastReceivedAtMs >= readStartedAt.get()) {
+            throw new AssertionError("Expected the receive timestamp to be taken before the body was read");
+        }
+    }
+
+    @Test
+    void startsTheDeliveryDeadlineAtArrival() throws Exception {
+        RecordingPublisher publisher = new RecordingPublisher(new CompletableFuture<>());
+        AtomicLong readStartedAt = new AtomicLong();
+        // The upload takes longer than the whole delivery budget.
+        Filter slowBody = (request, response, chain) -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            readStartedAt.set(System.nanoTime());
+            chain.doFilter(request, response);
+        };
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new BidReceiverController(
+                        publisher,
+                        BenchmarkSettings.forTests("confirm", "localhost:9092", "bids", "all"),
+                        objectMapper,
+                        new AdmissionLimiter(16, 10, 200, new SimpleMeterRegistry())
+                ))
+                .addFilters(new ArrivalTimeFilter(), slowBody)
+                .build();
+
+        mockMvc.perform(post("/bid-request")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(validPayload()))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status").value("kafka timeout"));
+
+        if (System.nanoTime() - readStartedAt.get() >= TimeUnit.MILLISECONDS.toNanos(150)) {
+            throw new AssertionError("Expected the deadline to have passed while the body was read");
+        }
+    }
+
+    private static BenchmarkSettings structuredSettings() {
+        return new BenchmarkSettings(new MockEnvironment()
+                .withProperty("benchmark.delivery.mode", "confirm")
+                .withProperty("benchmark.execution.mode", "structured")
+                .withProperty("benchmark.kafka.topic.shadow", "bids-shadow"));
+    }
+
     private MockMvc buildMockMvc(BenchmarkSettings settings, BidPublisher publisher) {
+        return buildMockMvc(settings, publisher, new AdmissionLimiter(16, 10, 1000, new SimpleMeterRegistry()));
+    }
+
+    private MockMvc buildMockMvc(BenchmarkSettings settings, BidPublisher publisher, AdmissionLimiter limiter) {
         return MockMvcBuilders.standaloneSetup(
-                        new BidReceiverController(publisher, settings, objectMapper)
+                        new BidReceiverController(publisher, settings, objectMapper, limiter)
                 )
                 .setControllerAdvice(new ApiExceptionHandler())
+                .addFilters(new ArrivalTimeFilter(), new AdmissionFilter(limiter))
                 .build();
     }
 
@@ -146,15 +398,68 @@ class BidReceiverControllerTest {
     private static final class RecordingPublisher implements BidPublisher {
         private final CompletableFuture<Void> result;
         private boolean lastConfirm;
+        private long lastReceivedAtMs;
+        private BidRequest lastRequest;
+        private int published;
 
         private RecordingPublisher(CompletableFuture<Void> result) {
             this.result = result;
         }
 
         @Override
-        public CompletableFuture<Void> publish(String key, byte[] payload, boolean confirm) {
+        public CompletableFuture<Void> publish(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm) {
             this.lastConfirm = confirm;
+            this.lastRequest = request;
+            this.lastReceivedAtMs = receivedAtMs;
+            this.published++;
             return result;
         }
     }
+
+    /**
+     * Counts publishes by kind and thread. With {@code blockShadow}, a shadow publish
+     * stands in for a send stuck on metadata until its thread is interrupted.
+     */
+    private static final class ShadowPublisher implements BidPublisher {
+        private final boolean blockShadow;
+        private final AtomicInteger published = new AtomicInteger();
+        private final AtomicInteger shadowed = new AtomicInteger();
+        private final AtomicInteger onVirtualThreads = new AtomicInteger();
+        private final CountDownLatch interrupted = new CountDownLatch(1);
+
+        private ShadowPublisher(boolean blockShadow) {
+            this.blockShadow = blockShadow;
+        }
+
+        @Override
+        public CompletableFuture<Void> publish(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm) {
+            published.incrementAndGet();
+            count(Thread.currentThread());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Void> publishShadow(BidRequest request, byte[] payload, long receivedAtMs, boolean confirm) {
+            shadowed.incrementAndGet();
+            count(Thread.currentThread());
+            if (blockShadow) {
+                try {
+                    new CountDownLatch(1).await();
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    CompletableFuture<Void> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(new PublisherUnavailableException(e));
+                    return failed;
+                }
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+
+        private void count(Thread thread) {
+            // MockMvc dispatches on the test's platform thread, so a virtual thread here is a forked task.
+            if (thread.isVirtual()) {
+                onVirtualThreads.incrementAndGet();
+            }
+        }
+    }
 }
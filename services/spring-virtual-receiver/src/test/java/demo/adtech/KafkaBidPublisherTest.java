@@ -0,0 +1,166 @@
+package demo.adtech;
+
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+class KafkaBidPublisherTest {
+
+    private static final byte[] PAYLOAD = "{}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void sendsOnTheRequestThreadByDefault() throws Exception {
+        BlockingProducer producer = new BlockingProducer();
+        producer.release.countDown();
+        KafkaBidPublisher publisher = new KafkaBidPublisher(settings(0, 8192), producer);
+        try {
+            Thread.ofVirtual().start(() -> publisher.publish(siteBid(), PAYLOAD, 1L, true).join()).join();
+
+            if (!producer.sendThread.get().isVirtual()) {
+                throw new AssertionError("Expected send on the request's virtual thread");
+            }
+        } finally {
+            publisher.close();
+        }
+    }
+
+    @Test
+    void movesSendOntoPlatformSenderThreads() throws Exception {
+        BlockingProducer producer = new BlockingProducer();
+        KafkaBidPublisher publisher = new KafkaBidPublisher(settings(2, 8192), producer);
+        try {
+            AtomicReference<CompletableFuture<Void>> delivery = new AtomicReference<>();
+            Thread.ofVirtual().start(() -> delivery.set(publisher.publish(siteBid(), PAYLOAD, 1L, true))).join();
+            if (!producer.entered.await(5, TimeUnit.SECONDS)) {
+                throw new AssertionError("Expected the record to reach the producer");
+            }
+            if (delivery.get().isDone()) {
+                throw new AssertionError("Expected the delivery to wait for the producer callback");
+            }
+
+            producer.release.countDown();
+            delivery.get().get(5, TimeUnit.SECONDS);
+            Thread sender = producer.sendThread.get();
+            if (sender.isVirtual() || !sender.getName().startsWith("kafka-sender-")) {
+                throw new AssertionError("Expected send on a platform sender thread but got " + sender);
+            }
+        } finally {
+            producer.release.countDown();
+            publisher.close();
+        }
+    }
+
+    @Test
+    void failsFastWhenTheSenderQueueIsFull() throws Exception {
+        BlockingProducer producer = new BlockingProducer();
+        KafkaBidPublisher publisher = new KafkaBidPublisher(settings(1, 1), producer);
+        try {
+            publisher.publish(siteBid(), PAYLOAD, 1L, true);
+            if (!producer.entered.await(5, TimeUnit.SECONDS)) {
+                throw new AssertionError("Expected the sender to pick up the first record");
+            }
+            // The only sender is stuck in send, so this one takes the only queue slot.
+            publisher.publish(siteBid(), PAYLOAD, 1L, true);
+
+            CompletableFuture<Void> rejected = publisher.publish(siteBid(), PAYLOAD, 1L, true);
+            try {
+                rejected.getNow(null);
+                throw new AssertionError("Expected a full sender queue to fail the publish at once");
+            } catch (CompletionException expected) {
+                if (!(expected.getCause() instanceof PublisherBackpressureException)) {
+                    throw new AssertionError("Expected backpressure but got " + expected.getCause());
+                }
+            }
+        } finally {
+            producer.release.countDown();
+            publisher.close();
+        }
+    }
+
+    @Test
+    void publishesShadowCopyWithTheSameKeyAndHeaders() {
+        MockProducer<String, byte[]> producer = new MockProducer<>(true, null, new StringSerializer(), new ByteArraySerializer());
+        KafkaBidPublisher publisher = new KafkaBidPublisher(new BenchmarkSettings(new MockEnvironment()
+                .withProperty("benchmark.delivery.mode", "confirm")
+                .withProperty("benchmark.kafka.topic", "bids")
+                .withProperty("benchmark.kafka.topic.shadow", "bids-shadow")), producer);
+        try {
+            publisher.publish(siteBid(), PAYLOAD, 1L, true).join();
+            publisher.publishShadow(siteBid(), PAYLOAD, 1L, true).join();
+
+            ProducerRecord<String, byte[]> primary = producer.history().get(0);
+            ProducerRecord<String, byte[]> shadow = producer.history().get(1);
+            if (!"bids".equals(primary.topic()) || !"bids-shadow".equals(shadow.topic())) {
+                throw new AssertionError("Expected the copy on the shadow topic, got " + shadow.topic());
+            }
+            if (!primary.key().equals(shadow.key()) || !primary.headers().equals(shadow.headers())) {
+                throw new AssertionError("Expected the shadow copy to keep the key and headers");
+            }
+        } finally {
+            publisher.close();
+        }
+        if (!new KafkaBidPublisher(settings(0, 8192), producer).publishShadow(siteBid(), PAYLOAD, 1L, true).isDone()
+                || producer.history().size() != 2) {
+            throw new AssertionError("Expected no shadow copy without a shadow topic");
+        }
+    }
+
+    private static BenchmarkSettings settings(int senderThreads, int queueCapacity) {
+        return new BenchmarkSettings(new MockEnvironment()
+                .withProperty("benchmark.delivery.mode", "confirm")
+                .withProperty("benchmark.kafka.sender.threads", Integer.toString(senderThreads))
+                .withProperty("benchmark.kafka.sender.queue-capacity", Integer.toString(queueCapacity)));
+    }
+
+    private static BidRequest siteBid() {
+        BidRequest request = new BidRequest();
+        request.id = "req-1";
+        request.site = new BidRequest.Site();
+        request.site.id = "site-1";
+        request.device = new BidRequest.Device();
+        request.device.ip = "1.2.3.4";
+        return request;
+    }
+
+    /**
+     * Stands in for a producer stuck on metadata or a full accumulator.
+     */
+    private static final class BlockingProducer extends MockProducer<String, byte[]> {
+
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicReference<Thread> sendThread = new AtomicReference<>();
+
+        BlockingProducer() {
+            super(true, null, new StringSerializer(), new ByteArraySerializer());
+        }
+
+        @Override
+        public Future<RecordMetadata> send(ProducerRecord<String, byte[]> record, Callback callback) {
+            sendThread.compareAndSet(null, Thread.currentThread());
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (callback != null) {
+                callback.onCompletion(null, null);
+            }
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+}